@@ -0,0 +1,104 @@
+package com.redpup.bracketbuster.bench;
+
+import com.google.common.collect.ImmutableList;
+import com.redpup.bracketbuster.model.Lineup;
+import com.redpup.bracketbuster.model.LineupWeightType;
+import com.redpup.bracketbuster.model.MatchupMatrix;
+import com.redpup.bracketbuster.model.Matchups;
+import com.redpup.bracketbuster.model.proto.MatchupList;
+import com.redpup.bracketbuster.util.Pair;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Random;
+
+/**
+ * Shared inputs of the benchmarks, so every benchmark measures the same data.
+ *
+ * <p>Matchups are read from {@link #MATCHUPS_PATH}, or the path in the {@value
+ * #MATCHUPS_PROPERTY} system property if set. Random choices are seeded, so every run and every
+ * commit measures the same lineups.
+ */
+public final class BenchmarkData {
+
+  /**
+   * The matchups benchmarked by default, the same as {@code Runner#main}.
+   */
+  public static final Path MATCHUPS_PATH = Paths.get("src", "main", "resources", "stats_new.csv");
+
+  /**
+   * System property overriding {@link #MATCHUPS_PATH}.
+   */
+  public static final String MATCHUPS_PROPERTY = "bracketbuster.bench.matchups";
+
+  /**
+   * The seed of every random choice.
+   */
+  public static final long SEED = 0x5EED;
+
+  private BenchmarkData() {
+  }
+
+  /**
+   * Returns the path of the benchmarked matchups.
+   */
+  public static Path matchupsPath() {
+    String path = System.getProperty(MATCHUPS_PROPERTY);
+    return path == null ? MATCHUPS_PATH : Paths.get(path);
+  }
+
+  /**
+   * Reads the benchmarked matchups.
+   */
+  public static MatchupList readMatchupList() throws IOException {
+    return Matchups.readMatchupList(matchupsPath());
+  }
+
+  /**
+   * Reads the benchmarked matchups into a matrix.
+   */
+  public static MatchupMatrix readMatchupMatrix() throws IOException {
+    return MatchupMatrix.fromProto(readMatchupList());
+  }
+
+  /**
+   * Returns {@code count} random player and opponent lineups of {@code matchups}, as pairs. If
+   * {@code playable}, only pairs that can play each other are returned.
+   */
+  public static ImmutableList<Pair<Lineup, Lineup>> randomPairs(MatchupMatrix matchups, int count,
+      boolean playable) {
+    ImmutableList<Lineup> players = matchups.createAllValidPlayerLineups();
+    ImmutableList<Lineup> opponents =
+        matchups.createWeightedValidOpponentLineups(LineupWeightType.AVERAGE).keySet().asList();
+    Random random = new Random(SEED);
+    ImmutableList.Builder<Pair<Lineup, Lineup>> pairs = ImmutableList.builder();
+    int added = 0;
+    while (added < count) {
+      Lineup player = players.get(random.nextInt(players.size()));
+      Lineup opponent = opponents.get(random.nextInt(opponents.size()));
+      if (!playable || matchups.canPlay(player, opponent)) {
+        pairs.add(Pair.of(player, opponent));
+        added++;
+      }
+    }
+    return pairs.build();
+  }
+
+  /**
+   * Returns {@code count} random 3x3 payoff matrices with entries in {@code [0, 1]}.
+   */
+  public static ImmutableList<double[][]> randomGames(int count) {
+    Random random = new Random(SEED);
+    ImmutableList.Builder<double[][]> games = ImmutableList.builderWithExpectedSize(count);
+    for (int i = 0; i < count; i++) {
+      double[][] payoff = new double[3][3];
+      for (double[] row : payoff) {
+        for (int j = 0; j < row.length; j++) {
+          row[j] = random.nextDouble();
+        }
+      }
+      games.add(payoff);
+    }
+    return games.build();
+  }
+}
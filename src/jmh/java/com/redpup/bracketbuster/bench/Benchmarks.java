@@ -0,0 +1,36 @@
+package com.redpup.bracketbuster.bench;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of {@code target/benchmarks.jar}, built by the {@code benchmarks} maven profile.
+ *
+ * <p>Accepts the same arguments as {@code org.openjdk.jmh.Main}, e.g. a regex of benchmarks to
+ * run, but writes results as JSON to {@link #DEFAULT_RESULT_FILE} unless {@code -rf} or {@code
+ * -rff} say otherwise, so runs of different commits can be compared, e.g. with
+ * <a href="https://jmh.morethan.io">JMH Visualizer</a>.
+ */
+public final class Benchmarks {
+
+  /**
+   * The file results are written to by default.
+   */
+  public static final String DEFAULT_RESULT_FILE = "target/jmh-result.json";
+
+  private Benchmarks() {
+  }
+
+  public static void main(String[] args) throws Exception {
+    CommandLineOptions commandLine = new CommandLineOptions(args);
+    Options options = new OptionsBuilder()
+        .parent(commandLine)
+        .resultFormat(commandLine.getResultFormat().orElse(ResultFormatType.JSON))
+        .result(commandLine.getResult().orElse(DEFAULT_RESULT_FILE))
+        .build();
+    new Runner(options).run();
+  }
+}
@@ -0,0 +1,61 @@
+package com.redpup.bracketbuster.model;
+
+import com.google.common.collect.ImmutableList;
+import com.redpup.bracketbuster.bench.BenchmarkData;
+import com.redpup.bracketbuster.util.Pair;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks enumerating lineups of a {@link MatchupMatrix} and checking whether they can play.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MatchupMatrixBenchmark {
+
+  /**
+   * Number of lineup pairs cycled through. Must be a power of two.
+   */
+  private static final int PAIRS = 1024;
+
+  private MatchupMatrix matchups;
+  private Lineup[] players;
+  private Lineup[] opponents;
+  private int index;
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    matchups = BenchmarkData.readMatchupMatrix();
+    ImmutableList<Pair<Lineup, Lineup>> pairs =
+        BenchmarkData.randomPairs(matchups, PAIRS, /* playable= */ false);
+    players = pairs.stream().map(Pair::first).toArray(Lineup[]::new);
+    opponents = pairs.stream().map(Pair::second).toArray(Lineup[]::new);
+  }
+
+  @Benchmark
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  public ImmutableList<Lineup> createAllValidPlayerLineups() {
+    return matchups.createAllValidPlayerLineups();
+  }
+
+  @Benchmark
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  public boolean canPlay() {
+    index = (index + 1) & (PAIRS - 1);
+    return matchups.canPlay(players[index], opponents[index]);
+  }
+}
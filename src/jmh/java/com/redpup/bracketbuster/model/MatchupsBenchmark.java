@@ -0,0 +1,34 @@
+package com.redpup.bracketbuster.model;
+
+import com.redpup.bracketbuster.bench.BenchmarkData;
+import com.redpup.bracketbuster.model.proto.MatchupList;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks ingesting matchups from csv, without any cache.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MatchupsBenchmark {
+
+  @Benchmark
+  public MatchupList readMatchupListFromCsv() throws IOException {
+    return Matchups.readMatchupListFromCsv(BenchmarkData.matchupsPath());
+  }
+
+  @Benchmark
+  public MatchupMatrix readMatchupMatrixFromCsv() throws IOException {
+    return MatchupMatrix.fromProto(Matchups.readMatchupListFromCsv(BenchmarkData.matchupsPath()));
+  }
+}
@@ -0,0 +1,95 @@
+package com.redpup.bracketbuster.sim;
+
+import com.google.common.collect.ImmutableList;
+import com.redpup.bracketbuster.bench.BenchmarkData;
+import com.redpup.bracketbuster.model.Lineup;
+import com.redpup.bracketbuster.model.MatchupMatrix;
+import com.redpup.bracketbuster.util.Pair;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks a single matchup of {@link Calculations} and {@link FastCalculations}, cycling
+ * through a fixed set of playable random matchups.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CalculationsBenchmark {
+
+  /**
+   * Number of matchups cycled through. Must be a power of two.
+   */
+  private static final int MATCHUPS = 1024;
+
+  private MatchupMatrix matchups;
+  private FastCalculations fastCalculations;
+  private FastCalculations.Scratch scratch;
+  private Lineup[] players;
+  private Lineup[] opponents;
+  private int index;
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    matchups = BenchmarkData.readMatchupMatrix();
+    fastCalculations = new FastCalculations(matchups);
+    scratch = new FastCalculations.Scratch();
+    ImmutableList<Pair<Lineup, Lineup>> pairs =
+        BenchmarkData.randomPairs(matchups, MATCHUPS, /* playable= */ true);
+    players = pairs.stream().map(Pair::first).toArray(Lineup[]::new);
+    opponents = pairs.stream().map(Pair::second).toArray(Lineup[]::new);
+  }
+
+  /**
+   * Clears the metadata accumulated by the previous iteration, so it does not grow unbounded.
+   */
+  @Setup(Level.Iteration)
+  public void resetMetadata() {
+    for (Lineup player : players) {
+      player.resetMetadata();
+    }
+  }
+
+  private int next() {
+    index = (index + 1) & (MATCHUPS - 1);
+    return index;
+  }
+
+  @Benchmark
+  public double naive() {
+    int i = next();
+    return Calculations.winRateBestTwoOfThreeOneBanNaive(players[i], opponents[i], matchups);
+  }
+
+  @Benchmark
+  public double nash() {
+    int i = next();
+    return Calculations.winRateBestTwoOfThreeOneBanNash(players[i], opponents[i], matchups);
+  }
+
+  @Benchmark
+  public double fastNaive() {
+    int i = next();
+    return fastCalculations.winRateBestTwoOfThreeOneBanNaive(players[i], opponents[i], scratch);
+  }
+
+  @Benchmark
+  public double fastNash() {
+    int i = next();
+    return fastCalculations.winRateBestTwoOfThreeOneBanNash(players[i], opponents[i], scratch);
+  }
+}
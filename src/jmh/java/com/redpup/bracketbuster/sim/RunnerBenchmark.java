@@ -0,0 +1,67 @@
+package com.redpup.bracketbuster.sim;
+
+import com.google.common.collect.ImmutableList;
+import com.redpup.bracketbuster.bench.BenchmarkData;
+import com.redpup.bracketbuster.model.MatchupMatrix;
+import com.redpup.bracketbuster.sim.Calculations.CalculationType;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks an end to end {@link Runner#run()} over the benchmarked matchups, from lineup
+ * generation to output, configured as in {@link Runner#main(String[])}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RunnerBenchmark {
+
+  /**
+   * The {@link CalculationType}, by name as JMH cannot set package private types.
+   */
+  @Param({"NAIVE", "NASH"})
+  public String calculationType;
+
+  /**
+   * The pipeline parallelism, or {@code 0} to score against everyone on the calling thread.
+   */
+  @Param({"0", "4"})
+  public int pipelineParallelism;
+
+  private MatchupMatrix matchups;
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    matchups = BenchmarkData.readMatchupMatrix();
+  }
+
+  @Benchmark
+  public ImmutableList<Output> run() {
+    CollectingLogger logger = new CollectingLogger();
+    Runner.builder()
+        .setMatchupMatrix(matchups)
+        .setCalculationType(CalculationType.valueOf(calculationType))
+        .setSortType(SortType.WEIGHTED_MEAN_WIN_RATE)
+        .setTopKToPrintLimit(80)
+        .setPipelineParallelism(pipelineParallelism)
+        .setLogger(logger)
+        .build()
+        .run();
+    return logger.outputs();
+  }
+}
@@ -0,0 +1,140 @@
+package com.redpup.bracketbuster.sim;
+
+import com.google.common.collect.ImmutableList;
+import com.redpup.bracketbuster.model.Lineup;
+import com.redpup.bracketbuster.model.LineupTables;
+import com.redpup.bracketbuster.model.LineupWeightType;
+import com.redpup.bracketbuster.model.MatchupMatrix;
+import com.redpup.bracketbuster.model.SyntheticMatchups;
+import com.redpup.bracketbuster.sim.Calculations.CalculationType;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks how the engine scales with the number of decks, on matrices generated by {@link
+ * SyntheticMatchups}.
+ *
+ * <p>A full run grows as the square of the number of lineups, so is infeasible to benchmark at
+ * production sizes. Instead this measures lineup generation, and scoring a fixed sample of player
+ * lineups against every opponent lineup, whose matchup throughput is reported as the {@code
+ * matchups} counter. Run with {@code -prof gc} for the allocation rate of each, and see {@link
+ * ScalingReport} for retained memory and projected full run times.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+@State(Scope.Benchmark)
+public class ScalingBenchmark {
+
+  /**
+   * Number of player lineups scored per invocation of {@link #scorePlayerSample}.
+   */
+  static final int SAMPLE_PLAYERS = 16;
+
+  @Param({"20", "40", "60", "80", "100"})
+  public int deckCount;
+
+  /**
+   * The {@link CalculationType}, by name as JMH cannot set package private types.
+   */
+  @Param({"NAIVE", "NASH"})
+  public String calculationType;
+
+  private MatchupMatrix matchups;
+  private OpponentField opponents;
+  private ImmutableList<Lineup> samplePlayers;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    matchups = MatchupMatrix.fromProto(SyntheticMatchups.builder(deckCount).build().generate());
+    LineupTables tables = LineupTables.compute(matchups, LineupWeightType.AVERAGE);
+    opponents = OpponentField.of(matchups, tables.weightedOpponentLineups());
+    samplePlayers = samplePlayers(tables.playerLineups(), SAMPLE_PLAYERS);
+  }
+
+  /**
+   * Returns {@code count} of {@code players}, evenly spaced.
+   */
+  static ImmutableList<Lineup> samplePlayers(ImmutableList<Lineup> players, int count) {
+    ImmutableList.Builder<Lineup> sample = ImmutableList.builder();
+    for (int i = 0; i < count; i++) {
+      sample.add(players.get((int) ((long) i * players.size() / count)));
+    }
+    return sample.build();
+  }
+
+  /**
+   * Counts the matchups played by {@link #scorePlayerSample}, reported as a throughput.
+   */
+  @AuxCounters(AuxCounters.Type.OPERATIONS)
+  @State(Scope.Thread)
+  public static class MatchupCounter implements Logger {
+
+    public long matchups;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+      matchups = 0;
+    }
+
+    @Override
+    public void log(String message) {
+    }
+
+    @Override
+    public void setIteration(int i) {
+    }
+
+    @Override
+    public void setCurrentStep(String step) {
+    }
+
+    @Override
+    public void handleMatchups(int count) {
+      matchups += count;
+    }
+
+    @Override
+    public void handleOutput(Output output, Runner runner) {
+    }
+  }
+
+  /**
+   * Enumerates every player and weighted opponent lineup.
+   */
+  @Benchmark
+  public LineupTables generateLineups() {
+    return LineupTables.compute(matchups, LineupWeightType.AVERAGE);
+  }
+
+  /**
+   * Scores {@link #SAMPLE_PLAYERS} player lineups against every opponent lineup.
+   */
+  @Benchmark
+  public double scorePlayerSample(MatchupCounter counter) {
+    Runner runner = Runner.builder()
+        .setMatchupMatrix(matchups)
+        .setCalculationType(CalculationType.valueOf(calculationType))
+        .setLogger(counter)
+        .build();
+    double total = 0;
+    for (Lineup player : samplePlayers) {
+      total += runner.computeTotalWinRate(player, opponents).getWeightedMean();
+    }
+    return total;
+  }
+}
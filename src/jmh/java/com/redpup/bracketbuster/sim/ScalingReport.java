@@ -0,0 +1,86 @@
+package com.redpup.bracketbuster.sim;
+
+import com.google.common.collect.ImmutableList;
+import com.redpup.bracketbuster.model.Lineup;
+import com.redpup.bracketbuster.model.LineupTables;
+import com.redpup.bracketbuster.model.LineupWeightType;
+import com.redpup.bracketbuster.model.MatchupMatrix;
+import com.redpup.bracketbuster.model.SyntheticMatchups;
+import com.redpup.bracketbuster.sim.Calculations.CalculationType;
+import java.util.Arrays;
+
+/**
+ * Prints throughput and memory curves of the engine as the number of decks grows, as csv, to find
+ * the scaling wall before production does.
+ *
+ * <p>For each deck count, generates a {@link SyntheticMatchups} matrix and reports the number of
+ * lineups, the heap retained by the lineups of a run, the matchup throughput of scoring a sample
+ * of player lineups on one thread, and the projected time of a full single threaded run. Deck
+ * counts default to {@code 20 40 60 80 100} and can be passed as arguments. Run from the
+ * benchmarks jar with {@code java -cp target/benchmarks.jar
+ * com.redpup.bracketbuster.sim.ScalingReport}.
+ */
+public final class ScalingReport {
+
+  private static final int[] DEFAULT_DECK_COUNTS = {20, 40, 60, 80, 100};
+  private static final int WARMUP_ROUNDS = 2;
+  private static final double NANOS_PER_SECOND = 1.0e9;
+  private static final double BYTES_PER_MB = 1 << 20;
+
+  private ScalingReport() {
+  }
+
+  public static void main(String[] args) {
+    int[] deckCounts = args.length == 0
+        ? DEFAULT_DECK_COUNTS
+        : Arrays.stream(args).mapToInt(Integer::parseInt).toArray();
+
+    System.out.println("calculation,decks,player_lineups,opponent_lineups,retained_mb,"
+        + "matchups_per_second,projected_full_run_seconds");
+    for (CalculationType calculationType : CalculationType.values()) {
+      for (int deckCount : deckCounts) {
+        report(calculationType, deckCount);
+      }
+    }
+  }
+
+  private static void report(CalculationType calculationType, int deckCount) {
+    MatchupMatrix matchups =
+        MatchupMatrix.fromProto(SyntheticMatchups.builder(deckCount).build().generate());
+
+    long heapBefore = usedHeapAfterGc();
+    ImmutableList<Lineup> players = matchups.createAllValidPlayerLineups();
+    OpponentField opponents = OpponentField.of(matchups,
+        matchups.createWeightedValidOpponentLineups(LineupWeightType.AVERAGE));
+    double retainedMb = Math.max(0, usedHeapAfterGc() - heapBefore) / BYTES_PER_MB;
+
+    ScalingBenchmark.MatchupCounter counter = new ScalingBenchmark.MatchupCounter();
+    Runner runner = Runner.builder()
+        .setMatchupMatrix(matchups)
+        .setCalculationType(calculationType)
+        .setLogger(counter)
+        .build();
+    ImmutableList<Lineup> sample =
+        ScalingBenchmark.samplePlayers(players, ScalingBenchmark.SAMPLE_PLAYERS);
+    for (int round = 0; round < WARMUP_ROUNDS; round++) {
+      sample.forEach(player -> runner.computeTotalWinRate(player, opponents));
+    }
+    counter.reset();
+    long start = System.nanoTime();
+    sample.forEach(player -> runner.computeTotalWinRate(player, opponents));
+    double seconds = (System.nanoTime() - start) / NANOS_PER_SECOND;
+
+    double matchupsPerSecond = counter.matchups / seconds;
+    double projectedMatchups = (double) counter.matchups / sample.size() * players.size();
+    System.out.printf("%s,%d,%d,%d,%.1f,%.0f,%.1f%n", calculationType, deckCount, players.size(),
+        opponents.size(), retainedMb, matchupsPerSecond, projectedMatchups / matchupsPerSecond);
+  }
+
+  private static long usedHeapAfterGc() {
+    Runtime runtime = Runtime.getRuntime();
+    for (int i = 0; i < 3; i++) {
+      System.gc();
+    }
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+}
@@ -0,0 +1,83 @@
+package com.redpup.bracketbuster.util;
+
+import com.redpup.bracketbuster.bench.BenchmarkData;
+import com.redpup.bracketbuster.util.DoublePriorityQueue.DoubleComparator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks {@link DoublePriorityQueue} operations on a queue of {@link #size} values.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DoublePriorityQueueBenchmark {
+
+  /**
+   * Number of values cycled through. Must be a power of two.
+   */
+  private static final int VALUES = 1 << 16;
+
+  @Param({"100", "10000"})
+  public int size;
+
+  private double[] values;
+  private DoublePriorityQueue queue;
+  private int index;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    values = new Random(BenchmarkData.SEED).doubles(VALUES).toArray();
+    queue = new DoublePriorityQueue(size + 1, DoubleComparator.ascending());
+    for (int i = 0; i < size; i++) {
+      queue.offer(values[i]);
+    }
+  }
+
+  /**
+   * Offers a value then polls the head, keeping the queue at {@link #size}.
+   */
+  @Benchmark
+  public double offerPoll() {
+    index = (index + 1) & (VALUES - 1);
+    queue.offer(values[index]);
+    return queue.poll();
+  }
+
+  @Benchmark
+  public double peek() {
+    return queue.peek();
+  }
+
+  /**
+   * Fills a new queue with {@link #size} values then polls every one.
+   */
+  @Benchmark
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  public double fillAndDrain() {
+    DoublePriorityQueue fresh = new DoublePriorityQueue(size, DoubleComparator.ascending());
+    for (int i = 0; i < size; i++) {
+      fresh.offer(values[i]);
+    }
+    double sum = 0;
+    while (!fresh.isEmpty()) {
+      sum += fresh.poll();
+    }
+    return sum;
+  }
+}
@@ -0,0 +1,66 @@
+package com.redpup.bracketbuster.util;
+
+import com.redpup.bracketbuster.bench.BenchmarkData;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks accumulating a {@link WeightedDoubleMetric} of {@link #size} weighted win rates, as
+ * when scoring one player lineup against {@link #size} opponents.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class WeightedDoubleMetricBenchmark {
+
+  @Param({"100", "1000", "10000"})
+  public int size;
+
+  private double[] values;
+  private double[] weights;
+  private WeightedDoubleMetric.Builder filled;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    Random random = new Random(BenchmarkData.SEED);
+    values = random.doubles(size).toArray();
+    weights = random.doubles(size, Double.MIN_NORMAL, 1).toArray();
+    filled = addAll();
+  }
+
+  /**
+   * Adds every value to a new builder.
+   */
+  @Benchmark
+  public WeightedDoubleMetric.Builder addAll() {
+    WeightedDoubleMetric.Builder builder = WeightedDoubleMetric.builder();
+    for (int i = 0; i < size; i++) {
+      builder.add(values[i], weights[i]);
+    }
+    return builder;
+  }
+
+  /**
+   * Builds a builder holding every value.
+   */
+  @Benchmark
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  public WeightedDoubleMetric build() {
+    return filled.build();
+  }
+}
@@ -0,0 +1,46 @@
+package lib.princeton;
+
+import com.redpup.bracketbuster.bench.BenchmarkData;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks solving random 3x3 games, the size of every ban game of a matchup.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TwoPersonZeroSumGameBenchmark {
+
+  /**
+   * Number of games cycled through. Must be a power of two.
+   */
+  private static final int GAMES = 1024;
+
+  private double[][][] games;
+  private int index;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    games = BenchmarkData.randomGames(GAMES).toArray(new double[0][][]);
+  }
+
+  @Benchmark
+  public double solve3x3() {
+    index = (index + 1) & (GAMES - 1);
+    return new TwoPersonZeroSumGame(games[index]).value();
+  }
+}
@@ -0,0 +1,512 @@
+package com.redpup.bracketbuster.model;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+
+import com.google.common.collect.ImmutableList;
+import com.google.protobuf.util.JsonFormat;
+import com.redpup.bracketbuster.model.proto.GameId;
+import com.redpup.bracketbuster.model.proto.GameLogAggregateMessage;
+import com.redpup.bracketbuster.model.proto.GameRecord;
+import com.redpup.bracketbuster.model.proto.MatchupList;
+import com.redpup.bracketbuster.model.proto.MatchupMessage;
+import com.redpup.bracketbuster.util.Pair;
+import com.redpup.bracketbuster.util.Strings;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPInputStream;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Mutable wins and games of every pair of decks, aggregated from raw game logs.
+ *
+ * <p>Each game is counted once from each side: the game adds one game to both {@code deck1 vs
+ * deck2} and {@code deck2 vs deck1}, and one win to the side that won. A mirror game therefore adds
+ * two games and one win to its deck against itself.
+ *
+ * <p>Game logs are either csv, with a header naming at least the {@code matchId}, {@code deck1},
+ * {@code deck2} and {@code winner} columns and optionally {@code game}, or JSON lines of {@link
+ * GameRecord} (files ending in {@code .jsonl} or {@code .json}). Either may be gzipped, with a
+ * {@code .gz} suffix. Logs are reduced in parallel: uncompressed logs are split into byte ranges as
+ * in {@link LongFormatMatchups}, so a single large log is spread across threads, while gzipped
+ * logs are read one file per task. Each task reduces its games to partial counts, which are then
+ * merged in log and range order.
+ *
+ * <p>Every game is identified by its match id and game number. A game already counted, from any
+ * log, is skipped, so overlapping exports are counted once. The aggregate remembers the file name
+ * of every log and the id of every game it has ingested, and can be saved and reloaded with {@link
+ * #write(Path)} and {@link #read(Path)}, so a new day's logs are appended without re-reading
+ * history. Game ids are never forgotten, so the aggregate and its file grow by one id per game
+ * ingested; start a new aggregate to drop them. Not thread safe.
+ */
+public final class GameLogAggregate {
+
+  private static final JsonFormat.Parser JSON_PARSER = JsonFormat.parser().ignoringUnknownFields();
+
+  /**
+   * Ingests logs into the aggregate file at the first argument, creating it if missing. Remaining
+   * arguments are the logs to ingest.
+   */
+  public static void main(String[] args) throws IOException {
+    checkArgument(args.length >= 2, "Expected aggregateFile log..., found %s",
+        Arrays.toString(args));
+    Path aggregatePath = Paths.get(args[0]);
+    GameLogAggregate aggregate = Files.exists(aggregatePath) ? read(aggregatePath) : create();
+    aggregate.addLogs(
+        Arrays.stream(args).skip(1).map(Paths::get).collect(toImmutableList()),
+        Runtime.getRuntime().availableProcessors());
+    aggregate.write(aggregatePath);
+  }
+
+  /**
+   * Returns a new empty {@link GameLogAggregate}.
+   */
+  public static GameLogAggregate create() {
+    return new GameLogAggregate();
+  }
+
+  /**
+   * Returns a new {@link GameLogAggregate} with the state of {@code message}.
+   */
+  public static GameLogAggregate fromProto(GameLogAggregateMessage message) {
+    GameLogAggregate aggregate = new GameLogAggregate();
+    for (MatchupMessage matchup : message.getMatchupsList()) {
+      aggregate.increment(matchup.getPlayer(), matchup.getOpponent(), matchup.getWins(),
+          matchup.getGames());
+    }
+    aggregate.sources.addAll(message.getSourcesList());
+    for (GameId game : message.getGamesList()) {
+      aggregate.games.add(Pair.of(game.getMatchId(), game.getGame()));
+    }
+    return aggregate;
+  }
+
+  /**
+   * Reads a {@link GameLogAggregate} written by {@link #write(Path)}.
+   */
+  public static GameLogAggregate read(Path path) throws IOException {
+    try (InputStream in = Files.newInputStream(path)) {
+      return fromProto(GameLogAggregateMessage.parseFrom(in));
+    }
+  }
+
+  /**
+   * Wins and games of each ordered pair of decks.
+   */
+  private final Map<Pair<String, String>, long[]> counts = new HashMap<>();
+  private final Set<String> sources = new LinkedHashSet<>();
+
+  /**
+   * The match id and game number of every game counted. Grows by one id per game ingested, and is
+   * persisted with the aggregate so that later logs can skip games already counted.
+   */
+  private final Set<Pair<String, Integer>> games = new HashSet<>();
+  private long duplicateGames;
+
+  private GameLogAggregate() {
+  }
+
+  /**
+   * Returns the file names of every log ingested so far, in ingestion order.
+   */
+  public ImmutableList<String> sources() {
+    return ImmutableList.copyOf(sources);
+  }
+
+  /**
+   * Returns the number of games skipped since this aggregate was created or read, because a game
+   * with the same match id and game number was already counted.
+   */
+  public long duplicateGames() {
+    return duplicateGames;
+  }
+
+  /**
+   * Adds the single game {@code record}, unless a game with the same match id and game number was
+   * already counted.
+   */
+  public GameLogAggregate addGame(GameRecord record) {
+    Partial partial = new Partial();
+    partial.add(record);
+    merge(partial);
+    return this;
+  }
+
+  /**
+   * Reads every log in {@code paths} using {@code parallelism} threads and adds their games, in
+   * order. Each log must not have been ingested before.
+   */
+  public GameLogAggregate addLogs(List<Path> paths, int parallelism) throws IOException {
+    checkArgument(parallelism > 0, "Expected positive parallelism, found %s", parallelism);
+    Set<String> names = new LinkedHashSet<>();
+    for (Path path : paths) {
+      String name = path.getFileName().toString();
+      checkArgument(!sources.contains(name) && names.add(name), "Log %s already ingested", name);
+    }
+
+    ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+    try {
+      List<List<Future<Partial>>> logs = new ArrayList<>();
+      for (Path path : paths) {
+        logs.add(submitLog(executor, path, parallelism));
+      }
+      // Merge in log and range order, so the same games are skipped however logs are split.
+      for (int i = 0; i < paths.size(); i++) {
+        for (Future<Partial> range : logs.get(i)) {
+          merge(getRange(range));
+        }
+        sources.add(paths.get(i).getFileName().toString());
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    return this;
+  }
+
+  /**
+   * Returns the aggregated games as a {@link MatchupList}. Every deck is both a player and an
+   * opponent, and each opponent's play rate is its share of deck appearances across all games.
+   */
+  public MatchupList toMatchupList() {
+    Map<String, Long> appearances = new TreeMap<>();
+    long totalAppearances = 0;
+    for (Map.Entry<Pair<String, String>, long[]> entry : counts.entrySet()) {
+      appearances.merge(entry.getKey().first(), entry.getValue()[1], Long::sum);
+      totalAppearances += entry.getValue()[1];
+    }
+
+    MatchupList.Builder builder = MatchupList.newBuilder()
+        .addAllMatchups(toMatchupMessages())
+        .addAllPlayers(appearances.keySet());
+    for (Map.Entry<String, Long> entry : appearances.entrySet()) {
+      builder.putOpponent(entry.getKey(), (double) entry.getValue() / totalAppearances);
+    }
+    return builder.build();
+  }
+
+  /**
+   * Returns the state of this aggregate as a proto.
+   */
+  public GameLogAggregateMessage toProto() {
+    return GameLogAggregateMessage.newBuilder()
+        .addAllMatchups(toMatchupMessages())
+        .addAllSources(sources)
+        .addAllGames(games.stream()
+            .sorted(Comparator.<Pair<String, Integer>, String>comparing(Pair::first)
+                .thenComparing(Pair::second))
+            .map(game -> GameId.newBuilder()
+                .setMatchId(game.first())
+                .setGame(game.second())
+                .build())
+            .collect(toImmutableList()))
+        .build();
+  }
+
+  /**
+   * Writes the state of this aggregate to {@code path}, replacing it atomically.
+   */
+  public void write(Path path) throws IOException {
+    Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+    try (OutputStream out = Files.newOutputStream(tmp)) {
+      toProto().writeTo(out);
+    }
+    Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  /**
+   * Returns a matchup for each ordered pair of decks, sorted by player then opponent.
+   */
+  private ImmutableList<MatchupMessage> toMatchupMessages() {
+    return counts.entrySet().stream()
+        .sorted(Map.Entry.comparingByKey(
+            Comparator.<Pair<String, String>, String>comparing(Pair::first)
+                .thenComparing(Pair::second)))
+        .map(entry -> MatchupMessage.newBuilder()
+            .setPlayer(entry.getKey().first())
+            .setOpponent(entry.getKey().second())
+            .setWins(Math.toIntExact(entry.getValue()[0]))
+            .setGames(Math.toIntExact(entry.getValue()[1]))
+            .build())
+        .collect(toImmutableList());
+  }
+
+  private void increment(String player, String opponent, long wins, long games) {
+    long[] count = counts.computeIfAbsent(Pair.of(player, opponent), k -> new long[2]);
+    count[0] += wins;
+    count[1] += games;
+  }
+
+  /**
+   * Adds the games of {@code partial} that were not already counted. {@code partial} is consumed.
+   */
+  private void merge(Partial partial) {
+    duplicateGames += partial.duplicateGames;
+    for (Map.Entry<Pair<String, Integer>, Partial.Game> game : partial.games.entrySet()) {
+      if (!games.add(game.getKey())) {
+        duplicateGames++;
+        partial.retract(game.getValue());
+      }
+    }
+    partial.counts.forEach((decks, count) -> {
+      if (count[1] > 0) {
+        increment(decks.first(), decks.second(), count[0], count[1]);
+      }
+    });
+  }
+  /**
+   * Submits the tasks parsing the log at {@code path} to {@code executor}: one per byte range of
+   * an uncompressed log, or a single task for a gzipped log.
+   */
+  private static List<Future<Partial>> submitLog(ExecutorService executor, Path path,
+      int parallelism) throws IOException {
+    String name = path.getFileName().toString();
+    String baseName = name.endsWith(".gz") ? name.substring(0, name.length() - 3) : name;
+    boolean json = baseName.endsWith(".jsonl") || baseName.endsWith(".json");
+    List<Future<Partial>> ranges = new ArrayList<>();
+
+    if (name.endsWith(".gz")) {
+      ranges.add(executor.submit(() -> readGzip(path, json)));
+      return ranges;
+    }
+
+    @Nullable CsvColumns columns = null;
+    if (!json) {
+      try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+        @Nullable String header = reader.readLine();
+        if (header == null) {
+          return ranges;
+        }
+        columns = CsvColumns.of(header);
+      }
+    }
+    long size = Files.size(path);
+    long rangeSize = LineRanges.rangeSize(size, parallelism);
+    for (long start = 0; start < size; start += rangeSize) {
+      long rangeStart = start;
+      long rangeEnd = Math.min(size, start + rangeSize);
+      @Nullable CsvColumns rangeColumns = columns;
+      ranges.add(executor.submit(() -> {
+        Partial partial = new Partial();
+        LineRanges.forEachLine(path, rangeStart, rangeEnd, rangeColumns != null,
+            line -> parseLine(line, rangeColumns, partial));
+        return partial;
+      }));
+    }
+    return ranges;
+  }
+
+  /**
+   * Returns the games reduced from {@code range}, rethrowing any failure.
+   */
+  private static Partial getRange(Future<Partial> range) throws IOException {
+    try {
+      return range.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while reading game logs", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      } else if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new IllegalStateException(e.getCause());
+    }
+  }
+
+  /**
+   * Reduces every game of the gzipped log at {@code path}, of JSON lines iff {@code json} and
+   * otherwise csv.
+   */
+  private static Partial readGzip(Path path, boolean json) throws IOException {
+    Partial partial = new Partial();
+    try (InputStream in = new GZIPInputStream(Files.newInputStream(path));
+        BufferedReader reader =
+            new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+      @Nullable CsvColumns columns = null;
+      if (!json) {
+        @Nullable String header = reader.readLine();
+        if (header == null) {
+          return partial;
+        }
+        columns = CsvColumns.of(header);
+      }
+      String line;
+      while ((line = reader.readLine()) != null) {
+        parseLine(line, columns, partial);
+      }
+    }
+    return partial;
+  }
+
+  /**
+   * Parses a single non-header {@code line} into {@code partial}: a csv row of {@code columns},
+   * or a JSON {@link GameRecord} if {@code columns} is null. Blank lines are skipped.
+   */
+  private static void parseLine(String line, @Nullable CsvColumns columns, Partial partial)
+      throws IOException {
+    if (line.isBlank()) {
+      return;
+    }
+    if (columns != null) {
+      partial.add(columns.parse(line));
+      return;
+    }
+    GameRecord.Builder record = GameRecord.newBuilder();
+    JSON_PARSER.merge(line, record);
+    partial.add(record.build());
+  }
+
+  /**
+   * The games of a single range of a log, reduced to counts on the thread that read them. Each
+   * game keeps the counts it was added to and its winner, so that a game already counted by an
+   * earlier range or log can be retracted when merging. Not thread safe.
+   */
+  private static final class Partial {
+
+    /**
+     * A single game added to a partial: the wins and games of each side it was counted in, and
+     * which side won.
+     */
+    private static final class Game {
+
+      private final long[] forward;
+      private final long[] backward;
+      private final int winner;
+
+      private Game(long[] forward, long[] backward, int winner) {
+        this.forward = forward;
+        this.backward = backward;
+        this.winner = winner;
+      }
+
+      /**
+       * Adds {@code sign} times this game to the counts of each side.
+       */
+      private void count(int sign) {
+        forward[0] += winner == 1 ? sign : 0;
+        forward[1] += sign;
+        backward[0] += winner == 2 ? sign : 0;
+        backward[1] += sign;
+      }
+    }
+
+    private final Map<Pair<String, String>, long[]> counts = new HashMap<>();
+    private final Map<Pair<String, Integer>, Game> games = new HashMap<>();
+    private long duplicateGames;
+
+    /**
+     * Adds the single game {@code record}, unless a game with the same match id and game number
+     * was already added to this partial.
+     */
+    private void add(GameRecord record) {
+      checkArgument(record.getWinner() == 1 || record.getWinner() == 2,
+          "Expected winner 1 or 2, found %s", record);
+      checkArgument(!record.getMatchId().isEmpty(), "Expected a match id, found %s", record);
+      Pair<String, Integer> id = Pair.of(record.getMatchId(), record.getGame());
+      if (games.containsKey(id)) {
+        duplicateGames++;
+        return;
+      }
+      String deck1 = Strings.sanitize(record.getDeck1());
+      String deck2 = Strings.sanitize(record.getDeck2());
+      Game game = new Game(
+          counts.computeIfAbsent(Pair.of(deck1, deck2), k -> new long[2]),
+          counts.computeIfAbsent(Pair.of(deck2, deck1), k -> new long[2]),
+          record.getWinner());
+      games.put(id, game);
+      game.count(1);
+    }
+
+    /**
+     * Removes {@code game}, which was added to this partial, from its counts.
+     */
+    private void retract(Game game) {
+      game.count(-1);
+    }
+  }
+
+  /**
+   * The index of each column of a csv game log, or {@code -1} for missing optional columns.
+   */
+  private static final class CsvColumns {
+
+    private final int size;
+    private final int matchId;
+    private final int game;
+    private final int deck1;
+    private final int deck2;
+    private final int winner;
+    private final int rank;
+    private final int timestamp;
+
+    /**
+     * Returns the columns named by {@code header}.
+     */
+    static CsvColumns of(String header) {
+      return new CsvColumns(Arrays.asList(header.trim().split(",")));
+    }
+
+    private CsvColumns(List<String> columns) {
+      size = columns.size();
+      matchId = requireColumn(columns, "matchId");
+      game = columns.indexOf("game");
+      deck1 = requireColumn(columns, "deck1");
+      deck2 = requireColumn(columns, "deck2");
+      winner = requireColumn(columns, "winner");
+      rank = columns.indexOf("rank");
+      timestamp = columns.indexOf("timestamp");
+    }
+
+    private static int requireColumn(List<String> columns, String column) {
+      int index = columns.indexOf(column);
+      checkArgument(index >= 0, "Expected column %s, found %s", column, columns);
+      return index;
+    }
+
+    /**
+     * Parses the single row {@code line}.
+     */
+    GameRecord parse(String line) {
+      String[] cells = line.trim().split(",", -1);
+      checkArgument(cells.length == size, "Expected %s columns, found %s", size, line);
+      GameRecord.Builder record = GameRecord.newBuilder()
+          .setMatchId(cells[matchId])
+          .setDeck1(cells[deck1])
+          .setDeck2(cells[deck2])
+          .setWinner(Integer.parseInt(cells[winner].trim()));
+      if (game >= 0 && !cells[game].isBlank()) {
+        record.setGame(Integer.parseInt(cells[game].trim()));
+      }
+      if (rank >= 0) {
+        record.setRank(cells[rank]);
+      }
+      if (timestamp >= 0 && !cells[timestamp].isBlank()) {
+        record.setTimestamp(Long.parseLong(cells[timestamp].trim()));
+      }
+      return record.build();
+    }
+  }
+}
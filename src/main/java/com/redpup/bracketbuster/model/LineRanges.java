@@ -0,0 +1,85 @@
+package com.redpup.bracketbuster.model;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads the lines of a text file in byte ranges, so one file can be parsed by several threads.
+ *
+ * <p>A file is split into ranges with {@link #rangeSize(long, int)}. Every line belongs to the
+ * range it starts in, so reading every range with {@link #forEachLine} visits every line exactly
+ * once, however the ranges cut through lines.
+ */
+final class LineRanges {
+
+  /**
+   * Size of the read buffer of each range.
+   */
+  private static final int BUFFER_SIZE = 1 << 16;
+
+  /**
+   * Handles a single line, without its line terminator.
+   */
+  @FunctionalInterface
+  interface LineHandler {
+
+    void handle(String line) throws IOException;
+  }
+
+  private LineRanges() {
+  }
+
+  /**
+   * Returns the size of each range when splitting {@code size} bytes into at most {@code
+   * parallelism} ranges.
+   */
+  static long rangeSize(long size, int parallelism) {
+    checkArgument(parallelism > 0, "Expected positive parallelism, found %s", parallelism);
+    return Math.max(1, (size + parallelism - 1) / parallelism);
+  }
+
+  /**
+   * Passes every line that starts within {@code [start, end)} of the file at {@code path} to
+   * {@code handler}, in order. If {@code header}, the first line of the file is skipped.
+   */
+  static void forEachLine(Path path, long start, long end, boolean header, LineHandler handler)
+      throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      // Start one byte early and skip through the first newline, so a line starting exactly at
+      // start is kept and a line straddling start belongs to the previous range.
+      long position = Math.max(0, start - 1);
+      channel.position(position);
+      InputStream in = new BufferedInputStream(Channels.newInputStream(channel), BUFFER_SIZE);
+      ByteArrayOutputStream line = new ByteArrayOutputStream();
+      boolean skipping = start > 0 || header;
+      int b;
+      while ((b = in.read()) != -1) {
+        position++;
+        if (b == '\n') {
+          if (!skipping) {
+            handler.handle(line.toString(StandardCharsets.UTF_8));
+          }
+          skipping = false;
+          line.reset();
+          if (position >= end) {
+            return;
+          }
+        } else if (!skipping) {
+          line.write(b);
+        }
+      }
+      if (!skipping) {
+        handler.handle(line.toString(StandardCharsets.UTF_8));
+      }
+    }
+  }
+}
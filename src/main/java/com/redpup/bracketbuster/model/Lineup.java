@@ -4,6 +4,7 @@ import static com.google.common.collect.ImmutableList.toImmutableList;
 
 import com.google.common.collect.ImmutableList;
 import com.google.errorprone.annotations.CanIgnoreReturnValue;
+import com.redpup.bracketbuster.model.proto.LineupMessage;
 import com.redpup.bracketbuster.util.Strings;
 import java.util.Arrays;
 import java.util.List;
@@ -34,6 +35,17 @@ public final class Lineup {
         new LineupMetadata(matchups.getNumDecks()));
   }
 
+  /**
+   * Returns a new Lineup from {@code message}, with its metadata restored. Deck names are resolved
+   * through {@code matchups}.
+   */
+  public static Lineup fromProto(MatchupMatrix matchups, LineupMessage message) {
+    return new Lineup(
+        message.getDecksList().stream().map(matchups::getHeaderIndex).collect(toImmutableList()),
+        message.getDecksList(),
+        LineupMetadata.fromProto(message.getMetadata(), matchups));
+  }
+
   private final ImmutableList<Integer> decks;
   private final ImmutableList<String> deckNames;
   private final LineupMetadata metadata;
@@ -96,6 +108,16 @@ public final class Lineup {
     return Strings.allComponentsUnique(deckNames);
   }
 
+  /**
+   * Converts this lineup and its metadata to a {@link LineupMessage}.
+   */
+  public LineupMessage toProto() {
+    return LineupMessage.newBuilder()
+        .addAllDecks(deckNames)
+        .setMetadata(metadata.toProto())
+        .build();
+  }
+
   /**
    * Returns a new {@link Lineup} that is a copy of this. This and the copy will have equivalent but
    * separate mutable state, so mutations on this will not affect copy and vice-versa.
@@ -1,11 +1,15 @@
 package com.redpup.bracketbuster.model;
 
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
 import static com.redpup.bracketbuster.util.Constants.NUM_BEST_WORST_MATCHUPS;
 import static com.redpup.bracketbuster.util.Pair.rightDoubleComparator;
 import static java.util.Comparator.comparingDouble;
 
 import com.google.common.collect.ImmutableMap;
 import com.google.errorprone.annotations.CanIgnoreReturnValue;
+import com.redpup.bracketbuster.model.proto.LineupMetadataMessage;
+import com.redpup.bracketbuster.model.proto.ScoredLineupMessage;
 import com.redpup.bracketbuster.util.Pair;
 import com.redpup.bracketbuster.util.WeightedDoubleMetric;
 import java.util.Arrays;
@@ -70,6 +74,16 @@ public final class LineupMetadata {
     return this;
   }
 
+  /**
+   * Decrements the count of playing against {@code deck}, retracting an earlier {@link
+   * #incrementPlayedAgainst(int)}. Returns self.
+   */
+  @CanIgnoreReturnValue
+  public LineupMetadata decrementPlayedAgainst(int deck) {
+    playedAgainst[deck]--;
+    return this;
+  }
+
   /**
    * Returns {@link #banned}. The result is defensively copied; mutations will not be reflected in
    * this metadata.
@@ -97,6 +111,26 @@ public final class LineupMetadata {
     return this;
   }
 
+  /**
+   * Decrements the count of banning {@code deck}, retracting an earlier {@link
+   * #incrementBanned(int)}. Returns self.
+   */
+  @CanIgnoreReturnValue
+  public LineupMetadata decrementBanned(int deck) {
+    banned[deck]--;
+    return this;
+  }
+
+  /**
+   * Decrements the count of banning {@code deck} by {@code amount}, retracting an earlier {@link
+   * #incrementBanned(int, double)} of the same amount. Returns self.
+   */
+  @CanIgnoreReturnValue
+  public LineupMetadata decrementBanned(int deck, double amount) {
+    banned[deck] -= roundBanAmount(amount);
+    return this;
+  }
+
   /**
    * Rounds {@code value} to be within one {@link #BAN_ERROR} of sig figs.
    */
@@ -134,19 +168,140 @@ public final class LineupMetadata {
 
     winRateMetricBuilder.add(unweightedWinRate, weight);
 
-    bestMatchups.add(Pair.of(opponent, unweightedWinRate));
-    worstMatchups.add(Pair.of(opponent, unweightedWinRate));
+    offerBestMatchup(Pair.of(opponent, unweightedWinRate));
+    offerWorstMatchup(Pair.of(opponent, unweightedWinRate));
+
+    return this;
+  }
 
+  /**
+   * Replaces the win rate metric of this metadata with {@code winRateMetric}, already built, and
+   * its best and worst matchups with the best and worst of {@code matchups}, keeping its played
+   * against and banned counts. For metadata kept up to date by its caller rather than through
+   * {@link #applyMatchup(Lineup, double, double)}. Returns self.
+   */
+  @CanIgnoreReturnValue
+  public LineupMetadata resetMatchups(WeightedDoubleMetric winRateMetric,
+      Iterable<Pair<Lineup, Double>> matchups) {
+    this.winRateMetric = winRateMetric;
+    winRateMetricBuilder = null;
+    bestMatchups.clear();
+    worstMatchups.clear();
+    for (Pair<Lineup, Double> matchup : matchups) {
+      offerBestMatchup(matchup);
+      offerWorstMatchup(matchup);
+    }
+    return this;
+  }
+
+  /**
+   * Offers {@code matchup} to {@link #bestMatchups}, dropping the least good matchup if necessary.
+   */
+  private void offerBestMatchup(Pair<Lineup, Double> matchup) {
+    bestMatchups.add(matchup);
     if (bestMatchups.size() > NUM_BEST_WORST_MATCHUPS) {
       bestMatchups.poll();
     }
+  }
+
+  /**
+   * Offers {@code matchup} to {@link #worstMatchups}, dropping the least bad matchup if necessary.
+   */
+  private void offerWorstMatchup(Pair<Lineup, Double> matchup) {
+    worstMatchups.add(matchup);
     if (worstMatchups.size() > NUM_BEST_WORST_MATCHUPS) {
       worstMatchups.poll();
     }
+  }
+
+  /**
+   * Combines all matchups applied to {@code other} into this metadata, as if they had been applied
+   * through {@link #applyMatchup(Lineup, double, double)} on this. {@code other} is not modified.
+   * Neither metadata may have had {@link #getWinRateMetric()} called yet. Returns self.
+   */
+  @CanIgnoreReturnValue
+  public LineupMetadata combine(LineupMetadata other) {
+    checkArgument(other != this, "Cannot combine metadata with itself.");
+    checkArgument(playedAgainst.length == other.playedAgainst.length,
+        "Expected %s decks, found %s", playedAgainst.length, other.playedAgainst.length);
+    checkState(winRateMetricBuilder != null && other.winRateMetricBuilder != null,
+        "Cannot combine metadata after its win rate metric has been built.");
+
+    winRateMetric = null;
+    winRateMetricBuilder.combine(other.winRateMetricBuilder);
+
+    for (int i = 0; i < playedAgainst.length; i++) {
+      playedAgainst[i] += other.playedAgainst[i];
+      banned[i] += other.banned[i];
+    }
+
+    other.bestMatchups.forEach(this::offerBestMatchup);
+    other.worstMatchups.forEach(this::offerWorstMatchup);
 
     return this;
   }
 
+  /**
+   * Converts this metadata to a {@link LineupMetadataMessage}. Should only be called before {@link
+   * #getWinRateMetric()}, as the partial win rate metric is serialized.
+   */
+  public LineupMetadataMessage toProto() {
+    checkState(winRateMetricBuilder != null,
+        "Cannot serialize metadata after its win rate metric has been built.");
+
+    LineupMetadataMessage.Builder builder = LineupMetadataMessage.newBuilder()
+        .setWinRate(winRateMetricBuilder.toProto());
+    Arrays.stream(playedAgainst).forEach(builder::addPlayedAgainst);
+    Arrays.stream(banned).forEach(builder::addBanned);
+    bestMatchups.forEach(p -> builder.addBestMatchups(toScoredLineupMessage(p)));
+    worstMatchups.forEach(p -> builder.addWorstMatchups(toScoredLineupMessage(p)));
+    return builder.build();
+  }
+
+  /**
+   * Returns a new {@link LineupMetadata} from {@code message}, resolving deck names through {@code
+   * matchups}.
+   */
+  static LineupMetadata fromProto(LineupMetadataMessage message, MatchupMatrix matchups) {
+    LineupMetadata metadata = new LineupMetadata(matchups.getNumDecks());
+    checkArgument(message.getPlayedAgainstCount() == matchups.getNumDecks()
+            && message.getBannedCount() == matchups.getNumDecks(),
+        "Expected %s decks, found %s played against and %s banned", matchups.getNumDecks(),
+        message.getPlayedAgainstCount(), message.getBannedCount());
+
+    for (int i = 0; i < matchups.getNumDecks(); i++) {
+      metadata.playedAgainst[i] = message.getPlayedAgainst(i);
+      metadata.banned[i] = message.getBanned(i);
+    }
+    metadata.winRateMetricBuilder = WeightedDoubleMetric.Builder.fromProto(message.getWinRate());
+    message.getBestMatchupsList()
+        .forEach(m -> metadata.offerBestMatchup(fromScoredLineupMessage(m, matchups)));
+    message.getWorstMatchupsList()
+        .forEach(m -> metadata.offerWorstMatchup(fromScoredLineupMessage(m, matchups)));
+    return metadata;
+  }
+
+  /**
+   * Converts {@code matchup} to a {@link ScoredLineupMessage}.
+   */
+  private static ScoredLineupMessage toScoredLineupMessage(Pair<Lineup, Double> matchup) {
+    return ScoredLineupMessage.newBuilder()
+        .addAllDecks(matchup.first().getDeckNames())
+        .setWinRate(matchup.second())
+        .build();
+  }
+
+  /**
+   * Converts {@code message} back to a matchup pair, resolving deck names through {@code
+   * matchups}.
+   */
+  private static Pair<Lineup, Double> fromScoredLineupMessage(ScoredLineupMessage message,
+      MatchupMatrix matchups) {
+    return Pair.of(
+        Lineup.ofDeckNames(matchups, message.getDecksList().toArray(new String[0])),
+        message.getWinRate());
+  }
+
   /**
    * Computes the {@link DoubleSummaryStatistics} for this metadata. Should only be called after all
    * matchups are applied through {@link #applyMatchup(Lineup, double, double)}, as this cleans up
@@ -160,6 +315,14 @@ public final class LineupMetadata {
     return winRateMetric;
   }
 
+  /**
+   * Returns the {@link WeightedDoubleMetric} of the matchups applied so far. Unlike {@link
+   * #getWinRateMetric()}, this keeps the builder, so more matchups may still be applied.
+   */
+  public WeightedDoubleMetric peekWinRateMetric() {
+    return winRateMetric != null ? winRateMetric : winRateMetricBuilder.build();
+  }
+
   /**
    * Resets this LineupMetadata, clearing all data. Returns self.
    */
@@ -234,9 +397,10 @@ public final class LineupMetadata {
   }
 
   /**
-   * Converts this to a string displaying the ban percentage of each deck played.
+   * Returns the fraction of games against each deck played in which that deck was banned, in
+   * descending order of ban percent.
    */
-  public String toBanPercentString(MatchupMatrix matchups) {
+  public ImmutableMap<String, Double> getBanPercents(MatchupMatrix matchups) {
     Map<String, Double> banPercents = new HashMap<>();
     for (int i = 0; i < matchups.getHeaders().size(); i++) {
       int plays = playedAgainst[i];
@@ -251,6 +415,15 @@ public final class LineupMetadata {
         .stream()
         .sorted(comparingDouble((ToDoubleFunction<Map.Entry<?, Double>>) Map.Entry::getValue)
             .reversed())
+        .collect(ImmutableMap.toImmutableMap(Map.Entry::getKey, Map.Entry::getValue));
+  }
+
+  /**
+   * Converts this to a string displaying the ban percentage of each deck played.
+   */
+  public String toBanPercentString(MatchupMatrix matchups) {
+    return getBanPercents(matchups).entrySet()
+        .stream()
         .map(e -> String.format("%s,%f,", e.getKey(), e.getValue()))
         .collect(Collectors.joining());
   }
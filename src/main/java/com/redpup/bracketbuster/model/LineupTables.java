@@ -0,0 +1,260 @@
+package com.redpup.bracketbuster.model;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.collect.ImmutableSet.toImmutableSet;
+import static com.redpup.bracketbuster.util.Constants.PLAYER_DECK_COUNT;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Streams;
+import com.google.common.primitives.Doubles;
+import com.google.common.primitives.Ints;
+import com.redpup.bracketbuster.model.proto.LineupTablesMessage;
+import com.redpup.bracketbuster.model.proto.MatchupList;
+import com.redpup.bracketbuster.model.proto.MatchupMessage;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * The valid player lineups and weighted opponent lineups of a {@link MatchupMatrix}, stored as
+ * flattened deck indices so they can be cached and rebuilt without re-enumerating every
+ * combination of decks.
+ *
+ * <p>Lineups carry mutable metadata, so {@link #playerLineups()} and {@link
+ * #weightedOpponentLineups()} return new lineups on every call.
+ */
+public final class LineupTables {
+
+  /**
+   * Enumerates the lineups of {@code matchups}, weighting opponents by {@code lineupWeightType}.
+   */
+  public static LineupTables compute(MatchupMatrix matchups, LineupWeightType lineupWeightType) {
+    ImmutableMap<Lineup, Double> opponents =
+        matchups.createWeightedValidOpponentLineups(lineupWeightType);
+    return new LineupTables(
+        matchups,
+        lineupWeightType,
+        flatten(matchups.createAllValidPlayerLineups()),
+        flatten(opponents.keySet()),
+        Doubles.toArray(opponents.values()));
+  }
+
+  /**
+   * Returns the {@link LineupTables} in {@code message}, whose deck indices refer to {@code
+   * matchups}. Throws if any deck index is not a header of {@code matchups}.
+   */
+  public static LineupTables fromProto(MatchupMatrix matchups, LineupTablesMessage message) {
+    checkArgument(message.getPlayerDecksCount() % PLAYER_DECK_COUNT == 0,
+        "Expected a multiple of %s player decks, found %s", PLAYER_DECK_COUNT,
+        message.getPlayerDecksCount());
+    checkArgument(message.getOpponentDecksCount()
+            == message.getOpponentWeightsCount() * PLAYER_DECK_COUNT,
+        "Expected %s decks per weight, found %s decks and %s weights", PLAYER_DECK_COUNT,
+        message.getOpponentDecksCount(), message.getOpponentWeightsCount());
+    checkDeckIndices(matchups, message.getPlayerDecksList());
+    checkDeckIndices(matchups, message.getOpponentDecksList());
+    return new LineupTables(
+        matchups,
+        LineupWeightType.valueOf(message.getLineupWeightType()),
+        Ints.toArray(message.getPlayerDecksList()),
+        Ints.toArray(message.getOpponentDecksList()),
+        Doubles.toArray(message.getOpponentWeightsList()));
+  }
+
+  /**
+   * Computes the lineups of every segment in {@code segments}, weighting opponents by {@code
+   * lineupWeightType}.
+   *
+   * <p>Every segment's matrix is built over the decks of all segments, so deck indices are shared
+   * between segments. Lineups are only enumerated for {@code allSegment}, whose players and
+   * opponents must include those of every other segment; the other segments' lineups are filtered
+   * from it with {@link #restrictTo(MatchupMatrix)}.
+   */
+  public static ImmutableMap<String, LineupTables> computeSegments(
+      Map<String, MatchupList> segments, String allSegment, LineupWeightType lineupWeightType) {
+    checkArgument(segments.containsKey(allSegment), "Segment %s not found in %s", allSegment,
+        segments.keySet());
+    ImmutableSet<String> decks = segments.values().stream()
+        .flatMap(list -> Streams.concat(
+            list.getMatchupsList().stream().map(MatchupMessage::getPlayer),
+            list.getMatchupsList().stream().map(MatchupMessage::getOpponent),
+            list.getPlayersList().stream(),
+            list.getOpponentMap().keySet().stream()))
+        .collect(toImmutableSet());
+
+    LineupTables all = compute(
+        MatchupMatrix.fromProto(segments.get(allSegment), decks), lineupWeightType);
+    ImmutableMap.Builder<String, LineupTables> tables = ImmutableMap.builder();
+    for (Map.Entry<String, MatchupList> segment : segments.entrySet()) {
+      tables.put(segment.getKey(), segment.getKey().equals(allSegment)
+          ? all
+          : all.restrictTo(MatchupMatrix.fromProto(segment.getValue(), decks)));
+    }
+    return tables.build();
+  }
+
+  /**
+   * Checks that every index in {@code decks} is a header of {@code matchups}.
+   */
+  private static void checkDeckIndices(MatchupMatrix matchups, List<Integer> decks) {
+    for (int deck : decks) {
+      checkArgument(deck >= 0 && deck < matchups.getNumDecks(),
+          "Deck index %s not found in %s decks", deck, matchups.getNumDecks());
+    }
+  }
+
+  private static int[] flatten(Iterable<Lineup> lineups) {
+    return Streams.stream(lineups)
+        .flatMap(lineup -> lineup.getDecks().stream())
+        .mapToInt(Integer::intValue)
+        .toArray();
+  }
+
+  private final MatchupMatrix matchups;
+  private final LineupWeightType lineupWeightType;
+  private final int[] playerDecks;
+  private final int[] opponentDecks;
+  private final double[] opponentWeights;
+
+  private LineupTables(MatchupMatrix matchups, LineupWeightType lineupWeightType,
+      int[] playerDecks, int[] opponentDecks, double[] opponentWeights) {
+    checkArgument(playerDecks.length % PLAYER_DECK_COUNT == 0,
+        "Expected a multiple of %s player decks, found %s", PLAYER_DECK_COUNT,
+        playerDecks.length);
+    this.matchups = matchups;
+    this.lineupWeightType = lineupWeightType;
+    this.playerDecks = playerDecks;
+    this.opponentDecks = opponentDecks;
+    this.opponentWeights = opponentWeights;
+  }
+
+  /**
+   * Returns the matrix these lineups refer to.
+   */
+  public MatchupMatrix matchups() {
+    return matchups;
+  }
+
+  /**
+   * Returns the weight type the opponent lineups were weighted with.
+   */
+  public LineupWeightType lineupWeightType() {
+    return lineupWeightType;
+  }
+
+  /**
+   * Returns the number of player lineups, without creating them.
+   */
+  public int playerLineupCount() {
+    return playerDecks.length / PLAYER_DECK_COUNT;
+  }
+
+  /**
+   * Returns new lineups equal to {@link MatchupMatrix#createAllValidPlayerLineups()}, in the same
+   * order.
+   */
+  public ImmutableList<Lineup> playerLineups() {
+    return toLineups(playerDecks);
+  }
+
+  /**
+   * Returns a lazy stream of new lineups equal to {@link #playerLineups()}, in the same order. Each
+   * lineup is only created once the stream reaches it.
+   */
+  public Stream<Lineup> streamPlayerLineups() {
+    return IntStream.range(0, playerLineupCount())
+        .mapToObj(i -> Lineup.ofDeckIndices(matchups,
+            Arrays.copyOfRange(playerDecks, i * PLAYER_DECK_COUNT, (i + 1) * PLAYER_DECK_COUNT)));
+  }
+
+  /**
+   * Returns new lineups equal to {@link MatchupMatrix#createWeightedValidOpponentLineups}, in the
+   * same order.
+   */
+  public ImmutableMap<Lineup, Double> weightedOpponentLineups() {
+    ImmutableList<Lineup> lineups = toLineups(opponentDecks);
+    ImmutableMap.Builder<Lineup, Double> builder =
+        ImmutableMap.builderWithExpectedSize(lineups.size());
+    for (int i = 0; i < lineups.size(); i++) {
+      builder.put(lineups.get(i), opponentWeights[i]);
+    }
+    return builder.build();
+  }
+
+  /**
+   * Returns the lineups of {@code segment}, computed by filtering these lineups rather than
+   * enumerating them again. Equal to {@link #compute(MatchupMatrix, LineupWeightType)} of {@code
+   * segment}, up to order.
+   *
+   * <p>{@code segment} must share this matrix's headers, and its players and opponents must be
+   * subsets of this matrix's.
+   */
+  public LineupTables restrictTo(MatchupMatrix segment) {
+    checkArgument(segment.getHeaders().equals(matchups.getHeaders()),
+        "Expected headers %s, found %s", matchups.getHeaders(), segment.getHeaders());
+    checkArgument(matchups.getPlayerHeaders().containsAll(segment.getPlayerHeaders()),
+        "Segment players %s not within %s", segment.getPlayerHeaders(),
+        matchups.getPlayerHeaders());
+    checkArgument(matchups.getOpponentHeaders().containsAll(segment.getOpponentHeaders()),
+        "Segment opponents %s not within %s", segment.getOpponentHeaders(),
+        matchups.getOpponentHeaders());
+
+    int[] segmentPlayerDecks = filter(playerDecks, segment.getPlayerHeaders(), segment);
+    int[] segmentOpponentDecks = filter(opponentDecks, segment.getOpponentHeaders(), segment);
+    double[] segmentOpponentWeights = new double[segmentOpponentDecks.length / PLAYER_DECK_COUNT];
+    for (int i = 0; i < segmentOpponentWeights.length; i++) {
+      segmentOpponentWeights[i] = lineupWeightType.collect(
+          Arrays.stream(segmentOpponentDecks, i * PLAYER_DECK_COUNT, (i + 1) * PLAYER_DECK_COUNT)
+              .mapToObj(segment::getHeaderName)
+              .mapToDouble(segment::getHeaderWeight));
+    }
+    return new LineupTables(segment, lineupWeightType, segmentPlayerDecks, segmentOpponentDecks,
+        segmentOpponentWeights);
+  }
+
+  /**
+   * Returns the lineups in {@code decks} whose decks are all in {@code allowed}.
+   */
+  private static int[] filter(int[] decks, Set<String> allowed, MatchupMatrix segment) {
+    IntStream.Builder filtered = IntStream.builder();
+    for (int i = 0; i < decks.length; i += PLAYER_DECK_COUNT) {
+      boolean keep = true;
+      for (int j = i; j < i + PLAYER_DECK_COUNT; j++) {
+        keep &= allowed.contains(segment.getHeaderName(decks[j]));
+      }
+      if (keep) {
+        for (int j = i; j < i + PLAYER_DECK_COUNT; j++) {
+          filtered.add(decks[j]);
+        }
+      }
+    }
+    return filtered.build().toArray();
+  }
+
+  /**
+   * Returns these tables as a proto.
+   */
+  public LineupTablesMessage toProto() {
+    return LineupTablesMessage.newBuilder()
+        .setLineupWeightType(lineupWeightType.name())
+        .addAllPlayerDecks(Ints.asList(playerDecks))
+        .addAllOpponentDecks(Ints.asList(opponentDecks))
+        .addAllOpponentWeights(Doubles.asList(opponentWeights))
+        .build();
+  }
+
+  private ImmutableList<Lineup> toLineups(int[] decks) {
+    ImmutableList.Builder<Lineup> lineups =
+        ImmutableList.builderWithExpectedSize(decks.length / PLAYER_DECK_COUNT);
+    for (int i = 0; i < decks.length; i += PLAYER_DECK_COUNT) {
+      lineups.add(
+          Lineup.ofDeckIndices(matchups, Arrays.copyOfRange(decks, i, i + PLAYER_DECK_COUNT)));
+    }
+    return lineups.build();
+  }
+}
@@ -74,6 +74,19 @@ public enum LineupWeightType {
     return finish(stream.reduce(identity(), this::combine));
   }
 
+  /**
+   * Returns the weight of {@code lineup} given the weight of each deck by index in {@code
+   * deckWeights}. Same as {@link #collect(DoubleStream)} of its deck weights, without boxing or
+   * looking up deck names.
+   */
+  public final double weigh(Lineup lineup, double[] deckWeights) {
+    double weight = identity();
+    for (int i = 0; i < lineup.getDecks().size(); i++) {
+      weight = combine(weight, deckWeights[lineup.getDeck(i)]);
+    }
+    return finish(weight);
+  }
+
   /**
    * Returns a {@link Collector} that applies this weight type to a stream.
    */
@@ -0,0 +1,305 @@
+package com.redpup.bracketbuster.model;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.auto.value.AutoValue;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.redpup.bracketbuster.model.proto.MatchupList;
+import com.redpup.bracketbuster.model.proto.MatchupMessage;
+import com.redpup.bracketbuster.util.Pair;
+import com.redpup.bracketbuster.util.Strings;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Reads the long format matchup csv, with one row per matchup per rank bracket:
+ *
+ * <pre>
+ *   playerDeck,opponentDeck,ID 1,ID 2,Filter,Rank,playerDeck,opponentDeck,muWin,muGames,muWR
+ * </pre>
+ *
+ * <p>Only the full deck names (the second {@code playerDeck, opponentDeck} pair), {@code Filter},
+ * {@code Rank}, {@code muWin} and {@code muGames} are read. Most matchups are exported twice per
+ * {@code Filter} and {@code Rank}, once from each side (the {@code ID 1} and {@code ID 2} rows),
+ * so rows are de-duplicated on the unordered pair of decks plus {@code Filter} and {@code Rank}.
+ * The row listing the alphabetically first deck as the player is preferred, so results don't
+ * depend on row order. Surviving rows are summed per pair of decks into true wins and games.
+ *
+ * <p>The file is split into byte ranges that are streamed and parsed in parallel, so memory scales
+ * with the number of distinct matchups rather than the number of rows. {@link #readSegments(Path,
+ * int)} additionally partitions rows by {@code Rank} in the same pass.
+ */
+public final class LongFormatMatchups {
+
+  /**
+   * Expected first line of a long format csv.
+   */
+  static final String HEADER =
+      "playerDeck,opponentDeck,ID 1,ID 2,Filter,Rank,playerDeck,opponentDeck,muWin,muGames,muWR";
+
+  /**
+   * Name of the segment containing every rank in {@link #readSegments(Path, int)}.
+   */
+  public static final String ALL_SEGMENT = "all";
+
+  private static final int COLUMN_COUNT = 11;
+  private static final int FILTER = 4;
+  private static final int RANK = 5;
+  private static final int PLAYER = 6;
+  private static final int OPPONENT = 7;
+  private static final int WINS = 8;
+  private static final int GAMES = 9;
+
+  private LongFormatMatchups() {
+  }
+
+  /**
+   * Returns true iff the first line of the file at {@code path} is the long format header.
+   */
+  public static boolean isLongFormat(Path path) throws IOException {
+    try (BufferedReader reader = Files.newBufferedReader(path)) {
+      String header = reader.readLine();
+      return header != null && header.trim().equals(HEADER);
+    }
+  }
+
+  /**
+   * Reads the long format csv at {@code path} into a {@link MatchupList}, using one chunk per
+   * available processor. See {@link #read(Path, int)}.
+   */
+  public static MatchupList read(Path path) throws IOException {
+    return read(path, Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * Reads the long format csv at {@code path} into a {@link MatchupList}, split into {@code
+   * parallelism} chunks read concurrently.
+   *
+   * <p>The result contains a matchup in each direction for every pair of decks with at least one
+   * game. Every deck is both a player and an opponent, and each opponent's play rate is its share
+   * of deck appearances across all games, so play rates sum to 1.
+   */
+  public static MatchupList read(Path path, int parallelism) throws IOException {
+    return toMatchupList(readSamples(path, parallelism).entrySet());
+  }
+
+  /**
+   * Reads the long format csv at {@code path} into one {@link MatchupList} per {@code Rank}, plus
+   * one of every rank under {@link #ALL_SEGMENT}, in a single pass of {@code parallelism} chunks.
+   * Each list is built as in {@link #read(Path, int)}, from only the rows of its segment. Segments
+   * are ordered with {@link #ALL_SEGMENT} first, then by rank.
+   */
+  public static ImmutableMap<String, MatchupList> readSegments(Path path, int parallelism)
+      throws IOException {
+    Map<SampleKey, Sample> samples = readSamples(path, parallelism);
+    Map<String, List<Map.Entry<SampleKey, Sample>>> byRank = new TreeMap<>();
+    for (Map.Entry<SampleKey, Sample> entry : samples.entrySet()) {
+      byRank.computeIfAbsent(entry.getKey().rank(), k -> new ArrayList<>()).add(entry);
+    }
+    checkArgument(!byRank.containsKey(ALL_SEGMENT), "Rank %s is reserved", ALL_SEGMENT);
+
+    ImmutableMap.Builder<String, MatchupList> segments = ImmutableMap.builder();
+    segments.put(ALL_SEGMENT, toMatchupList(samples.entrySet()));
+    byRank.forEach((rank, entries) -> segments.put(rank, toMatchupList(entries)));
+    return segments.build();
+  }
+
+  /**
+   * Reads every de-duplicated row of the long format csv at {@code path}, split into {@code
+   * parallelism} chunks read concurrently.
+   */
+  private static Map<SampleKey, Sample> readSamples(Path path, int parallelism)
+      throws IOException {
+    checkArgument(parallelism > 0, "Expected positive parallelism, found %s", parallelism);
+    checkArgument(isLongFormat(path), "Expected header %s in %s", HEADER, path);
+
+    long size = Files.size(path);
+    long chunkSize = LineRanges.rangeSize(size, parallelism);
+    ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+    List<Future<Map<SampleKey, Sample>>> chunks = new ArrayList<>();
+    try {
+      for (long start = 0; start < size; start += chunkSize) {
+        long chunkStart = start;
+        long chunkEnd = Math.min(size, start + chunkSize);
+        chunks.add(executor.submit(() -> readChunk(path, chunkStart, chunkEnd)));
+      }
+
+      // Merge in chunk order, so ties between duplicate rows resolve in file order.
+      Map<SampleKey, Sample> samples = new HashMap<>();
+      for (Future<Map<SampleKey, Sample>> chunk : chunks) {
+        getChunk(chunk).forEach((key, sample) -> samples.merge(key, sample, Sample::preferred));
+      }
+      return samples;
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Returns the result of {@code chunk}, rethrowing any failure.
+   */
+  private static Map<SampleKey, Sample> getChunk(Future<Map<SampleKey, Sample>> chunk)
+      throws IOException {
+    try {
+      return chunk.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while reading matchups", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof UncheckedIOException) {
+        throw ((UncheckedIOException) e.getCause()).getCause();
+      } else if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      } else if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new IllegalStateException(e.getCause());
+    }
+  }
+
+  /**
+   * Parses every line that starts within {@code [start, end)} of the file at {@code path}. The
+   * first line of the file is the header and is skipped.
+   */
+  private static Map<SampleKey, Sample> readChunk(Path path, long start, long end)
+      throws IOException {
+    Map<SampleKey, Sample> samples = new HashMap<>();
+    LineRanges.forEachLine(path, start, end, true, line -> parseLine(line, samples));
+    return samples;
+  }
+
+  /**
+   * Parses a single non-header {@code line} into {@code samples}.
+   */
+  private static void parseLine(String line, Map<SampleKey, Sample> samples) {
+    if (line.isBlank()) {
+      return;
+    }
+    String[] cells = line.trim().split(",", -1);
+    checkArgument(cells.length == COLUMN_COUNT, "Expected %s columns, found %s", COLUMN_COUNT,
+        line);
+
+    String player = Strings.sanitize(cells[PLAYER]);
+    String opponent = Strings.sanitize(cells[OPPONENT]);
+    int wins = Integer.parseInt(cells[WINS].trim());
+    int games = Integer.parseInt(cells[GAMES].trim());
+    checkArgument(wins >= 0 && wins <= games, "Expected 0 <= wins <= games, found %s", line);
+
+    boolean canonical = player.compareTo(opponent) <= 0;
+    SampleKey key = canonical
+        ? SampleKey.of(player, opponent, cells[FILTER], cells[RANK])
+        : SampleKey.of(opponent, player, cells[FILTER], cells[RANK]);
+    Sample sample = Sample.of(canonical ? wins : games - wins, games, canonical);
+    samples.merge(key, sample, Sample::preferred);
+  }
+
+  /**
+   * Sums {@code samples} per pair of decks and converts them to a {@link MatchupList}.
+   */
+  private static MatchupList toMatchupList(Collection<Map.Entry<SampleKey, Sample>> samples) {
+    Map<Pair<String, String>, long[]> totals = new TreeMap<>(
+        Comparator.<Pair<String, String>, String>comparing(Pair::first)
+            .thenComparing(Pair::second));
+    for (Map.Entry<SampleKey, Sample> entry : samples) {
+      long[] total = totals.computeIfAbsent(
+          Pair.of(entry.getKey().first(), entry.getKey().second()), k -> new long[2]);
+      total[0] += entry.getValue().wins();
+      total[1] += entry.getValue().games();
+    }
+
+    MatchupList.Builder builder = MatchupList.newBuilder();
+    Map<String, Long> appearances = new TreeMap<>();
+    long totalAppearances = 0;
+    for (Map.Entry<Pair<String, String>, long[]> entry : totals.entrySet()) {
+      String first = entry.getKey().first();
+      String second = entry.getKey().second();
+      long games = entry.getValue()[1];
+      if (games == 0) {
+        continue;
+      }
+      appearances.merge(first, games, Long::sum);
+      appearances.merge(second, games, Long::sum);
+      totalAppearances += 2 * games;
+
+      MatchupMessage matchup = MatchupMessage.newBuilder()
+          .setPlayer(first)
+          .setOpponent(second)
+          .setWins(Math.toIntExact(entry.getValue()[0]))
+          .setGames(Math.toIntExact(games))
+          .build();
+      builder.addMatchups(matchup);
+      if (!first.equals(second)) {
+        builder.addMatchups(Matchups.inverse(matchup));
+      }
+    }
+
+    ImmutableList<String> decks = ImmutableList.copyOf(appearances.keySet());
+    builder.addAllPlayers(decks);
+    for (Map.Entry<String, Long> entry : appearances.entrySet()) {
+      builder.putOpponent(entry.getKey(), (double) entry.getValue() / totalAppearances);
+    }
+    return builder.build();
+  }
+
+  /**
+   * A row's de-duplication key. {@link #first()} is alphabetically no later than {@link
+   * #second()}.
+   */
+  @AutoValue
+  abstract static class SampleKey {
+
+    static SampleKey of(String first, String second, String filter, String rank) {
+      return new AutoValue_LongFormatMatchups_SampleKey(first, second, filter, rank);
+    }
+
+    abstract String first();
+
+    abstract String second();
+
+    abstract String filter();
+
+    abstract String rank();
+  }
+
+  /**
+   * A row's results, with wins from the perspective of {@link SampleKey#first()}.
+   */
+  @AutoValue
+  abstract static class Sample {
+
+    static Sample of(int wins, int games, boolean canonical) {
+      return new AutoValue_LongFormatMatchups_Sample(wins, games, canonical);
+    }
+
+    abstract int wins();
+
+    abstract int games();
+
+    /**
+     * Whether this row listed {@link SampleKey#first()} as the player.
+     */
+    abstract boolean canonical();
+
+    /**
+     * Returns the sample to keep out of {@code existing} and a duplicate {@code next} of it.
+     */
+    static Sample preferred(Sample existing, Sample next) {
+      return !existing.canonical() && next.canonical() ? next : existing;
+    }
+  }
+}
@@ -0,0 +1,198 @@
+package com.redpup.bracketbuster.model;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.ImmutableMap.toImmutableMap;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Streams;
+import com.redpup.bracketbuster.model.proto.MatchupList;
+import com.redpup.bracketbuster.model.proto.MatchupMessage;
+import com.redpup.bracketbuster.util.Pair;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * A compact binary encoding of a {@link MatchupList}, read through a read-only memory map so that
+ * large matrices open without parsing and can share pages between concurrent processes. Read
+ * matrices are backed by the map itself, see {@link MatchupMatrix#fromCounts}. Matchups are only
+ * validated when written.
+ *
+ * <p>Layout, big endian:
+ * <ol>
+ *   <li>{@code int} magic {@code "BBMX"} and {@code int} version.
+ *   <li>Header table: {@code int numDecks}, then each deck name as an {@code int} byte length
+ *   followed by its UTF-8 bytes, in sorted order.
+ *   <li>Players: {@code int} count, then each player's {@code int} deck index.
+ *   <li>Opponents: {@code int} count, then each opponent's {@code int} deck index and {@code
+ *   double} play rate.
+ *   <li>Row-major {@code numDecks * numDecks} {@code int} games, then the same layout of {@code
+ *   int} wins. A cell with zero games has no matchup.
+ * </ol>
+ */
+public final class MatchupBinaryFormat {
+
+  /**
+   * "BBMX" in ASCII.
+   */
+  private static final int MAGIC = 0x42424D58;
+  private static final int VERSION = 1;
+
+  private MatchupBinaryFormat() {
+  }
+
+  /**
+   * Converts the csv at the first argument to the binary format at the second argument.
+   */
+  public static void main(String[] args) throws IOException {
+    checkArgument(args.length == 2, "Expected csvFile binaryFile, found %s",
+        Arrays.toString(args));
+    convertCsv(Paths.get(args[0]), Paths.get(args[1]));
+  }
+
+  /**
+   * Reads the csv at {@code csvPath} with {@link Matchups#readMatchupListFromCsv(Path)} and writes
+   * it to {@code binaryPath}.
+   */
+  public static void convertCsv(Path csvPath, Path binaryPath) throws IOException {
+    write(Matchups.readMatchupListFromCsv(csvPath), binaryPath);
+  }
+
+  /**
+   * Returns true iff the file at {@code path} starts with the magic number of this format.
+   */
+  public static boolean isBinary(Path path) throws IOException {
+    try (InputStream in = Files.newInputStream(path)) {
+      byte[] bytes = in.readNBytes(Integer.BYTES);
+      return bytes.length == Integer.BYTES && ByteBuffer.wrap(bytes).getInt() == MAGIC;
+    }
+  }
+
+  /**
+   * Writes {@code list} to {@code path}. Win rates are not stored, as they are derived from wins
+   * and games. Every matchup is validated here, so that {@link #read(Path)} need not.
+   */
+  public static void write(MatchupList list, Path path) throws IOException {
+    ImmutableList<String> decks =
+        Streams.concat(
+            list.getMatchupsList().stream().map(MatchupMessage::getPlayer),
+            list.getMatchupsList().stream().map(MatchupMessage::getOpponent),
+            list.getPlayersList().stream(),
+            list.getOpponentMap().keySet().stream())
+            .distinct()
+            .sorted()
+            .collect(toImmutableList());
+    int numDecks = decks.size();
+    ImmutableMap<String, Integer> deckIndices = Streams.mapWithIndex(decks.stream(), Pair::of)
+        .collect(toImmutableMap(Pair::first, p -> p.second().intValue()));
+
+    int[] games = new int[numDecks * numDecks];
+    int[] wins = new int[numDecks * numDecks];
+    for (MatchupMessage matchup : list.getMatchupsList()) {
+      checkArgument(matchup.getGames() > 0, "Expected positive games, found %s", matchup);
+      checkArgument(matchup.getWins() >= 0 && matchup.getWins() <= matchup.getGames(),
+          "Expected wins within games, found %s", matchup);
+      int index = deckIndices.get(matchup.getPlayer()) * numDecks
+          + deckIndices.get(matchup.getOpponent());
+      checkArgument(games[index] == 0
+              || (games[index] == matchup.getGames() && wins[index] == matchup.getWins()),
+          "Duplicate and disagreeing matchup %s", matchup);
+      games[index] = matchup.getGames();
+      wins[index] = matchup.getWins();
+    }
+
+    ImmutableList<byte[]> names = decks.stream()
+        .map(deck -> deck.getBytes(StandardCharsets.UTF_8))
+        .collect(toImmutableList());
+    int size = Integer.BYTES * 3
+        + names.stream().mapToInt(name -> Integer.BYTES + name.length).sum()
+        + Integer.BYTES * (1 + list.getPlayersCount())
+        + Integer.BYTES + (Integer.BYTES + Double.BYTES) * list.getOpponentCount()
+        + Integer.BYTES * 2 * numDecks * numDecks;
+
+    ByteBuffer buffer = ByteBuffer.allocate(size);
+    buffer.putInt(MAGIC);
+    buffer.putInt(VERSION);
+    buffer.putInt(numDecks);
+    for (byte[] name : names) {
+      buffer.putInt(name.length);
+      buffer.put(name);
+    }
+    buffer.putInt(list.getPlayersCount());
+    for (String player : list.getPlayersList()) {
+      buffer.putInt(deckIndices.get(player));
+    }
+    buffer.putInt(list.getOpponentCount());
+    for (Map.Entry<String, Double> opponent : list.getOpponentMap().entrySet()) {
+      buffer.putInt(deckIndices.get(opponent.getKey()));
+      buffer.putDouble(opponent.getValue());
+    }
+    buffer.asIntBuffer().put(games).put(wins);
+    buffer.position(size);
+    checkState(!buffer.hasRemaining(), "Buffer size mismatch: %s", buffer);
+
+    Files.write(path, buffer.array());
+  }
+
+  /**
+   * Reads the {@link MatchupMatrix} at {@code path}, which must have been written by {@link
+   * #write(MatchupList, Path)}. Games and wins are read in place from the memory map, and are not
+   * validated again.
+   */
+  public static MatchupMatrix read(Path path) throws IOException {
+    MappedByteBuffer buffer;
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+
+    checkState(buffer.getInt() == MAGIC, "Not a binary matchup file: %s", path);
+    int version = buffer.getInt();
+    checkState(version == VERSION, "Unsupported version %s in %s", version, path);
+
+    int numDecks = buffer.getInt();
+    String[] decks = new String[numDecks];
+    for (int i = 0; i < numDecks; i++) {
+      byte[] name = new byte[buffer.getInt()];
+      buffer.get(name);
+      decks[i] = new String(name, StandardCharsets.UTF_8);
+    }
+
+    int numPlayers = buffer.getInt();
+    ImmutableList.Builder<String> players = ImmutableList.builderWithExpectedSize(numPlayers);
+    for (int i = 0; i < numPlayers; i++) {
+      players.add(decks[buffer.getInt()]);
+    }
+    int numOpponents = buffer.getInt();
+    ImmutableMap.Builder<String, Double> opponents =
+        ImmutableMap.builderWithExpectedSize(numOpponents);
+    for (int i = 0; i < numOpponents; i++) {
+      opponents.put(decks[buffer.getInt()], buffer.getDouble());
+    }
+
+    int cells = numDecks * numDecks;
+    checkState(buffer.remaining() == Integer.BYTES * 2 * cells,
+        "Expected %s bytes of games and wins in %s, found %s", Integer.BYTES * 2 * cells, path,
+        buffer.remaining());
+    IntBuffer counts = buffer.slice().asIntBuffer();
+    IntBuffer games = counts.duplicate();
+    games.limit(cells);
+    IntBuffer wins = counts.duplicate();
+    wins.position(cells);
+
+    return MatchupMatrix.fromCounts(Arrays.asList(decks), players.build(), opponents.build(),
+        games, wins);
+  }
+}
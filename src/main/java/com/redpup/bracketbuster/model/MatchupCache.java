@@ -0,0 +1,115 @@
+package com.redpup.bracketbuster.model;
+
+import com.google.common.hash.Funnels;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.MoreFiles;
+import com.redpup.bracketbuster.model.proto.MatchupCacheMessage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * An on-disk cache of parsed matchup files and their {@link LineupTables}.
+ *
+ * <p>Entries are keyed by a SHA-256 hash of the input file's contents, the {@link
+ * LineupWeightType} and {@link #FORMAT_VERSION}, so editing the input or changing the weighting
+ * misses the cache. A hit skips parsing the input and enumerating lineups entirely. Entries are
+ * written to a temporary sibling and atomically moved into place, so concurrent runs sharing a
+ * cache directory never read a partial entry.
+ */
+public final class MatchupCache {
+
+  /**
+   * Version of the parsing and lineup enumeration logic. Bump to invalidate existing entries.
+   */
+  private static final int FORMAT_VERSION = 2;
+
+  private MatchupCache() {
+  }
+
+  /**
+   * Notified of every {@link #load} and whether it was served from the cache.
+   */
+  @FunctionalInterface
+  public interface Listener {
+
+    void loaded(boolean hit);
+  }
+
+  /**
+   * Returns the {@link LineupTables}, and through them the {@link MatchupMatrix}, of the matchup
+   * file at {@code input} weighted by {@code lineupWeightType}. Reads them from {@code
+   * cacheDirectory} if present, and otherwise parses {@code input} with {@link
+   * Matchups#readMatchupMatrix(Path)} and caches the result.
+   */
+  public static LineupTables load(Path input, Path cacheDirectory,
+      LineupWeightType lineupWeightType) throws IOException {
+    return load(input, cacheDirectory, lineupWeightType, hit -> {
+    });
+  }
+
+  /**
+   * As {@link #load(Path, Path, LineupWeightType)}, and notifies {@code listener} of whether the
+   * load hit the cache.
+   */
+  public static LineupTables load(Path input, Path cacheDirectory,
+      LineupWeightType lineupWeightType, Listener listener) throws IOException {
+    String key = key(input, lineupWeightType);
+    Path entry = cacheDirectory.resolve(key + ".pb");
+
+    if (Files.exists(entry)) {
+      MatchupCacheMessage message;
+      try (InputStream in = Files.newInputStream(entry)) {
+        message = MatchupCacheMessage.parseFrom(in);
+      }
+      if (message.getKey().equals(key)) {
+        // Rebuilt over the stored headers, so deck indices match the cached lineups even for
+        // decks without matchups.
+        MatchupMatrix matchups =
+            MatchupMatrix.fromProto(message.getMatchups(), message.getHeadersList());
+        if (matchups.getHeaders().equals(message.getHeadersList())) {
+          listener.loaded(true);
+          return LineupTables.fromProto(matchups, message.getLineupTables());
+        }
+      }
+    }
+
+    listener.loaded(false);
+    LineupTables tables =
+        LineupTables.compute(Matchups.readMatchupMatrix(input), lineupWeightType);
+    write(entry, MatchupCacheMessage.newBuilder()
+        .setKey(key)
+        .setMatchups(tables.matchups().toProto())
+        .setLineupTables(tables.toProto())
+        .addAllHeaders(tables.matchups().getHeaders())
+        .build());
+    return tables;
+  }
+
+  /**
+   * Returns the cache key of {@code input} weighted by {@code lineupWeightType}.
+   */
+  static String key(Path input, LineupWeightType lineupWeightType) throws IOException {
+    Hasher hasher = Hashing.sha256().newHasher()
+        .putInt(FORMAT_VERSION)
+        .putString(lineupWeightType.name(), StandardCharsets.UTF_8);
+    try (OutputStream out = Funnels.asOutputStream(hasher)) {
+      MoreFiles.asByteSource(input).copyTo(out);
+    }
+    return hasher.hash().toString();
+  }
+
+  private static void write(Path entry, MatchupCacheMessage message) throws IOException {
+    Files.createDirectories(entry.getParent());
+    Path tmp = Files.createTempFile(entry.getParent(), entry.getFileName().toString(), ".tmp");
+    try (OutputStream out = Files.newOutputStream(tmp)) {
+      message.writeTo(out);
+    }
+    Files.move(tmp, entry, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+}
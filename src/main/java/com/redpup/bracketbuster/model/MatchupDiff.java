@@ -0,0 +1,150 @@
+package com.redpup.bracketbuster.model;
+
+import static com.redpup.bracketbuster.util.Constants.PLAYER_DECK_COUNT;
+
+import com.google.common.collect.ImmutableSet;
+import java.util.BitSet;
+
+/**
+ * The deck level differences between two snapshots of a {@link MatchupMatrix}, such as two weekly
+ * data drops or the matrices before and after a balance patch.
+ *
+ * <p>The score of a player lineup against an opponent lineup only depends on the win rates of
+ * the player's decks into the opponent's decks, so the pair scores exactly the same in both
+ * snapshots unless one of those win rates changed, see {@link #isUnchanged(Lineup, Lineup)}.
+ * Results of unchanged pairs can be reused as long as both snapshots enumerate the same lineups,
+ * see {@link #isIncremental()}. Play rates only move the opponent weights, so changed play rates
+ * reweight reused results rather than invalidating them.
+ */
+public final class MatchupDiff {
+
+  /**
+   * Returns the differences from {@code before} to {@code after}.
+   */
+  public static MatchupDiff between(MatchupMatrix before, MatchupMatrix after) {
+    boolean sameHeaders = before.getHeaders().equals(after.getHeaders());
+    boolean sameLineupDecks = before.getPlayerHeaders().equals(after.getPlayerHeaders())
+        && before.getOpponentHeaders().equals(after.getOpponentHeaders());
+
+    ImmutableSet.Builder<String> changedDecks = ImmutableSet.builder();
+    BitSet changedCells = new BitSet(after.getNumDecks() * after.getNumDecks());
+    int changedMatchups = 0;
+    boolean samePlayRates = true;
+    if (sameHeaders) {
+      for (int player = 0; player < after.getNumDecks(); player++) {
+        for (int opponent = 0; opponent < after.getNumDecks(); opponent++) {
+          // Double.compare treats two missing (NaN) matchups as equal.
+          if (Double.compare(before.winRate(player, opponent), after.winRate(player, opponent))
+              != 0) {
+            changedMatchups++;
+            changedCells.set(player * after.getNumDecks() + opponent);
+            changedDecks.add(after.getHeaderName(player), after.getHeaderName(opponent));
+          }
+        }
+      }
+      for (String deck : after.getHeaders()) {
+        samePlayRates &=
+            Double.compare(before.getHeaderWeight(deck), after.getHeaderWeight(deck)) == 0;
+      }
+    } else {
+      changedDecks.addAll(before.getHeaders()).addAll(after.getHeaders());
+      changedMatchups = after.getNumDecks() * after.getNumDecks();
+      changedCells.set(0, changedMatchups);
+      samePlayRates = false;
+    }
+
+    return new MatchupDiff(sameHeaders && sameLineupDecks, !samePlayRates, changedDecks.build(),
+        changedCells, after.getNumDecks(), changedMatchups);
+  }
+
+  private final boolean incremental;
+  private final boolean playRatesChanged;
+  private final ImmutableSet<String> changedDecks;
+  private final BitSet changedCells;
+  private final int numDecks;
+  private final int changedMatchups;
+
+  private MatchupDiff(boolean incremental, boolean playRatesChanged,
+      ImmutableSet<String> changedDecks, BitSet changedCells, int numDecks, int changedMatchups) {
+    this.incremental = incremental;
+    this.playRatesChanged = playRatesChanged;
+    this.changedDecks = changedDecks;
+    this.changedCells = changedCells;
+    this.numDecks = numDecks;
+    this.changedMatchups = changedMatchups;
+  }
+
+  /**
+   * Returns true iff both snapshots have the same decks in the same order and the same player and
+   * opponent decks, so enumerate the same lineups. Only then can results of the earlier snapshot
+   * be reused, reweighted if {@link #playRatesChanged()}.
+   */
+  public boolean isIncremental() {
+    return incremental;
+  }
+
+  /**
+   * Returns true iff the play rate of any deck changed, so every opponent weight may have moved.
+   * If the snapshots have different decks, returns true.
+   */
+  public boolean playRatesChanged() {
+    return playRatesChanged;
+  }
+
+  /**
+   * Returns every deck with a changed win rate against any deck, on either side of the matchup.
+   * If the snapshots have different decks, returns every deck of both.
+   */
+  public ImmutableSet<String> changedDecks() {
+    return changedDecks;
+  }
+
+  /**
+   * Returns the number of ordered (player, opponent) matchups whose win rate changed.
+   */
+  public int changedMatchups() {
+    return changedMatchups;
+  }
+
+  /**
+   * Returns true iff the win rate of deck {@code player} into deck {@code opponent} changed, by
+   * header index of the later snapshot.
+   */
+  public boolean isChanged(int player, int opponent) {
+    return changedCells.get(player * numDecks + opponent);
+  }
+
+  /**
+   * Returns true iff {@code lineup} contains none of {@link #changedDecks()}, so scores the same
+   * against every opponent in both snapshots.
+   */
+  public boolean isUnchanged(Lineup lineup) {
+    return lineup.getDeckNames().stream().noneMatch(changedDecks::contains);
+  }
+
+  /**
+   * Returns true iff the win rate of no deck of {@code player} into any deck of {@code opponent}
+   * changed, so {@code player} scores the same against {@code opponent} in both snapshots. Both
+   * lineups must be of the later snapshot.
+   */
+  public boolean isUnchanged(Lineup player, Lineup opponent) {
+    for (int i = 0; i < PLAYER_DECK_COUNT; i++) {
+      for (int j = 0; j < PLAYER_DECK_COUNT; j++) {
+        if (isChanged(player.getDeck(i), opponent.getDeck(j))) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public String toString() {
+    return "MatchupDiff{" +
+        "incremental=" + incremental +
+        ", playRatesChanged=" + playRatesChanged +
+        ", changedDecks=" + changedDecks +
+        ", changedMatchups=" + changedMatchups +
+        '}';
+  }
+}
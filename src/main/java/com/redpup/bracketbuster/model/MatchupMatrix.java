@@ -13,9 +13,13 @@ import com.google.common.collect.Streams;
 import com.redpup.bracketbuster.model.proto.MatchupList;
 import com.redpup.bracketbuster.model.proto.MatchupMessage;
 import com.redpup.bracketbuster.util.Pair;
+import com.redpup.bracketbuster.util.QuantizedUnitTable;
+import java.nio.IntBuffer;
+import java.util.BitSet;
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
@@ -28,7 +32,17 @@ public final class MatchupMatrix {
    * Returns a new {@link MatchupMatrix} from the given {@code list}.
    */
   public static MatchupMatrix fromProto(MatchupList list) {
-    return new MatchupMatrix(list.getMatchupsList(), list.getPlayersList(), list.getOpponentMap());
+    return from(list.getMatchupsList(), list.getPlayersList(), list.getOpponentMap(),
+        ImmutableSet.of());
+  }
+
+  /**
+   * Returns a new {@link MatchupMatrix} from the given {@code list}, whose headers also include
+   * every deck in {@code decks}. Matrices built over the same {@code decks} share deck indices,
+   * even if their matchups cover different decks.
+   */
+  public static MatchupMatrix fromProto(MatchupList list, Collection<String> decks) {
+    return from(list.getMatchupsList(), list.getPlayersList(), list.getOpponentMap(), decks);
   }
 
   /**
@@ -36,30 +50,52 @@ public final class MatchupMatrix {
    */
   public static MatchupMatrix from(Collection<MatchupMessage> matchups, Collection<String> players,
       Map<String, Double> opponentsWithPlayRates) {
-    return new MatchupMatrix(matchups, players, opponentsWithPlayRates);
+    return from(matchups, players, opponentsWithPlayRates, ImmutableSet.of());
   }
 
-  private final ImmutableBiMap<String, Integer> headers;
-
-  private final ImmutableSet<String> playerHeaders;
-  private final ImmutableMap<String, Double> opponentHeadersAndPlayRates;
-  private final MatchupMessage[][] matchups;
+  /**
+   * Returns a new {@link MatchupMatrix} over {@code decks}, in sorted order, from row-major {@code
+   * decks.size() * decks.size()} {@code games} and {@code wins} counts. A cell with zero games has
+   * no matchup.
+   *
+   * <p>The counts are read in place rather than copied, so they may be views of a memory mapped
+   * file, and are trusted to be consistent: {@code 0 <= wins <= games} in every cell. They are
+   * validated when written, see {@link MatchupBinaryFormat#write}.
+   */
+  public static MatchupMatrix fromCounts(List<String> decks, Collection<String> players,
+      Map<String, Double> opponentsWithPlayRates, IntBuffer games, IntBuffer wins) {
+    int cells = decks.size() * decks.size();
+    checkArgument(games.remaining() == cells && wins.remaining() == cells,
+        "Expected %s games and wins, found %s and %s", cells, games.remaining(),
+        wins.remaining());
+    return new MatchupMatrix(
+        Streams.mapWithIndex(decks.stream(), Pair::of)
+            .collect(toImmutableBiMap(Pair::first, p -> p.second().intValue())),
+        players, opponentsWithPlayRates, games.slice(), wins.slice());
+  }
 
-  private MatchupMatrix(Collection<MatchupMessage> matchupsList, Collection<String> playerHeaders,
-      Map<String, Double> opponentHeadersWithPlayRates) {
-    headers =
+  /**
+   * Returns a new {@link MatchupMatrix} from {@code matchupsList}, whose headers are every deck of
+   * a matchup, a player or an opponent, plus every deck in {@code extraHeaders}. This is the same
+   * header rule as {@link MatchupBinaryFormat#write}. Checks that duplicate matchups agree.
+   */
+  private static MatchupMatrix from(Collection<MatchupMessage> matchupsList,
+      Collection<String> playerHeaders, Map<String, Double> opponentHeadersWithPlayRates,
+      Collection<String> extraHeaders) {
+    ImmutableBiMap<String, Integer> headers =
         Streams.mapWithIndex(
-            Stream.concat(
+            Streams.concat(
                 matchupsList.stream().map(MatchupMessage::getPlayer),
-                matchupsList.stream().map(MatchupMessage::getOpponent))
+                matchupsList.stream().map(MatchupMessage::getOpponent),
+                playerHeaders.stream(),
+                opponentHeadersWithPlayRates.keySet().stream(),
+                extraHeaders.stream())
                 .distinct()
                 .sorted(),
             Pair::of).collect(toImmutableBiMap(Pair::first, p -> p.second().intValue()));
-    this.playerHeaders = ImmutableSet.copyOf(playerHeaders);
-    this.opponentHeadersAndPlayRates = ImmutableMap.copyOf(opponentHeadersWithPlayRates);
-
-    matchups = new MatchupMessage[headers.size()][headers.size()];
 
+    int numDecks = headers.size();
+    MatchupMessage[] matchups = new MatchupMessage[numDecks * numDecks];
     for (MatchupMessage message : matchupsList) {
       Integer row = headers.get(message.getPlayer());
       Integer col = headers.get(message.getOpponent());
@@ -69,15 +105,85 @@ public final class MatchupMatrix {
 
       MatchupMessage messageWithWinRate = Matchups.populateWinRate(message);
 
-      if (matchups[row][col] == null) {
-        matchups[row][col] = messageWithWinRate;
+      int index = row * numDecks + col;
+      if (matchups[index] == null) {
+        matchups[index] = messageWithWinRate;
       } else {
-        checkArgument(matchups[row][col].equals(messageWithWinRate),
+        checkArgument(matchups[index].equals(messageWithWinRate),
             "Duplicate and disagreeing matchup %s vs %s.\nExisting: %s\nNew: %s",
             message.getPlayer(),
-            message.getOpponent(), matchups[row][col], messageWithWinRate);
+            message.getOpponent(), matchups[index], messageWithWinRate);
+      }
+    }
+
+    int[] games = new int[numDecks * numDecks];
+    int[] wins = new int[numDecks * numDecks];
+    for (int index = 0; index < matchups.length; index++) {
+      if (matchups[index] != null) {
+        games[index] = matchups[index].getGames();
+        wins[index] = matchups[index].getWins();
+      }
+    }
+    return new MatchupMatrix(headers, playerHeaders, opponentHeadersWithPlayRates,
+        IntBuffer.wrap(games), IntBuffer.wrap(wins));
+  }
+
+  private final ImmutableBiMap<String, Integer> headers;
+  private final int numDecks;
+
+  private final ImmutableSet<String> playerHeaders;
+  private final ImmutableMap<String, Double> opponentHeadersAndPlayRates;
+
+  /**
+   * Row-major {@code numDecks * numDecks} games and wins of each matchup, read by {@link
+   * #getMatchup(int, int)}. A cell with zero games has no matchup.
+   */
+  private final IntBuffer games;
+  private final IntBuffer wins;
+
+  /**
+   * Row-major {@code numDecks * numDecks} win rates, read by {@link #winRate(int, int)}. Missing
+   * matchups are {@link Double#NaN}.
+   */
+  private final double[] winRates;
+  /**
+   * Row-major presence of each matchup in {@link #winRates}.
+   */
+  private final BitSet present;
+  /**
+   * The play rate of each header by index, read by {@link #getHeaderWeight(int)}. Decks that are
+   * not opponents have weight {@code 0}.
+   */
+  private final double[] headerWeights;
+
+  private MatchupMatrix(ImmutableBiMap<String, Integer> headers, Collection<String> playerHeaders,
+      Map<String, Double> opponentHeadersWithPlayRates, IntBuffer games, IntBuffer wins) {
+    this.headers = headers;
+    this.numDecks = headers.size();
+    this.playerHeaders = ImmutableSet.copyOf(playerHeaders);
+    this.opponentHeadersAndPlayRates = ImmutableMap.copyOf(opponentHeadersWithPlayRates);
+    this.games = games;
+    this.wins = wins;
+
+    winRates = new double[numDecks * numDecks];
+    present = new BitSet(numDecks * numDecks);
+    for (int index = 0; index < winRates.length; index++) {
+      int indexGames = games.get(index);
+      if (indexGames == 0) {
+        winRates[index] = Double.NaN;
+      } else {
+        winRates[index] = Matchups.winRate(wins.get(index), indexGames);
+        present.set(index);
       }
     }
+
+    headerWeights = new double[numDecks];
+    opponentHeadersAndPlayRates.forEach((header, playRate) -> {
+      Integer index = headers.get(header);
+      if (index != null) {
+        headerWeights[index] = playRate;
+      }
+    });
   }
 
   /**
@@ -94,6 +200,20 @@ public final class MatchupMatrix {
     return headers.keySet().asList();
   }
 
+  /**
+   * Returns the decks that can be included in a player lineup.
+   */
+  public ImmutableSet<String> getPlayerHeaders() {
+    return playerHeaders;
+  }
+
+  /**
+   * Returns the decks that can be included in an opponent lineup.
+   */
+  public ImmutableSet<String> getOpponentHeaders() {
+    return opponentHeadersAndPlayRates.keySet();
+  }
+
   /**
    * Returns the index of the given {@code headerName}.
    */
@@ -122,11 +242,19 @@ public final class MatchupMatrix {
     return opponentHeadersAndPlayRates.getOrDefault(headerName, 0.0);
   }
 
+  /**
+   * Returns the weight of the header at {@code headerIndex}, as {@link #getHeaderWeight(String)}
+   * without looking up its name.
+   */
+  public double getHeaderWeight(int headerIndex) {
+    return headerWeights[headerIndex];
+  }
+
   /**
    * Returns true iff the given matchup has data.
    */
   public boolean hasMatchup(int player, int opponent) {
-    return matchups[player][opponent] != null;
+    return present.get(player * numDecks + opponent);
   }
 
   /**
@@ -142,15 +270,52 @@ public final class MatchupMatrix {
     return hasMatchup(row, col);
   }
 
+  /**
+   * Returns the win rate of {@code player} against {@code opponent}, or {@link Double#NaN} if there
+   * is no known matchup for these players.
+   *
+   * <p>Reads a flat primitive array without any checks, as this is the hottest method in a run.
+   * Behavior is undefined for decks outside {@code [0, getNumDecks())}. Use {@link #getMatchup(int,
+   * int)} for checked access to the full matchup data.
+   */
+  public double winRate(int player, int opponent) {
+    return winRates[player * numDecks + opponent];
+  }
+
+  /**
+   * Returns a compact copy of the win rates in this matrix, indexed by player then opponent. Each
+   * win rate is within {@link QuantizedUnitTable#MAX_ERROR} of {@link #winRate(int, int)}, and
+   * missing matchups are {@link Double#NaN}.
+   */
+  public QuantizedUnitTable quantizedWinRates() {
+    int numDecks = getNumDecks();
+    QuantizedUnitTable table = new QuantizedUnitTable(numDecks, numDecks);
+    for (int player = 0; player < numDecks; player++) {
+      for (int opponent = 0; opponent < numDecks; opponent++) {
+        table.set(player, opponent, winRate(player, opponent));
+      }
+    }
+    return table;
+  }
+
   /**
    * Returns the matchup data between {@code player} and {@code opponent}. May return null if there
    * is no known matchup for these players.
    */
   public @Nullable MatchupMessage getMatchup(int player, int opponent) {
-    checkArgument(player >= 0 && player < matchups.length, "Player OOB: %s", player);
-    checkArgument(opponent >= 0 && opponent < matchups.length, "Opponent OOB: %s", player);
+    checkArgument(player >= 0 && player < numDecks, "Player OOB: %s", player);
+    checkArgument(opponent >= 0 && opponent < numDecks, "Opponent OOB: %s", player);
 
-    return matchups[player][opponent];
+    int index = player * numDecks + opponent;
+    if (!present.get(index)) {
+      return null;
+    }
+    return Matchups.populateWinRate(MatchupMessage.newBuilder()
+        .setPlayer(getHeaderName(player))
+        .setOpponent(getHeaderName(opponent))
+        .setWins(wins.get(index))
+        .setGames(games.get(index))
+        .build());
   }
 
   /**
@@ -167,6 +332,24 @@ public final class MatchupMatrix {
     return getMatchup(row, col);
   }
 
+  /**
+   * Converts this matrix back into a {@link MatchupList}, with matchups in row-major order.
+   */
+  public MatchupList toProto() {
+    MatchupList.Builder list = MatchupList.newBuilder()
+        .addAllPlayers(playerHeaders)
+        .putAllOpponent(opponentHeadersAndPlayRates);
+    for (int player = 0; player < numDecks; player++) {
+      for (int opponent = 0; opponent < numDecks; opponent++) {
+        MatchupMessage matchup = getMatchup(player, opponent);
+        if (matchup != null) {
+          list.addMatchups(matchup);
+        }
+      }
+    }
+    return list.build();
+  }
+
   /**
    * Builds and returns a list of all valid {@link Lineup}s that can be build from this matchup data
    * for a player. Assumes lineups have size {@link com.redpup.bracketbuster.util.Constants#PLAYER_DECK_COUNT}.
@@ -184,6 +367,20 @@ public final class MatchupMatrix {
         .collect(toImmutableList());
   }
 
+  /**
+   * Lazily streams the same lineups as {@link #createAllValidPlayerLineups()}, without holding
+   * them all in memory. Lineups are enumerated as sorted combinations of deck indices, so no
+   * de-duplication is needed.
+   */
+  public Stream<Lineup> streamAllValidPlayerLineups() {
+    int[] decks = playerHeaders.stream().mapToInt(this::getHeaderIndex).sorted().toArray();
+    return IntStream.range(0, decks.length).boxed()
+        .flatMap(i -> IntStream.range(i + 1, decks.length).boxed()
+            .flatMap(j -> IntStream.range(j + 1, decks.length)
+                .mapToObj(k -> Lineup.ofDeckIndices(this, decks[i], decks[j], decks[k]))))
+        .filter(Lineup::isValid);
+  }
+
   /**
    * Builds and returns a list of all valid {@link Lineup}s that can be build from this matchup data
    * for a player. Assumes lineups have size {@link com.redpup.bracketbuster.util.Constants#PLAYER_DECK_COUNT}.
@@ -210,8 +407,15 @@ public final class MatchupMatrix {
       LineupWeightType lineupWeightType) {
     return Maps.toMap(
         createAllValidOpponentLineups(),
-        l -> lineupWeightType
-            .collect(l.getDeckNames().stream().mapToDouble(this::getHeaderWeight)));
+        l -> getLineupWeight(l, lineupWeightType));
+  }
+
+  /**
+   * Returns the play rates of {@code lineup}'s decks combined by {@code lineupWeightType}, as
+   * weighted in {@link #createWeightedValidOpponentLineups(LineupWeightType)}.
+   */
+  public double getLineupWeight(Lineup lineup, LineupWeightType lineupWeightType) {
+    return lineupWeightType.weigh(lineup, headerWeights);
   }
 
   /**
@@ -30,14 +30,20 @@ public final class Matchups {
   private Matchups() {
   }
 
+  /**
+   * Returns the win rate of {@code wins} out of {@code games}, rounded to {@link
+   * #WIN_RATE_SIG_FIGS} digits.
+   */
+  static double winRate(int wins, int games) {
+    return (double) (wins * WIN_RATE_ROUND_CONTEXT / games) / WIN_RATE_ROUND_CONTEXT;
+  }
+
   /**
    * Populates {@link MatchupMessage#getWinRate()} in the given message. If it is already set,
    * asserts that it is set correctly.
    */
   static MatchupMessage populateWinRate(MatchupMessage message) {
-    double winRate =
-        (double) (message.getWins() * WIN_RATE_ROUND_CONTEXT / message.getGames())
-            / WIN_RATE_ROUND_CONTEXT;
+    double winRate = winRate(message.getWins(), message.getGames());
     checkState(winRate >= 0 && winRate <= 1, "Found invalid winRate: %s.\nMessage: %s", winRate,
         message);
     if (message.getWinRate() == 0.0 && message.getWins() > 0) {
@@ -67,6 +73,32 @@ public final class Matchups {
     return builder.build();
   }
 
+  /**
+   * Reads all matchups from {@code path} into a {@link MatchupList}: a file written by {@link
+   * MatchupBinaryFormat}, a long format csv read by {@link LongFormatMatchups}, or a wide csv read
+   * by {@link #readMatchupListFromCsv(Path)}.
+   */
+  public static MatchupList readMatchupList(Path path) throws IOException {
+    if (MatchupBinaryFormat.isBinary(path)) {
+      return MatchupBinaryFormat.read(path).toProto();
+    } else if (LongFormatMatchups.isLongFormat(path)) {
+      return LongFormatMatchups.read(path);
+    }
+    return readMatchupListFromCsv(path);
+  }
+
+  /**
+   * Reads the {@link MatchupMatrix} of the matchup file at {@code path}, as {@link
+   * #readMatchupList(Path)} would. Files written by {@link MatchupBinaryFormat} are read straight
+   * from their memory map, without a {@link MatchupList} in between.
+   */
+  public static MatchupMatrix readMatchupMatrix(Path path) throws IOException {
+    if (MatchupBinaryFormat.isBinary(path)) {
+      return MatchupBinaryFormat.read(path);
+    }
+    return MatchupMatrix.fromProto(readMatchupList(path));
+  }
+
   /**
    * Reads all matchups from {@code path} into a {@link MatchupList}.
    */
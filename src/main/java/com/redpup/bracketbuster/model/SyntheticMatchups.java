@@ -0,0 +1,281 @@
+package com.redpup.bracketbuster.model;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.math.IntMath.binomial;
+import static com.redpup.bracketbuster.util.Constants.PLAYER_DECK_COUNT;
+
+import com.google.auto.value.AutoValue;
+import com.redpup.bracketbuster.model.proto.MatchupList;
+import com.redpup.bracketbuster.util.Strings;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * A deterministic generator of synthetic {@link MatchupList}s, to exercise the engine on matrices
+ * larger than any real data at hand.
+ *
+ * <p>Decks are named like real decks, {@code "Champion/Champion (Region/Region)"}, drawn from a
+ * pool of {@link #championCount()} champions and {@link #regionCount()} regions. Smaller pools
+ * make more decks share a champion or regions, so more lineups are filtered by {@link
+ * Lineup#isValid()}, as in real data. Win rates follow a hidden strength per deck plus noise, a
+ * {@link #sparsity()} fraction of matchups between distinct decks have no data, and play rates
+ * follow a power law of exponent {@link #playRateSkew()}.
+ *
+ * <p>The same configuration always generates the same list.
+ */
+@AutoValue
+public abstract class SyntheticMatchups {
+
+  /**
+   * Bounds of generated win rates, so no matchup is a sure thing.
+   */
+  private static final double MIN_WIN_RATE = 0.05;
+  private static final double MAX_WIN_RATE = 0.95;
+
+  /**
+   * Spread of the hidden deck strengths and of the noise of each matchup around them.
+   */
+  private static final double STRENGTH_STD_DEV = 0.05;
+  private static final double NOISE_STD_DEV = 0.08;
+
+  /**
+   * Bounds of the number of games recorded per matchup.
+   */
+  private static final int MIN_GAMES = 20;
+  private static final int MAX_GAMES = 400;
+
+  /**
+   * The number of distinct two letter region names.
+   */
+  private static final int MAX_REGIONS = 26 * 26;
+
+  SyntheticMatchups() {
+  }
+
+  /**
+   * Returns a new {@link Builder} generating {@code deckCount} decks. By default there are as many
+   * champions as decks, 10 regions, no missing matchups and play rates skewed by {@code 1}.
+   */
+  public static Builder builder(int deckCount) {
+    return new com.redpup.bracketbuster.model.AutoValue_SyntheticMatchups.Builder()
+        .setDeckCount(deckCount)
+        .setChampionCount(Math.max(deckCount, 4))
+        .setRegionCount(10)
+        .setSparsity(0)
+        .setPlayRateSkew(1)
+        .setSeed(0);
+  }
+
+  /**
+   * The number of decks, each of which is both a player and an opponent deck.
+   */
+  public abstract int deckCount();
+
+  /**
+   * The number of distinct champions decks are built from.
+   */
+  public abstract int championCount();
+
+  /**
+   * The number of distinct regions decks are built from.
+   */
+  public abstract int regionCount();
+
+  /**
+   * The fraction of matchups between distinct decks that have no data, in {@code [0, 1)}. Mirror
+   * matchups always have data.
+   */
+  public abstract double sparsity();
+
+  /**
+   * The exponent of the power law of play rates: the deck of popularity rank {@code r} is played
+   * proportionally to {@code 1 / r^playRateSkew}. {@code 0} plays every deck equally.
+   */
+  public abstract double playRateSkew();
+
+  /**
+   * The seed of every random choice.
+   */
+  public abstract long seed();
+
+  /**
+   * Returns a builder of this configuration.
+   */
+  public abstract Builder toBuilder();
+
+  /**
+   * Builder class for {@link SyntheticMatchups}.
+   */
+  @AutoValue.Builder
+  public static abstract class Builder {
+
+    Builder() {
+    }
+
+    /**
+     * Sets {@link #deckCount()}.
+     */
+    public abstract Builder setDeckCount(int deckCount);
+
+    /**
+     * Sets {@link #championCount()}.
+     */
+    public abstract Builder setChampionCount(int championCount);
+
+    /**
+     * Sets {@link #regionCount()}.
+     */
+    public abstract Builder setRegionCount(int regionCount);
+
+    /**
+     * Sets {@link #sparsity()}.
+     */
+    public abstract Builder setSparsity(double sparsity);
+
+    /**
+     * Sets {@link #playRateSkew()}.
+     */
+    public abstract Builder setPlayRateSkew(double playRateSkew);
+
+    /**
+     * Sets {@link #seed()}.
+     */
+    public abstract Builder setSeed(long seed);
+
+    abstract SyntheticMatchups autoBuild();
+
+    /**
+     * Builds this into a {@link SyntheticMatchups}, validating the configuration.
+     */
+    public SyntheticMatchups build() {
+      SyntheticMatchups matchups = autoBuild();
+      checkArgument(matchups.deckCount() >= PLAYER_DECK_COUNT,
+          "Expected at least %s decks, found %s", PLAYER_DECK_COUNT, matchups.deckCount());
+      checkArgument(matchups.championCount() >= 2 && matchups.regionCount() >= 2,
+          "Expected at least 2 champions and regions, found %s and %s",
+          matchups.championCount(), matchups.regionCount());
+      checkArgument(matchups.regionCount() <= MAX_REGIONS, "Expected at most %s regions, found %s",
+          MAX_REGIONS, matchups.regionCount());
+      checkArgument(
+          (long) binomial(matchups.championCount(), 2) * binomial(matchups.regionCount(), 2)
+              >= matchups.deckCount(),
+          "Cannot name %s distinct decks from %s champions and %s regions",
+          matchups.deckCount(), matchups.championCount(), matchups.regionCount());
+      checkArgument(matchups.sparsity() >= 0 && matchups.sparsity() < 1,
+          "Expected sparsity in [0, 1), found %s", matchups.sparsity());
+      checkArgument(matchups.playRateSkew() >= 0, "Expected non-negative skew, found %s",
+          matchups.playRateSkew());
+      return matchups;
+    }
+  }
+
+  /**
+   * Generates the {@link MatchupList} of this configuration.
+   *
+   * <p>Every deck is a player deck and an opponent deck. Play rates sum to {@link
+   * com.redpup.bracketbuster.util.Constants#PLAYER_DECK_COUNT}, one per deck of a lineup, like
+   * real data. Each matchup between distinct decks is recorded in both directions, with wins that
+   * sum to its games.
+   */
+  public MatchupList generate() {
+    Random random = new Random(seed());
+    List<String> decks = generateDeckNames(random);
+    double[] strengths = new double[deckCount()];
+    for (int i = 0; i < deckCount(); i++) {
+      strengths[i] = random.nextGaussian() * STRENGTH_STD_DEV;
+    }
+
+    MatchupList.Builder list = MatchupList.newBuilder().addAllPlayers(decks);
+    double[] playRates = generatePlayRates(random);
+    for (int i = 0; i < deckCount(); i++) {
+      list.putOpponent(decks.get(i), playRates[i]);
+    }
+
+    for (int i = 0; i < deckCount(); i++) {
+      int mirrorGames = nextGames(random);
+      list.addMatchupsBuilder()
+          .setPlayer(decks.get(i))
+          .setOpponent(decks.get(i))
+          .setGames(mirrorGames * 2)
+          .setWins(mirrorGames);
+      for (int j = i + 1; j < deckCount(); j++) {
+        if (random.nextDouble() < sparsity()) {
+          continue;
+        }
+        double winRate = Math.min(MAX_WIN_RATE, Math.max(MIN_WIN_RATE,
+            0.5 + strengths[i] - strengths[j] + random.nextGaussian() * NOISE_STD_DEV));
+        int games = nextGames(random);
+        int wins = (int) Math.round(winRate * games);
+        list.addMatchupsBuilder()
+            .setPlayer(decks.get(i))
+            .setOpponent(decks.get(j))
+            .setGames(games)
+            .setWins(wins);
+        list.addMatchupsBuilder()
+            .setPlayer(decks.get(j))
+            .setOpponent(decks.get(i))
+            .setGames(games)
+            .setWins(games - wins);
+      }
+    }
+    return list.build();
+  }
+
+  /**
+   * Returns {@link #deckCount()} distinct sanitized deck names, each of two distinct champions and
+   * two distinct regions.
+   */
+  private List<String> generateDeckNames(Random random) {
+    Set<String> decks = new LinkedHashSet<>();
+    while (decks.size() < deckCount()) {
+      int[] champions = random.ints(0, championCount()).distinct().limit(2).toArray();
+      int[] regions = random.ints(0, regionCount()).distinct().limit(2).toArray();
+      decks.add(Strings.sanitize(String.format("%s/%s (%s/%s)",
+          championName(champions[0]), championName(champions[1]), regionName(regions[0]),
+          regionName(regions[1]))));
+    }
+    return new ArrayList<>(decks);
+  }
+
+  private static String championName(int champion) {
+    return String.format("Champion%03d", champion);
+  }
+
+  /**
+   * Returns a two letter region name, like the abbreviations of real regions.
+   */
+  private static String regionName(int region) {
+    return String.format("%c%c", 'A' + region / 26, 'A' + region % 26);
+  }
+
+  /**
+   * Returns the play rate of each deck: a power law over a random popularity order, summing to
+   * {@link com.redpup.bracketbuster.util.Constants#PLAYER_DECK_COUNT}.
+   */
+  private double[] generatePlayRates(Random random) {
+    List<Integer> ranks = new ArrayList<>();
+    for (int i = 1; i <= deckCount(); i++) {
+      ranks.add(i);
+    }
+    Collections.shuffle(ranks, random);
+
+    double[] playRates = new double[deckCount()];
+    double total = 0;
+    for (int i = 0; i < deckCount(); i++) {
+      playRates[i] = 1 / Math.pow(ranks.get(i), playRateSkew());
+      total += playRates[i];
+    }
+    for (int i = 0; i < deckCount(); i++) {
+      playRates[i] *= PLAYER_DECK_COUNT / total;
+    }
+    return playRates;
+  }
+
+  private static int nextGames(Random random) {
+    return MIN_GAMES + random.nextInt(MAX_GAMES - MIN_GAMES + 1);
+  }
+}
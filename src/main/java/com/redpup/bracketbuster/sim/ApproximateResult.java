@@ -0,0 +1,75 @@
+package com.redpup.bracketbuster.sim;
+
+import com.google.auto.value.AutoValue;
+import com.google.common.collect.ImmutableMap;
+import com.redpup.bracketbuster.model.Lineup;
+
+/**
+ * The result of {@link Runner#runApproximate(double)}: the output of a run against all but the
+ * lightest opponent lineups, with a bound on the error that introduces.
+ *
+ * <p>Dropping opponents of total weight {@code d} from a lineup that can play kept opponents of
+ * total weight {@code k} moves its weighted mean win rate by at most {@code d / (k + d)}, as win
+ * rates are in {@code [0, 1]}. The top lineups are stable when their approximate means, widened
+ * by these bounds, do not overlap.
+ */
+@AutoValue
+public abstract class ApproximateResult {
+
+  ApproximateResult() {
+  }
+
+  /**
+   * Returns a new {@link ApproximateResult} of the given args.
+   */
+  static ApproximateResult create(Output output, int keptOpponents, int droppedOpponents,
+      double droppedWeight, ImmutableMap<Lineup, Double> errorBounds, double maxErrorBound,
+      boolean membershipStable, boolean orderStable) {
+    return new com.redpup.bracketbuster.sim.AutoValue_ApproximateResult(output, keptOpponents,
+        droppedOpponents, droppedWeight, errorBounds, maxErrorBound, membershipStable,
+        orderStable);
+  }
+
+  /**
+   * The output of the approximate run.
+   */
+  public abstract Output output();
+
+  /**
+   * The number of opponent lineups evaluated.
+   */
+  public abstract int keptOpponents();
+
+  /**
+   * The number of opponent lineups dropped.
+   */
+  public abstract int droppedOpponents();
+
+  /**
+   * The fraction of the total opponent weight dropped.
+   */
+  public abstract double droppedWeight();
+
+  /**
+   * The bound on the weighted mean error of each of the top lineups in {@link #output()}, in
+   * order.
+   */
+  public abstract ImmutableMap<Lineup, Double> errorBounds();
+
+  /**
+   * The largest bound on the weighted mean error of any player lineup.
+   */
+  public abstract double maxErrorBound();
+
+  /**
+   * Whether the top lineups are guaranteed to be the exact top lineups: every one's weighted mean
+   * is certainly above that of every other lineup.
+   */
+  public abstract boolean membershipStable();
+
+  /**
+   * Whether the top lineups are guaranteed to be in the exact order: each one's weighted mean is
+   * certainly above the next one's.
+   */
+  public abstract boolean orderStable();
+}
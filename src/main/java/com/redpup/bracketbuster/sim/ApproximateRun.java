@@ -0,0 +1,133 @@
+package com.redpup.bracketbuster.sim;
+
+import static com.google.common.base.Preconditions.checkState;
+
+import com.google.common.collect.ImmutableMap;
+import com.redpup.bracketbuster.model.Lineup;
+import com.redpup.bracketbuster.util.Pair;
+import com.redpup.bracketbuster.util.WeightedDoubleMetric;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A run of a {@link Runner} against all but its lightest opponent lineups, see {@link
+ * Runner#runApproximate(double)}.
+ */
+final class ApproximateRun {
+
+  private final Runner runner;
+
+  ApproximateRun(Runner runner) {
+    this.runner = runner;
+  }
+
+  /**
+   * Evaluates every player lineup against the opponent lineups left after dropping at most {@code
+   * maxDroppedWeight} of the lightest, and returns the output with its error bounds.
+   */
+  ApproximateResult run(double maxDroppedWeight) {
+    checkState(runner.pruneRatios().size() == 1, "Approximate runs do not support pruning: %s",
+        runner.pruneRatios());
+    checkState(runner.sortType() == SortType.WEIGHTED_MEAN_WIN_RATE,
+        "Approximate runs only bound %s, found %s", SortType.WEIGHTED_MEAN_WIN_RATE,
+        runner.sortType());
+
+    Pair<List<Lineup>, OpponentField> lineups = RunIteration.generateLineups(runner);
+    List<Lineup> playerLineups = lineups.first();
+    OpponentField allOpponentLineups = lineups.second();
+    OpponentField opponentLineups = allOpponentLineups.withoutLightest(maxDroppedWeight);
+    double totalWeight = allOpponentLineups.totalWeight();
+    double droppedWeight = totalWeight - opponentLineups.totalWeight();
+    int droppedOpponents = allOpponentLineups.size() - opponentLineups.size();
+
+    RunIteration iteration = RunIteration.start(runner, 0, "Computing Lineup Win Rates");
+    iteration.recordLineups(playerLineups.size(), opponentLineups.size(),
+        String.format(", dropping the lightest %d of weight %.6f", droppedOpponents,
+            droppedWeight / totalWeight));
+    Output.Accumulator accumulator =
+        Output.accumulator(runner.matchupMatrix(), runner.sortType(), runner.topKToPrintLimit());
+    double[] weightedMeans = new double[playerLineups.size()];
+    double[] errorBounds = new double[playerLineups.size()];
+    iteration.score(playerLineups.size(), progress -> {
+      Runner scorer = runner.withLogger(progress);
+      for (int p = 0; p < playerLineups.size(); p++) {
+        Lineup player = playerLineups.get(p);
+        WeightedDoubleMetric winRateMetric = scorer.computeTotalWinRate(player, opponentLineups);
+        accumulator.add(player, winRateMetric);
+        weightedMeans[p] = winRateMetric.getWeightedMean();
+        errorBounds[p] = droppedWeight == 0
+            ? 0
+            : droppedWeight / (playableWeight(player, opponentLineups) + droppedWeight);
+      }
+      return accumulator;
+    });
+
+    ApproximateResult result = iteration.output("Handling Output", () -> {
+      Output output = accumulator.build();
+      ApproximateResult certified = certify(output, playerLineups, weightedMeans, errorBounds,
+          opponentLineups.size(), droppedOpponents, droppedWeight / totalWeight);
+      runner.logger().handleOutput(output, runner);
+      return certified;
+    });
+    runner.logger().log(String.format(
+        "Weighted mean error at most %.6f. Top lineups membership %s, order %s.",
+        result.maxErrorBound(), result.membershipStable() ? "stable" : "unstable",
+        result.orderStable() ? "stable" : "unstable"));
+    iteration.commit();
+    return result;
+  }
+
+  /**
+   * Returns the total weight of the opponents in {@code opponents} that {@code player} can play.
+   */
+  private static double playableWeight(Lineup player, OpponentField opponents) {
+    double weight = 0;
+    for (int i = 0; i < opponents.size(); i++) {
+      if (opponents.calculations.canPlay(player, opponents.lineups[i])) {
+        weight += opponents.weights[i];
+      }
+    }
+    return weight;
+  }
+
+  /**
+   * Returns the {@link ApproximateResult} of {@code output}, certifying its top lineups against
+   * the approximate {@code weightedMeans} and {@code errorBounds} of every player lineup.
+   */
+  private static ApproximateResult certify(Output output, List<Lineup> playerLineups,
+      double[] weightedMeans, double[] errorBounds, int keptOpponents, int droppedOpponents,
+      double droppedWeight) {
+    Map<Lineup, Integer> indices = new HashMap<>();
+    for (int p = 0; p < playerLineups.size(); p++) {
+      indices.put(playerLineups.get(p), p);
+    }
+
+    ImmutableMap.Builder<Lineup, Double> topErrorBounds = ImmutableMap.builder();
+    boolean orderStable = true;
+    double lowestTopLowerBound = Double.POSITIVE_INFINITY;
+    double previousLowerBound = Double.POSITIVE_INFINITY;
+    Set<Integer> top = new HashSet<>();
+    for (Lineup lineup : output.topLineups.keySet()) {
+      int p = indices.get(lineup);
+      top.add(p);
+      topErrorBounds.put(lineup, errorBounds[p]);
+      orderStable &= weightedMeans[p] + errorBounds[p] < previousLowerBound;
+      previousLowerBound = weightedMeans[p] - errorBounds[p];
+      lowestTopLowerBound = Math.min(lowestTopLowerBound, previousLowerBound);
+    }
+
+    boolean membershipStable = true;
+    double maxErrorBound = 0;
+    for (int p = 0; p < playerLineups.size(); p++) {
+      maxErrorBound = Math.max(maxErrorBound, errorBounds[p]);
+      if (!top.contains(p)) {
+        membershipStable &= weightedMeans[p] + errorBounds[p] < lowestTopLowerBound;
+      }
+    }
+    return ApproximateResult.create(output, keptOpponents, droppedOpponents, droppedWeight,
+        topErrorBounds.build(), maxErrorBound, membershipStable, orderStable);
+  }
+}
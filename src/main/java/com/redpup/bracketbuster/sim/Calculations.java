@@ -2,7 +2,6 @@ package com.redpup.bracketbuster.sim;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.redpup.bracketbuster.util.Constants.PLAYER_DECK_COUNT;
-import static java.util.Objects.requireNonNull;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.redpup.bracketbuster.model.Lineup;
@@ -110,8 +109,9 @@ public final class Calculations {
     double[][] winRates = new double[PLAYER_DECK_COUNT][PLAYER_DECK_COUNT];
     for (int i = 0; i < PLAYER_DECK_COUNT; i++) {
       for (int j = 0; j < PLAYER_DECK_COUNT; j++) {
-        winRates[i][j] = requireNonNull(
-            matchups.getMatchup(player.getDeck(i), opponent.getDeck(j))).getWinRate();
+        winRates[i][j] = matchups.winRate(player.getDeck(i), opponent.getDeck(j));
+        checkArgument(!Double.isNaN(winRates[i][j]), "No matchup in %s vs %s", player,
+            opponent);
       }
     }
 
@@ -250,15 +250,16 @@ public final class Calculations {
           "Expected winRate in range [0,1], found %s", winRates);
     }
 
-    // playerRed, opponentRed.
-    double redRed = winRates[0];
-    // playerRed, opponentBlue.
-    double redBlue = winRates[1];
-    // playerBlue, opponentRed.
-    double blueRed = winRates[2];
-    // playerBlue, opponentBlue.
-    double blueBlue = winRates[3];
+    return winRateBestTwoOfThreeUnchecked(winRates[0], winRates[1], winRates[2], winRates[3]);
+  }
 
+  /**
+   * Same as {@link #winRateBestTwoOfThree(double...)}, without validating inputs or allocating.
+   * {@code redRed} is playerRed vs opponentRed, {@code redBlue} is playerRed vs opponentBlue, and
+   * so on.
+   */
+  static double winRateBestTwoOfThreeUnchecked(double redRed, double redBlue, double blueRed,
+      double blueBlue) {
     // Explicitly missing win 0+1, win 2+3, because these would use the same deck twice.
     double chanceWinEitherRed = 1 - ((1 - redRed) * (1 - redBlue));
     double chanceWinEitherBlue = 1 - ((1 - blueRed) * (1 - blueBlue));
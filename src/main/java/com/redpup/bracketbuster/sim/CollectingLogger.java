@@ -0,0 +1,41 @@
+package com.redpup.bracketbuster.sim;
+
+import com.google.common.collect.ImmutableList;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A {@link Logger} that silently collects every {@link Output} it is handed, to be handled later.
+ */
+final class CollectingLogger implements Logger {
+
+  private final List<Output> outputs = new ArrayList<>();
+
+  @Override
+  public void log(String message) {
+  }
+
+  @Override
+  public void setIteration(int i) {
+  }
+
+  @Override
+  public void setCurrentStep(String step) {
+  }
+
+  @Override
+  public void handleMatchups(int count) {
+  }
+
+  @Override
+  public void handleOutput(Output output, Runner runner) {
+    outputs.add(output);
+  }
+
+  /**
+   * Returns every output handled so far, in order.
+   */
+  ImmutableList<Output> outputs() {
+    return ImmutableList.copyOf(outputs);
+  }
+}
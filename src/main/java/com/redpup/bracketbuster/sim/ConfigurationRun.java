@@ -0,0 +1,192 @@
+package com.redpup.bracketbuster.sim;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static com.redpup.bracketbuster.util.Constants.PLAYER_DECK_COUNT;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.redpup.bracketbuster.model.Lineup;
+import com.redpup.bracketbuster.model.LineupMetadata;
+import com.redpup.bracketbuster.model.LineupWeightType;
+import com.redpup.bracketbuster.sim.Calculations.CalculationType;
+import com.redpup.bracketbuster.util.Pair;
+import com.redpup.bracketbuster.util.WeightedDoubleMetric;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * A single pass of a {@link Runner} over several {@link RunConfiguration}s, see {@link
+ * Runner#runConfigurations(List)}.
+ */
+final class ConfigurationRun {
+
+  private final Runner runner;
+
+  ConfigurationRun(Runner runner) {
+    this.runner = runner;
+  }
+
+  /**
+   * Evaluates every configuration in {@code configurations} and returns the output of each.
+   */
+  ImmutableMap<RunConfiguration, Output> run(List<RunConfiguration> configurations) {
+    checkState(runner.pruneRatios().size() == 1,
+        "Multi-configuration runs do not support pruning: %s", runner.pruneRatios());
+    checkArgument(!configurations.isEmpty(), "Expected at least one configuration");
+
+    Pair<List<Lineup>, OpponentField> lineups = RunIteration.generateLineups(runner);
+    List<Lineup> playerLineups = lineups.first();
+    OpponentField opponentLineups = lineups.second();
+    Map<LineupWeightType, OpponentField> weightedOpponentLineups = new HashMap<>();
+    weightedOpponentLineups.put(runner.lineupWeightType(), opponentLineups);
+    for (RunConfiguration configuration : configurations) {
+      weightedOpponentLineups.computeIfAbsent(configuration.lineupWeightType(),
+          opponentLineups::reweight);
+    }
+
+    Map<Pair<CalculationType, LineupWeightType>, ConfigurationGroup> groups =
+        new LinkedHashMap<>();
+    Map<RunConfiguration, Output.Accumulator> accumulators = new LinkedHashMap<>();
+    for (RunConfiguration configuration : configurations) {
+      ConfigurationGroup group = groups.computeIfAbsent(
+          Pair.of(configuration.calculationType(), configuration.lineupWeightType()),
+          key -> new ConfigurationGroup(key.first(),
+              weightedOpponentLineups.get(key.second()).weights));
+      accumulators.computeIfAbsent(configuration, c -> group.add(
+          Output.accumulator(runner.matchupMatrix(), c.sortType(), runner.topKToPrintLimit())));
+    }
+    boolean naive = groups.keySet().stream().anyMatch(g -> g.first() == CalculationType.NAIVE);
+    boolean nash = groups.keySet().stream().anyMatch(g -> g.first() == CalculationType.NASH);
+    ImmutableList<ConfigurationGroup> groupList = ImmutableList.copyOf(groups.values());
+
+    RunIteration iteration = RunIteration.start(runner, 0, "Computing Lineup Win Rates");
+    iteration.recordLineups(playerLineups.size(), opponentLineups.size(),
+        String.format(" for %d configurations", configurations.size()));
+    Queue<FastCalculations.Scratch> scratches = new ConcurrentLinkedQueue<>();
+    iteration.score(playerLineups.size(), progress -> {
+      new LineupPipeline(runner, Math.max(1, runner.pipelineParallelism())).run(
+          playerLineups.stream(),
+          () -> {
+            FastCalculations.Scratch payoffs = new FastCalculations.Scratch();
+            scratches.add(payoffs);
+            return player ->
+                score(player, opponentLineups, groupList, naive, nash, payoffs, progress);
+          },
+          (Pair<Lineup[], WeightedDoubleMetric[]> scored) -> {
+            for (int g = 0; g < groupList.size(); g++) {
+              for (Output.Accumulator accumulator : groupList.get(g).accumulators) {
+                accumulator.add(scored.first()[g], scored.second()[g]);
+              }
+            }
+          });
+      return null;
+    });
+    for (FastCalculations.Scratch scratch : scratches) {
+      runner.metrics().recordNash(scratch.solves, scratch.pivots);
+    }
+
+    ImmutableMap<RunConfiguration, Output> outputs = iteration.output("Handling Output", () -> {
+      ImmutableMap.Builder<RunConfiguration, Output> built = ImmutableMap.builder();
+      for (Map.Entry<RunConfiguration, Output.Accumulator> accumulator : accumulators.entrySet()) {
+        Output output = accumulator.getValue().build();
+        runner.logger().log(String.format("Configuration %s:", accumulator.getKey()));
+        runner.logger().handleOutput(output, accumulator.getKey().configure(runner));
+        built.put(accumulator.getKey(), output);
+      }
+      return built.build();
+    });
+    iteration.commit();
+    return outputs;
+  }
+
+  /**
+   * Scores {@code player} against every playable opponent in {@code opponentLineups} once, and
+   * returns a copy of it holding the metadata of each group of {@code groups} along with its win
+   * rate metric, in order. Solves payoffs in {@code payoffs} and reports the matchups played
+   * through {@code progress}.
+   */
+  private static Pair<Lineup[], WeightedDoubleMetric[]> score(Lineup player,
+      OpponentField opponentLineups, List<ConfigurationGroup> groups, boolean naive, boolean nash,
+      FastCalculations.Scratch payoffs, ProgressReporter progress) {
+    checkArgument(player.getDecks().size() == PLAYER_DECK_COUNT,
+        "Expected %s decks, found %s", PLAYER_DECK_COUNT, player.getDecks());
+    FastCalculations calculations = opponentLineups.calculations;
+    Lineup[] lineups = new Lineup[groups.size()];
+    for (int g = 0; g < groups.size(); g++) {
+      lineups[g] = player.copy().resetMetadata();
+    }
+
+    int played = 0;
+    for (int i = 0; i < opponentLineups.size(); i++) {
+      Lineup opponent = opponentLineups.lineups[i];
+      if (!calculations.canPlay(player, opponent)) {
+        continue;
+      }
+      played++;
+      calculations.payoffs(player, opponent, naive, nash, payoffs);
+      for (int g = 0; g < groups.size(); g++) {
+        groups.get(g).applyMatchup(lineups[g].metadata(), opponent, i, payoffs);
+      }
+    }
+    progress.handleMatchups(played);
+
+    WeightedDoubleMetric[] metrics = new WeightedDoubleMetric[groups.size()];
+    for (int g = 0; g < groups.size(); g++) {
+      metrics[g] = lineups[g].metadata().getWinRateMetric();
+    }
+    return Pair.of(lineups, metrics);
+  }
+
+  /**
+   * The configurations of a run that share a calculation type and lineup weight type, and so the
+   * metadata of each player lineup.
+   */
+  private static final class ConfigurationGroup {
+
+    private final CalculationType calculationType;
+    private final double[] weights;
+    private final List<Output.Accumulator> accumulators = new ArrayList<>();
+
+    private ConfigurationGroup(CalculationType calculationType, double[] weights) {
+      this.calculationType = calculationType;
+      this.weights = weights;
+    }
+
+    private Output.Accumulator add(Output.Accumulator accumulator) {
+      accumulators.add(accumulator);
+      return accumulator;
+    }
+
+    /**
+     * Applies the matchup against opponent {@code i}, {@code opponent}, from the payoffs in
+     * {@code scratch} to {@code metadata}, as {@link Runner#applyAllMatchups} would.
+     */
+    private void applyMatchup(LineupMetadata metadata, Lineup opponent, int i,
+        FastCalculations.Scratch scratch) {
+      for (int j = 0; j < PLAYER_DECK_COUNT; j++) {
+        metadata.incrementPlayedAgainst(opponent.getDeck(j));
+      }
+      switch (calculationType) {
+        case NAIVE:
+          metadata.incrementBanned(opponent.getDeck(scratch.bannedOpponentDeck))
+              .applyMatchup(opponent, scratch.naivePayoff, weights[i]);
+          return;
+        case NASH:
+          for (int j = 0; j < PLAYER_DECK_COUNT; j++) {
+            if (scratch.banProbabilities[j] > 0) {
+              metadata.incrementBanned(opponent.getDeck(j), scratch.banProbabilities[j]);
+            }
+          }
+          metadata.applyMatchup(opponent, scratch.nashPayoff, weights[i]);
+          return;
+      }
+      throw new UnsupportedOperationException("Unsupported calculationType:" + calculationType);
+    }
+  }
+}
@@ -0,0 +1,274 @@
+package com.redpup.bracketbuster.sim;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.redpup.bracketbuster.util.Constants.PLAYER_DECK_COUNT;
+
+import com.redpup.bracketbuster.model.Lineup;
+import com.redpup.bracketbuster.model.LineupMetadata;
+import com.redpup.bracketbuster.model.MatchupMatrix;
+import com.redpup.bracketbuster.sim.Calculations.CalculationType;
+import java.util.Arrays;
+import lib.princeton.TwoPersonZeroSumGame;
+
+/**
+ * An unchecked, allocation-free counterpart to {@link Calculations}.
+ *
+ * <p>The {@link MatchupMatrix} is validated once at construction. After that, no method checks
+ * its arguments and all working arrays come from a caller-supplied {@link Scratch}, so the per
+ * matchup cost is only the arithmetic. Callers are responsible for only passing lineups of {@link
+ * com.redpup.bracketbuster.util.Constants#PLAYER_DECK_COUNT} decks that can play each other (see
+ * {@link #canPlay(Lineup, Lineup)}). {@link Calculations} remains the checked reference
+ * implementation, and results here are identical to it.
+ */
+final class FastCalculations {
+
+  /**
+   * Reusable working arrays for one thread. Not thread safe.
+   */
+  static final class Scratch {
+
+    /**
+     * Row-major win rates of each player deck into each opponent deck.
+     */
+    private final double[] winRates = new double[PLAYER_DECK_COUNT * PLAYER_DECK_COUNT];
+
+    /**
+     * Win rates after each possible pair of bans, for the zero sum game.
+     */
+    private final double[][] winRatesAfterBans = new double[PLAYER_DECK_COUNT][PLAYER_DECK_COUNT];
+
+    /**
+     * The probability the player bans each opponent deck in the last {@link
+     * FastCalculations#payoff}.
+     */
+    final double[] banProbabilities = new double[PLAYER_DECK_COUNT];
+
+    /**
+     * The opponent deck banned by the last naive calculation.
+     */
+    int bannedOpponentDeck;
+
+    /**
+     * The naive and Nash win rates of the last {@link FastCalculations#payoffs}.
+     */
+    double naivePayoff;
+    double nashPayoff;
+
+    /**
+     * Number of zero sum games solved with this scratch, and the simplex pivots they took.
+     */
+    long solves;
+    long pivots;
+  }
+
+  private final MatchupMatrix matchups;
+
+  /**
+   * Creates a new {@link FastCalculations} over {@code matchups}, validating that every win rate
+   * is in {@code [0, 1]}.
+   */
+  FastCalculations(MatchupMatrix matchups) {
+    this.matchups = matchups;
+    for (int player = 0; player < matchups.getNumDecks(); player++) {
+      for (int opponent = 0; opponent < matchups.getNumDecks(); opponent++) {
+        double winRate = matchups.winRate(player, opponent);
+        checkArgument(Double.isNaN(winRate) || (winRate >= 0 && winRate <= 1),
+            "Expected winRate in range [0,1], found %s", winRate);
+      }
+    }
+  }
+
+  /**
+   * Returns the matrix this was built from.
+   */
+  MatchupMatrix matchups() {
+    return matchups;
+  }
+
+  /**
+   * Same as {@link MatchupMatrix#canPlay(Lineup, Lineup)}, without allocating.
+   */
+  boolean canPlay(Lineup player, Lineup opponent) {
+    for (int i = 0; i < PLAYER_DECK_COUNT; i++) {
+      for (int j = 0; j < PLAYER_DECK_COUNT; j++) {
+        if (!matchups.hasMatchup(player.getDeck(i), opponent.getDeck(j))) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Same as {@link Calculations#winRateBestTwoOfThreeOneBanNaive}, unchecked and using {@code
+   * scratch} for working space.
+   */
+  double winRateBestTwoOfThreeOneBanNaive(Lineup player, Lineup opponent, Scratch scratch) {
+    incrementPlayed(player, opponent);
+    double winRate = payoffNaive(player, opponent, scratch);
+    player.metadata().incrementBanned(opponent.getDeck(scratch.bannedOpponentDeck));
+    return winRate;
+  }
+
+  /**
+   * Same as {@link Calculations#winRateBestTwoOfThreeOneBanNash}, unchecked and using {@code
+   * scratch} for working space. Solving the zero sum game itself still allocates inside {@link
+   * TwoPersonZeroSumGame}.
+   */
+  double winRateBestTwoOfThreeOneBanNash(Lineup player, Lineup opponent, Scratch scratch) {
+    incrementPlayed(player, opponent);
+    double winRate = payoffNash(player, opponent, scratch);
+    LineupMetadata metadata = player.metadata();
+    for (int i = 0; i < PLAYER_DECK_COUNT; i++) {
+      if (scratch.banProbabilities[i] > 0) {
+        metadata.incrementBanned(opponent.getDeck(i), scratch.banProbabilities[i]);
+      }
+    }
+    return winRate;
+  }
+
+  /**
+   * Returns the win rate of {@code player} against {@code opponent} under {@code
+   * calculationType}, without touching either lineup's metadata. Afterwards {@link
+   * Scratch#banProbabilities} holds the probability {@code player} bans each opponent deck.
+   */
+  double payoff(CalculationType calculationType, Lineup player, Lineup opponent,
+      Scratch scratch) {
+    switch (calculationType) {
+      case NAIVE:
+        double winRate = payoffNaive(player, opponent, scratch);
+        Arrays.fill(scratch.banProbabilities, 0);
+        scratch.banProbabilities[scratch.bannedOpponentDeck] = 1;
+        return winRate;
+      case NASH:
+        return payoffNash(player, opponent, scratch);
+    }
+    throw new UnsupportedOperationException("Unsupported calculationType:" + calculationType);
+  }
+
+  /**
+   * Computes the {@link #payoff} of {@code player} against {@code opponent} under each requested
+   * calculation type from a single lookup of their deck win rates, without touching either
+   * lineup's metadata. Afterwards {@link Scratch#naivePayoff} and {@link
+   * Scratch#bannedOpponentDeck} hold the naive result if {@code naive}, and {@link
+   * Scratch#nashPayoff} and {@link Scratch#banProbabilities} the Nash result if {@code nash}.
+   */
+  void payoffs(Lineup player, Lineup opponent, boolean naive, boolean nash, Scratch scratch) {
+    double[] w = fillWinRates(player, opponent, scratch);
+    if (naive) {
+      scratch.naivePayoff = payoffNaive(w, scratch);
+    }
+    if (nash) {
+      scratch.nashPayoff = payoffNash(w, scratch);
+    }
+  }
+
+  /**
+   * The naive win rate, leaving the banned opponent deck in {@link Scratch#bannedOpponentDeck}.
+   */
+  private double payoffNaive(Lineup player, Lineup opponent, Scratch scratch) {
+    return payoffNaive(fillWinRates(player, opponent, scratch), scratch);
+  }
+
+  /**
+   * The naive win rate of the row-major deck win rates {@code w}.
+   */
+  private static double payoffNaive(double[] w, Scratch scratch) {
+
+    // Opponent bans the player deck with the highest row sum; first index wins ties.
+    int bestPlayerDeckToBan = 0;
+    double maxRowSum = 0;
+    // Player bans the opponent deck with the lowest column sum; first index wins ties.
+    int bestOpponentDeckToBan = 0;
+    double minColSum = 0;
+    for (int i = 0; i < PLAYER_DECK_COUNT; i++) {
+      double rowSum = 0;
+      double colSum = 0;
+      for (int j = 0; j < PLAYER_DECK_COUNT; j++) {
+        rowSum += w[i * PLAYER_DECK_COUNT + j];
+        colSum += w[j * PLAYER_DECK_COUNT + i];
+      }
+      if (i == 0 || rowSum > maxRowSum) {
+        bestPlayerDeckToBan = i;
+        maxRowSum = rowSum;
+      }
+      if (i == 0 || colSum < minColSum) {
+        bestOpponentDeckToBan = i;
+        minColSum = colSum;
+      }
+    }
+
+    scratch.bannedOpponentDeck = bestOpponentDeckToBan;
+    return winRateAfterBans(w, bestPlayerDeckToBan, bestOpponentDeckToBan);
+  }
+
+  /**
+   * The Nash win rate, leaving the ban probabilities in {@link Scratch#banProbabilities}.
+   */
+  private double payoffNash(Lineup player, Lineup opponent, Scratch scratch) {
+    return payoffNash(fillWinRates(player, opponent, scratch), scratch);
+  }
+
+  /**
+   * The Nash win rate of the row-major deck win rates {@code w}.
+   */
+  private static double payoffNash(double[] w, Scratch scratch) {
+    double[][] winRatesAfterBans = scratch.winRatesAfterBans;
+    for (int i = 0; i < PLAYER_DECK_COUNT; i++) {
+      for (int j = 0; j < PLAYER_DECK_COUNT; j++) {
+        winRatesAfterBans[i][j] = winRateAfterBans(w, i, j);
+      }
+    }
+
+    SimEvents.ZeroSumSolve event = SimEvents.ZeroSumSolve.sample(scratch.solves);
+    TwoPersonZeroSumGame zeroSumGame = new TwoPersonZeroSumGame(winRatesAfterBans);
+    if (event != null) {
+      event.commit(PLAYER_DECK_COUNT, PLAYER_DECK_COUNT, zeroSumGame.pivots());
+    }
+    scratch.solves++;
+    scratch.pivots += zeroSumGame.pivots();
+    System.arraycopy(zeroSumGame.column(), 0, scratch.banProbabilities, 0, PLAYER_DECK_COUNT);
+    return zeroSumGame.value();
+  }
+
+  /**
+   * Increments {@code player}'s played against stat for every deck of {@code opponent}.
+   */
+  private static void incrementPlayed(Lineup player, Lineup opponent) {
+    LineupMetadata metadata = player.metadata();
+    for (int j = 0; j < PLAYER_DECK_COUNT; j++) {
+      metadata.incrementPlayedAgainst(opponent.getDeck(j));
+    }
+  }
+
+  /**
+   * Fills {@code scratch} with the win rates of every player deck into every opponent deck.
+   * Returns the filled array.
+   */
+  private double[] fillWinRates(Lineup player, Lineup opponent, Scratch scratch) {
+    double[] w = scratch.winRates;
+    for (int i = 0; i < PLAYER_DECK_COUNT; i++) {
+      int playerDeck = player.getDeck(i);
+      for (int j = 0; j < PLAYER_DECK_COUNT; j++) {
+        w[i * PLAYER_DECK_COUNT + j] = matchups.winRate(playerDeck, opponent.getDeck(j));
+      }
+    }
+    return w;
+  }
+
+  /**
+   * Returns the best two of three win rate from the row-major {@code w} after dropping {@code
+   * droppedPlayerDeck} and {@code droppedOpponentDeck}. Equivalent to {@link
+   * Calculations#dropBannedDecksAndFlatten} followed by {@link Calculations#winRateBestTwoOfThree}.
+   */
+  private static double winRateAfterBans(double[] w, int droppedPlayerDeck,
+      int droppedOpponentDeck) {
+    // Remaining decks, in ascending order.
+    int rowA = (droppedPlayerDeck == 0 ? 1 : 0) * PLAYER_DECK_COUNT;
+    int rowB = (droppedPlayerDeck == 2 ? 1 : 2) * PLAYER_DECK_COUNT;
+    int colA = droppedOpponentDeck == 0 ? 1 : 0;
+    int colB = droppedOpponentDeck == 2 ? 1 : 2;
+    return Calculations.winRateBestTwoOfThreeUnchecked(
+        w[rowA + colA], w[rowA + colB], w[rowB + colA], w[rowB + colB]);
+  }
+}
@@ -0,0 +1,223 @@
+package com.redpup.bracketbuster.sim;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.redpup.bracketbuster.model.Lineup;
+import com.redpup.bracketbuster.util.Pair;
+import com.redpup.bracketbuster.util.WeightedDoubleMetric;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * A staged producer/consumer pipeline that evaluates player lineups against every opponent lineup.
+ *
+ * <p>Stages are connected by bounded queues, so a fast stage blocks rather than buffering
+ * unboundedly:
+ * <ol>
+ *   <li>A generator thread pulls player lineups from a lazy stream into batches.</li>
+ *   <li>A pool of scorer threads scores each lineup, by default computing its win rate metric.
+ *   </li>
+ *   <li>The calling thread aggregates scored lineups, by default into an {@link
+ *   Output.Accumulator}, which retains only the top lineups, and writes each to the runner's
+ *   {@link ResultSink}, if any.</li>
+ * </ol>
+ *
+ * <p>Lineups outside the top are dropped as soon as they are aggregated, so peak memory scales
+ * with the output limit and queue capacity rather than with the number of player lineups.
+ * Progress is reported by the runner's logger as scorers handle each lineup, see {@link
+ * ProgressReporter}.
+ */
+final class LineupPipeline {
+
+  /**
+   * Number of lineups handed between stages at once.
+   */
+  private static final int BATCH_SIZE = 16;
+
+  /**
+   * Number of batches each queue can hold before its producer blocks.
+   */
+  private static final int QUEUE_CAPACITY = 64;
+
+  /**
+   * Sentinel marking the end of the lineup queue. Compared by identity.
+   */
+  private static final List<Lineup> END_OF_LINEUPS = new ArrayList<>();
+
+  /**
+   * Scores player lineups on a single scorer thread, so may hold state that is not thread safe.
+   */
+  @FunctionalInterface
+  interface Scorer<R> {
+
+    /**
+     * Returns the score of {@code player}.
+     */
+    R score(Lineup player);
+  }
+
+  private final Runner runner;
+  private final int parallelism;
+
+  LineupPipeline(Runner runner, int parallelism) {
+    checkArgument(parallelism > 0, "Expected positive parallelism, found %s", parallelism);
+    this.runner = runner;
+    this.parallelism = parallelism;
+  }
+
+  /**
+   * Evaluates every lineup in {@code playerLineups} against {@code opponentLineups} and returns
+   * the {@link Output} of the top {@link Runner#topKToPrintLimit()} lineups. Blocks until all
+   * lineups are evaluated.
+   */
+  Output run(Stream<Lineup> playerLineups, OpponentField opponentLineups) {
+    Output.Accumulator accumulator =
+        Output.accumulator(runner.matchupMatrix(), runner.sortType(), runner.topKToPrintLimit());
+    run(playerLineups,
+        () -> player -> Pair.of(player, runner.computeTotalWinRate(player, opponentLineups)),
+        (Pair<Lineup, WeightedDoubleMetric> result) -> {
+          accumulator.add(result.first(), result.second());
+          runner.writeResult(0, result.first(), result.second());
+        });
+    return accumulator.build();
+  }
+
+  /**
+   * Scores every lineup in {@code playerLineups} with a scorer from {@code scorers} per scorer
+   * thread, and passes each score to {@code aggregator} on the calling thread, in no particular
+   * order. Blocks until all lineups are scored.
+   */
+  <R> void run(Stream<Lineup> playerLineups, Supplier<Scorer<R>> scorers,
+      Consumer<R> aggregator) {
+    Stages<R> stages = new Stages<>();
+    ExecutorService executor = Executors.newFixedThreadPool(parallelism + 1);
+    try {
+      executor.execute(() -> stages.generate(playerLineups.iterator()));
+      for (int i = 0; i < parallelism; i++) {
+        executor.execute(() -> stages.score(scorers));
+      }
+      stages.aggregate(aggregator);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while running pipeline.", e);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * The queues and stages of a single {@link #run}, whose scores are of type {@code R}.
+   */
+  private final class Stages<R> {
+
+    /**
+     * Sentinel marking the end of {@link #results}. Compared by identity.
+     */
+    private final List<R> endOfResults = new ArrayList<>();
+
+    private final BlockingQueue<List<Lineup>> lineups = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final BlockingQueue<List<R>> results = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+    /**
+     * Generator stage. Batches lineups from {@code playerLineups} into {@link #lineups}, then
+     * signals the end of input to every scorer.
+     */
+    private void generate(Iterator<Lineup> playerLineups) {
+      try {
+        List<Lineup> batch = new ArrayList<>(BATCH_SIZE);
+        while (playerLineups.hasNext() && failure.get() == null) {
+          batch.add(playerLineups.next());
+          if (batch.size() == BATCH_SIZE) {
+            lineups.put(batch);
+            batch = new ArrayList<>(BATCH_SIZE);
+          }
+        }
+        if (!batch.isEmpty()) {
+          lineups.put(batch);
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      } catch (Throwable t) {
+        failure.compareAndSet(null, t);
+      }
+
+      try {
+        for (int i = 0; i < parallelism; i++) {
+          lineups.put(END_OF_LINEUPS);
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+
+    /**
+     * Scorer stage. Scores each lineup from {@link #lineups} into {@link #results} with a new
+     * scorer from {@code scorers}. After any stage fails, keeps draining its input without scoring
+     * so no other stage blocks forever. Bytes allocated while scoring are recorded in the runner's
+     * metrics before signalling the end of results.
+     */
+    private void score(Supplier<Scorer<R>> scorers) {
+      long startAllocatedBytes = RunMetrics.currentThreadAllocatedBytes();
+      try {
+        Scorer<R> scorer = null;
+        List<Lineup> batch;
+        while ((batch = lineups.take()) != END_OF_LINEUPS) {
+          if (failure.get() != null) {
+            continue;
+          }
+          try {
+            if (scorer == null) {
+              scorer = scorers.get();
+            }
+            List<R> scored = new ArrayList<>(batch.size());
+            for (Lineup player : batch) {
+              scored.add(scorer.score(player));
+            }
+            results.put(scored);
+          } catch (Throwable t) {
+            failure.compareAndSet(null, t);
+          }
+        }
+        if (startAllocatedBytes >= 0) {
+          runner.metrics().addAllocatedBytes(RunMetrics.SCORING,
+              RunMetrics.currentThreadAllocatedBytes() - startAllocatedBytes);
+        }
+        results.put(endOfResults);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+
+    /**
+     * Aggregator stage, run on the calling thread. Passes {@link #results} to {@code aggregator}
+     * until every scorer is done.
+     */
+    private void aggregate(Consumer<R> aggregator) throws InterruptedException {
+      int remainingScorers = parallelism;
+      while (remainingScorers > 0) {
+        List<R> batch = results.take();
+        if (batch == endOfResults) {
+          remainingScorers--;
+          continue;
+        }
+        batch.forEach(aggregator);
+      }
+
+      Throwable t = failure.get();
+      if (t != null) {
+        throw new IllegalStateException("Pipeline failed.", t);
+      }
+    }
+  }
+}
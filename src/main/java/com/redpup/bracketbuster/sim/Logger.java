@@ -22,9 +22,11 @@ public interface Logger {
   void setCurrentStep(String step);
 
   /**
-   * Logs or otherwise updates the UI for the given match being handled.
+   * Logs or otherwise updates the UI for {@code count} more matchups having been handled. Called
+   * once per scored player lineup rather than once per matchup, possibly concurrently from several
+   * threads, so implementations must be thread safe and cheap.
    */
-  void handleMatchup();
+  void handleMatchups(int count);
 
   /**
    * Logs or otherwise updates the UI for the given output. The runner is passed for access to
@@ -0,0 +1,85 @@
+package com.redpup.bracketbuster.sim;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.redpup.bracketbuster.model.MatchupMatrix;
+
+/**
+ * Batch evaluation of {@link Calculations#winRateBestTwoOfThreeOneBanNaive} for one player lineup
+ * against every opponent in an {@link OpponentField}.
+ *
+ * <p>The loop reads only primitive arrays (win rates via {@link MatchupMatrix#winRate(int, int)}),
+ * allocates nothing per opponent, and picks bans with conditional moves rather than index
+ * searches, so the JIT can keep it in registers. Results are bit-for-bit identical to the
+ * reference calculation.
+ */
+final class NaiveBatchKernel {
+
+  private NaiveBatchKernel() {
+  }
+
+  /**
+   * Scores the player lineup of decks {@code player1, player2, player3} against every opponent in
+   * {@code field}.
+   *
+   * <p>{@code scores[i]} is set to the win rate against opponent {@code i}, or {@link Double#NaN}
+   * if any pair of decks has no matchup data (i.e. the lineups cannot play). {@code
+   * bannedDecks[i]} is set to the opponent deck the player bans.
+   */
+  static void score(int player1, int player2, int player3, OpponentField field, double[] scores,
+      int[] bannedDecks) {
+    checkArgument(scores.length >= field.size() && bannedDecks.length >= field.size(),
+        "Expected output arrays of length at least %s", field.size());
+
+    final MatchupMatrix matchups = field.matchups;
+    final int[] deck1 = field.deck1;
+    final int[] deck2 = field.deck2;
+    final int[] deck3 = field.deck3;
+    final double[] w = new double[9];
+
+    for (int i = 0; i < field.size(); i++) {
+      final int o1 = deck1[i];
+      final int o2 = deck2[i];
+      final int o3 = deck3[i];
+
+      w[0] = matchups.winRate(player1, o1);
+      w[1] = matchups.winRate(player1, o2);
+      w[2] = matchups.winRate(player1, o3);
+      w[3] = matchups.winRate(player2, o1);
+      w[4] = matchups.winRate(player2, o2);
+      w[5] = matchups.winRate(player2, o3);
+      w[6] = matchups.winRate(player3, o1);
+      w[7] = matchups.winRate(player3, o2);
+      w[8] = matchups.winRate(player3, o3);
+
+      // Opponent bans the player deck with the highest row sum; first index wins ties.
+      double rowSum0 = w[0] + w[1] + w[2];
+      double rowSum1 = w[3] + w[4] + w[5];
+      double rowSum2 = w[6] + w[7] + w[8];
+      int playerBan = rowSum1 > rowSum0 ? 1 : 0;
+      double maxRowSum = rowSum1 > rowSum0 ? rowSum1 : rowSum0;
+      playerBan = rowSum2 > maxRowSum ? 2 : playerBan;
+
+      // Player bans the opponent deck with the lowest column sum; first index wins ties.
+      double colSum0 = w[0] + w[3] + w[6];
+      double colSum1 = w[1] + w[4] + w[7];
+      double colSum2 = w[2] + w[5] + w[8];
+      int opponentBan = colSum1 < colSum0 ? 1 : 0;
+      double minColSum = colSum1 < colSum0 ? colSum1 : colSum0;
+      opponentBan = colSum2 < minColSum ? 2 : opponentBan;
+
+      // Remaining decks, in ascending order.
+      int rowA = playerBan == 0 ? 3 : 0;
+      int rowB = playerBan == 2 ? 3 : 6;
+      int colA = opponentBan == 0 ? 1 : 0;
+      int colB = opponentBan == 2 ? 1 : 2;
+
+      double score = Calculations.winRateBestTwoOfThreeUnchecked(
+          w[rowA + colA], w[rowA + colB], w[rowB + colA], w[rowB + colB]);
+
+      // Any missing matchup makes one of the row sums NaN.
+      scores[i] = Double.isNaN(rowSum0 + rowSum1 + rowSum2) ? Double.NaN : score;
+      bannedDecks[i] = opponentBan == 0 ? o1 : (opponentBan == 1 ? o2 : o3);
+    }
+  }
+}
@@ -0,0 +1,164 @@
+package com.redpup.bracketbuster.sim;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.redpup.bracketbuster.util.Constants.PLAYER_DECK_COUNT;
+
+import com.redpup.bracketbuster.model.Lineup;
+import com.redpup.bracketbuster.model.LineupWeightType;
+import com.redpup.bracketbuster.model.MatchupMatrix;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Map;
+
+/**
+ * A fixed set of weighted opponent lineups laid out as structure-of-arrays, for evaluating one
+ * player lineup against every opponent in a tight loop. See {@link NaiveBatchKernel}.
+ *
+ * <p>The field also carries the {@link FastCalculations} of its matrix, validated once when the
+ * field is built.
+ *
+ * <p>Opponent {@code i} plays decks {@code deck1[i], deck2[i], deck3[i]} with weight {@code
+ * weights[i]}. Arrays are exposed directly for speed and must not be mutated.
+ */
+final class OpponentField {
+
+  /**
+   * Returns a new {@link OpponentField} of {@code opponentsWithWeights} against {@code matchups},
+   * in the iteration order of {@code opponentsWithWeights}.
+   */
+  static OpponentField of(MatchupMatrix matchups, Map<Lineup, Double> opponentsWithWeights) {
+    int size = opponentsWithWeights.size();
+    Lineup[] lineups = new Lineup[size];
+    int[] deck1 = new int[size];
+    int[] deck2 = new int[size];
+    int[] deck3 = new int[size];
+    double[] weights = new double[size];
+
+    int i = 0;
+    for (Map.Entry<Lineup, Double> opponent : opponentsWithWeights.entrySet()) {
+      Lineup lineup = opponent.getKey();
+      checkArgument(lineup.getDecks().size() == PLAYER_DECK_COUNT,
+          "Expected %s decks, found %s", PLAYER_DECK_COUNT, lineup.getDecks());
+      lineups[i] = lineup;
+      deck1[i] = lineup.getDeck(0);
+      deck2[i] = lineup.getDeck(1);
+      deck3[i] = lineup.getDeck(2);
+      weights[i] = opponent.getValue();
+      i++;
+    }
+
+    FastCalculations calculations = new FastCalculations(matchups);
+    return new OpponentField(calculations, lineups, deck1, deck2, deck3, weights);
+  }
+
+  final FastCalculations calculations;
+  final MatchupMatrix matchups;
+
+  final Lineup[] lineups;
+  final int[] deck1;
+  final int[] deck2;
+  final int[] deck3;
+  final double[] weights;
+
+  private OpponentField(FastCalculations calculations, Lineup[] lineups, int[] deck1,
+      int[] deck2, int[] deck3, double[] weights) {
+    this.calculations = calculations;
+    this.matchups = calculations.matchups();
+    this.lineups = lineups;
+    this.deck1 = deck1;
+    this.deck2 = deck2;
+    this.deck3 = deck3;
+    this.weights = weights;
+  }
+
+  /**
+   * Returns the number of opponents in this field.
+   */
+  int size() {
+    return lineups.length;
+  }
+
+  /**
+   * Returns the total weight of every opponent in this field.
+   */
+  double totalWeight() {
+    double total = 0;
+    for (double weight : weights) {
+      total += weight;
+    }
+    return total;
+  }
+
+  /**
+   * Returns this field without its lightest opponents: as many as possible whose total weight is
+   * at most {@code maxDroppedWeight} of {@link #totalWeight()}, lightest first. Kept opponents
+   * stay in order and share this field's {@link FastCalculations}.
+   */
+  OpponentField withoutLightest(double maxDroppedWeight) {
+    checkArgument(maxDroppedWeight >= 0 && maxDroppedWeight < 1,
+        "Expected maxDroppedWeight in [0, 1), found %s", maxDroppedWeight);
+    Integer[] byWeight = new Integer[size()];
+    for (int i = 0; i < size(); i++) {
+      byWeight[i] = i;
+    }
+    Arrays.sort(byWeight, Comparator.comparingDouble(i -> weights[i]));
+
+    boolean[] dropped = new boolean[size()];
+    double budget = maxDroppedWeight * totalWeight();
+    double droppedWeight = 0;
+    int droppedCount = 0;
+    for (int i : byWeight) {
+      if (droppedWeight + weights[i] > budget) {
+        break;
+      }
+      droppedWeight += weights[i];
+      dropped[i] = true;
+      droppedCount++;
+    }
+
+    int keptCount = size() - droppedCount;
+    Lineup[] keptLineups = new Lineup[keptCount];
+    int[] keptDeck1 = new int[keptCount];
+    int[] keptDeck2 = new int[keptCount];
+    int[] keptDeck3 = new int[keptCount];
+    double[] keptWeights = new double[keptCount];
+    int kept = 0;
+    for (int i = 0; i < size(); i++) {
+      if (!dropped[i]) {
+        keptLineups[kept] = lineups[i];
+        keptDeck1[kept] = deck1[i];
+        keptDeck2[kept] = deck2[i];
+        keptDeck3[kept] = deck3[i];
+        keptWeights[kept] = weights[i];
+        kept++;
+      }
+    }
+    return new OpponentField(calculations, keptLineups, keptDeck1, keptDeck2, keptDeck3,
+        keptWeights);
+  }
+
+  /**
+   * Returns the same opponents against {@code matchups} instead, weighted by {@code
+   * lineupWeightType}. {@code matchups} must have the same decks as this field's matrix, as a
+   * later snapshot of it does when only win rates or play rates moved. Shares every array of this
+   * field but the weights.
+   */
+  OpponentField withMatchups(MatchupMatrix matchups, LineupWeightType lineupWeightType) {
+    checkArgument(matchups.getHeaders().equals(this.matchups.getHeaders()),
+        "Expected decks %s, found %s", this.matchups.getHeaders(), matchups.getHeaders());
+    return new OpponentField(new FastCalculations(matchups), lineups, deck1, deck2, deck3,
+        weights).reweight(lineupWeightType);
+  }
+
+  /**
+   * Returns the same opponents weighted by {@code lineupWeightType} instead, sharing every array
+   * of this field but the weights.
+   */
+  OpponentField reweight(LineupWeightType lineupWeightType) {
+    double[] reweighted = new double[size()];
+    for (int i = 0; i < size(); i++) {
+      reweighted[i] = matchups.getLineupWeight(lineups[i], lineupWeightType);
+    }
+    return new OpponentField(calculations, lineups, deck1, deck2, deck3, reweighted);
+  }
+}
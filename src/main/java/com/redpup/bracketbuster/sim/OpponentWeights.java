@@ -0,0 +1,94 @@
+package com.redpup.bracketbuster.sim;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.redpup.bracketbuster.model.Lineup;
+import com.redpup.bracketbuster.model.LineupWeightType;
+import com.redpup.bracketbuster.model.MatchupMatrix;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The weight of each of a fixed list of opponent lineups, as a primitive vector indexed by the
+ * opponent's ordinal in that list.
+ *
+ * <p>Weights are the play rates of each opponent's decks combined by a {@link LineupWeightType},
+ * as in {@link MatchupMatrix#createWeightedValidOpponentLineups(LineupWeightType)}. New play rates
+ * only change the vector, through {@link #withPlayRates(Map)}, which costs {@code O(1)} per
+ * opponent and never evaluates a matchup. Immutable.
+ */
+public final class OpponentWeights {
+
+  /**
+   * Returns the weights of {@code opponents} from the play rates of {@code matchups}, combined by
+   * {@code lineupWeightType}.
+   */
+  public static OpponentWeights of(MatchupMatrix matchups, List<Lineup> opponents,
+      LineupWeightType lineupWeightType) {
+    Lineup[] lineups = opponents.toArray(new Lineup[0]);
+    double[] deckWeights = new double[matchups.getNumDecks()];
+    for (int deck = 0; deck < deckWeights.length; deck++) {
+      deckWeights[deck] = matchups.getHeaderWeight(deck);
+    }
+    return new OpponentWeights(matchups, lineups, lineupWeightType, deckWeights);
+  }
+
+  private final MatchupMatrix matchups;
+  private final Lineup[] opponents;
+  private final LineupWeightType lineupWeightType;
+  private final double[] weights;
+
+  private OpponentWeights(MatchupMatrix matchups, Lineup[] opponents,
+      LineupWeightType lineupWeightType, double[] deckWeights) {
+    this.matchups = matchups;
+    this.opponents = opponents;
+    this.lineupWeightType = lineupWeightType;
+    this.weights = new double[opponents.length];
+    for (int i = 0; i < opponents.length; i++) {
+      weights[i] = lineupWeightType.weigh(opponents[i], deckWeights);
+    }
+  }
+
+  /**
+   * Returns the weights of the same opponents under {@code playRates}, a play rate per deck name.
+   * Decks absent from {@code playRates} have play rate {@code 0}.
+   */
+  public OpponentWeights withPlayRates(Map<String, Double> playRates) {
+    double[] deckWeights = new double[matchups.getNumDecks()];
+    playRates.forEach((deck, playRate) -> {
+      checkArgument(playRate >= 0, "Expected non-negative play rate for %s, found %s", deck,
+          playRate);
+      deckWeights[matchups.getHeaderIndex(deck)] = playRate;
+    });
+    return new OpponentWeights(matchups, opponents, lineupWeightType, deckWeights);
+  }
+
+  /**
+   * Returns the number of opponents.
+   */
+  public int size() {
+    return weights.length;
+  }
+
+  /**
+   * Returns the weight of opponent {@code ordinal}.
+   */
+  public double get(int ordinal) {
+    return weights[ordinal];
+  }
+
+  /**
+   * Returns how play rates are combined into lineup weights.
+   */
+  public LineupWeightType lineupWeightType() {
+    return lineupWeightType;
+  }
+
+  /**
+   * Returns a copy of the weight vector.
+   */
+  public double[] toArray() {
+    return Arrays.copyOf(weights, weights.length);
+  }
+}
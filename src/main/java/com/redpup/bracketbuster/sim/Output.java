@@ -1,38 +1,56 @@
 package com.redpup.bracketbuster.sim;
 
 import static com.google.common.collect.ImmutableMap.toImmutableMap;
-import static java.util.Map.Entry.comparingByValue;
+import static java.util.Map.Entry.comparingByKey;
 import static java.util.Objects.requireNonNull;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableMap;
+import com.google.errorprone.annotations.CanIgnoreReturnValue;
 import com.redpup.bracketbuster.model.Lineup;
 import com.redpup.bracketbuster.model.MatchupMatrix;
 import com.redpup.bracketbuster.util.Pair;
 import com.redpup.bracketbuster.util.WeightedDoubleMetric;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
+import java.util.PriorityQueue;
 
 /**
  * Collection of output of a simulation.
  */
 public final class Output {
 
+  /**
+   * Orders lineups by their deck indices. Breaks ties between lineups of equal win rates, so the
+   * top lineups do not depend on the order lineups were scored in.
+   */
+  private static final Comparator<Lineup> DECK_ORDER = Comparator
+      .<Lineup>comparingInt(l -> l.getDeck(0))
+      .thenComparingInt(l -> l.getDeck(1))
+      .thenComparingInt(l -> l.getDeck(2));
+
   /**
    * Builds a {@link Output} of the given args.
    */
   public static Output buildOutput(
       Map<Lineup, WeightedDoubleMetric> lineupsByWinRateMetric, MatchupMatrix matchups,
       SortType sortType, int limit) {
-    return new Output(
+    SimEvents.OutputBuild event = new SimEvents.OutputBuild();
+    event.begin();
+    Output output = new Output(
         limitAndCopyTopLineups(lineupsByWinRateMetric, sortType, limit),
         computeMetaCompPercentMap(lineupsByWinRateMetric, matchups));
+    event.commit(lineupsByWinRateMetric.size(), output.topLineups.size());
+    return output;
   }
 
   /**
    * Computes a map of the top {@code limit} lineups by win rate and collects them into a map.
    *
+   * <p>Lineups of equal win rates are ordered by their deck indices.
+   *
    * <p>As part of this operation, invokes {@link Lineup#copy()} on all key lineups. This means
    * further mutations to metadata will not mutate this map.
    */
@@ -42,7 +60,8 @@ public final class Output {
     return lineupsByWinRate
         .entrySet()
         .stream()
-        .sorted(comparingByValue(sortType.comparator))
+        .sorted(Map.Entry.<Lineup, WeightedDoubleMetric>comparingByValue(sortType.comparator)
+            .thenComparing(comparingByKey(DECK_ORDER)))
         .limit(limit)
         .collect(toImmutableMap(p -> p.getKey().copy(), Map.Entry::getValue));
   }
@@ -60,21 +79,111 @@ public final class Output {
   static ImmutableMap<String, Double> computeMetaCompPercentMap(
       Map<Lineup, ?> lineupsByWinRate, MatchupMatrix matchups) {
     // Count the number of times each deck is used across all lineups.
+    Map<String, Integer> metaCompCount = createMetaCompCount(matchups);
+    lineupsByWinRate.keySet().forEach(l -> incrementMetaCompCount(metaCompCount, l));
+    return toMetaCompPercentMap(metaCompCount, lineupsByWinRate.size());
+  }
+
+  /**
+   * Returns a new map of every deck in {@code matchups} to a count of 0.
+   */
+  private static Map<String, Integer> createMetaCompCount(MatchupMatrix matchups) {
     Map<String, Integer> metaCompCount = new HashMap<>();
     for (String deck : matchups.getHeaders()) {
       metaCompCount.put(deck, 0);
     }
-    lineupsByWinRate.keySet().stream()
-        .flatMap(p -> p.getDeckNames().stream())
+    return metaCompCount;
+  }
+
+  /**
+   * Increments the count of each deck in {@code lineup} in {@code metaCompCount}.
+   */
+  private static void incrementMetaCompCount(Map<String, Integer> metaCompCount, Lineup lineup) {
+    lineup.getDeckNames()
         .forEach(deck -> metaCompCount.compute(deck, (unused, c) -> requireNonNull(c) + 1));
+  }
 
-    // Map values to meta composition size, sort by count descending.
+  /**
+   * Maps {@code metaCompCount} to meta composition percents over {@code numLineups} lineups,
+   * sorted by count descending.
+   */
+  private static ImmutableMap<String, Double> toMetaCompPercentMap(
+      Map<String, Integer> metaCompCount, int numLineups) {
     return metaCompCount.entrySet().stream()
-        .map(e -> Pair.of(e.getKey(), (double) e.getValue() / lineupsByWinRate.size()))
+        .map(e -> Pair.of(e.getKey(), (double) e.getValue() / numLineups))
         .sorted(Pair.<String>rightDoubleComparator().reversed())
         .collect(Pair.toImmutableMap());
   }
 
+  /**
+   * Returns a new {@link Accumulator}, which builds the same {@link Output} as {@link
+   * #buildOutput(Map, MatchupMatrix, SortType, int)} from a stream of lineups.
+   */
+  static Accumulator accumulator(MatchupMatrix matchups, SortType sortType, int limit) {
+    return new Accumulator(matchups, sortType, limit);
+  }
+
+  /**
+   * Builds an {@link Output} from lineups streamed in one at a time. Only the top {@code limit}
+   * lineups are retained, so memory scales with {@code limit} rather than with the number of
+   * lineups added. Not thread safe.
+   */
+  static final class Accumulator {
+
+    private final int limit;
+    private final Comparator<Pair<Lineup, WeightedDoubleMetric>> comparator;
+    // Ordered so the "least good" element is the first to be polled.
+    private final PriorityQueue<Pair<Lineup, WeightedDoubleMetric>> topLineups;
+    private final Map<String, Integer> metaCompCount;
+    private int numLineups;
+
+    private Accumulator(MatchupMatrix matchups, SortType sortType, int limit) {
+      this.limit = limit;
+      this.comparator = Comparator
+          .comparing(Pair<Lineup, WeightedDoubleMetric>::second, sortType.comparator)
+          .thenComparing(Pair::first, DECK_ORDER);
+      this.topLineups = new PriorityQueue<>(comparator.reversed());
+      this.metaCompCount = createMetaCompCount(matchups);
+    }
+
+    /**
+     * Adds {@code lineup} with its computed {@code winRateMetric}. Returns self.
+     */
+    @CanIgnoreReturnValue
+    Accumulator add(Lineup lineup, WeightedDoubleMetric winRateMetric) {
+      numLineups++;
+      incrementMetaCompCount(metaCompCount, lineup);
+
+      topLineups.add(Pair.of(lineup, winRateMetric));
+      if (topLineups.size() > limit) {
+        topLineups.poll();
+      }
+      return this;
+    }
+
+    /**
+     * Returns the number of lineups added so far.
+     */
+    int size() {
+      return numLineups;
+    }
+
+    /**
+     * Builds the {@link Output} of every lineup added so far.
+     */
+    Output build() {
+      SimEvents.OutputBuild event = new SimEvents.OutputBuild();
+      event.begin();
+      Output output = new Output(
+          topLineups.stream()
+              .sorted(comparator)
+              .collect(toImmutableMap(p -> p.first().copy(), Pair::second)),
+          toMetaCompPercentMap(metaCompCount, numLineups));
+      event.commit(numLineups, output.topLineups.size());
+      return output;
+    }
+  }
+
   public final ImmutableMap<Lineup, WeightedDoubleMetric> topLineups;
   public final ImmutableMap<String, Double> metaCompPercent;
 
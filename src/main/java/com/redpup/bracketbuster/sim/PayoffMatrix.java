@@ -0,0 +1,415 @@
+package com.redpup.bracketbuster.sim;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static com.redpup.bracketbuster.util.Constants.PLAYER_DECK_COUNT;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.redpup.bracketbuster.model.Lineup;
+import com.redpup.bracketbuster.model.LineupTables;
+import com.redpup.bracketbuster.model.MatchupMatrix;
+import com.redpup.bracketbuster.sim.Calculations.CalculationType;
+import com.redpup.bracketbuster.util.QuantizedUnitTable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * The payoff of every player lineup against every opponent lineup of a {@link LineupTables}: the
+ * win rate under a {@link CalculationType}, or {@link Double#NaN} if they cannot play, and
+ * optionally the probability the player bans each opponent deck.
+ *
+ * <p>Every reduction over the same matchups (sort types, weightings, counter picks) can read this
+ * instead of solving every matchup again, see {@link Runner#computeTopLineupsFromPayoffs}. The
+ * matrix is computed once in cache-blocked tiles across threads, and persisted to a memory mapped
+ * file in a cache directory, keyed by a SHA-256 hash of the matchups, the lineups, the calculation
+ * type and {@link #FORMAT_VERSION}. Values are stored with {@link QuantizedUnitTable#encode}, so
+ * read back within {@link QuantizedUnitTable#MAX_ERROR}, and files larger than memory are paged
+ * in by the OS as they are read.
+ *
+ * <p>Reads are thread safe.
+ */
+public final class PayoffMatrix {
+
+  /**
+   * Version of the file layout and payoff logic. Bump to invalidate existing entries.
+   */
+  private static final int FORMAT_VERSION = 1;
+
+  private static final int MAGIC = 0x50415946;
+  private static final int HEADER_BYTES = 32;
+
+  /**
+   * Player lineups per tile. Each task computes one row of tiles on one thread.
+   */
+  static final int TILE_ROWS = 32;
+
+  /**
+   * Opponent lineups per tile, so their decks stay in cache while every player of the tile plays
+   * them.
+   */
+  static final int TILE_COLUMNS = 512;
+
+  /**
+   * Largest mapped segment, below the 2GB limit of a single mapping.
+   */
+  private static final long MAX_SEGMENT_BYTES = 1L << 30;
+
+  /**
+   * Returns the payoff matrix of {@code tables} under {@code calculationType}, with ban
+   * probabilities iff {@code bans}. Maps it from {@code cacheDirectory} if present, and otherwise
+   * computes it on {@code parallelism} threads and caches it. Records whether the load hit the
+   * cache in {@code metrics}.
+   *
+   * <p>Rows are in the order of {@link LineupTables#playerLineups()} and columns in the order of
+   * {@link LineupTables#weightedOpponentLineups()}.
+   */
+  public static PayoffMatrix load(LineupTables tables, CalculationType calculationType,
+      boolean bans, Path cacheDirectory, int parallelism, RunMetrics metrics) throws IOException {
+    checkArgument(parallelism > 0, "Expected positive parallelism, found %s", parallelism);
+    Lineup[] players = tables.playerLineups().toArray(new Lineup[0]);
+    Lineup[] opponents = tables.weightedOpponentLineups().keySet().toArray(new Lineup[0]);
+    String key = key(tables.matchups(), players, opponents, calculationType, bans);
+    Path entry = cacheDirectory.resolve(key + ".payoff");
+
+    if (Files.exists(entry)) {
+      PayoffMatrix cached = map(entry, tables, calculationType, players.length,
+          opponents.length, bans);
+      if (cached != null) {
+        metrics.recordPayoffCacheLoad(true);
+        return cached;
+      }
+    }
+
+    metrics.recordPayoffCacheLoad(false);
+    Files.createDirectories(cacheDirectory);
+    Path tmp = Files.createTempFile(cacheDirectory, key, ".tmp");
+    try {
+      compute(tables.matchups(), calculationType, players, opponents, bans, tmp, parallelism);
+      Files.move(tmp, entry, StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(tmp);
+    }
+    PayoffMatrix computed =
+        map(entry, tables, calculationType, players.length, opponents.length, bans);
+    checkState(computed != null, "Failed to read back %s", entry);
+    return computed;
+  }
+
+  /**
+   * Returns the cache key of the given payoffs.
+   */
+  static String key(MatchupMatrix matchups, Lineup[] players, Lineup[] opponents,
+      CalculationType calculationType, boolean bans) {
+    Hasher hasher = Hashing.sha256().newHasher()
+        .putInt(FORMAT_VERSION)
+        .putString(calculationType.name(), StandardCharsets.UTF_8)
+        .putBoolean(bans);
+    for (String deck : matchups.getHeaders()) {
+      hasher.putString(deck, StandardCharsets.UTF_8).putByte((byte) 0);
+    }
+    for (int player = 0; player < matchups.getNumDecks(); player++) {
+      for (int opponent = 0; opponent < matchups.getNumDecks(); opponent++) {
+        hasher.putLong(Double.doubleToLongBits(matchups.winRate(player, opponent)));
+      }
+    }
+    putLineups(hasher, players);
+    putLineups(hasher, opponents);
+    return hasher.hash().toString();
+  }
+
+  private static void putLineups(Hasher hasher, Lineup[] lineups) {
+    hasher.putInt(lineups.length);
+    for (Lineup lineup : lineups) {
+      for (int i = 0; i < PLAYER_DECK_COUNT; i++) {
+        hasher.putInt(lineup.getDeck(i));
+      }
+    }
+  }
+
+  /**
+   * Computes every payoff into a new file at {@code path}, one row of tiles per task.
+   */
+  private static void compute(MatchupMatrix matchups, CalculationType calculationType,
+      Lineup[] players, Lineup[] opponents, boolean bans, Path path, int parallelism)
+      throws IOException {
+    FastCalculations calculations = new FastCalculations(matchups);
+    int rows = players.length;
+    int columns = opponents.length;
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ,
+        StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+        StandardOpenOption.TRUNCATE_EXISTING)) {
+      Region payoffs = Region.map(channel, MapMode.READ_WRITE, HEADER_BYTES, rows, columns);
+      @Nullable Region banProbabilities = bans
+          ? Region.map(channel, MapMode.READ_WRITE, HEADER_BYTES + payoffs.bytes(), rows,
+              columns * PLAYER_DECK_COUNT)
+          : null;
+
+      ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+      try {
+        List<Future<?>> tasks = new ArrayList<>();
+        for (int firstRow = 0; firstRow < rows; firstRow += TILE_ROWS) {
+          int lastRow = Math.min(rows, firstRow + TILE_ROWS);
+          int first = firstRow;
+          tasks.add(executor.submit(() -> computeRowOfTiles(calculations, calculationType,
+              players, opponents, first, lastRow, payoffs, banProbabilities)));
+        }
+        for (Future<?> task : tasks) {
+          getTask(task);
+        }
+      } finally {
+        executor.shutdownNow();
+      }
+
+      payoffs.force();
+      if (banProbabilities != null) {
+        banProbabilities.force();
+      }
+      // The header is written last, so a partially written file never reads back as valid.
+      channel.write(header(rows, columns, bans), 0);
+      channel.force(true);
+    }
+  }
+
+  /**
+   * Computes rows {@code [firstRow, lastRow)} one tile of {@link #TILE_COLUMNS} opponents at a
+   * time.
+   */
+  private static void computeRowOfTiles(FastCalculations calculations,
+      CalculationType calculationType, Lineup[] players, Lineup[] opponents, int firstRow,
+      int lastRow, Region payoffs, @Nullable Region banProbabilities) {
+    FastCalculations.Scratch scratch = new FastCalculations.Scratch();
+    for (int firstColumn = 0; firstColumn < opponents.length; firstColumn += TILE_COLUMNS) {
+      int lastColumn = Math.min(opponents.length, firstColumn + TILE_COLUMNS);
+      for (int row = firstRow; row < lastRow; row++) {
+        Lineup player = players[row];
+        for (int column = firstColumn; column < lastColumn; column++) {
+          Lineup opponent = opponents[column];
+          boolean playable = calculations.canPlay(player, opponent);
+          payoffs.put(row, column, playable
+              ? calculations.payoff(calculationType, player, opponent, scratch)
+              : Double.NaN);
+          if (banProbabilities != null) {
+            for (int i = 0; i < PLAYER_DECK_COUNT; i++) {
+              banProbabilities.put(row, column * PLAYER_DECK_COUNT + i,
+                  playable ? scratch.banProbabilities[i] : Double.NaN);
+            }
+          }
+        }
+      }
+    }
+  }
+
+  private static void getTask(Future<?> task) {
+    try {
+      task.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while computing payoffs", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new IllegalStateException(e.getCause());
+    }
+  }
+
+  private static ByteBuffer header(int rows, int columns, boolean bans) {
+    ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES)
+        .putInt(MAGIC)
+        .putInt(FORMAT_VERSION)
+        .putInt(rows)
+        .putInt(columns)
+        .putInt(bans ? 1 : 0);
+    header.clear();
+    return header;
+  }
+
+  /**
+   * Maps the payoffs at {@code path} read only, or returns null if its header does not match.
+   */
+  private static @Nullable PayoffMatrix map(Path path, LineupTables tables,
+      CalculationType calculationType, int rows, int columns, boolean bans) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+      if (channel.read(header, 0) != HEADER_BYTES
+          || !header.flip().equals(header(rows, columns, bans))) {
+        return null;
+      }
+      Region payoffs = Region.map(channel, MapMode.READ_ONLY, HEADER_BYTES, rows, columns);
+      @Nullable Region banProbabilities = bans
+          ? Region.map(channel, MapMode.READ_ONLY, HEADER_BYTES + payoffs.bytes(), rows,
+              columns * PLAYER_DECK_COUNT)
+          : null;
+      // Mappings stay valid after their channel is closed.
+      return new PayoffMatrix(tables, calculationType, payoffs, banProbabilities);
+    }
+  }
+
+  private final LineupTables tables;
+  private final CalculationType calculationType;
+  private final Region payoffs;
+  private final @Nullable Region banProbabilities;
+
+  private PayoffMatrix(LineupTables tables, CalculationType calculationType, Region payoffs,
+      @Nullable Region banProbabilities) {
+    this.tables = tables;
+    this.calculationType = calculationType;
+    this.payoffs = payoffs;
+    this.banProbabilities = banProbabilities;
+  }
+
+  /**
+   * Returns the lineups this matrix was computed from.
+   */
+  public LineupTables tables() {
+    return tables;
+  }
+
+  /**
+   * Returns the calculation type payoffs were computed with.
+   */
+  public CalculationType calculationType() {
+    return calculationType;
+  }
+
+  /**
+   * Returns the number of player lineups.
+   */
+  public int rows() {
+    return payoffs.rows;
+  }
+
+  /**
+   * Returns the number of opponent lineups.
+   */
+  public int columns() {
+    return payoffs.columns;
+  }
+
+  /**
+   * Returns true iff this matrix holds ban probabilities.
+   */
+  public boolean hasBans() {
+    return banProbabilities != null;
+  }
+
+  /**
+   * Returns the win rate of player lineup {@code row} against opponent lineup {@code column}, or
+   * {@link Double#NaN} if they cannot play.
+   */
+  public double payoff(int row, int column) {
+    return payoffs.get(row, column);
+  }
+
+  /**
+   * Returns the probability player lineup {@code row} bans the deck at {@code index} of opponent
+   * lineup {@code column}, or {@link Double#NaN} if they cannot play. Naive bans are always
+   * {@code 0} or {@code 1}.
+   */
+  public double banProbability(int row, int column, int index) {
+    checkState(banProbabilities != null, "Payoffs were computed without bans");
+    checkArgument(index >= 0 && index < PLAYER_DECK_COUNT,
+        "Expected deck index in [0, %s), found %s", PLAYER_DECK_COUNT, index);
+    return banProbabilities.get(row, column * PLAYER_DECK_COUNT + index);
+  }
+
+  /**
+   * Returns new player lineups, one per row.
+   */
+  public ImmutableList<Lineup> playerLineups() {
+    return tables.playerLineups();
+  }
+
+  /**
+   * Returns new opponent lineups with their weights, one per column.
+   */
+  public ImmutableMap<Lineup, Double> weightedOpponentLineups() {
+    return tables.weightedOpponentLineups();
+  }
+
+  /**
+   * A {@code rows * columns} table of quantized values in a mapped file, split into segments of
+   * whole rows so each fits in a single mapping.
+   */
+  private static final class Region {
+
+    static Region map(FileChannel channel, MapMode mode, long position, int rows, int columns)
+        throws IOException {
+      long rowBytes = (long) columns * Character.BYTES;
+      int rowsPerSegment =
+          (int) Math.max(1, Math.min(rows, MAX_SEGMENT_BYTES / Math.max(1, rowBytes)));
+      int segmentCount = rows == 0 ? 0 : (rows + rowsPerSegment - 1) / rowsPerSegment;
+      MappedByteBuffer[] buffers = new MappedByteBuffer[segmentCount];
+      CharBuffer[] segments = new CharBuffer[segmentCount];
+      for (int i = 0; i < segmentCount; i++) {
+        int segmentRows = Math.min(rowsPerSegment, rows - i * rowsPerSegment);
+        buffers[i] = channel.map(mode, position + i * rowsPerSegment * rowBytes,
+            segmentRows * rowBytes);
+        segments[i] = buffers[i].asCharBuffer();
+      }
+      return new Region(rows, columns, rowsPerSegment, buffers, segments);
+    }
+
+    final int rows;
+    final int columns;
+    private final int rowsPerSegment;
+    private final MappedByteBuffer[] buffers;
+    private final CharBuffer[] segments;
+
+    private Region(int rows, int columns, int rowsPerSegment, MappedByteBuffer[] buffers,
+        CharBuffer[] segments) {
+      this.rows = rows;
+      this.columns = columns;
+      this.rowsPerSegment = rowsPerSegment;
+      this.buffers = buffers;
+      this.segments = segments;
+    }
+
+    long bytes() {
+      return (long) rows * columns * Character.BYTES;
+    }
+
+    double get(int row, int column) {
+      checkArgument(row >= 0 && row < rows && column >= 0 && column < columns,
+          "Index (%s, %s) out of bounds of %sx%s", row, column, rows, columns);
+      return QuantizedUnitTable.decode(segments[row / rowsPerSegment]
+          .get((row % rowsPerSegment) * columns + column));
+    }
+
+    /**
+     * Writes {@code value}, clamped to {@code [0, 1]} to absorb rounding in the zero sum game, or
+     * NaN.
+     */
+    void put(int row, int column, double value) {
+      double clamped = Double.isNaN(value) ? value : Math.min(1, Math.max(0, value));
+      segments[row / rowsPerSegment]
+          .put((row % rowsPerSegment) * columns + column, QuantizedUnitTable.encode(clamped));
+    }
+
+    void force() {
+      for (MappedByteBuffer buffer : buffers) {
+        buffer.force();
+      }
+    }
+  }
+}
@@ -0,0 +1,79 @@
+package com.redpup.bracketbuster.sim;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.redpup.bracketbuster.model.LineupTables;
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * A run of a {@link Runner} from cached win rates rather than solved matchups, see {@link
+ * Runner#computeTopLineupsFromPayoffs(PayoffMatrix)} and {@link
+ * Runner#computeTopLineupsReweighted(UnweightedResults, OpponentWeights)}.
+ */
+final class PayoffRun {
+
+  private final Runner runner;
+
+  PayoffRun(Runner runner) {
+    this.runner = runner;
+  }
+
+  /**
+   * Loads the {@link PayoffMatrix} of {@code runner} with bans from {@code cacheDirectory},
+   * computing it first if absent.
+   */
+  static PayoffMatrix loadPayoffs(Runner runner, Path cacheDirectory) throws IOException {
+    LineupTables tables = runner.lineupTables() != null
+        ? runner.lineupTables()
+        : LineupTables.compute(runner.matchupMatrix(), runner.lineupWeightType());
+    return PayoffMatrix.load(tables, runner.calculationType(), true, cacheDirectory,
+        Runtime.getRuntime().availableProcessors(), runner.metrics());
+  }
+
+  /**
+   * Ranks every player lineup of {@code payoffs} and handles the output.
+   */
+  void run(PayoffMatrix payoffs) {
+    checkArgument(payoffs.calculationType() == runner.calculationType(),
+        "Expected payoffs computed with %s, found %s", runner.calculationType(),
+        payoffs.calculationType());
+
+    RunIteration iteration = RunIteration.start(runner, 0, "Reducing Payoffs");
+    iteration.recordLineups(payoffs.rows(), payoffs.columns());
+    UnweightedResults results =
+        iteration.score(payoffs.rows(), progress -> UnweightedResults.of(payoffs, progress));
+    handleWeightedOutput(iteration, results, results.weights());
+    iteration.commit();
+  }
+
+  /**
+   * Ranks every player lineup of {@code results} with its opponents weighted by {@code weights}
+   * and handles the output.
+   */
+  void runReweighted(UnweightedResults results, OpponentWeights weights) {
+    checkArgument(results.calculationType() == runner.calculationType(),
+        "Expected results computed with %s, found %s", runner.calculationType(),
+        results.calculationType());
+
+    RunIteration iteration = RunIteration.start(runner, 0, "Reweighting Results");
+    iteration.recordLineups(results.playerLineups().size(), weights.size());
+    handleWeightedOutput(iteration, results, weights);
+    iteration.commit();
+  }
+
+  /**
+   * Handles the output of {@code results} weighted by {@code weights} in {@code iteration}.
+   */
+  private void handleWeightedOutput(RunIteration iteration, UnweightedResults results,
+      OpponentWeights weights) {
+    iteration.output("Handling Output", () -> {
+      Output.Accumulator accumulator = Output.accumulator(runner.matchupMatrix(),
+          runner.sortType(), runner.topKToPrintLimit());
+      for (int row = 0; row < results.playerLineups().size(); row++) {
+        accumulator.add(results.playerLineups().get(row), results.metric(row, weights));
+      }
+      runner.logger().handleOutput(accumulator.build(), runner);
+    });
+  }
+}
@@ -0,0 +1,156 @@
+package com.redpup.bracketbuster.sim;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * A {@link Logger} that counts scored lineups and matchups on the way to a delegate logger, and
+ * logs throughput, percent complete and an ETA from a background thread at a fixed interval.
+ *
+ * <p>Counts are kept in {@link LongAdder}s, so scorer threads reporting concurrently through
+ * {@link #handleMatchups(int)} never contend, and nothing is logged on their threads. Closing the
+ * reporter stops the background thread, records the counts in {@link RunMetrics} and logs a final
+ * summary.
+ */
+final class ProgressReporter implements Logger, AutoCloseable {
+
+  private static final double NANOS_PER_SECOND = 1.0e9;
+
+  /**
+   * Starts a new {@link ProgressReporter} in front of {@code delegate}, expecting {@code
+   * totalLineups} player lineups, or {@code 0} if unknown. Reports every {@code interval}, or never
+   * if {@code interval} is zero. Counts are recorded in {@code metrics} once closed.
+   */
+  static ProgressReporter start(Logger delegate, long totalLineups, Duration interval,
+      RunMetrics metrics) {
+    checkArgument(totalLineups >= 0, "Expected non-negative total, found %s", totalLineups);
+    checkArgument(!interval.isNegative(), "Expected non-negative interval, found %s", interval);
+    ProgressReporter reporter = new ProgressReporter(delegate, totalLineups, metrics);
+    if (!interval.isZero()) {
+      reporter.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "progress-reporter");
+        thread.setDaemon(true);
+        return thread;
+      });
+      reporter.executor.scheduleAtFixedRate(reporter::report, interval.toNanos(),
+          interval.toNanos(), TimeUnit.NANOSECONDS);
+    }
+    return reporter;
+  }
+
+  private final Logger delegate;
+  private final long totalLineups;
+  private final RunMetrics metrics;
+  private final long startNanos;
+  private final LongAdder lineups = new LongAdder();
+  private final LongAdder matchups = new LongAdder();
+  private final LongAdder reusedLineups = new LongAdder();
+  private @Nullable ScheduledExecutorService executor;
+
+  private ProgressReporter(Logger delegate, long totalLineups, RunMetrics metrics) {
+    this.delegate = delegate;
+    this.totalLineups = totalLineups;
+    this.metrics = metrics;
+    this.startNanos = System.nanoTime();
+  }
+
+  @Override
+  public void log(String message) {
+    delegate.log(message);
+  }
+
+  @Override
+  public void setIteration(int i) {
+    delegate.setIteration(i);
+  }
+
+  @Override
+  public void setCurrentStep(String step) {
+    delegate.setCurrentStep(step);
+  }
+
+  @Override
+  public void handleMatchups(int count) {
+    lineups.increment();
+    matchups.add(count);
+    delegate.handleMatchups(count);
+  }
+
+  /**
+   * Counts {@code count} more matchups of a lineup already counted through {@link
+   * #handleMatchups(int)}, as when it is refined, so it is not counted towards the total twice.
+   */
+  void handleMoreMatchups(int count) {
+    matchups.add(count);
+    delegate.handleMatchups(count);
+  }
+
+  /**
+   * Counts {@code count} player lineups whose earlier results are reused rather than scored. They
+   * are not part of the expected total or the scored lineups, and are logged separately.
+   */
+  void handleReusedLineups(long count) {
+    reusedLineups.add(count);
+  }
+
+  @Override
+  public void handleOutput(Output output, Runner runner) {
+    delegate.handleOutput(output, runner);
+  }
+
+  /**
+   * Returns the number of player lineups scored so far.
+   */
+  long lineups() {
+    return lineups.sum();
+  }
+
+  /**
+   * Returns the number of matchups scored so far.
+   */
+  long matchups() {
+    return matchups.sum();
+  }
+
+  /**
+   * Logs the current throughput, and the percent complete and ETA if the total is known.
+   */
+  void report() {
+    long scoredLineups = lineups.sum();
+    long scoredMatchups = matchups.sum();
+    double seconds = elapsedSeconds();
+    double matchupsPerSecond = seconds > 0 ? scoredMatchups / seconds : 0;
+    if (totalLineups == 0 || scoredLineups == 0) {
+      delegate.log(String.format("\tScored %d lineups, %d matchups (%.0f matchups/s).",
+          scoredLineups, scoredMatchups, matchupsPerSecond));
+    } else {
+      double eta = seconds * (totalLineups - scoredLineups) / scoredLineups;
+      delegate.log(String.format(
+          "\tScored %d/%d lineups (%.1f%%), %d matchups (%.0f matchups/s). ETA %.0fs.",
+          scoredLineups, totalLineups, 100.0 * scoredLineups / totalLineups, scoredMatchups,
+          matchupsPerSecond, eta));
+    }
+  }
+
+  private double elapsedSeconds() {
+    return (System.nanoTime() - startNanos) / NANOS_PER_SECOND;
+  }
+
+  @Override
+  public void close() {
+    if (executor != null) {
+      executor.shutdownNow();
+    }
+    metrics.recordScoring(lineups.sum(), matchups.sum());
+    long reused = reusedLineups.sum();
+    delegate.log(String.format("\tScored %d lineups and %d matchups in %.1fs%s.", lineups.sum(),
+        matchups.sum(), elapsedSeconds(),
+        reused > 0 ? String.format(", reusing %d lineups", reused) : ""));
+  }
+}
@@ -0,0 +1,384 @@
+package com.redpup.bracketbuster.sim;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static com.redpup.bracketbuster.util.Constants.PLAYER_DECK_COUNT;
+
+import com.google.common.collect.ImmutableList;
+import com.redpup.bracketbuster.model.Lineup;
+import com.redpup.bracketbuster.sim.Calculations.CalculationType;
+import com.redpup.bracketbuster.util.Pair;
+import com.redpup.bracketbuster.util.WeightedDoubleMetric;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * An anytime race between player lineups for the top {@link Runner#topKToPrintLimit()} by weighted
+ * mean win rate, started by {@link Runner#startRace(int, long)}. A successive halving alternative
+ * to hand tuned {@link Runner#pruneRatios()}.
+ *
+ * <p>Opponent lineups are shuffled once, and every player lineup plays them in that order. Each
+ * lineup starts against the first {@code initialOpponents}, and each round doubles the opponents
+ * of the lineups still racing. The weighted mean of the opponents played so far is a ratio
+ * estimate of the exact weighted mean, with a normal approximation confidence interval that
+ * narrows to nothing once every opponent is played. Intervals are Bonferroni corrected over every
+ * lineup and every round, so all of them hold together at {@link SampledResult#CONFIDENCE}, up to
+ * the normal approximation. Each is intersected with a hard bound: a lineup that played opponents
+ * of total weight {@code k} with weighted mean {@code m}, and has yet to see opponents of total
+ * weight {@code d}, has an exact weighted mean in {@code [k m / (k + d), (k m + d) / (k + d)]}, as
+ * win rates are in {@code [0, 1]}. A lineup whose upper bound is below the lower bounds of the top
+ * lineups is dominated and drops out. The race is certified once no other lineup remains.
+ *
+ * <p>{@link #run(Duration)} races until certified, out of opponents or out of time, and may be
+ * called again to continue. It is not thread safe, but {@link #bestSoFar()} may be read from any
+ * thread at any moment.
+ */
+public final class Race {
+
+  private final Runner runner;
+  private final ImmutableList<Lineup> players;
+  private final OpponentField opponents;
+  private final FastCalculations.Scratch scratch = new FastCalculations.Scratch();
+
+  /**
+   * Opponent indices, in the order they are played.
+   */
+  private final int[] order;
+  /**
+   * The total weight of the first {@code i} opponents of {@link #order}, at {@code i}.
+   */
+  private final double[] seenWeights;
+
+  // Running sums over the opponents each lineup played, for the ratio estimate. Opponents it
+  // cannot play count with no weight.
+  private final int[] played;
+  private final double[] playableWeights;
+  private final double[] playableWeightSquares;
+  private final double[] weightedWinRates;
+  private final double[] weightedWinRateSquares;
+  private final double[] weightedWinRateProducts;
+  /**
+   * The final metric of each dropped lineup, or null while it is racing.
+   */
+  private final @Nullable WeightedDoubleMetric[] droppedMetrics;
+  private List<Integer> racing;
+  /**
+   * The z score of every confidence interval, corrected for every interval of the race.
+   */
+  private final double zScore;
+
+  private int target;
+  private int rounds;
+  private long matchups;
+  private boolean certified;
+  private volatile @Nullable Output bestSoFar;
+
+  Race(Runner runner, List<Lineup> players, OpponentField opponents, int initialOpponents,
+      long seed) {
+    checkArgument(initialOpponents > 0, "Expected positive initialOpponents, found %s",
+        initialOpponents);
+    this.runner = runner;
+    this.players = ImmutableList.copyOf(players);
+    this.opponents = opponents;
+
+    order = new int[opponents.size()];
+    SplittableRandom random = new SplittableRandom(seed);
+    for (int i = 0; i < order.length; i++) {
+      int j = random.nextInt(i + 1);
+      order[i] = order[j];
+      order[j] = i;
+    }
+    seenWeights = new double[opponents.size() + 1];
+    for (int i = 0; i < opponents.size(); i++) {
+      seenWeights[i + 1] = seenWeights[i] + opponents.weights[order[i]];
+    }
+
+    played = new int[players.size()];
+    playableWeights = new double[players.size()];
+    playableWeightSquares = new double[players.size()];
+    weightedWinRates = new double[players.size()];
+    weightedWinRateSquares = new double[players.size()];
+    weightedWinRateProducts = new double[players.size()];
+    droppedMetrics = new WeightedDoubleMetric[players.size()];
+    racing = new ArrayList<>(players.size());
+    for (int p = 0; p < players.size(); p++) {
+      Lineup player = players.get(p);
+      checkArgument(player.getDecks().size() == PLAYER_DECK_COUNT,
+          "Expected %s decks, found %s", PLAYER_DECK_COUNT, player.getDecks());
+      player.resetMetadata();
+      racing.add(p);
+    }
+    target = Math.min(initialOpponents, opponents.size());
+    zScore = correctedZScore(
+        (long) players.size() * maxRounds(initialOpponents, opponents.size()));
+  }
+
+  /**
+   * Generates every player and opponent lineup of {@code runner} and returns a race between the
+   * player lineups, see {@link Runner#startRace(int, long)}.
+   */
+  static Race start(Runner runner, int initialOpponents, long seed) {
+    checkState(runner.pruneRatios().size() == 1, "Races do not support pruning: %s",
+        runner.pruneRatios());
+    checkState(runner.sortType() == SortType.WEIGHTED_MEAN_WIN_RATE,
+        "Races only bound %s, found %s", SortType.WEIGHTED_MEAN_WIN_RATE, runner.sortType());
+
+    Pair<List<Lineup>, OpponentField> lineups = RunIteration.generateLineups(runner);
+    runner.metrics().recordLineupCounts(lineups.first().size(), lineups.second().size());
+    runner.logger().log(String.format("Created %d player lineups and %d opponent lineups to race.",
+        lineups.first().size(), lineups.second().size()));
+    return new Race(runner, lineups.first(), lineups.second(), initialOpponents, seed);
+  }
+
+  /**
+   * Returns the number of rounds until {@code initialOpponents}, doubled every round, reaches
+   * {@code opponents}.
+   */
+  static int maxRounds(int initialOpponents, int opponents) {
+    int rounds = 1;
+    for (long target = initialOpponents; target < opponents; target *= 2) {
+      rounds++;
+    }
+    return rounds;
+  }
+
+  /**
+   * Returns a z score at which {@code comparisons} normal confidence intervals all hold together
+   * at {@link SampledResult#CONFIDENCE}, by a union bound. Each misses with probability at most
+   * {@code (1 - CONFIDENCE) / comparisons}, through the conservative tail bound {@code P(|Z| > z)
+   * <= 2 exp(-z^2 / 2)}.
+   */
+  static double correctedZScore(long comparisons) {
+    checkArgument(comparisons >= 0, "Expected non-negative comparisons, found %s", comparisons);
+    double alpha = (1 - SampledResult.CONFIDENCE) / Math.max(1, comparisons);
+    return Math.sqrt(2 * Math.log(2 / alpha));
+  }
+
+  /**
+   * Races until the top lineups are certified, every racing lineup has played every opponent, or
+   * {@code budget} expires, then handles the best output so far through the runner's logger and
+   * returns it. The first round always completes, so every lineup has an estimate. After that, the
+   * budget is checked before each lineup plays on.
+   */
+  public Output run(Duration budget) {
+    checkArgument(!budget.isNegative(), "Expected a non-negative budget, found %s", budget);
+    long deadline = System.nanoTime() + budget.toNanos();
+    RunIteration iteration = RunIteration.start(runner, rounds, "Racing Lineups");
+    iteration.recordLineups(players.size(), opponents.size());
+    iteration.score(0, progress -> {
+      race:
+      while (!finished()) {
+        for (int p : racing) {
+          if (played[p] < target) {
+            if (bestSoFar != null && System.nanoTime() - deadline >= 0) {
+              break race;
+            }
+            progress.handleMatchups(playUntil(p, target));
+          }
+        }
+        endRound();
+      }
+      return rounds;
+    });
+    runner.metrics().recordNash(scratch.solves, scratch.pivots);
+
+    Output output = iteration.output("Handling Output", () -> {
+      Output best = snapshot();
+      runner.logger().handleOutput(best, runner);
+      return best;
+    });
+    runner.logger().log(String.format(
+        "Raced %d matchups in %d rounds, %d lineups remain. Top lineups %s.", matchups, rounds,
+        racing.size(), certified ? "certified" : "not certified"));
+    iteration.commit();
+    return output;
+  }
+
+  /**
+   * Returns the output of the last completed round, or of the last call to {@link #run}, whichever
+   * is later. Returns null before the first round completes.
+   */
+  public @Nullable Output bestSoFar() {
+    return bestSoFar;
+  }
+
+  /**
+   * Returns whether every lineup but the top lineups has dropped out, so they are the exact top
+   * lineups with family-wise confidence {@link SampledResult#CONFIDENCE}, up to the normal
+   * approximation of each interval. Their weighted means in the output are still estimates from
+   * the opponents each has played.
+   */
+  public boolean certified() {
+    return certified;
+  }
+
+  /**
+   * Returns whether racing further would change nothing: the top lineups are certified or every
+   * racing lineup has played every opponent.
+   */
+  public boolean finished() {
+    if (certified) {
+      return true;
+    }
+    for (int p : racing) {
+      if (played[p] < opponents.size()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns the number of completed rounds.
+   */
+  public int rounds() {
+    return rounds;
+  }
+
+  /**
+   * Returns the number of lineups still racing.
+   */
+  public int racing() {
+    return racing.size();
+  }
+
+  /**
+   * Returns the number of playable matchups evaluated so far.
+   */
+  public long matchups() {
+    return matchups;
+  }
+
+  /**
+   * Plays player lineup {@code p} against opponents up to {@code target} of {@link #order}.
+   * Returns the number of matchups played.
+   */
+  private int playUntil(int p, int target) {
+    Lineup player = players.get(p);
+    FastCalculations calculations = opponents.calculations;
+    int count = 0;
+    for (; played[p] < target; played[p]++) {
+      int i = order[played[p]];
+      Lineup opponent = opponents.lineups[i];
+      if (!calculations.canPlay(player, opponent)) {
+        continue;
+      }
+      count++;
+      double winRate = runner.calculationType() == CalculationType.NAIVE
+          ? calculations.winRateBestTwoOfThreeOneBanNaive(player, opponent, scratch)
+          : calculations.winRateBestTwoOfThreeOneBanNash(player, opponent, scratch);
+      double weight = opponents.weights[i];
+      player.metadata().applyMatchup(opponent, winRate, weight);
+      double weightedWinRate = winRate * weight;
+      playableWeights[p] += weight;
+      playableWeightSquares[p] += weight * weight;
+      weightedWinRates[p] += weightedWinRate;
+      weightedWinRateSquares[p] += weightedWinRate * weightedWinRate;
+      weightedWinRateProducts[p] += weightedWinRate * weight;
+    }
+    matchups += count;
+    return count;
+  }
+
+  /**
+   * Drops dominated lineups, checks certification, publishes {@link #bestSoFar()} and doubles the
+   * opponents of the next round.
+   */
+  private void endRound() {
+    int topK = Math.min(runner.topKToPrintLimit(), racing.size());
+    racing.sort(Comparator.comparingDouble(this::lowerBound).reversed());
+    if (topK > 0) {
+      double lowestTop = Double.POSITIVE_INFINITY;
+      for (int p : racing.subList(0, topK)) {
+        lowestTop = Math.min(lowestTop, lowerBound(p));
+      }
+      List<Integer> remaining = new ArrayList<>(racing.subList(0, topK));
+      for (int p : racing.subList(topK, racing.size())) {
+        if (upperBound(p) < lowestTop) {
+          droppedMetrics[p] = players.get(p).metadata().getWinRateMetric();
+        } else {
+          remaining.add(p);
+        }
+      }
+      racing = remaining;
+    }
+    // Every lineup left outside the top lineups overlaps them.
+    certified = racing.size() == topK;
+
+    rounds++;
+    snapshot();
+    runner.logger().log(String.format(
+        "Round %d: %d of %d lineups remain after %d of %d opponents.", rounds, racing.size(),
+        players.size(), target, opponents.size()));
+    target = (int) Math.min((long) target * 2, opponents.size());
+  }
+
+  /**
+   * Returns the lower bound of the weighted mean of lineup {@code p} against every opponent.
+   */
+  private double lowerBound(int p) {
+    double total = playableWeights[p] + unseenWeight(p);
+    double hardBound = total == 0 ? 0 : weightedWinRates[p] / total;
+    return Math.max(hardBound, estimate(p) - halfWidth(p));
+  }
+
+  /**
+   * Returns the upper bound of the weighted mean of lineup {@code p} against every opponent.
+   */
+  private double upperBound(int p) {
+    double total = playableWeights[p] + unseenWeight(p);
+    double hardBound = total == 0 ? 0 : (weightedWinRates[p] + unseenWeight(p)) / total;
+    return Math.min(hardBound, estimate(p) + halfWidth(p));
+  }
+
+  /**
+   * Returns the weighted mean of lineup {@code p} over the opponents it played.
+   */
+  private double estimate(int p) {
+    return playableWeights[p] == 0 ? 0 : weightedWinRates[p] / playableWeights[p];
+  }
+
+  /**
+   * Returns the half width of the confidence interval of {@link #estimate}, through the
+   * linearized variance of a ratio estimate sampled without replacement.
+   */
+  private double halfWidth(int p) {
+    int n = played[p];
+    if (n < 2 || playableWeights[p] == 0) {
+      return Double.POSITIVE_INFINITY;
+    }
+    double ratio = estimate(p);
+    double residualSquares = weightedWinRateSquares[p] - 2 * ratio * weightedWinRateProducts[p]
+        + ratio * ratio * playableWeightSquares[p];
+    double meanWeight = playableWeights[p] / n;
+    double variance = (1 - (double) n / opponents.size()) * Math.max(0, residualSquares)
+        / (n - 1) / (n * meanWeight * meanWeight);
+    return zScore * Math.sqrt(variance);
+  }
+
+  private double unseenWeight(int p) {
+    return Math.max(0, seenWeights[opponents.size()] - seenWeights[played[p]]);
+  }
+
+  /**
+   * Builds the output of every lineup's current estimate, and publishes it as {@link
+   * #bestSoFar()}.
+   */
+  private Output snapshot() {
+    Output.Accumulator accumulator = Output.accumulator(runner.matchupMatrix(),
+        runner.sortType(), runner.topKToPrintLimit());
+    for (int p = 0; p < players.size(); p++) {
+      Lineup player = players.get(p);
+      accumulator.add(player, droppedMetrics[p] != null
+          ? droppedMetrics[p]
+          : player.metadata().peekWinRateMetric());
+    }
+    Output output = accumulator.build();
+    bestSoFar = output;
+    return output;
+  }
+}
@@ -0,0 +1,221 @@
+package com.redpup.bracketbuster.sim;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.google.common.collect.ImmutableList;
+import com.redpup.bracketbuster.model.Lineup;
+import com.redpup.bracketbuster.model.LineupMetadata;
+import com.redpup.bracketbuster.model.MatchupMatrix;
+import com.redpup.bracketbuster.model.proto.ScoredLineupMessage;
+import com.redpup.bracketbuster.sim.proto.LineupResultMessage;
+import com.redpup.bracketbuster.util.WeightedDoubleMetric;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Streams the result of every scored lineup of a run to a file, as {@link LineupResultMessage}s,
+ * while the run itself only retains the top lineups it prints. See {@link
+ * Runner.Builder#setResultSink(ResultSink)}.
+ *
+ * <p>Results are written through a buffered file channel as each lineup is scored, so writing every
+ * lineup of a run does not hold them in memory or build any intermediate strings. Results are
+ * written in the order they are scored, not ranked. Not thread safe. The sink must be closed to
+ * flush the file.
+ */
+public final class ResultSink implements Closeable {
+
+  private static final int BUFFER_SIZE = 1 << 16;
+
+  /**
+   * The file format results are written in.
+   */
+  public enum Format {
+    /**
+     * Length delimited {@link LineupResultMessage}s, as read by {@link #readDelimited(Path)}.
+     */
+    PROTO_DELIMITED,
+    /**
+     * A single JSON array of objects, with the proto3 JSON field names of {@link
+     * LineupResultMessage}.
+     */
+    JSON;
+
+    /**
+     * Returns {@link #JSON} for paths ending in {@code .json}, and {@link #PROTO_DELIMITED}
+     * otherwise.
+     */
+    public static Format forPath(Path path) {
+      return path.getFileName().toString().endsWith(".json") ? JSON : PROTO_DELIMITED;
+    }
+  }
+
+  /**
+   * Opens a new {@link ResultSink} writing to {@code path} in the format of its extension, see
+   * {@link Format#forPath(Path)}.
+   */
+  public static ResultSink open(Path path) throws IOException {
+    return open(path, Format.forPath(path));
+  }
+
+  /**
+   * Opens a new {@link ResultSink} writing to {@code path} in {@code format}, replacing any
+   * existing file.
+   */
+  public static ResultSink open(Path path, Format format) throws IOException {
+    OutputStream out = new BufferedOutputStream(
+        Channels.newOutputStream(FileChannel.open(path, StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)),
+        BUFFER_SIZE);
+    @Nullable JsonGenerator json = null;
+    if (format == Format.JSON) {
+      json = new JsonFactory().createGenerator(out, JsonEncoding.UTF8);
+      json.writeStartArray();
+    }
+    return new ResultSink(path, out, json);
+  }
+
+  /**
+   * Reads every result written in {@link Format#PROTO_DELIMITED} to {@code path}.
+   */
+  public static ImmutableList<LineupResultMessage> readDelimited(Path path) throws IOException {
+    ImmutableList.Builder<LineupResultMessage> results = ImmutableList.builder();
+    try (InputStream in = new BufferedInputStream(Files.newInputStream(path), BUFFER_SIZE)) {
+      LineupResultMessage result;
+      while ((result = LineupResultMessage.parseDelimitedFrom(in)) != null) {
+        results.add(result);
+      }
+    }
+    return results.build();
+  }
+
+  private final Path path;
+  private final OutputStream out;
+  private final @Nullable JsonGenerator json;
+  private long written;
+
+  private ResultSink(Path path, OutputStream out, @Nullable JsonGenerator json) {
+    this.path = path;
+    this.out = out;
+    this.json = json;
+  }
+
+  /**
+   * The file results are written to.
+   */
+  public Path path() {
+    return path;
+  }
+
+  /**
+   * Returns the number of results written so far.
+   */
+  public long written() {
+    return written;
+  }
+
+  /**
+   * Writes the result of {@code lineup}, scored as {@code metric} over {@code matchups} in
+   * {@code iteration} of a run.
+   */
+  void write(int iteration, Lineup lineup, WeightedDoubleMetric metric, MatchupMatrix matchups) {
+    try {
+      write(toResult(iteration, lineup, metric, matchups));
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    written++;
+  }
+
+  /**
+   * Returns the unranked result of {@code lineup} in {@code iteration}.
+   */
+  private static LineupResultMessage toResult(int iteration, Lineup lineup,
+      WeightedDoubleMetric metric, MatchupMatrix matchups) {
+    LineupMetadata metadata = lineup.metadata();
+    LineupResultMessage.Builder result = LineupResultMessage.newBuilder()
+        .setIteration(iteration)
+        .addAllDecks(lineup.getDeckNames())
+        .setWeightedMean(metric.getWeightedMean())
+        .setUnweightedMean(metric.getUnweightedMean())
+        .setMedian(metric.getMedian())
+        .setStdDev(metric.getStdDev())
+        .putAllBanPercents(metadata.getBanPercents(matchups));
+    metadata.getBestMatchups()
+        .forEach((opponent, winRate) -> result.addBestMatchups(toScoredLineup(opponent, winRate)));
+    metadata.getWorstMatchups()
+        .forEach((opponent, winRate) -> result.addWorstMatchups(toScoredLineup(opponent, winRate)));
+    return result.build();
+  }
+
+  private static ScoredLineupMessage toScoredLineup(Lineup opponent, double winRate) {
+    return ScoredLineupMessage.newBuilder()
+        .addAllDecks(opponent.getDeckNames())
+        .setWinRate(winRate)
+        .build();
+  }
+
+  private void write(LineupResultMessage result) throws IOException {
+    if (json == null) {
+      result.writeDelimitedTo(out);
+      return;
+    }
+
+    json.writeStartObject();
+    json.writeNumberField("iteration", result.getIteration());
+    writeDecks("decks", result.getDecksList());
+    json.writeNumberField("weightedMean", result.getWeightedMean());
+    json.writeNumberField("unweightedMean", result.getUnweightedMean());
+    json.writeNumberField("median", result.getMedian());
+    json.writeNumberField("stdDev", result.getStdDev());
+    writeScoredLineups("bestMatchups", result.getBestMatchupsList());
+    writeScoredLineups("worstMatchups", result.getWorstMatchupsList());
+    json.writeObjectFieldStart("banPercents");
+    for (Map.Entry<String, Double> ban : result.getBanPercentsMap().entrySet()) {
+      json.writeNumberField(ban.getKey(), ban.getValue());
+    }
+    json.writeEndObject();
+    json.writeEndObject();
+  }
+
+  private void writeDecks(String field, Iterable<String> decks) throws IOException {
+    json.writeArrayFieldStart(field);
+    for (String deck : decks) {
+      json.writeString(deck);
+    }
+    json.writeEndArray();
+  }
+
+  private void writeScoredLineups(String field, Iterable<ScoredLineupMessage> lineups)
+      throws IOException {
+    json.writeArrayFieldStart(field);
+    for (ScoredLineupMessage lineup : lineups) {
+      json.writeStartObject();
+      writeDecks("decks", lineup.getDecksList());
+      json.writeNumberField("winRate", lineup.getWinRate());
+      json.writeEndObject();
+    }
+    json.writeEndArray();
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (json != null) {
+      json.writeEndArray();
+      json.close();
+    }
+    out.close();
+  }
+}
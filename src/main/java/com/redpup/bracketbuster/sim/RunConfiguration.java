@@ -0,0 +1,73 @@
+package com.redpup.bracketbuster.sim;
+
+import com.google.auto.value.AutoValue;
+import com.google.common.collect.ImmutableList;
+import com.redpup.bracketbuster.model.LineupWeightType;
+import com.redpup.bracketbuster.sim.Calculations.CalculationType;
+
+/**
+ * One configuration of a run evaluated by {@link Runner#runConfigurations(java.util.List)}: how
+ * matchups are calculated, how opponent lineups are weighted, and how lineups are sorted.
+ */
+@AutoValue
+public abstract class RunConfiguration {
+
+  RunConfiguration() {
+  }
+
+  /**
+   * Returns a new {@link RunConfiguration} of the given args.
+   */
+  static RunConfiguration create(CalculationType calculationType,
+      LineupWeightType lineupWeightType, SortType sortType) {
+    return new com.redpup.bracketbuster.sim.AutoValue_RunConfiguration(calculationType,
+        lineupWeightType, sortType);
+  }
+
+  /**
+   * Returns every combination of {@link CalculationType}, {@link LineupWeightType} and {@link
+   * SortType}.
+   */
+  public static ImmutableList<RunConfiguration> all() {
+    ImmutableList.Builder<RunConfiguration> configurations = ImmutableList.builder();
+    for (CalculationType calculationType : CalculationType.values()) {
+      for (LineupWeightType lineupWeightType : LineupWeightType.values()) {
+        for (SortType sortType : SortType.values()) {
+          configurations.add(create(calculationType, lineupWeightType, sortType));
+        }
+      }
+    }
+    return configurations.build();
+  }
+
+  /**
+   * How matchups are calculated.
+   */
+  abstract CalculationType calculationType();
+
+  /**
+   * How opponent lineups are weighted.
+   */
+  public abstract LineupWeightType lineupWeightType();
+
+  /**
+   * How lineups are sorted.
+   */
+  abstract SortType sortType();
+
+  /**
+   * Returns a copy of {@code runner} configured as this.
+   */
+  Runner configure(Runner runner) {
+    return runner.toBuilder()
+        .setCalculationType(calculationType())
+        .setLineupWeightType(lineupWeightType())
+        .setSortType(sortType())
+        .build();
+  }
+
+  @Override
+  public final String toString() {
+    return String.format("%s/%s/%s", calculationType(), lineupWeightType(), sortType());
+  }
+}
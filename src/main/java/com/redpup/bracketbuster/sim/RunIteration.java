@@ -0,0 +1,134 @@
+package com.redpup.bracketbuster.sim;
+
+import com.redpup.bracketbuster.model.Lineup;
+import com.redpup.bracketbuster.util.Pair;
+import java.util.List;
+
+/**
+ * The skeleton shared by every mode of a {@link Runner}: an iteration that scores player lineups
+ * against opponent lineups and then handles the output. Each step is timed as its phase in {@link
+ * Runner#metrics()}, and the whole iteration is emitted as a {@link SimEvents.Iteration} once
+ * {@link #commit()}ted.
+ *
+ * <p>Lineups are generated once per run through {@link #generateLineups}, in a single phase before
+ * its first iteration.
+ */
+final class RunIteration {
+
+  /**
+   * The scoring step of an iteration, which reports its matchups through {@code progress}.
+   */
+  @FunctionalInterface
+  interface ScoringStep<T, E extends Exception> {
+
+    T score(ProgressReporter progress) throws E;
+  }
+
+  private final Runner runner;
+  private final int iteration;
+  private final SimEvents.Iteration event = new SimEvents.Iteration();
+  private long playerLineups;
+  private long opponentLineups;
+
+  private RunIteration(Runner runner, int iteration) {
+    this.runner = runner;
+    this.iteration = iteration;
+  }
+
+  /**
+   * Generates the lineups of a run of {@code runner} through {@code generation}, timed as {@link
+   * RunMetrics#LINEUP_GENERATION}.
+   */
+  static <T, E extends Exception> T generateLineups(Runner runner,
+      RunMetrics.Step<T, E> generation) throws E {
+    return runner.metrics().time(RunMetrics.LINEUP_GENERATION, generation);
+  }
+
+  /**
+   * Generates every player lineup of {@code runner} and its {@link Runner#allOpponentLineups()},
+   * as {@link #generateLineups(Runner, RunMetrics.Step)}.
+   */
+  static Pair<List<Lineup>, OpponentField> generateLineups(Runner runner) {
+    return generateLineups(runner,
+        () -> Pair.of(runner.allPlayerLineups(), runner.allOpponentLineups()));
+  }
+
+  /**
+   * Starts iteration {@code iteration} of {@code runner} at {@code step}.
+   */
+  static RunIteration start(Runner runner, int iteration, String step) {
+    runner.logger().setIteration(iteration);
+    runner.logger().setCurrentStep(step);
+    RunIteration started = new RunIteration(runner, iteration);
+    started.event.begin();
+    return started;
+  }
+
+  /**
+   * Records that this iteration evaluates {@code playerLineups} against {@code opponentLineups}.
+   */
+  void recordLineups(long playerLineups, long opponentLineups) {
+    this.playerLineups = playerLineups;
+    this.opponentLineups = opponentLineups;
+    runner.metrics().recordLineupCounts(playerLineups, opponentLineups);
+  }
+
+  /**
+   * As {@link #recordLineups(long, long)}, and logs the counts followed by {@code purpose}.
+   */
+  void recordLineups(long playerLineups, long opponentLineups, String purpose) {
+    recordLineups(playerLineups, opponentLineups);
+    runner.logger().log(String.format("Created %d player lineups and %d opponent lineups%s.",
+        playerLineups, opponentLineups, purpose));
+  }
+
+  /**
+   * Scores {@code totalLineups} player lineups, or an unknown number if {@code 0}, through {@code
+   * scoring}, timed as {@link RunMetrics#SCORING} and reporting through a {@link
+   * ProgressReporter}.
+   */
+  <T, E extends Exception> T score(long totalLineups, ScoringStep<T, E> scoring) throws E {
+    return runner.metrics().time(RunMetrics.SCORING, () -> {
+      try (ProgressReporter progress = runner.startProgress(totalLineups)) {
+        return scoring.score(progress);
+      }
+    });
+  }
+
+  /**
+   * Handles the output of this iteration at {@code step} through {@code output}, timed as {@link
+   * RunMetrics#OUTPUT}.
+   */
+  <T, E extends Exception> T output(String step, RunMetrics.Step<T, E> output) throws E {
+    runner.logger().setCurrentStep(step);
+    return runner.metrics().time(RunMetrics.OUTPUT, output);
+  }
+
+  /**
+   * As {@link #output(String, RunMetrics.Step)}, for an {@code output} without a result.
+   */
+  <E extends Exception> void output(String step, RunMetrics.Action<E> output) throws E {
+    runner.logger().setCurrentStep(step);
+    runner.metrics().time(RunMetrics.OUTPUT, output);
+  }
+
+  /**
+   * Handles {@code output}, produced by {@code configured}, through the runner's logger.
+   */
+  void handleOutput(Output output, Runner configured) {
+    output("Handling Output", () -> runner.logger().handleOutput(output, configured));
+  }
+
+  /**
+   * Commits this iteration over its recorded lineup counts, if enabled.
+   */
+  void commit() {
+    event.end();
+    if (event.shouldCommit()) {
+      event.iteration = iteration;
+      event.playerLineups = playerLineups;
+      event.opponentLineups = opponentLineups;
+      event.commit();
+    }
+  }
+}
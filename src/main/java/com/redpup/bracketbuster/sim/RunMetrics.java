@@ -0,0 +1,355 @@
+package com.redpup.bracketbuster.sim;
+
+import com.google.common.collect.ImmutableSortedMap;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Thread safe metrics of where a {@link Runner} spends its time: wall time and allocations per
+ * phase, scoring throughput, {@code NASH} solves, matchup and payoff cache hits and peak lineup
+ * counts.
+ *
+ * <p>Metrics are shared between a runner and every copy made through {@link Runner#toBuilder()},
+ * unless the copy is given its own metrics, which can be added back with {@link #add}. They can
+ * be published over JMX with {@link #register()}, and are logged through {@link #summary()} at
+ * the end of a run.
+ */
+public final class RunMetrics implements RunMetricsMXBean {
+
+  /**
+   * The name metrics are registered under by {@link #register()}.
+   */
+  public static final String OBJECT_NAME = "com.redpup.bracketbuster:type=RunMetrics";
+
+  private static final double NANOS_PER_SECOND = 1.0e9;
+
+  /**
+   * The phase lineups are generated in.
+   */
+  static final String LINEUP_GENERATION = "Lineup Generation";
+
+  /**
+   * The phase scoring time and throughput is recorded under.
+   */
+  static final String SCORING = "Scoring";
+
+  /**
+   * The phase output is handled in.
+   */
+  static final String OUTPUT = "Output";
+
+  private final Map<String, LongAdder> phaseNanos = new ConcurrentHashMap<>();
+  private final Map<String, LongAdder> phaseAllocatedBytes = new ConcurrentHashMap<>();
+  private final LongAdder lineups = new LongAdder();
+  private final LongAdder matchups = new LongAdder();
+  private final LongAdder nashSolves = new LongAdder();
+  private final LongAdder nashPivots = new LongAdder();
+  private final LongAdder cacheHits = new LongAdder();
+  private final LongAdder cacheMisses = new LongAdder();
+  private final LongAdder payoffCacheHits = new LongAdder();
+  private final LongAdder payoffCacheMisses = new LongAdder();
+  private final LongAccumulator peakPlayerLineups = new LongAccumulator(Math::max, 0);
+  private final LongAccumulator peakOpponentLineups = new LongAccumulator(Math::max, 0);
+
+  /**
+   * A step timed by {@link #time(String, Step)}, which may throw {@code E}.
+   */
+  @FunctionalInterface
+  interface Step<T, E extends Exception> {
+
+    T run() throws E;
+  }
+
+  /**
+   * A step without a result timed by {@link #time(String, Action)}, which may throw {@code E}.
+   */
+  @FunctionalInterface
+  interface Action<E extends Exception> {
+
+    void run() throws E;
+  }
+
+  /**
+   * Runs {@code step} on the calling thread, timed as {@code phase}, and returns its result.
+   */
+  <T, E extends Exception> T time(String phase, Step<T, E> step) throws E {
+    Phase timed = new Phase(phase);
+    try {
+      return step.run();
+    } finally {
+      timed.end();
+    }
+  }
+
+  /**
+   * Runs {@code action} on the calling thread, timed as {@code phase}.
+   */
+  <E extends Exception> void time(String phase, Action<E> action) throws E {
+    Phase timed = new Phase(phase);
+    try {
+      action.run();
+    } finally {
+      timed.end();
+    }
+  }
+
+  /**
+   * Adds {@code bytes} allocated by another thread during {@code phase}.
+   */
+  void addAllocatedBytes(String phase, long bytes) {
+    if (bytes > 0) {
+      phaseAllocatedBytes.computeIfAbsent(phase, unused -> new LongAdder()).add(bytes);
+    }
+  }
+
+  /**
+   * Records {@code lineups} scored player lineups, which played {@code matchups} matchups.
+   */
+  void recordScoring(long lineups, long matchups) {
+    this.lineups.add(lineups);
+    this.matchups.add(matchups);
+  }
+
+  /**
+   * Records {@code solves} solved zero sum games, which took {@code pivots} simplex pivots.
+   */
+  void recordNash(long solves, long pivots) {
+    nashSolves.add(solves);
+    nashPivots.add(pivots);
+  }
+
+  /**
+   * Records a load from the {@link com.redpup.bracketbuster.model.MatchupCache}, which {@code hit}
+   * the cache or not.
+   */
+  void recordCacheLoad(boolean hit) {
+    (hit ? cacheHits : cacheMisses).increment();
+  }
+
+  /**
+   * Records a load of a {@link PayoffMatrix}, which {@code hit} its cache or not.
+   */
+  void recordPayoffCacheLoad(boolean hit) {
+    (hit ? payoffCacheHits : payoffCacheMisses).increment();
+  }
+
+  /**
+   * Records evaluating {@code playerLineups} against {@code opponentLineups} at once.
+   */
+  void recordLineupCounts(long playerLineups, long opponentLineups) {
+    peakPlayerLineups.accumulate(playerLineups);
+    peakOpponentLineups.accumulate(opponentLineups);
+  }
+
+  /**
+   * Adds every metric recorded in {@code other} to these metrics. Peaks take the larger of both.
+   */
+  void add(RunMetrics other) {
+    other.phaseNanos.forEach((phase, nanos) ->
+        phaseNanos.computeIfAbsent(phase, unused -> new LongAdder()).add(nanos.sum()));
+    other.phaseAllocatedBytes.forEach((phase, bytes) -> addAllocatedBytes(phase, bytes.sum()));
+    lineups.add(other.lineups.sum());
+    matchups.add(other.matchups.sum());
+    nashSolves.add(other.nashSolves.sum());
+    nashPivots.add(other.nashPivots.sum());
+    cacheHits.add(other.cacheHits.sum());
+    cacheMisses.add(other.cacheMisses.sum());
+    payoffCacheHits.add(other.payoffCacheHits.sum());
+    payoffCacheMisses.add(other.payoffCacheMisses.sum());
+    peakPlayerLineups.accumulate(other.peakPlayerLineups.get());
+    peakOpponentLineups.accumulate(other.peakOpponentLineups.get());
+  }
+
+  @Override
+  public Map<String, Long> getPhaseNanos() {
+    return sums(phaseNanos);
+  }
+
+  @Override
+  public Map<String, Long> getPhaseAllocatedBytes() {
+    return sums(phaseAllocatedBytes);
+  }
+
+  private static ImmutableSortedMap<String, Long> sums(Map<String, LongAdder> adders) {
+    ImmutableSortedMap.Builder<String, Long> sums = ImmutableSortedMap.naturalOrder();
+    adders.forEach((phase, adder) -> sums.put(phase, adder.sum()));
+    return sums.build();
+  }
+
+  @Override
+  public long getLineups() {
+    return lineups.sum();
+  }
+
+  @Override
+  public long getMatchups() {
+    return matchups.sum();
+  }
+
+  @Override
+  public double getMatchupsPerSecond() {
+    LongAdder nanos = phaseNanos.get(SCORING);
+    return nanos == null || nanos.sum() == 0
+        ? 0
+        : matchups.sum() / (nanos.sum() / NANOS_PER_SECOND);
+  }
+
+  @Override
+  public long getNashSolves() {
+    return nashSolves.sum();
+  }
+
+  @Override
+  public long getNashPivots() {
+    return nashPivots.sum();
+  }
+
+  @Override
+  public long getCacheHits() {
+    return cacheHits.sum();
+  }
+
+  @Override
+  public long getCacheMisses() {
+    return cacheMisses.sum();
+  }
+
+  @Override
+  public double getCacheHitRate() {
+    long hits = getCacheHits();
+    long total = hits + getCacheMisses();
+    return total == 0 ? Double.NaN : (double) hits / total;
+  }
+
+  @Override
+  public long getPayoffCacheHits() {
+    return payoffCacheHits.sum();
+  }
+
+  @Override
+  public long getPayoffCacheMisses() {
+    return payoffCacheMisses.sum();
+  }
+
+  @Override
+  public long getPeakPlayerLineups() {
+    return peakPlayerLineups.get();
+  }
+
+  @Override
+  public long getPeakOpponentLineups() {
+    return peakOpponentLineups.get();
+  }
+
+  @Override
+  public void reset() {
+    phaseNanos.clear();
+    phaseAllocatedBytes.clear();
+    lineups.reset();
+    matchups.reset();
+    nashSolves.reset();
+    nashPivots.reset();
+    cacheHits.reset();
+    cacheMisses.reset();
+    payoffCacheHits.reset();
+    payoffCacheMisses.reset();
+    peakPlayerLineups.reset();
+    peakOpponentLineups.reset();
+  }
+
+  /**
+   * Registers these metrics with the platform MBean server under {@link #OBJECT_NAME}, replacing
+   * any metrics already registered there.
+   */
+  public void register() throws JMException {
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    ObjectName name = new ObjectName(OBJECT_NAME);
+    if (server.isRegistered(name)) {
+      server.unregisterMBean(name);
+    }
+    server.registerMBean(this, name);
+  }
+
+  /**
+   * Returns a human readable summary of every metric.
+   */
+  public String summary() {
+    StringBuilder sb = new StringBuilder("Run metrics:\n");
+    Map<String, Long> allocatedBytes = getPhaseAllocatedBytes();
+    getPhaseNanos().forEach((phase, nanos) -> {
+      sb.append(String.format("\t%s: %.3fs", phase, nanos / NANOS_PER_SECOND));
+      if (allocatedBytes.containsKey(phase)) {
+        sb.append(String.format(", %.1f MB allocated", allocatedBytes.get(phase) / 1.0e6));
+      }
+      sb.append('\n');
+    });
+    sb.append(String.format("\tScored %d lineups and %d matchups (%.0f matchups/s).%n",
+        getLineups(), getMatchups(), getMatchupsPerSecond()));
+    sb.append(String.format("\tSolved %d zero sum games in %d pivots.%n", getNashSolves(),
+        getNashPivots()));
+    sb.append(String.format("\tMatchup cache: %d hits, %d misses.%n", getCacheHits(),
+        getCacheMisses()));
+    sb.append(String.format("\tPayoff cache: %d hits, %d misses.%n", getPayoffCacheHits(),
+        getPayoffCacheMisses()));
+    sb.append(String.format("\tPeak lineups: %d players, %d opponents.", getPeakPlayerLineups(),
+        getPeakOpponentLineups()));
+    return sb.toString();
+  }
+
+  /**
+   * Returns the bytes allocated so far by the calling thread, or {@code -1} if unsupported.
+   */
+  static long currentThreadAllocatedBytes() {
+    ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    if (threads instanceof com.sun.management.ThreadMXBean) {
+      com.sun.management.ThreadMXBean sunThreads = (com.sun.management.ThreadMXBean) threads;
+      if (sunThreads.isThreadAllocatedMemorySupported()
+          && sunThreads.isThreadAllocatedMemoryEnabled()) {
+        return sunThreads.getThreadAllocatedBytes(Thread.currentThread().getId());
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * A phase being timed on the calling thread, recorded once ended. Also emitted as a {@link
+   * SimEvents.Step}, if enabled.
+   */
+  private final class Phase {
+
+    private final String name;
+    private final long startNanos;
+    private final long startAllocatedBytes;
+    private final SimEvents.Step event = new SimEvents.Step();
+
+    private Phase(String name) {
+      this.name = name;
+      this.startNanos = System.nanoTime();
+      this.startAllocatedBytes = currentThreadAllocatedBytes();
+      event.begin();
+    }
+
+    private void end() {
+      event.end();
+      phaseNanos.computeIfAbsent(name, unused -> new LongAdder())
+          .add(System.nanoTime() - startNanos);
+      long allocatedBytes = -1;
+      if (startAllocatedBytes >= 0) {
+        allocatedBytes = currentThreadAllocatedBytes() - startAllocatedBytes;
+        addAllocatedBytes(name, allocatedBytes);
+      }
+      if (event.shouldCommit()) {
+        event.step = name;
+        event.allocatedBytes = allocatedBytes;
+        event.commit();
+      }
+    }
+  }
+}
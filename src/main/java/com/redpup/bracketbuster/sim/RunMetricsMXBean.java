@@ -0,0 +1,86 @@
+package com.redpup.bracketbuster.sim;
+
+import java.util.Map;
+
+/**
+ * The JMX view of {@link RunMetrics}. All values are cumulative since the metrics were created or
+ * last {@link #reset()}.
+ */
+public interface RunMetricsMXBean {
+
+  /**
+   * Returns the wall time spent in each phase, in nanoseconds.
+   */
+  Map<String, Long> getPhaseNanos();
+
+  /**
+   * Returns the bytes allocated in each phase, by the thread running the phase and any scoring
+   * threads it started. Empty if the JVM does not support measuring thread allocations.
+   */
+  Map<String, Long> getPhaseAllocatedBytes();
+
+  /**
+   * Returns the number of player lineups scored.
+   */
+  long getLineups();
+
+  /**
+   * Returns the number of matchups scored.
+   */
+  long getMatchups();
+
+  /**
+   * Returns the number of matchups scored per second of the scoring phase.
+   */
+  double getMatchupsPerSecond();
+
+  /**
+   * Returns the number of zero sum games solved for {@code NASH} calculations.
+   */
+  long getNashSolves();
+
+  /**
+   * Returns the total number of simplex pivots taken by {@link #getNashSolves()}.
+   */
+  long getNashPivots();
+
+  /**
+   * Returns the number of matchup files loaded from the matchup cache.
+   */
+  long getCacheHits();
+
+  /**
+   * Returns the number of matchup files that missed the matchup cache.
+   */
+  long getCacheMisses();
+
+  /**
+   * Returns the fraction of matchup cache loads that hit, or {@code NaN} if none were made.
+   */
+  double getCacheHitRate();
+
+  /**
+   * Returns the number of payoff matrices loaded from the payoff cache.
+   */
+  long getPayoffCacheHits();
+
+  /**
+   * Returns the number of payoff matrices that missed the payoff cache and were computed.
+   */
+  long getPayoffCacheMisses();
+
+  /**
+   * Returns the largest number of player lineups evaluated at once.
+   */
+  long getPeakPlayerLineups();
+
+  /**
+   * Returns the largest number of opponent lineups evaluated against at once.
+   */
+  long getPeakOpponentLineups();
+
+  /**
+   * Clears every metric.
+   */
+  void reset();
+}
@@ -1,32 +1,42 @@
 package com.redpup.bracketbuster.sim;
 
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.collect.ImmutableList.toImmutableList;
 import static com.google.common.collect.ImmutableSet.toImmutableSet;
-import static com.redpup.bracketbuster.sim.Calculations.winRateBestTwoOfThreeOneBanNaive;
-import static com.redpup.bracketbuster.sim.Calculations.winRateBestTwoOfThreeOneBanNash;
 import static com.redpup.bracketbuster.sim.Output.buildOutput;
+import static com.redpup.bracketbuster.util.Constants.PLAYER_DECK_COUNT;
 
 import com.google.auto.value.AutoValue;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.errorprone.annotations.CanIgnoreReturnValue;
 import com.redpup.bracketbuster.model.Lineup;
+import com.redpup.bracketbuster.model.LineupMetadata;
+import com.redpup.bracketbuster.model.LineupTables;
 import com.redpup.bracketbuster.model.LineupWeightType;
+import com.redpup.bracketbuster.model.LongFormatMatchups;
+import com.redpup.bracketbuster.model.MatchupCache;
+import com.redpup.bracketbuster.model.MatchupDiff;
 import com.redpup.bracketbuster.model.MatchupMatrix;
 import com.redpup.bracketbuster.model.Matchups;
-import com.redpup.bracketbuster.model.proto.MatchupList;
 import com.redpup.bracketbuster.sim.Calculations.CalculationType;
 import com.redpup.bracketbuster.util.Pair;
 import com.redpup.bracketbuster.util.WeightedDoubleMetric;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.stream.Stream;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 /**
  * Top level executable runner class for running the bracketbuster.
@@ -40,18 +50,125 @@ public abstract class Runner {
    * Executes this runner.
    *
    * <p>Parameters to the run can be set on the builder below, before building and running.
+   * Without arguments, runs {@link #run()} through {@link #computeTopLineupsPipelined()} with a
+   * scorer thread per available processor. Pipelined runs do not prune, so use {@link
+   * Builder#setPipelineParallelism(int)} of 0 to evaluate with {@link #pruneRatios()} instead.
+   *
+   * <p>Optionally accepts arguments to split the run across processes:
+   * <ul>
+   *   <li>{@code --shard i/n shardFile}: Evaluates shard {@code i} of {@code n} and writes its
+   *   partial results to {@code shardFile}. See {@link #runShard(Shard, Path)}.</li>
+   *   <li>{@code --merge shardFile...}: Merges the results of every shard into output. See
+   *   {@link #mergeShards(List)}.</li>
+   *   <li>{@code --segments longFormatFile}: Evaluates every rank segment of a long format csv,
+   *   plus all ranks together. See {@link #runSegments(Map, int)}.</li>
+   *   <li>{@code --results resultFile}: Also writes the result of every lineup to {@code
+   *   resultFile} as it is scored. See {@link ResultSink}.</li>
+   *   <li>{@code --snapshots matchupFile...}: Evaluates every matchup file as a snapshot of a time
+   *   series, in order. See {@link #runSnapshots(Map)}.</li>
+   *   <li>{@code --payoffs [cacheDirectory]}: Ranks lineups from a {@link PayoffMatrix} cached in
+   *   {@code cacheDirectory}, computing it first if absent. See {@link
+   *   #computeTopLineupsFromPayoffs(PayoffMatrix)}.</li>
+   *   <li>{@code --configurations}: Evaluates every {@link RunConfiguration} in a single pass. See
+   *   {@link #runConfigurations(List)}.</li>
+   *   <li>{@code --approximate maxDroppedWeight}: Evaluates against all but the lightest opponent
+   *   lineups, reporting the error bound. See {@link #runApproximate(double)}.</li>
+   *   <li>{@code --sampled initialSamples maxSamples}: Estimates weighted means from opponent
+   *   lineups sampled by weight. See {@link #runSampled(int, int, long)}.</li>
+   *   <li>{@code --race initialOpponents budgetSeconds}: Races player lineups against more and
+   *   more opponents until the top lineups are certified or time runs out. See {@link
+   *   #startRace(int, long)}.</li>
+   * </ul>
    */
   public static void main(String[] args) throws Exception {
     Path matchupsFilePath = Paths.get("src", "main", "resources", "stats_new.csv");
-    builder()
+    Runner runner = builder()
         .setCalculationType(CalculationType.NAIVE)
         .setLineupWeightType(LineupWeightType.AVERAGE)
         .setSortType(SortType.WEIGHTED_MEAN_WIN_RATE)
-        .setMatchupMatrixFromFile(matchupsFilePath)
+        .setMatchupMatrixFromFile(matchupsFilePath, Paths.get("target", "matchup-cache"))
         .setPruneRatios(ImmutableList.of(0.0))
         .setTopKToPrintLimit(80)
-        .build()
-        .run();
+        .setPipelineParallelism(Runtime.getRuntime().availableProcessors())
+        .build();
+    runner.metrics().register();
+
+    if (args.length == 0) {
+      runner.run();
+      return;
+    }
+    @Nullable Mode mode = MODES.get(args[0]);
+    checkArgument(mode != null, "Unknown arguments: %s", Arrays.toString(args));
+    mode.run(runner, Arrays.asList(args).subList(1, args.length));
+  }
+
+  /**
+   * A mode of {@link #main}, selected by its flag.
+   */
+  @FunctionalInterface
+  private interface Mode {
+
+    /**
+     * Runs this mode on {@code runner} with {@code args}, the arguments following its flag.
+     */
+    void run(Runner runner, List<String> args) throws Exception;
+  }
+
+  /**
+   * Every {@link Mode} of {@link #main}, by flag.
+   */
+  private static final ImmutableMap<String, Mode> MODES = ImmutableMap.<String, Mode>builder()
+      .put("--shard", (runner, args) -> {
+        checkArgs(args, 2, "--shard i/n shardFile");
+        runner.runShard(Shard.parse(args.get(0)), Paths.get(args.get(1)));
+      })
+      .put("--merge", (runner, args) ->
+          runner.mergeShards(args.stream().map(Paths::get).collect(toImmutableList())))
+      .put("--results", (runner, args) -> {
+        checkArgs(args, 1, "--results resultFile");
+        try (ResultSink sink = ResultSink.open(Paths.get(args.get(0)))) {
+          runner.toBuilder().setResultSink(sink).build().run();
+          runner.logger().log(
+              String.format("Wrote %d lineups to %s.", sink.written(), sink.path()));
+        }
+      })
+      .put("--snapshots", (runner, args) -> runner.runSnapshots(SnapshotRun.read(args)))
+      .put("--segments", (runner, args) -> {
+        checkArgs(args, 1, "--segments longFormatFile");
+        int parallelism = Runtime.getRuntime().availableProcessors();
+        runner.runSegments(
+            LineupTables.computeSegments(
+                LongFormatMatchups.readSegments(Paths.get(args.get(0)), parallelism),
+                LongFormatMatchups.ALL_SEGMENT,
+                runner.lineupWeightType()),
+            parallelism);
+      })
+      .put("--payoffs", (runner, args) -> {
+        checkArgument(args.size() <= 1, "Expected --payoffs [cacheDirectory], found %s", args);
+        runner.computeTopLineupsFromPayoffs(PayoffRun.loadPayoffs(runner,
+            args.isEmpty() ? Paths.get("target", "payoff-cache") : Paths.get(args.get(0))));
+      })
+      .put("--configurations", (runner, args) -> runner.runConfigurations(RunConfiguration.all()))
+      .put("--approximate", (runner, args) -> {
+        checkArgs(args, 1, "--approximate maxDroppedWeight");
+        runner.runApproximate(Double.parseDouble(args.get(0)));
+      })
+      .put("--sampled", (runner, args) -> {
+        checkArgs(args, 2, "--sampled initialSamples maxSamples");
+        runner.runSampled(Integer.parseInt(args.get(0)), Integer.parseInt(args.get(1)), 0);
+      })
+      .put("--race", (runner, args) -> {
+        checkArgs(args, 2, "--race initialOpponents budgetSeconds");
+        runner.startRace(Integer.parseInt(args.get(0)), 0)
+            .run(Duration.ofSeconds(Long.parseLong(args.get(1))));
+      })
+      .build();
+
+  /**
+   * Checks that {@code args} holds exactly {@code count} arguments, as described by {@code usage}.
+   */
+  private static void checkArgs(List<String> args, int count, String usage) {
+    checkArgument(args.size() == count, "Expected %s, found %s", usage, args);
   }
 
   Runner() {
@@ -67,6 +184,9 @@ public abstract class Runner {
         .setLineupWeightType(LineupWeightType.AVERAGE)
         .setPruneRatios(ImmutableList.of(0.0))
         .setTopKToPrintLimit(25)
+        .setPipelineParallelism(0)
+        .setProgressInterval(Duration.ofSeconds(10))
+        .setMetrics(new RunMetrics())
         .setLogger(new SystemPrintLogger());
   }
 
@@ -75,18 +195,55 @@ public abstract class Runner {
    */
   abstract MatchupMatrix matchupMatrix();
 
+  /**
+   * Precomputed lineups of {@link #matchupMatrix()}, if any. Only used if they were computed for
+   * this runner's {@link #matchupMatrix()} and {@link #lineupWeightType()}.
+   */
+  abstract @Nullable LineupTables lineupTables();
+
   /**
    * All valid player lineups within {@link #matchupMatrix()}.
    */
   final List<Lineup> allPlayerLineups() {
-    return matchupMatrix().createAllValidPlayerLineups();
+    return hasLineupTables()
+        ? lineupTables().playerLineups()
+        : matchupMatrix().createAllValidPlayerLineups();
+  }
+
+  /**
+   * A lazy stream of {@link #allPlayerLineups()}, in the same order.
+   */
+  final Stream<Lineup> streamAllPlayerLineups() {
+    return hasLineupTables()
+        ? lineupTables().streamPlayerLineups()
+        : matchupMatrix().streamAllValidPlayerLineups();
   }
 
   /**
    * All valid opponent lineups within {@link #matchupMatrix()} weighted by lineup play rate.
    */
   final Map<Lineup, Double> allWeightedOpponentLineups() {
-    return matchupMatrix().createWeightedValidOpponentLineups(lineupWeightType());
+    return hasLineupTables()
+        ? lineupTables().weightedOpponentLineups()
+        : matchupMatrix().createWeightedValidOpponentLineups(lineupWeightType());
+  }
+
+  /**
+   * {@link #allWeightedOpponentLineups()} as an {@link OpponentField} over {@link
+   * #matchupMatrix()}.
+   */
+  final OpponentField allOpponentLineups() {
+    return OpponentField.of(matchupMatrix(), allWeightedOpponentLineups());
+  }
+
+  /**
+   * Returns true iff {@link #lineupTables()} is set and matches this runner's configuration.
+   */
+  private boolean hasLineupTables() {
+    LineupTables tables = lineupTables();
+    return tables != null
+        && tables.matchups() == matchupMatrix()
+        && tables.lineupWeightType() == lineupWeightType();
   }
 
   /**
@@ -124,11 +281,45 @@ public abstract class Runner {
    */
   abstract LineupWeightType lineupWeightType();
 
+  /**
+   * Number of scoring threads to use in {@link #computeTopLineupsPipelined()}. If 0, lineups are
+   * instead evaluated on the calling thread by {@link #computeTopLineupsAgainstEveryone()}.
+   */
+  abstract int pipelineParallelism();
+
+  /**
+   * How often to log scoring progress through a {@link ProgressReporter}, or {@link
+   * Duration#ZERO} to only log a summary once scoring is done.
+   */
+  abstract Duration progressInterval();
+
+  /**
+   * Metrics of this runner's work, shared with every copy made through {@link #toBuilder()}.
+   */
+  public abstract RunMetrics metrics();
+
   /**
    * Handler for logs and other UI updates while running a simulation.
    */
   abstract Logger logger();
 
+  /**
+   * Where the result of every scored player lineup is written as it is scored, if anywhere. Only
+   * used by {@link #run()}, whose output still only retains the top {@link #topKToPrintLimit()}.
+   */
+  abstract @Nullable ResultSink resultSink();
+
+  /**
+   * Writes the result of {@code lineup}, scored as {@code metric} in {@code iteration}, to {@link
+   * #resultSink()}, if set.
+   */
+  final void writeResult(int iteration, Lineup lineup, WeightedDoubleMetric metric) {
+    ResultSink sink = resultSink();
+    if (sink != null) {
+      sink.write(iteration, lineup, metric, matchupMatrix());
+    }
+  }
+
   /**
    * Converts this runner back into a {@link Builder}.
    */
@@ -149,13 +340,31 @@ public abstract class Runner {
     public abstract Builder setMatchupMatrix(MatchupMatrix matchupMatrix);
 
     /**
-     * Sets {@link #matchupMatrix()} from the given {@code filePath}.
+     * Sets {@link #matchupMatrix()} from the given {@code filePath}, read by {@link
+     * Matchups#readMatchupMatrix(Path)}.
      */
     public final Builder setMatchupMatrixFromFile(Path filePath) throws IOException {
-      MatchupList list = Matchups.readMatchupListFromCsv(filePath);
-      return setMatchupMatrix(MatchupMatrix.fromProto(list));
+      return setMatchupMatrix(Matchups.readMatchupMatrix(filePath));
+    }
+
+    /**
+     * Sets {@link #matchupMatrix()} and {@link #lineupTables()} from the given {@code filePath}
+     * through the {@link MatchupCache} in {@code cacheDirectory}, recording the load in the current
+     * {@link #metrics()}. Uses the current {@link #lineupWeightType()}, so should be called after
+     * {@link #setLineupWeightType} and {@link #setMetrics}.
+     */
+    public final Builder setMatchupMatrixFromFile(Path filePath, Path cacheDirectory)
+        throws IOException {
+      LineupTables tables = MatchupCache.load(filePath, cacheDirectory, lineupWeightType(),
+          metrics()::recordCacheLoad);
+      return setMatchupMatrix(tables.matchups()).setLineupTables(tables);
     }
 
+    /**
+     * Sets {@link #lineupTables()}.
+     */
+    public abstract Builder setLineupTables(@Nullable LineupTables lineupTables);
+
     /**
      * Sets {@link #sortType()}.
      */
@@ -181,11 +390,41 @@ public abstract class Runner {
      */
     public abstract Builder setLineupWeightType(LineupWeightType lineupWeightType);
 
+    /**
+     * The currently set {@link #lineupWeightType()}.
+     */
+    abstract LineupWeightType lineupWeightType();
+
+    /**
+     * Sets {@link #pipelineParallelism()}.
+     */
+    public abstract Builder setPipelineParallelism(int pipelineParallelism);
+
+    /**
+     * Sets {@link #progressInterval()}.
+     */
+    public abstract Builder setProgressInterval(Duration progressInterval);
+
+    /**
+     * Sets {@link #metrics()}.
+     */
+    public abstract Builder setMetrics(RunMetrics metrics);
+
+    /**
+     * The currently set {@link #metrics()}.
+     */
+    abstract RunMetrics metrics();
+
     /**
      * Sets {@link #logger()}.
      */
     public abstract Builder setLogger(Logger logger);
 
+    /**
+     * Sets {@link #resultSink()}.
+     */
+    public abstract Builder setResultSink(@Nullable ResultSink resultSink);
+
     /**
      * Builds this into a {@link Runner}.
      */
@@ -193,11 +432,42 @@ public abstract class Runner {
   }
 
   /**
-   * Executes this runner.
+   * Executes this runner, then logs a summary of its {@link #metrics()}.
    */
   public void run() {
     logger().log(String.format("Matchups contains %d decks.", matchupMatrix().getNumDecks()));
-    computeTopLineupsAgainstEveryone();
+    if (pipelineParallelism() > 0) {
+      computeTopLineupsPipelined();
+    } else {
+      computeTopLineupsAgainstEveryone();
+    }
+    logger().log(metrics().summary());
+  }
+
+  /**
+   * Computes the top player {@link Lineup}s against every possible opponent lineup through a
+   * {@link LineupPipeline}. Player lineups are generated lazily and only the top {@link
+   * #topKToPrintLimit()} are retained. Output is streamed into {@link #logger()}.
+   */
+  @VisibleForTesting
+  void computeTopLineupsPipelined() {
+    checkState(pruneRatios().size() == 1, "Pipelined runs do not support pruning: %s",
+        pruneRatios());
+
+    OpponentField opponentLineups = RunIteration.generateLineups(this, this::allOpponentLineups);
+    logger().log(String.format("Created %d opponent lineups.", opponentLineups.size()));
+
+    RunIteration iteration = RunIteration.start(this, 0, "Computing Lineup Win Rates");
+    long totalLineups = hasLineupTables() ? lineupTables().playerLineupCount() : 0;
+    Pair<Output, Long> scored = iteration.score(totalLineups, progress -> {
+      Output output = new LineupPipeline(withLogger(progress), pipelineParallelism())
+          .run(streamAllPlayerLineups(), opponentLineups);
+      return Pair.of(output, progress.lineups());
+    });
+    iteration.recordLineups(scored.second(), opponentLineups.size());
+
+    iteration.handleOutput(scored.first(), this);
+    iteration.commit();
   }
 
   /**
@@ -206,26 +476,37 @@ public abstract class Runner {
    */
   @VisibleForTesting
   void computeTopLineupsAgainstEveryone() {
-    final Set<Lineup> playerLineups = new HashSet<>(allPlayerLineups());
-    final Map<Lineup, Double> opponentLineups = new HashMap<>(allWeightedOpponentLineups());
+    Pair<Set<Lineup>, OpponentField> lineups = RunIteration.generateLineups(this,
+        () -> Pair.of(new HashSet<>(allPlayerLineups()),
+            OpponentField.of(matchupMatrix(), new HashMap<>(allWeightedOpponentLineups()))));
+    Set<Lineup> playerLineups = lineups.first();
+    OpponentField opponentLineups = lineups.second();
     logger().log(String
         .format("Created %d player lineups and %d opponent lineups.", playerLineups.size(),
             opponentLineups.size()));
 
     int originalSize = playerLineups.size();
     for (int i = 0; i < pruneRatios().size(); i++) {
-      logger().setIteration(i);
       // Order all lineups by winrate against the current set of lineups.
-      logger().setCurrentStep("Computing Lineup Win Rates");
+      RunIteration iteration = RunIteration.start(this, i, "Computing Lineup Win Rates");
+      int iterationIndex = i;
+      int iterationLineups = playerLineups.size();
+      iteration.recordLineups(iterationLineups, opponentLineups.size());
       ImmutableList<Pair<Lineup, WeightedDoubleMetric>> playersByWinRateMetric =
-          playerLineups.stream()
-              .map(p -> Pair.of(p, computeTotalWinRate(p, opponentLineups)))
-              .sorted(Comparator.comparing(Pair::second, sortType().comparator))
-              .collect(toImmutableList());
+          iteration.score(iterationLineups, progress -> {
+            Runner runner = withLogger(progress);
+            return playerLineups.stream()
+                .map(p -> {
+                  WeightedDoubleMetric metric = runner.computeTotalWinRate(p, opponentLineups);
+                  writeResult(iterationIndex, p, metric);
+                  return Pair.of(p, metric);
+                })
+                .sorted(Comparator.comparing(Pair::second, sortType().comparator))
+                .collect(toImmutableList());
+          });
 
       // Handle output through logger.
-      logger().setCurrentStep("Handling Output");
-      logger().handleOutput(
+      iteration.handleOutput(
           buildOutput(
               playersByWinRateMetric.stream().collect(Pair.toImmutableMap()),
               matchupMatrix(),
@@ -238,15 +519,189 @@ public abstract class Runner {
         // TODO: This is sorta broken now that player and opponent lineups are separated,
         // as opponent lineups are no longer pruned here. This is ok as we are no longer using
         // the prune functionality, but if we do this will have to be fixed.
+        SimEvents.Prune prune = new SimEvents.Prune();
+        prune.begin();
         playerLineups.retainAll(
             playersByWinRateMetric.stream()
                 .limit((long) (originalSize * pruneRatio(i)))
                 .map(Pair::first)
                 .collect(toImmutableSet()));
+        prune.end();
+        if (prune.shouldCommit()) {
+          prune.iteration = i;
+          prune.ratio = pruneRatio(i);
+          prune.before = iterationLineups;
+          prune.after = playerLineups.size();
+          prune.commit();
+        }
       }
+      iteration.commit();
     }
   }
 
+  /**
+   * Returns a new {@link ProgressReporter} in front of {@link #logger()}, expecting {@code
+   * totalLineups} player lineups, or {@code 0} if unknown.
+   */
+  ProgressReporter startProgress(long totalLineups) {
+    return ProgressReporter.start(logger(), totalLineups, progressInterval(), metrics());
+  }
+
+  /**
+   * Returns a copy of this runner that reports through {@code logger} instead.
+   */
+  Runner withLogger(Logger logger) {
+    return toBuilder().setLogger(logger).build();
+  }
+
+  /**
+   * Evaluates every segment in {@code segments} with this runner's configuration, running up to
+   * {@code parallelism} segments concurrently, and returns the last output of each segment. See
+   * {@link SegmentedRun}.
+   *
+   * <p>Each segment reuses its {@link LineupTables} (see {@link LineupTables#computeSegments}) and
+   * is evaluated by {@link #computeTopLineupsAgainstEveryone()} on a single thread. Segments report
+   * nothing while running; once all are done, their outputs are handled through {@link #logger()}
+   * in segment order.
+   */
+  public ImmutableMap<String, Output> runSegments(Map<String, LineupTables> segments,
+      int parallelism) {
+    return new SegmentedRun(this).run(segments, parallelism);
+  }
+
+  /**
+   * Evaluates every configuration in {@code configurations} in a single pass over the lineups of
+   * {@link #matchupMatrix()}, and returns the output of each, as this runner configured by it
+   * would produce. Outputs are handled through {@link #logger()} in order once all are done. See
+   * {@link ConfigurationRun}.
+   *
+   * <p>Lineups are generated once, and the deck win rates of each pair of lineups are looked up
+   * once to compute every calculation type requested. Configurations sharing a calculation type
+   * and lineup weight type share their metadata and differ only in how they accumulate lineups, so
+   * the whole pass costs about as much as its most expensive configuration. Player lineups are
+   * scored through a {@link LineupPipeline} of {@link #pipelineParallelism()} scorers, or one if
+   * 0. Pruning is not supported.
+   */
+  public ImmutableMap<RunConfiguration, Output> runConfigurations(
+      List<RunConfiguration> configurations) {
+    return new ConfigurationRun(this).run(configurations);
+  }
+
+  /**
+   * Computes the top player {@link Lineup}s against every opponent lineup but the lightest, whose
+   * total weight is at most {@code maxDroppedWeight} of all opponents, and handles the output
+   * through {@link #logger()}. Light opponents barely move weighted means but cost as much to
+   * evaluate as any other. See {@link ApproximateRun}.
+   *
+   * <p>Returns the output with a guaranteed bound on the weighted mean error of every lineup, and
+   * whether the top lineups are stable under it. See {@link ApproximateResult}. Only the weighted
+   * mean is bounded, so this requires {@link SortType#WEIGHTED_MEAN_WIN_RATE}. Pruning is not
+   * supported.
+   */
+  public ApproximateResult runApproximate(double maxDroppedWeight) {
+    return new ApproximateRun(this).run(maxDroppedWeight);
+  }
+
+  /**
+   * Computes the top player {@link Lineup}s from estimates of their weighted mean win rates, and
+   * handles the output through {@link #logger()}. Each player lineup plays {@code initialSamples}
+   * opponent lineups drawn in proportion to their weight through an {@link
+   * com.redpup.bracketbuster.util.AliasTable}. Then, in rounds, every lineup whose confidence
+   * interval still straddles the boundary of the top {@link #topKToPrintLimit()} doubles its
+   * samples, up to {@code maxSamples}. Sampling is deterministic given {@code seed}. See {@link
+   * SampledRun}.
+   *
+   * <p>Returns the output with the confidence of each top lineup, see {@link SampledResult}. With
+   * a heavy tailed weight distribution, lineups far from the boundary settle after a few samples,
+   * so rankings near those of an exhaustive run cost a fraction of its matchups. The sampled win
+   * rates of every lineup are retained until the end. Only the weighted mean is estimated, so this
+   * requires {@link SortType#WEIGHTED_MEAN_WIN_RATE}. Pruning is not supported.
+   */
+  public SampledResult runSampled(int initialSamples, int maxSamples, long seed) {
+    return new SampledRun(this).run(initialSamples, maxSamples, seed);
+  }
+
+  /**
+   * Generates every player and opponent lineup and returns a {@link Race} between the player
+   * lineups, each starting against {@code initialOpponents} opponent lineups shuffled by {@code
+   * seed}. Call {@link Race#run(Duration)} to race within a time budget.
+   *
+   * <p>Lineups are dropped once they are confidently not among the top {@link
+   * #topKToPrintLimit()} by weighted mean, so this requires {@link
+   * SortType#WEIGHTED_MEAN_WIN_RATE}. It replaces pruning, which is not supported.
+   */
+  public Race startRace(int initialOpponents, long seed) {
+    checkArgument(initialOpponents > 0, "Expected positive initialOpponents, found %s",
+        initialOpponents);
+    return Race.start(this, initialOpponents, seed);
+  }
+
+  /**
+   * Evaluates an ordered series of matchup snapshots, such as weekly data drops or the matrices
+   * before and after balance patches, with this runner's configuration. Returns a result per
+   * snapshot, in order, and handles each snapshot's output through {@link #logger()} followed by
+   * the rank movements of its top lineups. See {@link SnapshotRun}.
+   *
+   * <p>Consecutive snapshots are diffed win rate by win rate with {@link MatchupDiff}. When the
+   * snapshots enumerate the same lineups, the lineups and the payoff of each pair of player and
+   * opponent lineups are kept, and only pairs touched by a changed win rate are found and
+   * evaluated again. The cost of each snapshot is thus proportional to the number of such pairs.
+   * Changed play rates only move the opponent weights, so reweight the kept payoffs without
+   * evaluating any matchup. Any change to the decks evaluates the whole snapshot again. Progress
+   * counts only the player lineups evaluated again, and reused lineups separately.
+   */
+  public ImmutableList<SnapshotResult> runSnapshots(Map<String, MatchupMatrix> snapshots) {
+    return new SnapshotRun(this).run(snapshots);
+  }
+
+  /**
+   * Computes the win rates of the player lineups in {@code shard} against every opponent lineup,
+   * and writes the partial results to {@code shardFile}. See {@link ShardedRun}.
+   *
+   * <p>Player lineups are sliced deterministically, so running every shard of the same count
+   * against the same matchups covers every player lineup exactly once. Results are combined with
+   * {@link #mergeShards(List)}. Pruning requires a global ranking, so is not supported.
+   */
+  public void runShard(Shard shard, Path shardFile) throws IOException {
+    new ShardedRun(this).runShard(shard, shardFile);
+  }
+
+  /**
+   * Merges the results written by {@link #runShard(Shard, Path)} to {@code shardFiles} and handles
+   * the resulting output through {@link #logger()}, as {@link #run()} would have. Medians may be
+   * estimated, see {@link Shards}.
+   */
+  public void mergeShards(List<Path> shardFiles) throws IOException {
+    new ShardedRun(this).mergeShards(shardFiles);
+  }
+
+  /**
+   * Ranks every player lineup of {@code payoffs} and handles the output through {@link
+   * #logger()}, as a single iteration of {@link #run()} would, but reads each win rate from
+   * {@code payoffs} rather than solving its matchup. See {@link PayoffRun}.
+   *
+   * <p>{@code payoffs} must have been computed with this runner's {@link #calculationType()}.
+   * Win rates and ban probabilities are within {@link
+   * com.redpup.bracketbuster.util.QuantizedUnitTable#MAX_ERROR} of {@link #run()}'s, and bans are
+   * only recorded if {@code payoffs} has them.
+   */
+  public void computeTopLineupsFromPayoffs(PayoffMatrix payoffs) {
+    new PayoffRun(this).run(payoffs);
+  }
+
+  /**
+   * Ranks every player lineup of {@code results} with its opponents weighted by {@code weights}
+   * instead, and handles the output through {@link #logger()}. Only the weighted mean of each
+   * lineup changes, recomputed from its cached results without evaluating any matchup.
+   *
+   * <p>{@code results} must have been computed with this runner's {@link #calculationType()}, and
+   * {@code weights} must weight the same opponents, for example through {@link
+   * OpponentWeights#withPlayRates} of {@link UnweightedResults#weights()}.
+   */
+  public void computeTopLineupsReweighted(UnweightedResults results, OpponentWeights weights) {
+    new PayoffRun(this).runReweighted(results, weights);
+  }
+
   /**
    * Computes the total weighted win rate of {@code player} against {@code allPlayers}.
    *
@@ -256,32 +711,93 @@ public abstract class Runner {
   @CanIgnoreReturnValue
   WeightedDoubleMetric computeTotalWinRate(Lineup player,
       Map<Lineup, Double> allPlayersWithWeights) {
-    player.resetMetadata();
-
-    for (Map.Entry<Lineup, Double> opponent : allPlayersWithWeights.entrySet()) {
-      if (matchupMatrix().canPlay(player, opponent.getKey())) {
-        player.metadata()
-            .applyMatchup(opponent.getKey(), computeMatchupWinRate(player, opponent.getKey()),
-                opponent.getValue());
-      }
-    }
+    return computeTotalWinRate(player, OpponentField.of(matchupMatrix(), allPlayersWithWeights));
+  }
 
+  /**
+   * Computes the total weighted win rate of {@code player} against every lineup in {@code
+   * opponents}.
+   *
+   * <p>Metadata collected along the way are stored in {@link Lineup#metadata()}.
+   */
+  @CanIgnoreReturnValue
+  WeightedDoubleMetric computeTotalWinRate(Lineup player, OpponentField opponents) {
+    applyAllMatchups(player, opponents);
     return player.metadata().getWinRateMetric();
   }
 
   /**
-   * Computes the win rate of {@code player} against {@code opponent}.
+   * Resets {@code player}'s metadata and applies every playable matchup against {@code
+   * opponents} to it, without building its win rate metric.
    */
-  @VisibleForTesting
-  double computeMatchupWinRate(Lineup player, Lineup opponent) {
-    logger().handleMatchup();
+  void applyAllMatchups(Lineup player, OpponentField opponents) {
+    // Checked once per player, as the per-matchup paths below are unchecked.
+    checkArgument(player.getDecks().size() == PLAYER_DECK_COUNT,
+        "Expected %s decks, found %s", PLAYER_DECK_COUNT, player.getDecks());
+    player.resetMetadata();
+
     switch (calculationType()) {
       case NAIVE:
-        return winRateBestTwoOfThreeOneBanNaive(player, opponent, matchupMatrix());
+        logger().handleMatchups(applyAllMatchupsNaiveBatch(player, opponents));
+        return;
       case NASH:
-        return winRateBestTwoOfThreeOneBanNash(player, opponent, matchupMatrix());
+        logger().handleMatchups(applyAllMatchupsNash(player, opponents));
+        return;
     }
 
     throw new UnsupportedOperationException("Unsupported calculationType:" + calculationType());
   }
+
+  /**
+   * Equivalent to applying {@link Calculations#winRateBestTwoOfThreeOneBanNash} for every
+   * playable opponent, but through the unchecked {@link
+   * FastCalculations}. Each matchup still solves its own zero sum game, so cannot be batched.
+   * Returns the number of matchups played.
+   */
+  private int applyAllMatchupsNash(Lineup player, OpponentField opponents) {
+    FastCalculations calculations = opponents.calculations;
+    FastCalculations.Scratch scratch = new FastCalculations.Scratch();
+    int played = 0;
+    for (int i = 0; i < opponents.size(); i++) {
+      Lineup opponent = opponents.lineups[i];
+      if (calculations.canPlay(player, opponent)) {
+        played++;
+        player.metadata()
+            .applyMatchup(opponent,
+                calculations.winRateBestTwoOfThreeOneBanNash(player, opponent, scratch),
+                opponents.weights[i]);
+      }
+    }
+    metrics().recordNash(scratch.solves, scratch.pivots);
+    return played;
+  }
+
+  /**
+   * Equivalent to applying {@link Calculations#winRateBestTwoOfThreeOneBanNaive} for every
+   * playable opponent, but scores the whole field at once through
+   * {@link NaiveBatchKernel} and then applies the results to {@code player}'s metadata. Returns
+   * the number of matchups played.
+   */
+  private int applyAllMatchupsNaiveBatch(Lineup player, OpponentField opponents) {
+    double[] scores = new double[opponents.size()];
+    int[] bannedDecks = new int[opponents.size()];
+    NaiveBatchKernel.score(player.getDeck(0), player.getDeck(1), player.getDeck(2), opponents,
+        scores, bannedDecks);
+
+    LineupMetadata metadata = player.metadata();
+    int played = 0;
+    for (int i = 0; i < opponents.size(); i++) {
+      if (Double.isNaN(scores[i])) {
+        continue;
+      }
+      played++;
+      metadata.incrementPlayedAgainst(opponents.deck1[i])
+          .incrementPlayedAgainst(opponents.deck2[i])
+          .incrementPlayedAgainst(opponents.deck3[i])
+          .incrementBanned(bannedDecks[i])
+          .applyMatchup(opponents.lineups[i], scores[i], opponents.weights[i]);
+    }
+    return played;
+  }
+
 }
@@ -0,0 +1,73 @@
+package com.redpup.bracketbuster.sim;
+
+import com.google.auto.value.AutoValue;
+import com.google.common.collect.ImmutableMap;
+import com.redpup.bracketbuster.model.Lineup;
+
+/**
+ * The result of {@link Runner#runSampled(int, int, long)}: the output of a run that estimates
+ * each weighted mean win rate from opponent lineups sampled in proportion to their weight, with
+ * the confidence of each estimate.
+ *
+ * <p>The weighted mean of a lineup is the expected win rate against an opponent drawn in
+ * proportion to its weight among those it can play, so the mean of the sampled win rates is an
+ * unbiased estimate of it. Confidence intervals are normal approximations at {@link
+ * #CONFIDENCE}.
+ */
+@AutoValue
+public abstract class SampledResult {
+
+  /**
+   * The confidence level of every interval.
+   */
+  public static final double CONFIDENCE = 0.95;
+
+  /**
+   * The standard normal quantile of {@link #CONFIDENCE}, in standard errors.
+   */
+  static final double Z_SCORE = 1.959963984540054;
+
+  SampledResult() {
+  }
+
+  /**
+   * Returns a new {@link SampledResult} of the given args.
+   */
+  static SampledResult create(Output output, ImmutableMap<Lineup, Double> confidenceIntervals,
+      long sampledMatchups, long exhaustiveMatchups, int rounds, boolean certified) {
+    return new com.redpup.bracketbuster.sim.AutoValue_SampledResult(output, confidenceIntervals,
+        sampledMatchups, exhaustiveMatchups, rounds, certified);
+  }
+
+  /**
+   * The output of the sampled run. The weighted mean of each lineup is its estimate, and its other
+   * statistics are those of its sampled win rates.
+   */
+  public abstract Output output();
+
+  /**
+   * The half width of the confidence interval around the weighted mean of each of the top lineups
+   * in {@link #output()}, in order.
+   */
+  public abstract ImmutableMap<Lineup, Double> confidenceIntervals();
+
+  /**
+   * The number of opponent lineups sampled across every player lineup.
+   */
+  public abstract long sampledMatchups();
+
+  /**
+   * The number of matchups an exhaustive run would evaluate, at most.
+   */
+  public abstract long exhaustiveMatchups();
+
+  /**
+   * The number of rounds of sampling, including the first.
+   */
+  public abstract int rounds();
+
+  /**
+   * Whether the confidence interval of every top lineup lies above that of every other lineup.
+   */
+  public abstract boolean certified();
+}
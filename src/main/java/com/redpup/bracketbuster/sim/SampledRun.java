@@ -0,0 +1,233 @@
+package com.redpup.bracketbuster.sim;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static com.redpup.bracketbuster.util.Constants.PLAYER_DECK_COUNT;
+
+import com.google.common.collect.ImmutableMap;
+import com.redpup.bracketbuster.model.Lineup;
+import com.redpup.bracketbuster.sim.Calculations.CalculationType;
+import com.redpup.bracketbuster.util.AliasTable;
+import com.redpup.bracketbuster.util.Pair;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+/**
+ * A run of a {@link Runner} against opponent lineups sampled by weight, see {@link
+ * Runner#runSampled(int, int, long)}.
+ */
+final class SampledRun {
+
+  private final Runner runner;
+
+  SampledRun(Runner runner) {
+    this.runner = runner;
+  }
+
+  /**
+   * Estimates the weighted mean of every player lineup from {@code initialSamples} to {@code
+   * maxSamples} sampled opponents, drawn deterministically given {@code seed}.
+   */
+  SampledResult run(int initialSamples, int maxSamples, long seed) {
+    checkArgument(initialSamples > 0 && maxSamples >= initialSamples,
+        "Expected 0 < initialSamples <= maxSamples, found %s and %s", initialSamples, maxSamples);
+    checkState(runner.pruneRatios().size() == 1, "Sampled runs do not support pruning: %s",
+        runner.pruneRatios());
+    checkState(runner.sortType() == SortType.WEIGHTED_MEAN_WIN_RATE,
+        "Sampled runs only estimate %s, found %s", SortType.WEIGHTED_MEAN_WIN_RATE,
+        runner.sortType());
+
+    Pair<List<Lineup>, OpponentField> lineups = RunIteration.generateLineups(runner);
+    List<Lineup> playerLineups = lineups.first();
+    OpponentField opponentLineups = lineups.second();
+    AliasTable aliases = new AliasTable(opponentLineups.weights);
+
+    RunIteration iteration = RunIteration.start(runner, 0, "Sampling Lineup Win Rates");
+    iteration.recordLineups(playerLineups.size(), opponentLineups.size(), " to sample");
+    SampleEstimates estimates = new SampleEstimates(playerLineups.size());
+    SplittableRandom random = new SplittableRandom(seed);
+    FastCalculations.Scratch scratch = new FastCalculations.Scratch();
+    int topK = Math.min(runner.topKToPrintLimit(), playerLineups.size());
+    int rounds = iteration.score(playerLineups.size(), progress -> {
+      for (int p = 0; p < playerLineups.size(); p++) {
+        Lineup player = playerLineups.get(p);
+        checkArgument(player.getDecks().size() == PLAYER_DECK_COUNT,
+            "Expected %s decks, found %s", PLAYER_DECK_COUNT, player.getDecks());
+        player.resetMetadata();
+        progress.handleMatchups(sampleMatchups(player, p, initialSamples, opponentLineups,
+            aliases, estimates, scratch, random));
+      }
+      int completed = 1;
+
+      while (topK < playerLineups.size()) {
+        double boundary = estimates.boundary(topK);
+        int refined = 0;
+        for (int p = 0; p < playerLineups.size(); p++) {
+          if (estimates.draws[p] < maxSamples
+              && Math.abs(estimates.mean(p) - boundary) <= estimates.halfWidth(p)) {
+            refined++;
+            progress.handleMoreMatchups(sampleMatchups(playerLineups.get(p), p,
+                Math.min(estimates.draws[p], maxSamples - estimates.draws[p]), opponentLineups,
+                aliases, estimates, scratch, random));
+          }
+        }
+        if (refined == 0) {
+          break;
+        }
+        completed++;
+        runner.logger().log(String.format("Round %d: refined %d lineups near the top %d.",
+            completed, refined, topK));
+      }
+      return completed;
+    });
+    runner.metrics().recordNash(scratch.solves, scratch.pivots);
+
+    SampledResult result = iteration.output("Handling Output", () -> {
+      Output.Accumulator accumulator = Output.accumulator(runner.matchupMatrix(),
+          runner.sortType(), runner.topKToPrintLimit());
+      Map<Lineup, Integer> indices = new HashMap<>();
+      for (int p = 0; p < playerLineups.size(); p++) {
+        Lineup player = playerLineups.get(p);
+        accumulator.add(player, player.metadata().getWinRateMetric());
+        indices.put(player, p);
+      }
+      Output output = accumulator.build();
+
+      ImmutableMap.Builder<Lineup, Double> confidenceIntervals = ImmutableMap.builder();
+      for (Lineup lineup : output.topLineups.keySet()) {
+        confidenceIntervals.put(lineup, estimates.halfWidth(indices.get(lineup)));
+      }
+      runner.logger().handleOutput(output, runner);
+      return SampledResult.create(output, confidenceIntervals.build(), estimates.totalDraws(),
+          (long) playerLineups.size() * opponentLineups.size(), rounds,
+          estimates.separated(topK));
+    });
+    runner.logger().log(String.format(
+        "Sampled %d of %d matchups in %d rounds. Top lineups %s.", result.sampledMatchups(),
+        result.exhaustiveMatchups(), result.rounds(),
+        result.certified() ? "certified" : "not certified"));
+    iteration.commit();
+    return result;
+  }
+
+  /**
+   * Samples {@code samples} opponents from {@code opponents} through {@code aliases} for {@code
+   * player}, the player lineup at {@code p}, applying each playable matchup to its metadata and
+   * to {@code estimates}. Returns the number of matchups played.
+   */
+  private int sampleMatchups(Lineup player, int p, int samples, OpponentField opponents,
+      AliasTable aliases, SampleEstimates estimates, FastCalculations.Scratch scratch,
+      SplittableRandom random) {
+    FastCalculations calculations = opponents.calculations;
+    int played = 0;
+    for (int i = 0; i < samples; i++) {
+      Lineup opponent = opponents.lineups[aliases.sample(random)];
+      estimates.draws[p]++;
+      if (!calculations.canPlay(player, opponent)) {
+        continue;
+      }
+      played++;
+      double winRate = runner.calculationType() == CalculationType.NAIVE
+          ? calculations.winRateBestTwoOfThreeOneBanNaive(player, opponent, scratch)
+          : calculations.winRateBestTwoOfThreeOneBanNash(player, opponent, scratch);
+      // Opponents are already drawn in proportion to their weight.
+      player.metadata().applyMatchup(opponent, winRate, 1);
+      estimates.add(p, winRate);
+    }
+    return played;
+  }
+
+  /**
+   * Running estimates of the weighted mean win rate of each player lineup, by index.
+   */
+  private static final class SampleEstimates {
+
+    private final int[] draws;
+    private final int[] played;
+    private final double[] sums;
+    private final double[] sumsOfSquares;
+
+    private SampleEstimates(int size) {
+      draws = new int[size];
+      played = new int[size];
+      sums = new double[size];
+      sumsOfSquares = new double[size];
+    }
+
+    private void add(int p, double winRate) {
+      played[p]++;
+      sums[p] += winRate;
+      sumsOfSquares[p] += winRate * winRate;
+    }
+
+    private long totalDraws() {
+      long total = 0;
+      for (int draw : draws) {
+        total += draw;
+      }
+      return total;
+    }
+
+    /**
+     * Returns the estimated weighted mean of {@code p}, or {@code 0} if it played nothing.
+     */
+    private double mean(int p) {
+      return played[p] == 0 ? 0 : sums[p] / played[p];
+    }
+
+    /**
+     * Returns the half width of the confidence interval of {@code p}. Win rates are in {@code [0,
+     * 1]}, so the interval is never wider than that.
+     */
+    private double halfWidth(int p) {
+      if (played[p] < 2) {
+        return 1;
+      }
+      double mean = mean(p);
+      double variance =
+          Math.max(0, (sumsOfSquares[p] - played[p] * mean * mean) / (played[p] - 1));
+      return Math.min(1, SampledResult.Z_SCORE * Math.sqrt(variance / played[p]));
+    }
+
+    /**
+     * Returns the indices of every estimate, highest first.
+     */
+    private int[] ranked() {
+      return IntStream.range(0, draws.length)
+          .boxed()
+          .sorted(Comparator.comparingDouble(this::mean).reversed())
+          .mapToInt(p -> p)
+          .toArray();
+    }
+
+    /**
+     * Returns the midpoint between the {@code topK}th and next highest estimates.
+     */
+    private double boundary(int topK) {
+      int[] ranked = ranked();
+      return (mean(ranked[topK - 1]) + mean(ranked[topK])) / 2;
+    }
+
+    /**
+     * Returns true iff the interval of each of the {@code topK} highest estimates lies above that
+     * of every other.
+     */
+    private boolean separated(int topK) {
+      int[] ranked = ranked();
+      double lowestTop = Double.POSITIVE_INFINITY;
+      for (int i = 0; i < topK; i++) {
+        lowestTop = Math.min(lowestTop, mean(ranked[i]) - halfWidth(ranked[i]));
+      }
+      for (int i = topK; i < ranked.length; i++) {
+        if (mean(ranked[i]) + halfWidth(ranked[i]) >= lowestTop) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+}
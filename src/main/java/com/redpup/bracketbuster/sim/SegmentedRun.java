@@ -0,0 +1,100 @@
+package com.redpup.bracketbuster.sim;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Iterables;
+import com.redpup.bracketbuster.model.LineupTables;
+import com.redpup.bracketbuster.util.Pair;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * A run of a {@link Runner} over every rank segment of its matchups, see {@link
+ * Runner#runSegments(Map, int)}.
+ *
+ * <p>Segments run concurrently, each on its own runner with its own {@link RunMetrics} and no
+ * {@link ResultSink}. Segment metrics are added to the parent runner's metrics as each segment is
+ * collected.
+ */
+final class SegmentedRun {
+
+  private final Runner runner;
+
+  SegmentedRun(Runner runner) {
+    this.runner = runner;
+  }
+
+  /**
+   * Evaluates every segment in {@code segments}, up to {@code parallelism} at once, and returns the
+   * last output of each.
+   */
+  ImmutableMap<String, Output> run(Map<String, LineupTables> segments, int parallelism) {
+    checkArgument(parallelism > 0, "Expected positive parallelism, found %s", parallelism);
+    ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+    try {
+      Map<String, Future<Pair<Runner, CollectingLogger>>> runs = new LinkedHashMap<>();
+      for (Map.Entry<String, LineupTables> segment : segments.entrySet()) {
+        runs.put(segment.getKey(), executor.submit(() -> runSegment(segment.getValue())));
+      }
+
+      Logger logger = runner.logger();
+      ImmutableMap.Builder<String, Output> outputs = ImmutableMap.builder();
+      for (Map.Entry<String, Future<Pair<Runner, CollectingLogger>>> run : runs.entrySet()) {
+        Pair<Runner, CollectingLogger> result = getSegment(run.getValue());
+        runner.metrics().add(result.first().metrics());
+        ImmutableList<Output> segmentOutputs = result.second().outputs();
+        logger.log(String.format("Segment %s:", run.getKey()));
+        for (int i = 0; i < segmentOutputs.size(); i++) {
+          logger.setIteration(i);
+          logger.handleOutput(segmentOutputs.get(i), result.first());
+        }
+        outputs.put(run.getKey(), Iterables.getLast(segmentOutputs));
+      }
+      return outputs.build();
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Evaluates the single segment {@code tables} and returns its runner and collected outputs.
+   */
+  private Pair<Runner, CollectingLogger> runSegment(LineupTables tables) {
+    CollectingLogger collector = new CollectingLogger();
+    Runner segmentRunner = runner.toBuilder()
+        .setMatchupMatrix(tables.matchups())
+        .setLineupWeightType(tables.lineupWeightType())
+        .setLineupTables(tables)
+        .setPipelineParallelism(0)
+        .setLogger(collector)
+        .setMetrics(new RunMetrics())
+        .setResultSink(null)
+        .build();
+    segmentRunner.computeTopLineupsAgainstEveryone();
+    return Pair.of(segmentRunner, collector);
+  }
+
+  /**
+   * Returns the result of {@code segment}, rethrowing any failure.
+   */
+  private static Pair<Runner, CollectingLogger> getSegment(
+      Future<Pair<Runner, CollectingLogger>> segment) {
+    try {
+      return segment.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while running segments", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new IllegalStateException(e.getCause());
+    }
+  }
+}
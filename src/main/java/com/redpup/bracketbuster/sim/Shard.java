@@ -0,0 +1,64 @@
+package com.redpup.bracketbuster.sim;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+
+import com.google.auto.value.AutoValue;
+import com.google.common.collect.ImmutableList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * A deterministic slice of a run, identified by {@code index/count}.
+ */
+@AutoValue
+public abstract class Shard {
+
+  Shard() {
+  }
+
+  /**
+   * Returns a new {@link Shard} of the given args.
+   */
+  public static Shard of(int index, int count) {
+    checkArgument(count > 0, "Expected a positive shard count, found %s", count);
+    checkArgument(index >= 0 && index < count, "Shard index %s not in [0, %s)", index, count);
+    return new com.redpup.bracketbuster.sim.AutoValue_Shard(index, count);
+  }
+
+  /**
+   * Parses a {@link Shard} of the form {@code "index/count"}, e.g. {@code "0/4"}.
+   */
+  public static Shard parse(String value) {
+    String[] arr = value.split("/");
+    checkArgument(arr.length == 2, "Expected shard of the form index/count, found %s", value);
+    return of(Integer.parseInt(arr[0].trim()), Integer.parseInt(arr[1].trim()));
+  }
+
+  /**
+   * The index of this shard, in {@code [0, count)}.
+   */
+  public abstract int index();
+
+  /**
+   * The total number of shards.
+   */
+  public abstract int count();
+
+  /**
+   * Returns the elements of {@code values} that belong to this shard. Elements are dealt
+   * round-robin, so shards are balanced and the union of all shards of the same count is exactly
+   * {@code values}, given that {@code values} is in a deterministic order.
+   */
+  public <T> ImmutableList<T> slice(List<T> values) {
+    return IntStream.range(0, values.size())
+        .filter(i -> i % count() == index())
+        .mapToObj(values::get)
+        .collect(toImmutableList());
+  }
+
+  @Override
+  public final String toString() {
+    return index() + "/" + count();
+  }
+}
@@ -0,0 +1,80 @@
+package com.redpup.bracketbuster.sim;
+
+import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.collect.ImmutableMap.toImmutableMap;
+import static com.redpup.bracketbuster.sim.Output.buildOutput;
+
+import com.google.common.collect.ImmutableList;
+import com.redpup.bracketbuster.model.Lineup;
+import com.redpup.bracketbuster.sim.proto.ShardMessage;
+import com.redpup.bracketbuster.util.Pair;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * A run of a {@link Runner} split across processes, see {@link Runner#runShard(Shard, Path)} and
+ * {@link Runner#mergeShards(List)}.
+ */
+final class ShardedRun {
+
+  private final Runner runner;
+
+  ShardedRun(Runner runner) {
+    this.runner = runner;
+  }
+
+  /**
+   * Evaluates the player lineups in {@code shard} and writes the partial results to {@code
+   * shardFile}.
+   */
+  void runShard(Shard shard, Path shardFile) throws IOException {
+    checkState(runner.pruneRatios().size() == 1, "Sharded runs do not support pruning: %s",
+        runner.pruneRatios());
+
+    Pair<List<Lineup>, OpponentField> lineups = RunIteration.generateLineups(runner,
+        () -> Pair.of(shard.slice(runner.allPlayerLineups()), runner.allOpponentLineups()));
+    List<Lineup> playerLineups = lineups.first();
+    OpponentField opponentLineups = lineups.second();
+
+    RunIteration iteration = RunIteration.start(runner, 0, "Computing Lineup Win Rates");
+    iteration.recordLineups(playerLineups.size(), opponentLineups.size(), " for shard " + shard);
+    ShardMessage message = iteration.score(playerLineups.size(), progress -> {
+      Runner scorer = runner.withLogger(progress);
+      ShardMessage.Builder builder = ShardMessage.newBuilder()
+          .setIndex(shard.index())
+          .setCount(shard.count());
+      for (Lineup player : playerLineups) {
+        scorer.applyAllMatchups(player, opponentLineups);
+        builder.addLineups(player.toProto());
+      }
+      return builder.build();
+    });
+
+    iteration.output("Writing Shard", () -> Shards.write(message, shardFile));
+    iteration.commit();
+    runner.logger().log(runner.metrics().summary());
+  }
+
+  /**
+   * Merges the results written by {@link #runShard} to {@code shardFiles} and handles the output.
+   */
+  void mergeShards(List<Path> shardFiles) throws IOException {
+    RunIteration iteration = RunIteration.start(runner, 0, "Merging Shards");
+    ImmutableList<Lineup> playerLineups =
+        Shards.readAndMerge(shardFiles, runner.matchupMatrix());
+    iteration.recordLineups(playerLineups.size(), 0);
+    runner.logger().log(String.format("Merged %d player lineups from %d shards.",
+        playerLineups.size(), shardFiles.size()));
+
+    iteration.handleOutput(
+        buildOutput(
+            playerLineups.stream()
+                .collect(toImmutableMap(p -> p, p -> p.metadata().getWinRateMetric())),
+            runner.matchupMatrix(),
+            runner.sortType(),
+            runner.topKToPrintLimit()),
+        runner);
+    iteration.commit();
+  }
+}
@@ -0,0 +1,100 @@
+package com.redpup.bracketbuster.sim;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.collect.ImmutableList;
+import com.redpup.bracketbuster.model.Lineup;
+import com.redpup.bracketbuster.model.MatchupMatrix;
+import com.redpup.bracketbuster.model.proto.LineupMessage;
+import com.redpup.bracketbuster.sim.proto.ShardMessage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Utility methods for writing and merging the results of sharded runs.
+ *
+ * <p>Shards coordinate only through files: each shard writes its own file, and the merge reads
+ * all of them back. Files are written to a temporary sibling and then atomically moved into place,
+ * so a merge never observes a partially written shard.
+ *
+ * <p>The win rate medians of merged lineups come from bounded sketches of each shard's win rates.
+ * They are exact while a lineup has at most {@code QuantileSketch.CAPACITY} distinct win rates
+ * across its shards, and otherwise estimates. Every other statistic merges exactly.
+ */
+public final class Shards {
+
+  private Shards() {
+  }
+
+  /**
+   * Writes {@code message} to {@code path}.
+   */
+  public static void write(ShardMessage message, Path path) throws IOException {
+    Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+    try (OutputStream out = Files.newOutputStream(tmp)) {
+      message.writeTo(out);
+    }
+    Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  /**
+   * Reads a {@link ShardMessage} from {@code path}.
+   */
+  public static ShardMessage read(Path path) throws IOException {
+    try (InputStream in = Files.newInputStream(path)) {
+      return ShardMessage.parseFrom(in);
+    }
+  }
+
+  /**
+   * Reads every shard in {@code paths} and merges them into one list of lineups with their
+   * metadata restored. The shards must be exactly the shards {@code 0 ... count-1} of the same
+   * run. A lineup present in more than one shard has its metadata combined.
+   */
+  public static ImmutableList<Lineup> readAndMerge(List<Path> paths, MatchupMatrix matchups)
+      throws IOException {
+    ImmutableList.Builder<ShardMessage> shards = ImmutableList.builder();
+    for (Path path : paths) {
+      shards.add(read(path));
+    }
+    return merge(shards.build(), matchups);
+  }
+
+  /**
+   * Merges {@code shards} into one list of lineups with their metadata restored. See {@link
+   * #readAndMerge(List, MatchupMatrix)}.
+   */
+  static ImmutableList<Lineup> merge(List<ShardMessage> shards, MatchupMatrix matchups) {
+    checkArgument(!shards.isEmpty(), "Expected at least one shard.");
+    int count = shards.get(0).getCount();
+    checkArgument(shards.size() == count, "Expected %s shards, found %s", count, shards.size());
+
+    BitSet seen = new BitSet(count);
+    Map<List<String>, Lineup> lineups = new LinkedHashMap<>();
+    for (ShardMessage shard : shards) {
+      checkArgument(shard.getCount() == count, "Shard %s/%s is not from a run of %s shards",
+          shard.getIndex(), shard.getCount(), count);
+      checkArgument(shard.getIndex() >= 0 && shard.getIndex() < count && !seen.get(
+          shard.getIndex()), "Missing or duplicate shard %s/%s", shard.getIndex(), count);
+      seen.set(shard.getIndex());
+
+      for (LineupMessage message : shard.getLineupsList()) {
+        Lineup lineup = Lineup.fromProto(matchups, message);
+        Lineup existing = lineups.putIfAbsent(message.getDecksList(), lineup);
+        if (existing != null) {
+          existing.metadata().combine(lineup.metadata());
+        }
+      }
+    }
+
+    return ImmutableList.copyOf(lineups.values());
+  }
+}
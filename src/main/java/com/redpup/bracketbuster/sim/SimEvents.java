@@ -0,0 +1,180 @@
+package com.redpup.bracketbuster.sim;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Java Flight Recorder events emitted by a {@link Runner}, to profile individual runs.
+ *
+ * <p>Every event is disabled by default, so costs nothing until enabled by name in the settings
+ * of a recording, or through {@link jdk.jfr.Recording#enable(String)}. Steps nest inside
+ * iterations, so a recording shows which phase of which iteration is slow, and sampled solves
+ * show which matchup shapes are slow.
+ */
+final class SimEvents {
+
+  private static final String PREFIX = "com.redpup.bracketbuster.";
+  private static final String CATEGORY = "BracketBuster";
+
+  private SimEvents() {
+  }
+
+  /**
+   * One iteration of a run: scoring every remaining player lineup, handling the output and pruning.
+   */
+  @Name(Iteration.NAME)
+  @Label("Runner Iteration")
+  @Category(CATEGORY)
+  @Enabled(false)
+  @StackTrace(false)
+  static final class Iteration extends Event {
+
+    static final String NAME = PREFIX + "Iteration";
+
+    @Label("Iteration")
+    int iteration;
+
+    @Label("Player Lineups")
+    long playerLineups;
+
+    @Label("Opponent Lineups")
+    long opponentLineups;
+  }
+
+  /**
+   * One step of a run, timed by a {@link RunMetrics.Phase}.
+   */
+  @Name(Step.NAME)
+  @Label("Runner Step")
+  @Category(CATEGORY)
+  @Enabled(false)
+  @StackTrace(false)
+  static final class Step extends Event {
+
+    static final String NAME = PREFIX + "Step";
+
+    @Label("Step")
+    String step;
+
+    @Label("Allocated")
+    @Description("Bytes allocated by the thread running the step, or -1 if unsupported")
+    @DataAmount
+    long allocatedBytes;
+  }
+
+  /**
+   * Pruning the player lineups after an iteration.
+   */
+  @Name(Prune.NAME)
+  @Label("Prune")
+  @Category(CATEGORY)
+  @Enabled(false)
+  @StackTrace(false)
+  static final class Prune extends Event {
+
+    static final String NAME = PREFIX + "Prune";
+
+    @Label("Iteration")
+    int iteration;
+
+    @Label("Ratio")
+    double ratio;
+
+    @Label("Lineups Before")
+    long before;
+
+    @Label("Lineups After")
+    long after;
+  }
+
+  /**
+   * Building an {@link Output} from scored lineups.
+   */
+  @Name(OutputBuild.NAME)
+  @Label("Output Build")
+  @Category(CATEGORY)
+  @Enabled(false)
+  @StackTrace(false)
+  static final class OutputBuild extends Event {
+
+    static final String NAME = PREFIX + "OutputBuild";
+
+    @Label("Lineups")
+    long lineups;
+
+    @Label("Top Lineups")
+    long topLineups;
+
+    /**
+     * Commits this event for an output of {@code topLineups} of {@code lineups}, if enabled.
+     */
+    void commit(long lineups, long topLineups) {
+      end();
+      if (shouldCommit()) {
+        this.lineups = lineups;
+        this.topLineups = topLineups;
+        commit();
+      }
+    }
+  }
+
+  /**
+   * A sampled solve of the zero sum ban game of one matchup.
+   */
+  @Name(ZeroSumSolve.NAME)
+  @Label("Zero Sum Solve")
+  @Description("One in every " + ZeroSumSolve.SAMPLE_INTERVAL + " solves of each player lineup")
+  @Category(CATEGORY)
+  @Enabled(false)
+  @StackTrace(false)
+  static final class ZeroSumSolve extends Event {
+
+    static final String NAME = PREFIX + "ZeroSumSolve";
+
+    /**
+     * Only one in this many solves is sampled. Must be a power of two.
+     */
+    static final int SAMPLE_INTERVAL = 1024;
+
+    /**
+     * Returns a begun event if the solve numbered {@code solve} is sampled, otherwise null.
+     */
+    static @Nullable ZeroSumSolve sample(long solve) {
+      if ((solve & (SAMPLE_INTERVAL - 1)) != 0) {
+        return null;
+      }
+      ZeroSumSolve event = new ZeroSumSolve();
+      event.begin();
+      return event;
+    }
+
+    @Label("Rows")
+    int rows;
+
+    @Label("Columns")
+    int columns;
+
+    @Label("Pivots")
+    int pivots;
+
+    /**
+     * Commits this event for a solved {@code rows} by {@code columns} game, if enabled.
+     */
+    void commit(int rows, int columns, int pivots) {
+      end();
+      if (shouldCommit()) {
+        this.rows = rows;
+        this.columns = columns;
+        this.pivots = pivots;
+        commit();
+      }
+    }
+  }
+}
@@ -0,0 +1,82 @@
+package com.redpup.bracketbuster.sim;
+
+import com.google.auto.value.AutoValue;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.redpup.bracketbuster.model.Lineup;
+import com.redpup.bracketbuster.model.MatchupDiff;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * The result of one snapshot of {@link Runner#runSnapshots(java.util.Map)}.
+ *
+ * <p>Lineups are ranked from {@code 1}, best first, and identified by {@link #rankKey(Lineup)} so
+ * ranks can be compared between snapshots with different decks.
+ */
+@AutoValue
+public abstract class SnapshotResult {
+
+  SnapshotResult() {
+  }
+
+  /**
+   * Returns a new {@link SnapshotResult} of the given args.
+   */
+  static SnapshotResult create(String name, Output output, @Nullable MatchupDiff diff,
+      int recomputedLineups, int reusedLineups, long recomputedMatchups,
+      ImmutableMap<ImmutableSet<String>, Integer> ranks,
+      ImmutableMap<ImmutableSet<String>, Integer> rankDeltas) {
+    return new com.redpup.bracketbuster.sim.AutoValue_SnapshotResult(name, output, diff,
+        recomputedLineups, reusedLineups, recomputedMatchups, ranks, rankDeltas);
+  }
+
+  /**
+   * Returns the key {@code lineup} is ranked by: the names of its decks, in any order.
+   */
+  public static ImmutableSet<String> rankKey(Lineup lineup) {
+    return ImmutableSet.copyOf(lineup.getDeckNames());
+  }
+
+  /**
+   * The name of this snapshot.
+   */
+  public abstract String name();
+
+  /**
+   * The output of this snapshot, as a single run on its matrix would produce.
+   */
+  public abstract Output output();
+
+  /**
+   * The differences from the previous snapshot, or null for the first snapshot.
+   */
+  public abstract @Nullable MatchupDiff diff();
+
+  /**
+   * The number of player lineups evaluated again against at least one opponent in this snapshot.
+   */
+  public abstract int recomputedLineups();
+
+  /**
+   * The number of player lineups whose results against every opponent were reused from the
+   * previous snapshot, weighted again if play rates changed.
+   */
+  public abstract int reusedLineups();
+
+  /**
+   * The number of playable matchups between a player and an opponent lineup evaluated in this
+   * snapshot, rather than reused from the previous snapshot.
+   */
+  public abstract long recomputedMatchups();
+
+  /**
+   * The rank of every player lineup in this snapshot.
+   */
+  public abstract ImmutableMap<ImmutableSet<String>, Integer> ranks();
+
+  /**
+   * The rank movement of each of the top lineups in {@link #output()} that was also ranked in the
+   * previous snapshot, as its previous rank minus its current rank. Positive deltas moved up.
+   */
+  public abstract ImmutableMap<ImmutableSet<String>, Integer> rankDeltas();
+}
@@ -0,0 +1,527 @@
+package com.redpup.bracketbuster.sim;
+
+import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.redpup.bracketbuster.sim.Output.buildOutput;
+import static com.redpup.bracketbuster.util.Constants.NUM_BEST_WORST_MATCHUPS;
+import static com.redpup.bracketbuster.util.Constants.PLAYER_DECK_COUNT;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.redpup.bracketbuster.model.Lineup;
+import com.redpup.bracketbuster.model.LineupMetadata;
+import com.redpup.bracketbuster.model.LineupWeightType;
+import com.redpup.bracketbuster.model.MatchupDiff;
+import com.redpup.bracketbuster.model.MatchupMatrix;
+import com.redpup.bracketbuster.model.Matchups;
+import com.redpup.bracketbuster.sim.Calculations.CalculationType;
+import com.redpup.bracketbuster.util.Pair;
+import com.redpup.bracketbuster.util.WeightedDoubleMetric;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * A run of a {@link Runner} over an ordered series of matchup snapshots, see {@link
+ * Runner#runSnapshots(Map)}.
+ */
+final class SnapshotRun {
+
+  private final Runner runner;
+
+  SnapshotRun(Runner runner) {
+    this.runner = runner;
+  }
+
+  /**
+   * Reads every matchup file in {@code files} as a snapshot, keyed and ordered by file.
+   */
+  static Map<String, MatchupMatrix> read(List<String> files) throws IOException {
+    Map<String, MatchupMatrix> snapshots = new LinkedHashMap<>();
+    for (String file : files) {
+      snapshots.put(file, Matchups.readMatchupMatrix(Paths.get(file)));
+    }
+    return snapshots;
+  }
+
+  /**
+   * Evaluates every snapshot in {@code snapshots} in order and returns a result per snapshot.
+   */
+  ImmutableList<SnapshotResult> run(Map<String, MatchupMatrix> snapshots) {
+    checkState(runner.pruneRatios().size() == 1, "Snapshot runs do not support pruning: %s",
+        runner.pruneRatios());
+
+    ImmutableList.Builder<SnapshotResult> results = ImmutableList.builder();
+    @Nullable MatchupMatrix previousMatrix = null;
+    @Nullable SnapshotResult previousResult = null;
+    @Nullable Evaluation evaluation = null;
+    for (Map.Entry<String, MatchupMatrix> snapshot : snapshots.entrySet()) {
+      MatchupMatrix matrix = snapshot.getValue();
+      Runner snapshotRunner = runner.toBuilder().setMatchupMatrix(matrix).build();
+      @Nullable MatchupDiff diff =
+          previousMatrix == null ? null : MatchupDiff.between(previousMatrix, matrix);
+      boolean incremental = evaluation != null && diff.isIncremental();
+
+      RunIteration iteration = RunIteration.start(runner, 0,
+          String.format("Computing Snapshot %s", snapshot.getKey()));
+      if (incremental) {
+        evaluation.advance(matrix, runner.lineupWeightType(), diff);
+      } else {
+        Pair<List<Lineup>, OpponentField> generated = RunIteration.generateLineups(snapshotRunner);
+        evaluation = new Evaluation(generated.first(), generated.second());
+      }
+      Evaluation current = evaluation;
+      iteration.recordLineups(current.players.length, current.opponents.size());
+
+      int[] changedPlayers = current.changedPlayers();
+      boolean reweighted = incremental && diff.playRatesChanged();
+      long recomputedMatchups = iteration.score(changedPlayers.length, progress -> {
+        progress.handleReusedLineups(current.players.length - changedPlayers.length);
+        FastCalculations.Scratch scratch = new FastCalculations.Scratch();
+        long matchups = current.update(runner.calculationType(), changedPlayers, reweighted,
+            progress, scratch);
+        runner.metrics().recordNash(scratch.solves, scratch.pivots);
+        return matchups;
+      });
+
+      Map<Lineup, WeightedDoubleMetric> metrics = new LinkedHashMap<>();
+      for (PlayerResults player : current.players) {
+        metrics.put(player.lineup, player.lineup.metadata().getWinRateMetric());
+      }
+      ImmutableList<Lineup> ranked = metrics.entrySet().stream()
+          .sorted(Map.Entry.comparingByValue(runner.sortType().comparator))
+          .map(Map.Entry::getKey)
+          .collect(toImmutableList());
+      ImmutableMap.Builder<ImmutableSet<String>, Integer> ranksBuilder = ImmutableMap.builder();
+      for (int i = 0; i < ranked.size(); i++) {
+        ranksBuilder.put(SnapshotResult.rankKey(ranked.get(i)), i + 1);
+      }
+      ImmutableMap<ImmutableSet<String>, Integer> ranks = ranksBuilder.build();
+      Output output = buildOutput(metrics, matrix, runner.sortType(), runner.topKToPrintLimit());
+      SnapshotResult result = SnapshotResult.create(snapshot.getKey(), output, diff,
+          changedPlayers.length, metrics.size() - changedPlayers.length, recomputedMatchups,
+          ranks, rankDeltas(output, ranks, previousResult));
+
+      runner.logger().log(String.format(
+          "Snapshot %s: %d changed decks, %d changed matchups. Recomputed %d lineup matchups of %d"
+              + " player lineups and reused %d player lineups%s.",
+          result.name(), diff == null ? matrix.getNumDecks() : diff.changedDecks().size(),
+          diff == null ? matrix.getNumDecks() * matrix.getNumDecks() : diff.changedMatchups(),
+          result.recomputedMatchups(), result.recomputedLineups(), result.reusedLineups(),
+          reweighted ? ", reweighted by new play rates" : ""));
+      iteration.handleOutput(output, snapshotRunner);
+      if (previousResult != null) {
+        logRankMovements(result, previousResult);
+      }
+      iteration.commit();
+
+      results.add(result);
+      previousMatrix = matrix;
+      previousResult = result;
+    }
+    return results.build();
+  }
+
+  /**
+   * Returns the rank movements of the top lineups of {@code output} since {@code previous}.
+   */
+  private static ImmutableMap<ImmutableSet<String>, Integer> rankDeltas(Output output,
+      ImmutableMap<ImmutableSet<String>, Integer> ranks, @Nullable SnapshotResult previous) {
+    if (previous == null) {
+      return ImmutableMap.of();
+    }
+    ImmutableMap.Builder<ImmutableSet<String>, Integer> deltas = ImmutableMap.builder();
+    for (Lineup lineup : output.topLineups.keySet()) {
+      ImmutableSet<String> key = SnapshotResult.rankKey(lineup);
+      @Nullable Integer previousRank = previous.ranks().get(key);
+      if (previousRank != null) {
+        deltas.put(key, previousRank - ranks.get(key));
+      }
+    }
+    return deltas.build();
+  }
+
+  /**
+   * Logs the rank movement of every top lineup of {@code result} since {@code previous}.
+   */
+  private void logRankMovements(SnapshotResult result, SnapshotResult previous) {
+    runner.logger().log(
+        String.format("Rank movements from %s to %s:", previous.name(), result.name()));
+    for (Lineup lineup : result.output().topLineups.keySet()) {
+      ImmutableSet<String> key = SnapshotResult.rankKey(lineup);
+      @Nullable Integer delta = result.rankDeltas().get(key);
+      runner.logger().log(String.format("%s,%s,%s,#%d,%s", lineup.getDeckName(0),
+          lineup.getDeckName(1), lineup.getDeckName(2), result.ranks().get(key),
+          delta == null ? "new" : String.format("%+d", delta)));
+    }
+  }
+
+  /**
+   * The lineups of a series of snapshots that enumerate the same lineups, and the results of
+   * every player lineup against the opponent lineups of the latest snapshot. Kept from snapshot to
+   * snapshot, so each snapshot only evaluates the pairs a changed win rate touches.
+   */
+  private static final class Evaluation {
+
+    private final PlayerResults[] players;
+
+    /**
+     * The indices of the player and opponent lineups that contain each deck, by deck.
+     */
+    private final int[][] playersByDeck;
+    private final int[][] opponentsByDeck;
+
+    /**
+     * The opponents of the latest snapshot, and of the snapshot before it if any.
+     */
+    private OpponentField opponents;
+    private @Nullable OpponentField previousOpponents;
+
+    /**
+     * The opponent decks whose win rate against each player deck changed in the latest snapshot,
+     * by player deck, only counting decks of at least one opponent lineup. Null if every pair is
+     * evaluated for the first time.
+     */
+    private int @Nullable [][] changedOpponentDecks;
+
+    private Evaluation(List<Lineup> playerLineups, OpponentField opponents) {
+      this.players = new PlayerResults[playerLineups.size()];
+      for (int i = 0; i < players.length; i++) {
+        players[i] = new PlayerResults(playerLineups.get(i), opponents.size());
+      }
+      int numDecks = opponents.matchups.getNumDecks();
+      this.playersByDeck = indexByDeck(numDecks, playerLineups.toArray(new Lineup[0]));
+      this.opponentsByDeck = indexByDeck(numDecks, opponents.lineups);
+      this.opponents = opponents;
+    }
+
+    /**
+     * Returns the indices of the lineups in {@code lineups} that contain each deck, by deck.
+     */
+    private static int[][] indexByDeck(int numDecks, Lineup[] lineups) {
+      int[] counts = new int[numDecks];
+      for (Lineup lineup : lineups) {
+        for (int deck : lineup.getDecks()) {
+          counts[deck]++;
+        }
+      }
+      int[][] byDeck = new int[numDecks][];
+      for (int deck = 0; deck < numDecks; deck++) {
+        byDeck[deck] = new int[counts[deck]];
+        counts[deck] = 0;
+      }
+      for (int i = 0; i < lineups.length; i++) {
+        for (int deck : lineups[i].getDecks()) {
+          byDeck[deck][counts[deck]++] = i;
+        }
+      }
+      return byDeck;
+    }
+
+    /**
+     * Moves on to {@code matchups}, a later snapshot with the same lineups that differs by {@code
+     * diff}, weighting opponents by {@code lineupWeightType}.
+     */
+    private void advance(MatchupMatrix matchups, LineupWeightType lineupWeightType,
+        MatchupDiff diff) {
+      previousOpponents = opponents;
+      opponents = opponents.withMatchups(matchups, lineupWeightType);
+      int numDecks = matchups.getNumDecks();
+      changedOpponentDecks = new int[numDecks][];
+      for (int player = 0; player < numDecks; player++) {
+        int finalPlayer = player;
+        changedOpponentDecks[player] = IntStream.range(0, numDecks)
+            .filter(opponent -> opponentsByDeck[opponent].length > 0
+                && diff.isChanged(finalPlayer, opponent))
+            .toArray();
+      }
+    }
+
+    /**
+     * Returns the indices of every player lineup with a pair to evaluate in the latest snapshot,
+     * in order.
+     */
+    private int[] changedPlayers() {
+      if (changedOpponentDecks == null) {
+        return IntStream.range(0, players.length).toArray();
+      }
+      boolean[] changed = new boolean[players.length];
+      for (int deck = 0; deck < changedOpponentDecks.length; deck++) {
+        if (changedOpponentDecks[deck].length > 0) {
+          for (int player : playersByDeck[deck]) {
+            changed[player] = true;
+          }
+        }
+      }
+      return IntStream.range(0, players.length).filter(i -> changed[i]).toArray();
+    }
+
+    /**
+     * Evaluates the pairs of each of {@code changedPlayers} touched by a changed win rate under
+     * {@code calculationType}, reporting to {@code progress}. If {@code reweighted}, weights every
+     * player's results again under the latest opponent weights. Then updates the metadata of every
+     * player lineup with changed results. Returns the number of playable matchups evaluated.
+     */
+    private long update(CalculationType calculationType, int[] changedPlayers,
+        boolean reweighted, ProgressReporter progress, FastCalculations.Scratch scratch) {
+      boolean[] changed = new boolean[opponents.size()];
+      int[] changedOpponents = new int[opponents.size()];
+      if (changedOpponentDecks == null) {
+        Arrays.fill(changed, true);
+        Arrays.setAll(changedOpponents, i -> i);
+      }
+
+      long evaluated = 0;
+      for (int i : changedPlayers) {
+        PlayerResults player = players[i];
+        int count = changedOpponentDecks == null
+            ? changedOpponents.length
+            : markChangedOpponents(player.lineup, changed, changedOpponents);
+        int matchups = player.update(calculationType, opponents, previousOpponents, changed,
+            changedOpponents, count, scratch);
+        evaluated += matchups;
+        progress.handleMatchups(matchups);
+        if (reweighted) {
+          player.reweight(opponents);
+        }
+        player.applyToMetadata(opponents);
+        if (changedOpponentDecks != null) {
+          for (int k = 0; k < count; k++) {
+            changed[changedOpponents[k]] = false;
+          }
+        }
+      }
+
+      if (reweighted) {
+        int next = 0;
+        for (int i = 0; i < players.length; i++) {
+          if (next < changedPlayers.length && changedPlayers[next] == i) {
+            next++;
+            continue;
+          }
+          players[i].reweight(opponents);
+          players[i].applyToMetadata(opponents);
+        }
+      }
+      return evaluated;
+    }
+
+    /**
+     * Marks in {@code changed} and lists in {@code changedOpponents}, in order, every opponent
+     * lineup whose pair with {@code player} is touched by a changed win rate. Returns the number of
+     * listed opponents.
+     */
+    private int markChangedOpponents(Lineup player, boolean[] changed, int[] changedOpponents) {
+      int count = 0;
+      for (int deck : player.getDecks()) {
+        for (int opponentDeck : changedOpponentDecks[deck]) {
+          for (int opponent : opponentsByDeck[opponentDeck]) {
+            if (!changed[opponent]) {
+              changed[opponent] = true;
+              changedOpponents[count++] = opponent;
+            }
+          }
+        }
+      }
+      Arrays.sort(changedOpponents, 0, count);
+      return count;
+    }
+  }
+
+  /**
+   * The results of a player lineup against every opponent lineup of a snapshot, and the totals of
+   * its win rate metric, kept up to date as pairs are evaluated again.
+   *
+   * <p>Each pair keeps only its payoff and a position in the sorted order of payoffs, 12 bytes, so
+   * the median and the best and worst matchups come straight from the order. Ban probabilities are
+   * not kept: the bans of a pair evaluated again are retracted by solving it under the previous
+   * snapshot's matrix.
+   */
+  private static final class PlayerResults {
+
+    /**
+     * The player lineup, holding the metadata last applied from these results.
+     */
+    private final Lineup lineup;
+
+    /**
+     * The win rate against each opponent, or {@link Double#NaN} if they cannot play.
+     */
+    private final double[] payoffs;
+
+    /**
+     * The indices of every playable opponent, in ascending order of payoff and then of index.
+     */
+    private int[] order = new int[0];
+
+    private double totalUnweightedValue;
+    private double totalUnweightedValueSquared;
+    private double totalWeightedValue;
+    private double totalWeight;
+
+    private PlayerResults(Lineup lineup, int opponents) {
+      this.lineup = lineup;
+      this.payoffs = new double[opponents];
+      Arrays.fill(payoffs, Double.NaN);
+    }
+
+    /**
+     * Evaluates the pair with each of the first {@code count} opponents of {@code
+     * changedOpponents} under {@code calculationType} against {@code opponents}, first retracting
+     * its result against {@code previous}, if it was playable. {@code changed} marks the same
+     * opponents. Returns the number of playable matchups evaluated.
+     */
+    private int update(CalculationType calculationType, OpponentField opponents,
+        @Nullable OpponentField previous, boolean[] changed, int[] changedOpponents, int count,
+        FastCalculations.Scratch scratch) {
+      LineupMetadata metadata = lineup.metadata();
+      int evaluated = 0;
+      for (int k = 0; k < count; k++) {
+        int i = changedOpponents[k];
+        Lineup opponent = opponents.lineups[i];
+        if (!Double.isNaN(payoffs[i])) {
+          previous.calculations.payoff(calculationType, lineup, opponent, scratch);
+          apply(metadata, calculationType, opponent, payoffs[i], previous.weights[i],
+              scratch.banProbabilities, -1);
+        }
+        if (!opponents.calculations.canPlay(lineup, opponent)) {
+          payoffs[i] = Double.NaN;
+          continue;
+        }
+        evaluated++;
+        payoffs[i] = opponents.calculations.payoff(calculationType, lineup, opponent, scratch);
+        apply(metadata, calculationType, opponent, payoffs[i], opponents.weights[i],
+            scratch.banProbabilities, 1);
+      }
+      reorder(changed, changedOpponents, count);
+      return evaluated;
+    }
+
+    /**
+     * Adds the matchup against {@code opponent} with {@code payoff}, {@code weight} and {@code
+     * banProbabilities} to {@code metadata} and the totals if {@code sign} is {@code 1}, or
+     * retracts it if {@code -1}.
+     */
+    private void apply(LineupMetadata metadata, CalculationType calculationType, Lineup opponent,
+        double payoff, double weight, double[] banProbabilities, int sign) {
+      for (int j = 0; j < PLAYER_DECK_COUNT; j++) {
+        int deck = opponent.getDeck(j);
+        if (sign > 0) {
+          metadata.incrementPlayedAgainst(deck);
+        } else {
+          metadata.decrementPlayedAgainst(deck);
+        }
+        double banProbability = banProbabilities[j];
+        if (banProbability <= 0) {
+          continue;
+        }
+        if (calculationType == CalculationType.NAIVE) {
+          if (sign > 0) {
+            metadata.incrementBanned(deck);
+          } else {
+            metadata.decrementBanned(deck);
+          }
+        } else if (sign > 0) {
+          metadata.incrementBanned(deck, banProbability);
+        } else {
+          metadata.decrementBanned(deck, banProbability);
+        }
+      }
+      totalUnweightedValue += sign * payoff;
+      totalUnweightedValueSquared += sign * payoff * payoff;
+      totalWeightedValue += sign * payoff * weight;
+      totalWeight += sign * weight;
+    }
+
+    /**
+     * Restores {@link #order} after the opponents marked in {@code changed}, the first {@code
+     * count} of {@code changedOpponents}, were evaluated again, by merging their new payoffs into
+     * the unchanged rest.
+     */
+    private void reorder(boolean[] changed, int[] changedOpponents, int count) {
+      int[] added = IntStream.of(changedOpponents).limit(count)
+          .filter(i -> !Double.isNaN(payoffs[i]))
+          .boxed()
+          .sorted(this::compare)
+          .mapToInt(Integer::intValue)
+          .toArray();
+      int kept = 0;
+      for (int i : order) {
+        if (!changed[i]) {
+          kept++;
+        }
+      }
+      int[] reordered = new int[kept + added.length];
+      int next = 0;
+      int size = 0;
+      for (int i : order) {
+        if (changed[i]) {
+          continue;
+        }
+        while (next < added.length && compare(added[next], i) < 0) {
+          reordered[size++] = added[next++];
+        }
+        reordered[size++] = i;
+      }
+      while (next < added.length) {
+        reordered[size++] = added[next++];
+      }
+      order = reordered;
+    }
+
+    /**
+     * Compares opponents {@code a} and {@code b} by payoff and then by index.
+     */
+    private int compare(int a, int b) {
+      int comparison = Double.compare(payoffs[a], payoffs[b]);
+      return comparison != 0 ? comparison : Integer.compare(a, b);
+    }
+
+    /**
+     * Recomputes the weighted totals under the weights of {@code opponents}, in opponent order as
+     * {@link Runner#applyAllMatchups} would add them.
+     */
+    private void reweight(OpponentField opponents) {
+      totalWeightedValue = 0;
+      totalWeight = 0;
+      for (int i = 0; i < payoffs.length; i++) {
+        if (!Double.isNaN(payoffs[i])) {
+          totalWeightedValue += payoffs[i] * opponents.weights[i];
+          totalWeight += opponents.weights[i];
+        }
+      }
+    }
+
+    /**
+     * Sets the win rate metric and the best and worst matchups of {@link #lineup}'s metadata from
+     * these results against {@code opponents}. Its played against and banned counts are kept up
+     * to date by {@link #update}.
+     */
+    private void applyToMetadata(OpponentField opponents) {
+      int count = order.length;
+      double median = 0;
+      if (count > 0) {
+        median = count % 2 == 1
+            ? payoffs[order[count / 2]]
+            : (payoffs[order[count / 2 - 1]] + payoffs[order[count / 2]]) / 2.0;
+      }
+      List<Pair<Lineup, Double>> matchups = new ArrayList<>();
+      int worst = Math.min(NUM_BEST_WORST_MATCHUPS, count);
+      for (int k = 0; k < worst; k++) {
+        matchups.add(Pair.of(opponents.lineups[order[k]], payoffs[order[k]]));
+      }
+      for (int k = Math.max(worst, count - NUM_BEST_WORST_MATCHUPS); k < count; k++) {
+        matchups.add(Pair.of(opponents.lineups[order[k]], payoffs[order[k]]));
+      }
+      lineup.metadata().resetMatchups(WeightedDoubleMetric.fromTotals(totalUnweightedValue,
+          totalUnweightedValueSquared, totalWeightedValue, totalWeight, count, median), matchups);
+    }
+  }
+}
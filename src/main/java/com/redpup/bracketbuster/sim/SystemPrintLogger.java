@@ -11,7 +11,6 @@ import java.util.stream.Stream;
 public final class SystemPrintLogger implements Logger {
 
   private int iteration;
-  private long count;
 
   @Override
   public void log(String message) {
@@ -21,7 +20,6 @@ public final class SystemPrintLogger implements Logger {
   @Override
   public void setIteration(int i) {
     iteration = i;
-    count = 0;
   }
 
   @Override
@@ -32,10 +30,8 @@ public final class SystemPrintLogger implements Logger {
   }
 
   @Override
-  public void handleMatchup() {
-    if (++count % 100000 == 0) {
-      System.out.println("\tCalculating matchup..." + count);
-    }
+  public void handleMatchups(int count) {
+    // Progress is reported by the runner's ProgressReporter instead.
   }
 
   @Override
@@ -0,0 +1,138 @@
+package com.redpup.bracketbuster.sim;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.redpup.bracketbuster.util.Constants.PLAYER_DECK_COUNT;
+
+import com.google.common.collect.ImmutableList;
+import com.redpup.bracketbuster.model.Lineup;
+import com.redpup.bracketbuster.model.LineupMetadata;
+import com.redpup.bracketbuster.sim.Calculations.CalculationType;
+import com.redpup.bracketbuster.util.WeightedDoubleMetric;
+
+/**
+ * The results of every player lineup of a {@link PayoffMatrix}, kept so they can be weighted
+ * again under new opponent weights without evaluating any matchup.
+ *
+ * <p>Of a lineup's {@link WeightedDoubleMetric}, only the weighted mean depends on the opponent
+ * weights. Everything else is computed once, along with each lineup's metadata. The weighted mean
+ * under any {@link OpponentWeights} is then a dot product of the lineup's row of the payoff matrix
+ * with the weight vector, see {@link #weightedMean(int, OpponentWeights)}.
+ *
+ * <p>Player lineups and their metadata are shared, and must not be mutated.
+ */
+public final class UnweightedResults {
+
+  /**
+   * Returns the results of every player lineup of {@code payoffs}, weighted by the play rates of
+   * its matchups. The playable matchups of each row are reported through {@link
+   * Logger#handleMatchups(int)} of {@code logger}.
+   */
+  public static UnweightedResults of(PayoffMatrix payoffs, Logger logger) {
+    ImmutableList<Lineup> players = payoffs.playerLineups();
+    ImmutableList<Lineup> opponents = payoffs.weightedOpponentLineups().keySet().asList();
+    OpponentWeights weights = OpponentWeights.of(payoffs.tables().matchups(), opponents,
+        payoffs.tables().lineupWeightType());
+
+    WeightedDoubleMetric[] metrics = new WeightedDoubleMetric[players.size()];
+    long matchups = 0;
+    for (int row = 0; row < players.size(); row++) {
+      LineupMetadata metadata = players.get(row).resetMetadata().metadata();
+      int rowMatchups = 0;
+      for (int column = 0; column < opponents.size(); column++) {
+        double winRate = payoffs.payoff(row, column);
+        if (Double.isNaN(winRate)) {
+          continue;
+        }
+        rowMatchups++;
+        Lineup opponent = opponents.get(column);
+        for (int i = 0; i < PLAYER_DECK_COUNT; i++) {
+          metadata.incrementPlayedAgainst(opponent.getDeck(i));
+          if (payoffs.hasBans()) {
+            double banProbability = payoffs.banProbability(row, column, i);
+            if (banProbability > 0) {
+              metadata.incrementBanned(opponent.getDeck(i), banProbability);
+            }
+          }
+        }
+        metadata.applyMatchup(opponent, winRate, weights.get(column));
+      }
+      metrics[row] = metadata.getWinRateMetric();
+      matchups += rowMatchups;
+      logger.handleMatchups(rowMatchups);
+    }
+    return new UnweightedResults(payoffs, players, weights, metrics, matchups);
+  }
+
+  private final PayoffMatrix payoffs;
+  private final ImmutableList<Lineup> players;
+  private final OpponentWeights weights;
+  private final WeightedDoubleMetric[] metrics;
+  private final long matchups;
+
+  private UnweightedResults(PayoffMatrix payoffs, ImmutableList<Lineup> players,
+      OpponentWeights weights, WeightedDoubleMetric[] metrics, long matchups) {
+    this.payoffs = payoffs;
+    this.players = players;
+    this.weights = weights;
+    this.metrics = metrics;
+    this.matchups = matchups;
+  }
+
+  /**
+   * Returns the calculation type of the underlying payoffs.
+   */
+  public CalculationType calculationType() {
+    return payoffs.calculationType();
+  }
+
+  /**
+   * Returns the player lineups, one per row, with their metadata.
+   */
+  public ImmutableList<Lineup> playerLineups() {
+    return players;
+  }
+
+  /**
+   * Returns the opponent weights these results were computed with. Start from these to weight
+   * the same opponents under new play rates, see {@link OpponentWeights#withPlayRates}.
+   */
+  public OpponentWeights weights() {
+    return weights;
+  }
+
+  /**
+   * Returns the number of playable matchups across every player lineup.
+   */
+  public long matchups() {
+    return matchups;
+  }
+
+  /**
+   * Returns the weighted mean win rate of player lineup {@code row} under {@code weights}, or
+   * {@code 0} if no opponent it can play has any weight.
+   */
+  public double weightedMean(int row, OpponentWeights weights) {
+    checkArgument(weights.size() == payoffs.columns(), "Expected %s weights, found %s",
+        payoffs.columns(), weights.size());
+    double totalWeightedValue = 0;
+    double totalWeight = 0;
+    for (int column = 0; column < payoffs.columns(); column++) {
+      double winRate = payoffs.payoff(row, column);
+      if (!Double.isNaN(winRate)) {
+        double weight = weights.get(column);
+        totalWeightedValue += winRate * weight;
+        totalWeight += weight;
+      }
+    }
+    return totalWeight == 0 ? 0 : totalWeightedValue / totalWeight;
+  }
+
+  /**
+   * Returns the win rate metric of player lineup {@code row} under {@code weights}.
+   */
+  public WeightedDoubleMetric metric(int row, OpponentWeights weights) {
+    return weights == this.weights
+        ? metrics[row]
+        : metrics[row].withWeightedMean(weightedMean(row, weights));
+  }
+}
@@ -0,0 +1,87 @@
+package com.redpup.bracketbuster.util;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.SplittableRandom;
+
+/**
+ * Samples indices in proportion to fixed non-negative weights in {@code O(1)} per sample, through
+ * Vose's alias method. Building the table is {@code O(n)}.
+ *
+ * <p>Each of {@code n} columns holds an index with probability {@code probability[i]} and its
+ * alias otherwise. A sample picks a uniform column, then flips a biased coin between the two.
+ *
+ * <p>Immutable, so thread safe given a separate random source per thread.
+ */
+public final class AliasTable {
+
+  private final double[] probabilities;
+  private final int[] aliases;
+
+  /**
+   * Creates a new {@link AliasTable} sampling each index of {@code weights} in proportion to its
+   * weight. Weights must be non-negative and not all zero.
+   */
+  public AliasTable(double[] weights) {
+    int n = weights.length;
+    checkArgument(n > 0, "Expected at least one weight");
+    double total = 0;
+    for (double weight : weights) {
+      checkArgument(weight >= 0 && Double.isFinite(weight),
+          "Expected finite non-negative weights, found %s", weight);
+      total += weight;
+    }
+    checkArgument(total > 0, "Expected a positive total weight");
+
+    probabilities = new double[n];
+    aliases = new int[n];
+    double[] scaled = new double[n];
+    int[] small = new int[n];
+    int[] large = new int[n];
+    int smallCount = 0;
+    int largeCount = 0;
+    for (int i = 0; i < n; i++) {
+      scaled[i] = weights[i] * n / total;
+      if (scaled[i] < 1) {
+        small[smallCount++] = i;
+      } else {
+        large[largeCount++] = i;
+      }
+    }
+
+    while (smallCount > 0 && largeCount > 0) {
+      int less = small[--smallCount];
+      int more = large[--largeCount];
+      probabilities[less] = scaled[less];
+      aliases[less] = more;
+      scaled[more] = (scaled[more] + scaled[less]) - 1;
+      if (scaled[more] < 1) {
+        small[smallCount++] = more;
+      } else {
+        large[largeCount++] = more;
+      }
+    }
+    // Whatever remains is 1 up to rounding.
+    while (largeCount > 0) {
+      probabilities[large[--largeCount]] = 1;
+    }
+    while (smallCount > 0) {
+      probabilities[small[--smallCount]] = 1;
+    }
+  }
+
+  /**
+   * Returns the number of indices sampled from.
+   */
+  public int size() {
+    return probabilities.length;
+  }
+
+  /**
+   * Returns an index in {@code [0, size())}, each with probability proportional to its weight.
+   */
+  public int sample(SplittableRandom random) {
+    int column = random.nextInt(probabilities.length);
+    return random.nextDouble() < probabilities[column] ? column : aliases[column];
+  }
+}
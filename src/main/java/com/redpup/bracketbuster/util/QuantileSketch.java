@@ -0,0 +1,189 @@
+package com.redpup.bracketbuster.util;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.redpup.bracketbuster.util.proto.QuantileSketchState;
+import java.util.Comparator;
+import java.util.stream.IntStream;
+
+/**
+ * A bounded, mergeable summary of a stream of doubles, from which quantiles can be estimated.
+ *
+ * <p>Values are held as centroids: a mean and the number of values it stands for. Equal values
+ * always share a centroid, so quantiles are exact while there are at most {@link #CAPACITY}
+ * distinct values. Past that, neighbouring centroids are merged greedily until each neighbouring
+ * pair stands for more than {@code 2 / (CAPACITY - 1)} of all values, which bounds the number of
+ * centroids by {@link #CAPACITY}. A quantile is then off by at most that fraction of ranks.
+ *
+ * <p>Not thread safe.
+ */
+final class QuantileSketch {
+
+  /**
+   * The most centroids a compressed sketch holds.
+   */
+  @VisibleForTesting
+  static final int CAPACITY = 256;
+
+  private double[] means = new double[2 * CAPACITY];
+  private int[] counts = new int[2 * CAPACITY];
+  private int size;
+  private int count;
+  private boolean compressed = true;
+
+  /**
+   * Returns a new {@link QuantileSketch} with the centroids stored in {@code state}.
+   */
+  static QuantileSketch fromProto(QuantileSketchState state) {
+    checkArgument(state.getMeansCount() == state.getCountsCount(),
+        "Expected a count per mean, found %s means and %s counts", state.getMeansCount(),
+        state.getCountsCount());
+    QuantileSketch sketch = new QuantileSketch();
+    for (int i = 0; i < state.getMeansCount(); i++) {
+      checkArgument(state.getCounts(i) > 0, "Expected positive counts, found %s",
+          state.getCounts(i));
+      sketch.add(state.getMeans(i), state.getCounts(i));
+    }
+    return sketch;
+  }
+
+  /**
+   * Adds {@code value} to this sketch.
+   */
+  void add(double value) {
+    add(value, 1);
+  }
+
+  /**
+   * Adds every value summarized by {@code other} to this sketch. {@code other} is not modified.
+   */
+  void merge(QuantileSketch other) {
+    checkArgument(other != this, "Cannot merge a sketch with itself.");
+    for (int i = 0; i < other.size; i++) {
+      add(other.means[i], other.counts[i]);
+    }
+  }
+
+  /**
+   * Returns the number of values added to this sketch.
+   */
+  int count() {
+    return count;
+  }
+
+  /**
+   * Returns the number of centroids held once compressed, at most {@link #CAPACITY}.
+   */
+  int size() {
+    compress();
+    return size;
+  }
+
+  /**
+   * Returns the estimated median of every value added to this sketch, or the exact median if it
+   * holds at most {@link #CAPACITY} distinct values.
+   */
+  double median() {
+    checkState(count > 0, "Cannot take the median of an empty sketch.");
+    compress();
+    return (valueAt((count - 1) / 2) + valueAt(count / 2)) / 2.0;
+  }
+
+  /**
+   * Converts this sketch to a {@link QuantileSketchState} of at most {@link #CAPACITY} centroids,
+   * which can be read back through {@link #fromProto(QuantileSketchState)}.
+   */
+  QuantileSketchState toProto() {
+    compress();
+    QuantileSketchState.Builder state = QuantileSketchState.newBuilder();
+    for (int i = 0; i < size; i++) {
+      state.addMeans(means[i]).addCounts(counts[i]);
+    }
+    return state.build();
+  }
+
+  /**
+   * Adds {@code n} copies of {@code value}, compressing once the buffer is full.
+   */
+  private void add(double value, int n) {
+    if (size == means.length) {
+      compress();
+    }
+    means[size] = value;
+    counts[size] = n;
+    size++;
+    count += n;
+    compressed = false;
+  }
+
+  /**
+   * Returns the mean of the centroid holding the value of rank {@code rank}, from 0.
+   */
+  private double valueAt(int rank) {
+    int seen = 0;
+    for (int i = 0; i < size; i++) {
+      seen += counts[i];
+      if (rank < seen) {
+        return means[i];
+      }
+    }
+    throw new IllegalStateException("Rank " + rank + " out of " + count);
+  }
+
+  /**
+   * Sorts centroids by mean, coalesces equal means, then merges neighbours greedily if more than
+   * {@link #CAPACITY} remain.
+   */
+  private void compress() {
+    if (compressed) {
+      return;
+    }
+    int[] order = IntStream.range(0, size)
+        .boxed()
+        .sorted(Comparator.comparingDouble(i -> means[i]))
+        .mapToInt(i -> i)
+        .toArray();
+    double[] sortedMeans = new double[means.length];
+    int[] sortedCounts = new int[counts.length];
+    int distinct = 0;
+    for (int i : order) {
+      if (distinct > 0 && sortedMeans[distinct - 1] == means[i]) {
+        sortedCounts[distinct - 1] += counts[i];
+      } else {
+        sortedMeans[distinct] = means[i];
+        sortedCounts[distinct] = counts[i];
+        distinct++;
+      }
+    }
+    means = sortedMeans;
+    counts = sortedCounts;
+    size = distinct;
+    if (size > CAPACITY) {
+      mergeNeighbours();
+    }
+    compressed = true;
+  }
+
+  /**
+   * Merges sorted neighbouring centroids while each merge stands for at most {@code 2 / (CAPACITY
+   * - 1)} of all values.
+   */
+  private void mergeNeighbours() {
+    double limit = 2.0 * count / (CAPACITY - 1);
+    int merged = 0;
+    for (int i = 1; i < size; i++) {
+      int total = counts[merged] + counts[i];
+      if (total <= limit) {
+        means[merged] = (means[merged] * counts[merged] + means[i] * counts[i]) / total;
+        counts[merged] = total;
+      } else {
+        merged++;
+        means[merged] = means[i];
+        counts[merged] = counts[i];
+      }
+    }
+    size = merged + 1;
+  }
+}
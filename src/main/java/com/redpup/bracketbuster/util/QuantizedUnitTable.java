@@ -0,0 +1,115 @@
+package com.redpup.bracketbuster.util;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.Arrays;
+
+/**
+ * A dense, row-major {@code rows * cols} table of values in {@code [0, 1]} (or {@link Double#NaN}
+ * for missing values), stored as 16-bit unsigned fixed point. Uses a quarter of the memory of the
+ * equivalent {@code double[]}.
+ *
+ * <p>Every stored value reads back within {@link #MAX_ERROR} of the value written, and NaN reads
+ * back as NaN. Win rates are only known to 3-4 significant figures from the source data, so this
+ * is well below their real precision. Error bounds relative to the double path:
+ *
+ * <ul>
+ *   <li>A weighted average of values read from the table is within {@link #MAX_ERROR} of the
+ *   weighted average of the exact values.
+ *   <li>A best two of three win rate computed from four quantized deck win rates is within {@code 2
+ *   * MAX_ERROR} of the exact one, as the sum of its partial derivatives is at most 2. This only
+ *   holds while the quantization does not change which decks are banned, which it can when two
+ *   ban choices are within {@code 6 * MAX_ERROR} of each other.
+ * </ul>
+ *
+ * <p>Not thread safe for writes; concurrent reads after all writes are safe.
+ */
+public final class QuantizedUnitTable {
+
+  /**
+   * Largest encoded value, representing exactly 1.
+   */
+  private static final int SCALE = Character.MAX_VALUE - 1;
+
+  /**
+   * Encoded value representing NaN.
+   */
+  private static final char NAN = Character.MAX_VALUE;
+
+  /**
+   * Maximum absolute difference between a value in {@code [0, 1]} and its decoded encoding.
+   */
+  public static final double MAX_ERROR = 0.5 / SCALE;
+
+  /**
+   * Encodes {@code value} in {@code [0, 1]} or NaN as 16-bit fixed point.
+   */
+  public static char encode(double value) {
+    if (Double.isNaN(value)) {
+      return NAN;
+    }
+    checkArgument(value >= 0 && value <= 1, "Expected value in range [0,1], found %s", value);
+    return (char) Math.round(value * SCALE);
+  }
+
+  /**
+   * Decodes a value encoded by {@link #encode(double)}.
+   */
+  public static double decode(char encoded) {
+    return encoded == NAN ? Double.NaN : (double) encoded / SCALE;
+  }
+
+  private final int rows;
+  private final int cols;
+  private final char[] values;
+
+  /**
+   * Creates a new {@link QuantizedUnitTable} of {@code rows * cols} values, all initially NaN.
+   */
+  public QuantizedUnitTable(int rows, int cols) {
+    checkArgument(rows >= 0 && cols >= 0, "Expected non-negative size, found %sx%s", rows, cols);
+    checkArgument((long) rows * cols <= Integer.MAX_VALUE, "Table too large: %sx%s", rows, cols);
+    this.rows = rows;
+    this.cols = cols;
+    this.values = new char[rows * cols];
+    Arrays.fill(values, NAN);
+  }
+
+  /**
+   * Returns the number of rows in this table.
+   */
+  public int rows() {
+    return rows;
+  }
+
+  /**
+   * Returns the number of columns in this table.
+   */
+  public int cols() {
+    return cols;
+  }
+
+  /**
+   * Returns the memory used by the stored values, in bytes.
+   */
+  public long sizeInBytes() {
+    return (long) values.length * Character.BYTES;
+  }
+
+  /**
+   * Sets the value at {@code row, col} to {@code value}, which must be in {@code [0, 1]} or NaN.
+   */
+  public void set(int row, int col, double value) {
+    checkArgument(row >= 0 && row < rows && col >= 0 && col < cols,
+        "Expected index in %sx%s, found (%s, %s)", rows, cols, row, col);
+    values[row * cols + col] = encode(value);
+  }
+
+  /**
+   * Returns the value at {@code row, col}, within {@link #MAX_ERROR} of the value set. Unchecked;
+   * behavior is undefined for indices outside the table.
+   */
+  public double get(int row, int col) {
+    return decode(values[row * cols + col]);
+  }
+}
@@ -6,7 +6,9 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.errorprone.annotations.CanIgnoreReturnValue;
 import com.redpup.bracketbuster.util.DoublePriorityQueue.DoubleComparator;
+import com.redpup.bracketbuster.util.proto.WeightedDoubleMetricState;
 import java.util.Objects;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 /**
  * A tracker on a stream of weighted doubles, to compute various statistics on it.
@@ -55,6 +57,31 @@ public final class WeightedDoubleMetric {
     return median;
   }
 
+  /**
+   * Returns a copy of this metric with {@code weightedMean} instead. Every other statistic is
+   * unweighted, so this is the metric of the same values under other weights.
+   */
+  public WeightedDoubleMetric withWeightedMean(double weightedMean) {
+    return new WeightedDoubleMetric(unweightedMean, weightedMean, stdDev, median);
+  }
+
+  /**
+   * Returns the metric of {@code count} values with the given totals and unweighted {@code
+   * median}, as {@link Builder#build()} computes it from the same values. For callers that keep
+   * these totals themselves, such as to retract values.
+   */
+  public static WeightedDoubleMetric fromTotals(double totalUnweightedValue,
+      double totalUnweightedValueSquared, double totalWeightedValue, double totalWeight,
+      int count, double median) {
+    if (count == 0) {
+      return new WeightedDoubleMetric(0, 0, 0, 0);
+    }
+    double unweightedMean = totalUnweightedValue / count;
+    return new WeightedDoubleMetric(unweightedMean, totalWeightedValue / totalWeight,
+        Math.sqrt(totalUnweightedValueSquared / count - (unweightedMean * unweightedMean)),
+        median);
+  }
+
   /**
    * Returns a new {@link Builder}.
    */
@@ -64,9 +91,33 @@ public final class WeightedDoubleMetric {
 
   /**
    * A builder for {@link WeightedDoubleMetric}.
+   *
+   * <p>Builders are not thread safe, but are mergeable: separate builders can be fed disjoint
+   * values on separate threads (or processes, via {@link #toProto()}) and then combined through
+   * {@link #combine(Builder)}. Means and standard deviation are exactly the same as if every value
+   * had been added to a single builder, up to floating point summation order. So is the median of
+   * builders combined in memory, which hold every value. Serialized state only holds a bounded
+   * {@link QuantileSketch} of the values, so the median of a builder read through {@link
+   * #fromProto(WeightedDoubleMetricState)}, or combined with one, is estimated from the sketch.
    */
   public static final class Builder {
 
+    /**
+     * Returns a new {@link Builder} with the state stored in {@code state}.
+     */
+    public static Builder fromProto(WeightedDoubleMetricState state) {
+      Builder builder = new Builder();
+      builder.totalUnweightedValue = state.getTotalUnweightedValue();
+      builder.totalUnweightedValueSquared = state.getTotalUnweightedValueSquared();
+      builder.totalWeightedValue = state.getTotalWeightedValue();
+      builder.totalWeight = state.getTotalWeight();
+      builder.count = state.getCount();
+      builder.sketch = QuantileSketch.fromProto(state.getMedianSketch());
+      checkArgument(builder.sketch.count() == state.getCount(),
+          "Expected %s values, found %s", state.getCount(), builder.sketch.count());
+      return builder;
+    }
+
     private double totalUnweightedValue;
     private double totalUnweightedValueSquared;
 
@@ -77,6 +128,12 @@ public final class WeightedDoubleMetric {
     private final DoublePriorityQueue minHeap;
     private final DoublePriorityQueue maxHeap;
 
+    /**
+     * A sketch of every value, once this builder holds serialized state. Null while every value
+     * is held exactly in the median heaps.
+     */
+    private @Nullable QuantileSketch sketch;
+
     private Builder() {
       minHeap = new DoublePriorityQueue(DoubleComparator.ascending());
       maxHeap = new DoublePriorityQueue(DoubleComparator.descending());
@@ -105,44 +162,103 @@ public final class WeightedDoubleMetric {
 
       count++;
 
-      if (minHeap.size() == maxHeap.size()) {
-        maxHeap.offer(unweightedValue);
-        minHeap.offer(maxHeap.poll());
+      if (sketch != null) {
+        sketch.add(unweightedValue);
       } else {
-        minHeap.offer(unweightedValue);
-        maxHeap.offer(minHeap.poll());
+        offerToHeaps(unweightedValue);
+      }
+
+      return this;
+    }
+
+    /**
+     * Combines all values added to {@code other} into this builder. {@code other} is not modified.
+     * Returns self.
+     */
+    @CanIgnoreReturnValue
+    public Builder combine(Builder other) {
+      checkArgument(other != this, "Cannot combine a builder with itself.");
+
+      totalUnweightedValue += other.totalUnweightedValue;
+      totalUnweightedValueSquared += other.totalUnweightedValueSquared;
+
+      totalWeightedValue += other.totalWeightedValue;
+      totalWeight += other.totalWeight;
+
+      count += other.count;
+
+      if (sketch == null && other.sketch == null) {
+        other.minHeap.forEach(this::offerToHeaps);
+        other.maxHeap.forEach(this::offerToHeaps);
+      } else {
+        sketch().merge(other.summarize());
       }
 
       return this;
     }
 
     /**
-     * Returns the unweighted mean of the values currently represented by this metric. (All weights
-     * are ignored).
+     * Returns {@link #sketch}, first moving every value out of the median heaps into it if unset.
      */
-    private double getUnweightedMean() {
-      return totalUnweightedValue / count;
+    private QuantileSketch sketch() {
+      if (sketch == null) {
+        sketch = summarize();
+        minHeap.clear();
+        maxHeap.clear();
+      }
+      return sketch;
     }
 
     /**
-     * Returns the weighted mean of the values currently represented by this metric.
+     * Returns a sketch of every value in this builder: {@link #sketch} if set, or otherwise a new
+     * sketch of the median heaps.
      */
-    private double getWeightedMean() {
-      return totalWeightedValue / totalWeight;
+    private QuantileSketch summarize() {
+      if (sketch != null) {
+        return sketch;
+      }
+      QuantileSketch summary = new QuantileSketch();
+      minHeap.forEach(summary::add);
+      maxHeap.forEach(summary::add);
+      return summary;
     }
 
     /**
-     * Returns the standard deviation of the values currently represented by this metric.
+     * Offers {@code value} to the median heaps, keeping them balanced.
      */
-    private double getStdDev() {
-      double mean = getUnweightedMean();
-      return Math.sqrt(totalUnweightedValueSquared / count - (mean * mean));
+    private void offerToHeaps(double value) {
+      if (minHeap.size() == maxHeap.size()) {
+        maxHeap.offer(value);
+        minHeap.offer(maxHeap.poll());
+      } else {
+        minHeap.offer(value);
+        maxHeap.offer(minHeap.poll());
+      }
+    }
+
+    /**
+     * Converts the current state of this builder to a {@link WeightedDoubleMetricState}, which can
+     * be read back through {@link #fromProto(WeightedDoubleMetricState)}. Its size is bounded
+     * regardless of the number of values.
+     */
+    public WeightedDoubleMetricState toProto() {
+      WeightedDoubleMetricState.Builder state = WeightedDoubleMetricState.newBuilder()
+          .setTotalUnweightedValue(totalUnweightedValue)
+          .setTotalUnweightedValueSquared(totalUnweightedValueSquared)
+          .setTotalWeightedValue(totalWeightedValue)
+          .setTotalWeight(totalWeight)
+          .setCount(count)
+          .setMedianSketch(summarize().toProto());
+      return state.build();
     }
 
     /**
      * Returns the median of the values currently represented by this metric.
      */
     private double getMedian() {
+      if (sketch != null) {
+        return sketch.median();
+      }
       double median;
       if (minHeap.size() > maxHeap.size()) {
         median = minHeap.peek();
@@ -156,12 +272,8 @@ public final class WeightedDoubleMetric {
      * Builds this into a {@link WeightedDoubleMetric}.
      */
     public WeightedDoubleMetric build() {
-      if (count == 0) {
-        return new WeightedDoubleMetric(0, 0, 0, 0);
-      } else {
-        return new WeightedDoubleMetric(getUnweightedMean(), getWeightedMean(), getStdDev(),
-            getMedian());
-      }
+      return fromTotals(totalUnweightedValue, totalUnweightedValueSquared, totalWeightedValue,
+          totalWeight, count, count == 0 ? 0 : getMedian());
     }
   }
 
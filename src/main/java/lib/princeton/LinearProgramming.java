@@ -47,6 +47,7 @@ public class LinearProgramming {
 
   private final int[] basis;    // basis[i] = basic variable corresponding to row i
   // only needed to print out solution, not book
+  private int pivots;           // number of pivots taken to solve
 
   /**
    * Determines an optimal solution to the linear program { max cx : Ax &le; b, x &ge; 0 }, where A
@@ -112,6 +113,7 @@ public class LinearProgramming {
 
       // pivot
       pivot(p, q);
+      pivots++;
 
       // update basis
       basis[p] = q;
@@ -189,6 +191,15 @@ public class LinearProgramming {
     a[p][q] = 1.0;
   }
 
+  /**
+   * Returns the number of simplex pivots taken to solve this linear program.
+   *
+   * @return the number of simplex pivots taken to solve this linear program
+   */
+  public int pivots() {
+    return pivots;
+  }
+
   /**
    * Returns the optimal value of this linear program.
    *
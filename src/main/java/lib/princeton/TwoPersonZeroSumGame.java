@@ -104,6 +104,15 @@ public class TwoPersonZeroSumGame {
   }
 
 
+  /**
+   * Returns the number of simplex pivots taken to solve this two-person zero-sum game.
+   *
+   * @return the number of simplex pivots taken to solve this two-person zero-sum game
+   */
+  public int pivots() {
+    return lp.pivots();
+  }
+
   /**
    * Returns the optimal value of this two-person zero-sum game.
    *
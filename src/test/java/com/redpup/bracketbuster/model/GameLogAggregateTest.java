@@ -0,0 +1,283 @@
+package com.redpup.bracketbuster.model;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.redpup.bracketbuster.util.AssertExt.assertThrows;
+
+import com.google.common.collect.ImmutableList;
+import com.redpup.bracketbuster.model.proto.GameRecord;
+import com.redpup.bracketbuster.model.proto.MatchupList;
+import com.redpup.bracketbuster.model.proto.MatchupMessage;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPOutputStream;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class GameLogAggregateTest {
+
+  private static final String A = "A/B (XX/YY)";
+  private static final String C = "C/D (XX/YY)";
+
+  @Rule
+  public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private int matches;
+
+  /**
+   * Returns the only game of a new match.
+   */
+  private GameRecord game(String deck1, String deck2, int winner) {
+    return game("m" + ++matches, 0, deck1, deck2, winner);
+  }
+
+  private static GameRecord game(String matchId, int game, String deck1, String deck2,
+      int winner) {
+    return GameRecord.newBuilder()
+        .setMatchId(matchId)
+        .setGame(game)
+        .setDeck1(deck1)
+        .setDeck2(deck2)
+        .setWinner(winner)
+        .build();
+  }
+
+  private static MatchupMessage matchup(String player, String opponent, int wins, int games) {
+    return MatchupMessage.newBuilder()
+        .setPlayer(player)
+        .setOpponent(opponent)
+        .setWins(wins)
+        .setGames(games)
+        .build();
+  }
+
+  private Path writeCsv(String name, String... lines) throws IOException {
+    Path path = temporaryFolder.getRoot().toPath().resolve(name);
+    Files.write(path, ImmutableList.copyOf(lines));
+    return path;
+  }
+
+  private Path writeGzip(String name, String... lines) throws IOException {
+    Path path = temporaryFolder.getRoot().toPath().resolve(name);
+    try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(path));
+        Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8)) {
+      for (String line : lines) {
+        writer.write(line);
+        writer.write('\n');
+      }
+    }
+    return path;
+  }
+
+  @Test
+  public void addGame_countsEachSide() {
+    MatchupList list = GameLogAggregate.create()
+        .addGame(game(A, C, 1))
+        .addGame(game(C, A, 1))
+        .addGame(game(A, C, 1))
+        .toMatchupList();
+
+    assertThat(list.getMatchupsList())
+        .containsExactly(matchup(A, C, 2, 3), matchup(C, A, 1, 3))
+        .inOrder();
+    assertThat(list.getPlayersList()).containsExactly(A, C).inOrder();
+    assertThat(list.getOpponentMap()).containsExactly(A, 0.5, C, 0.5);
+  }
+
+  @Test
+  public void addGame_mirrorCountsBothSides() {
+    MatchupList list = GameLogAggregate.create()
+        .addGame(game(A, A, 2))
+        .addGame(game(A, C, 2))
+        .toMatchupList();
+
+    assertThat(list.getMatchupsList())
+        .containsExactly(matchup(A, A, 1, 2), matchup(A, C, 0, 1), matchup(C, A, 1, 1));
+    assertThat(list.getOpponentMap()).containsExactly(A, 0.75, C, 0.25);
+  }
+
+  @Test
+  public void addGame_sanitizesDecks() {
+    MatchupList list = GameLogAggregate.create()
+        .addGame(game("B/A (YY/XX)", C, 1))
+        .toMatchupList();
+
+    assertThat(list.getPlayersList()).containsExactly(A, C).inOrder();
+  }
+
+  @Test
+  public void addGame_skipsDuplicateGames() {
+    GameLogAggregate aggregate = GameLogAggregate.create()
+        .addGame(game("m1", 1, A, C, 1))
+        .addGame(game("m1", 2, A, C, 2))
+        .addGame(game("m1", 1, C, A, 1));
+
+    assertThat(aggregate.toMatchupList().getMatchupsList())
+        .containsExactly(matchup(A, C, 1, 2), matchup(C, A, 1, 2));
+    assertThat(aggregate.duplicateGames()).isEqualTo(1);
+  }
+
+  @Test
+  public void addGame_missingMatchIdThrows() {
+    assertThrows(IllegalArgumentException.class,
+        () -> GameLogAggregate.create().addGame(game("", 0, A, C, 1)));
+  }
+
+  @Test
+  public void addGame_invalidWinnerThrows() {
+    assertThrows(IllegalArgumentException.class,
+        () -> GameLogAggregate.create().addGame(game(A, C, 0)));
+  }
+
+  @Test
+  public void addLogs_readsCsvAndGzippedJsonLines() throws IOException {
+    Path csv = writeCsv("day1.csv",
+        "matchId,rank,deck1,deck2,winner,timestamp",
+        "m1,Masters," + A + "," + C + ",1,1000",
+        "m2,Diamond," + C + "," + A + ",1,",
+        "");
+    Path json = writeGzip("day2.jsonl.gz",
+        "{\"matchId\": \"m3\", \"deck1\": \"" + A + "\", \"deck2\": \"" + C
+            + "\", \"winner\": 2, \"unknown\": true}");
+
+    GameLogAggregate aggregate = GameLogAggregate.create()
+        .addLogs(ImmutableList.of(csv, json), 2);
+
+    assertThat(aggregate.toMatchupList().getMatchupsList())
+        .containsExactly(matchup(A, C, 1, 3), matchup(C, A, 2, 3));
+    assertThat(aggregate.sources()).containsExactly("day1.csv", "day2.jsonl.gz").inOrder();
+  }
+
+  @Test
+  public void addLogs_incrementalMatchesAllAtOnce() throws IOException {
+    Path day1 = writeCsv("day1.csv",
+        "matchId,deck1,deck2,winner",
+        "m1," + A + "," + C + ",1",
+        "m2," + A + "," + A + ",1");
+    Path day2 = writeCsv("day2.csv",
+        "matchId,deck1,deck2,winner",
+        "m3," + C + "," + A + ",1");
+    Path aggregatePath = temporaryFolder.getRoot().toPath().resolve("aggregate.pb");
+
+    GameLogAggregate.create().addLogs(ImmutableList.of(day1), 1).write(aggregatePath);
+    GameLogAggregate.read(aggregatePath).addLogs(ImmutableList.of(day2), 1).write(aggregatePath);
+    GameLogAggregate incremental = GameLogAggregate.read(aggregatePath);
+    GameLogAggregate allAtOnce = GameLogAggregate.create()
+        .addLogs(ImmutableList.of(day1, day2), 2);
+
+    assertThat(incremental.toProto()).isEqualTo(allAtOnce.toProto());
+    assertThat(incremental.toMatchupList()).isEqualTo(allAtOnce.toMatchupList());
+  }
+
+  @Test
+  public void addLogs_skipsGamesOfEarlierLogs() throws IOException {
+    Path day1 = writeCsv("day1.csv",
+        "matchId,game,deck1,deck2,winner",
+        "m1,1," + A + "," + C + ",1",
+        "m1,2," + A + "," + C + ",2");
+    Path day2 = writeGzip("day2.jsonl.gz",
+        "{\"matchId\": \"m1\", \"game\": 2, \"deck1\": \"" + A + "\", \"deck2\": \"" + C
+            + "\", \"winner\": 2}",
+        "{\"matchId\": \"m1\", \"game\": 3, \"deck1\": \"" + A + "\", \"deck2\": \"" + C
+            + "\", \"winner\": 1}");
+    Path aggregatePath = temporaryFolder.getRoot().toPath().resolve("aggregate.pb");
+
+    GameLogAggregate.create().addLogs(ImmutableList.of(day1), 1).write(aggregatePath);
+    GameLogAggregate incremental =
+        GameLogAggregate.read(aggregatePath).addLogs(ImmutableList.of(day2), 1);
+    GameLogAggregate allAtOnce = GameLogAggregate.create()
+        .addLogs(ImmutableList.of(day1, day2), 2);
+
+    assertThat(incremental.toMatchupList().getMatchupsList())
+        .containsExactly(matchup(A, C, 2, 3), matchup(C, A, 1, 3));
+    assertThat(incremental.duplicateGames()).isEqualTo(1);
+    assertThat(allAtOnce.toProto()).isEqualTo(incremental.toProto());
+  }
+
+  @Test
+  public void addLogs_splitsLogsIntoRanges() throws IOException {
+    String[] csvLines = new String[101];
+    String[] jsonLines = new String[100];
+    csvLines[0] = "matchId,game,deck1,deck2,winner";
+    for (int i = 0; i < 100; i++) {
+      String deck1 = i % 3 == 0 ? A : C;
+      String deck2 = i % 5 == 0 ? A : C;
+      int winner = i % 7 == 0 ? 2 : 1;
+      csvLines[i + 1] = "m" + i / 2 + "," + i % 2 + "," + deck1 + "," + deck2 + "," + winner;
+      jsonLines[i] = "{\"matchId\": \"j" + i / 3 + "\", \"game\": " + i % 3 + ", \"deck1\": \""
+          + deck2 + "\", \"deck2\": \"" + deck1 + "\", \"winner\": " + winner + "}";
+    }
+    ImmutableList<Path> logs = ImmutableList.of(writeCsv("day1.csv", csvLines),
+        writeCsv("day2.jsonl", jsonLines));
+
+    GameLogAggregate single = GameLogAggregate.create().addLogs(logs, 1);
+    GameLogAggregate split = GameLogAggregate.create().addLogs(logs, 7);
+
+    assertThat(split.toProto()).isEqualTo(single.toProto());
+    assertThat(split.toProto().getGamesCount()).isEqualTo(200);
+    assertThat(split.sources()).containsExactly("day1.csv", "day2.jsonl").inOrder();
+  }
+
+  @Test
+  public void addLogs_skipsDuplicatesAcrossRanges() throws IOException {
+    // Every game appears twice, 50 lines apart, and disagrees on its winner.
+    String[] lines = new String[101];
+    lines[0] = "matchId,game,deck1,deck2,winner";
+    for (int i = 0; i < 100; i++) {
+      String deck2 = i % 3 == 0 ? A : C;
+      lines[i + 1] = "m" + i % 50 + ",1," + A + "," + deck2 + "," + (i < 50 ? 1 : 2);
+    }
+    ImmutableList<Path> logs = ImmutableList.of(writeCsv("day1.csv", lines));
+
+    GameLogAggregate single = GameLogAggregate.create().addLogs(logs, 1);
+    GameLogAggregate split = GameLogAggregate.create().addLogs(logs, 7);
+
+    assertThat(split.toProto()).isEqualTo(single.toProto());
+    assertThat(split.duplicateGames()).isEqualTo(50);
+    assertThat(single.duplicateGames()).isEqualTo(50);
+    for (MatchupMessage matchup : split.toMatchupList().getMatchupsList()) {
+      if (matchup.getPlayer().equals(A) && !matchup.getOpponent().equals(A)) {
+        assertThat(matchup.getWins()).isEqualTo(matchup.getGames());
+      }
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void addLogs_alreadyIngestedThrows() throws IOException {
+    Path day1 = writeCsv("day1.csv",
+        "matchId,deck1,deck2,winner",
+        "m1," + A + "," + C + ",1");
+    GameLogAggregate aggregate = GameLogAggregate.create().addLogs(ImmutableList.of(day1), 1);
+
+    GameLogAggregate.fromProto(aggregate.toProto()).addLogs(ImmutableList.of(day1), 1);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void addLogs_missingColumnThrows() throws IOException {
+    Path log = writeCsv("day1.csv",
+        "matchId,deck1,winner",
+        "m1," + A + ",1");
+
+    GameLogAggregate.create().addLogs(ImmutableList.of(log), 1);
+  }
+
+  @Test
+  public void toMatchupList_buildsMatrix() {
+    MatchupMatrix matrix = MatchupMatrix.fromProto(GameLogAggregate.create()
+        .addGame(game(A, C, 1))
+        .addGame(game(A, A, 1))
+        .addGame(game(C, C, 2))
+        .toMatchupList());
+
+    assertThat(matrix.winRate(matrix.getHeaderIndex(A), matrix.getHeaderIndex(C))).isEqualTo(1.0);
+    assertThat(matrix.winRate(matrix.getHeaderIndex(A), matrix.getHeaderIndex(A))).isEqualTo(0.5);
+  }
+}
@@ -7,6 +7,8 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.testing.EqualsTester;
 import com.redpup.bracketbuster.model.proto.MatchupMessage;
+import com.redpup.bracketbuster.util.Pair;
+import com.redpup.bracketbuster.util.WeightedDoubleMetric;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
@@ -156,6 +158,17 @@ public class LineupMetadataTest {
         .inOrder();
   }
 
+  @Test
+  public void decrement_retractsIncrements() {
+    LineupMetadata metadata = new LineupMetadata(5);
+    metadata.incrementPlayedAgainst(0).incrementPlayedAgainst(0);
+    metadata.incrementBanned(1).incrementBanned(2, 0.3);
+    metadata.decrementPlayedAgainst(0).decrementBanned(1).decrementBanned(2, 0.3);
+    assertThat(metadata.getPlayedAgainst()).asList().containsExactly(1, 0, 0, 0, 0).inOrder();
+    assertThat(metadata.getBanned()).usingExactEquality().containsExactly(0.0, 0.0, 0.0, 0.0, 0.0)
+        .inOrder();
+  }
+
   @Test
   public void incrementBanned_throwsIfOOB() {
     LineupMetadata metadata = new LineupMetadata(5);
@@ -211,6 +224,24 @@ public class LineupMetadataTest {
         .inOrder();
   }
 
+  @Test
+  public void resetMatchups_keepsCountsAndBestAndWorst() {
+    LineupMetadata metadata = new LineupMetadata(5);
+    metadata.incrementPlayedAgainst(0).incrementBanned(1);
+    metadata.applyMatchup(LINEUP_6, 0.9, 1);
+    WeightedDoubleMetric metric = WeightedDoubleMetric.builder().add(0.1).add(0.5).build();
+    metadata.resetMatchups(metric,
+        ImmutableList.of(Pair.of(LINEUP_1, 0.1), Pair.of(LINEUP_2, 0.5)));
+
+    assertThat(metadata.getWinRateMetric()).isEqualTo(metric);
+    assertThat(metadata.getBestMatchups()).containsExactly(LINEUP_2, 0.5, LINEUP_1, 0.1).inOrder();
+    assertThat(metadata.getWorstMatchups()).containsExactly(LINEUP_1, 0.1, LINEUP_2, 0.5)
+        .inOrder();
+    assertThat(metadata.getPlayedAgainst()).asList().containsExactly(1, 0, 0, 0, 0).inOrder();
+    assertThat(metadata.getBanned()).usingExactEquality().containsExactly(0.0, 1.0, 0.0, 0.0, 0.0)
+        .inOrder();
+  }
+
   @Test
   public void obeysEqualsAndHashcode() {
     new EqualsTester()
@@ -265,4 +296,81 @@ public class LineupMetadataTest {
 
     assertThat(copy).isNotEqualTo(metadata);
   }
-}
\ No newline at end of file
+
+  @Test
+  public void combine_mergesFields() {
+    LineupMetadata metadata = new LineupMetadata(5)
+        .incrementPlayedAgainst(1)
+        .incrementBanned(1, 0.5)
+        .applyMatchup(LINEUP_1, 0.1, 1)
+        .applyMatchup(LINEUP_2, 0.2, 1)
+        .applyMatchup(LINEUP_3, 0.3, 1);
+    LineupMetadata other = new LineupMetadata(5)
+        .incrementPlayedAgainst(1)
+        .incrementPlayedAgainst(2)
+        .incrementBanned(2)
+        .applyMatchup(LINEUP_4, 0.4, 1)
+        .applyMatchup(LINEUP_5, 0.5, 1)
+        .applyMatchup(LINEUP_6, 0.6, 1);
+
+    metadata.combine(other);
+
+    assertThat(metadata.getPlayedAgainst()).asList().containsExactly(0, 2, 1, 0, 0).inOrder();
+    assertThat(metadata.getBanned()).usingTolerance(ERROR).containsExactly(0.0, 0.5, 1.0, 0.0, 0.0)
+        .inOrder();
+    assertThat(metadata.getBestMatchups().keySet())
+        .containsExactly(LINEUP_6, LINEUP_5, LINEUP_4, LINEUP_3, LINEUP_2)
+        .inOrder();
+    assertThat(metadata.getWorstMatchups().keySet())
+        .containsExactly(LINEUP_1, LINEUP_2, LINEUP_3, LINEUP_4, LINEUP_5)
+        .inOrder();
+    assertThat(metadata.getWinRateMetric().getUnweightedMean()).isWithin(ERROR).of(0.35);
+  }
+
+  @Test
+  public void peekWinRateMetric_allowsMoreMatchups() {
+    LineupMetadata metadata = new LineupMetadata(5).applyMatchup(LINEUP_1, 0.2, 1);
+
+    assertThat(metadata.peekWinRateMetric().getUnweightedMean()).isWithin(ERROR).of(0.2);
+    metadata.applyMatchup(LINEUP_2, 0.4, 1);
+    assertThat(metadata.peekWinRateMetric().getUnweightedMean()).isWithin(ERROR).of(0.3);
+    assertThat(metadata.getWinRateMetric()).isEqualTo(metadata.peekWinRateMetric());
+  }
+
+  @Test
+  public void combine_afterBuildThrows() {
+    LineupMetadata metadata = new LineupMetadata(5).applyMatchup(LINEUP_1, 0.1, 1);
+    metadata.getWinRateMetric();
+
+    assertThrows(IllegalStateException.class,
+        () -> metadata.combine(new LineupMetadata(5)));
+    assertThrows(IllegalStateException.class,
+        () -> new LineupMetadata(5).combine(metadata));
+  }
+
+  @Test
+  public void combine_mismatchedDecksThrows() {
+    assertThrows(IllegalArgumentException.class,
+        () -> new LineupMetadata(5).combine(new LineupMetadata(4)));
+  }
+
+  @Test
+  public void proto_roundTrips() {
+    LineupMetadata metadata = new LineupMetadata(MATCHUP_MATRIX.getNumDecks())
+        .incrementPlayedAgainst(1)
+        .incrementBanned(1, 0.5)
+        .applyMatchup(LINEUP_1, 0.1, 1)
+        .applyMatchup(LINEUP_2, 0.2, 0.5);
+
+    LineupMetadata restored = LineupMetadata.fromProto(metadata.toProto(), MATCHUP_MATRIX);
+
+    assertThat(restored).isEqualTo(metadata);
+    assertThat(restored.getWinRateMetric()).isEqualTo(metadata.getWinRateMetric());
+  }
+
+  @Test
+  public void proto_mismatchedDecksThrows() {
+    assertThrows(IllegalArgumentException.class,
+        () -> LineupMetadata.fromProto(new LineupMetadata(2).toProto(), MATCHUP_MATRIX));
+  }
+}
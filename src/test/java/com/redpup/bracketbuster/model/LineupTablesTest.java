@@ -0,0 +1,137 @@
+package com.redpup.bracketbuster.model;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.truth.Truth.assertThat;
+import static com.redpup.bracketbuster.model.Matchups.readMatchupListFromCsv;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableList;
+import com.redpup.bracketbuster.model.proto.LineupTablesMessage;
+import com.redpup.bracketbuster.model.proto.MatchupList;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Map;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class LineupTablesTest {
+
+  private static MatchupList list() throws IOException {
+    return readMatchupListFromCsv(Paths.get("src", "test", "resources", "stats_new.csv"));
+  }
+
+  private static MatchupMatrix matrix() throws IOException {
+    return MatchupMatrix.fromProto(list());
+  }
+
+  /**
+   * Returns {@code list} restricted to its first {@code n} players and opponents.
+   */
+  private static MatchupList subset(MatchupList list, int n) {
+    return list.toBuilder()
+        .clearPlayers()
+        .addAllPlayers(list.getPlayersList().subList(0, n))
+        .clearOpponent()
+        .putAllOpponent(list.getOpponentMap().entrySet().stream().limit(n)
+            .collect(ImmutableMap.toImmutableMap(Map.Entry::getKey, Map.Entry::getValue)))
+        .build();
+  }
+
+  @Test
+  public void compute_matchesMatrix() throws IOException {
+    MatchupMatrix matrix = matrix();
+    LineupTables tables = LineupTables.compute(matrix, LineupWeightType.GEOMETRIC);
+
+    assertThat(tables.matchups()).isSameInstanceAs(matrix);
+    assertThat(tables.lineupWeightType()).isEqualTo(LineupWeightType.GEOMETRIC);
+    assertThat(tables.playerLineups())
+        .containsExactlyElementsIn(matrix.createAllValidPlayerLineups())
+        .inOrder();
+    assertThat(tables.weightedOpponentLineups())
+        .containsExactlyEntriesIn(
+            matrix.createWeightedValidOpponentLineups(LineupWeightType.GEOMETRIC))
+        .inOrder();
+  }
+
+  @Test
+  public void playerLineups_newOnEveryCall() throws IOException {
+    LineupTables tables = LineupTables.compute(matrix(), LineupWeightType.AVERAGE);
+    Lineup lineup = tables.playerLineups().get(0);
+    lineup.metadata().incrementPlayedAgainst(0);
+
+    assertThat(tables.playerLineups().get(0)).isEqualTo(lineup);
+    assertThat(tables.playerLineups().get(0).metadata()).isNotSameInstanceAs(lineup.metadata());
+  }
+
+  @Test
+  public void streamPlayerLineups_matchesPlayerLineups() throws IOException {
+    LineupTables tables = LineupTables.compute(matrix(), LineupWeightType.AVERAGE);
+
+    assertThat(tables.streamPlayerLineups().collect(toImmutableList()))
+        .containsExactlyElementsIn(tables.playerLineups())
+        .inOrder();
+  }
+
+  @Test
+  public void protoRoundTrips() throws IOException {
+    MatchupMatrix matrix = matrix();
+    LineupTables tables = LineupTables.compute(matrix, LineupWeightType.AVERAGE);
+    LineupTables roundTripped = LineupTables.fromProto(matrix, tables.toProto());
+
+    assertThat(roundTripped.toProto()).isEqualTo(tables.toProto());
+    assertThat(roundTripped.lineupWeightType()).isEqualTo(LineupWeightType.AVERAGE);
+    assertThat(roundTripped.playerLineups()).isEqualTo(tables.playerLineups());
+    assertThat(roundTripped.weightedOpponentLineups())
+        .isEqualTo(tables.weightedOpponentLineups());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void fromProto_deckIndexOutOfBoundsThrows() throws IOException {
+    MatchupMatrix matrix = matrix();
+    LineupTablesMessage message = LineupTables.compute(matrix, LineupWeightType.AVERAGE)
+        .toProto().toBuilder()
+        .setPlayerDecks(0, matrix.getNumDecks())
+        .build();
+
+    LineupTables.fromProto(matrix, message);
+  }
+
+  @Test
+  public void restrictTo_matchesCompute() throws IOException {
+    MatchupList list = list();
+    ImmutableList<String> decks = MatchupMatrix.fromProto(list).getHeaders();
+    MatchupMatrix segment = MatchupMatrix.fromProto(subset(list, 8), decks);
+    LineupTables restricted = LineupTables.compute(MatchupMatrix.fromProto(list, decks),
+        LineupWeightType.GEOMETRIC).restrictTo(segment);
+    LineupTables computed = LineupTables.compute(segment, LineupWeightType.GEOMETRIC);
+
+    assertThat(restricted.matchups()).isSameInstanceAs(segment);
+    assertThat(restricted.playerLineups()).containsExactlyElementsIn(computed.playerLineups());
+    assertThat(restricted.weightedOpponentLineups())
+        .containsExactlyEntriesIn(computed.weightedOpponentLineups());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void restrictTo_differentHeadersThrows() throws IOException {
+    MatchupList list = list();
+    LineupTables.compute(MatchupMatrix.fromProto(list), LineupWeightType.AVERAGE)
+        .restrictTo(MatchupMatrix.fromProto(subset(list, 8), ImmutableList.of("Z/Y (XX/YY)")));
+  }
+
+  @Test
+  public void computeSegments_sharesHeaders() throws IOException {
+    MatchupList list = list();
+    ImmutableMap<String, LineupTables> segments = LineupTables.computeSegments(
+        ImmutableMap.of("all", list, "small", subset(list, 8)), "all", LineupWeightType.AVERAGE);
+
+    assertThat(segments.keySet()).containsExactly("all", "small").inOrder();
+    assertThat(segments.get("small").matchups().getHeaders())
+        .isEqualTo(segments.get("all").matchups().getHeaders());
+    assertThat(segments.get("small").weightedOpponentLineups())
+        .containsExactlyEntriesIn(LineupTables
+            .compute(segments.get("small").matchups(), LineupWeightType.AVERAGE)
+            .weightedOpponentLineups());
+  }
+}
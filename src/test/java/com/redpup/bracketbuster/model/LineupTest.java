@@ -193,4 +193,15 @@ public final class LineupTest {
     assertThat(copy.metadata()).isNotSameInstanceAs(lineup.metadata());
     assertThat(copy.metadata()).isNotEqualTo(lineup.metadata());
   }
-}
\ No newline at end of file
+
+  @Test
+  public void proto_roundTrips() {
+    Lineup lineup = Lineup.ofDeckIndices(MATCHUP_MATRIX, 0, 1, 2);
+    lineup.metadata().incrementPlayedAgainst(1).applyMatchup(lineup, 0.5, 1);
+
+    Lineup restored = Lineup.fromProto(MATCHUP_MATRIX, lineup.toProto());
+
+    assertThat(restored).isEqualTo(lineup);
+    assertThat(restored.metadata()).isEqualTo(lineup.metadata());
+  }
+}
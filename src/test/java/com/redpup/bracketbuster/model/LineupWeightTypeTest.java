@@ -56,4 +56,16 @@ public final class LineupWeightTypeTest {
         .isWithin(ERROR)
         .of(Math.pow(12.0, 1.0 / 3.0));
   }
-}
\ No newline at end of file
+
+  @Test
+  public void weigh_matchesCollect() {
+    MatchupMatrix matrix = MatchupMatrix.fromProto(SyntheticMatchups.builder(6).build().generate());
+    double[] deckWeights = {0.5, 1.0, 2.0, 3.0, 0.25, 4.0};
+    Lineup lineup = Lineup.ofDeckIndices(matrix, 1, 3, 5);
+
+    for (LineupWeightType type : LineupWeightType.values()) {
+      assertThat(type.weigh(lineup, deckWeights))
+          .isEqualTo(type.collect(DoubleStream.of(1.0, 3.0, 4.0)));
+    }
+  }
+}
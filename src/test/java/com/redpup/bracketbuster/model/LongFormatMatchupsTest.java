@@ -0,0 +1,177 @@
+package com.redpup.bracketbuster.model;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.redpup.bracketbuster.model.proto.MatchupList;
+import com.redpup.bracketbuster.model.proto.MatchupMessage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class LongFormatMatchupsTest {
+
+  private static final Path LONG_FORMAT_CSV = Paths.get("src", "main", "resources", "stats.csv");
+  private static final Path WIDE_FORMAT_CSV =
+      Paths.get("src", "test", "resources", "stats_new.csv");
+
+  private static final String A = "A/B (XX/YY)";
+  private static final String C = "C/D (XX/YY)";
+
+  @Rule
+  public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private Path write(String... rows) throws IOException {
+    Path path = temporaryFolder.newFile().toPath();
+    Files.write(path, ImmutableList.<String>builder()
+        .add(LongFormatMatchups.HEADER)
+        .add(rows)
+        .build());
+    return path;
+  }
+
+  private static String row(String player, String opponent, String filter, String rank, int wins,
+      int games) {
+    return String.join(",", "", "", player + opponent, opponent + player, filter, rank, player,
+        opponent, Integer.toString(wins), Integer.toString(games),
+        Double.toString((double) wins / games));
+  }
+
+  private static MatchupMessage matchup(String player, String opponent, int wins, int games) {
+    return MatchupMessage.newBuilder()
+        .setPlayer(player)
+        .setOpponent(opponent)
+        .setWins(wins)
+        .setGames(games)
+        .build();
+  }
+
+  @Test
+  public void isLongFormat() throws IOException {
+    assertThat(LongFormatMatchups.isLongFormat(LONG_FORMAT_CSV)).isTrue();
+    assertThat(LongFormatMatchups.isLongFormat(WIDE_FORMAT_CSV)).isFalse();
+  }
+
+  @Test
+  public void read_deduplicatesMirroredRows() throws IOException {
+    Path path = write(
+        row(A, C, "1", "Masters", 6, 10),
+        row(C, A, "1", "Masters", 4, 10));
+
+    assertThat(LongFormatMatchups.read(path, 1).getMatchupsList())
+        .containsExactly(matchup(A, C, 6, 10), matchup(C, A, 4, 10));
+  }
+
+  @Test
+  public void read_sumsAcrossRanks() throws IOException {
+    Path path = write(
+        row(A, C, "1", "Masters", 6, 10),
+        row(C, A, "1", "Masters", 4, 10),
+        row(C, A, "2", "Diamond", 15, 20));
+
+    assertThat(LongFormatMatchups.read(path, 1).getMatchupsList())
+        .containsExactly(matchup(A, C, 11, 30), matchup(C, A, 19, 30));
+  }
+
+  @Test
+  public void read_prefersAlphabeticalRowOfDisagreeingMirror() throws IOException {
+    MatchupList expected = LongFormatMatchups.read(
+        write(row(A, C, "1", "Masters", 6, 10), row(C, A, "1", "Masters", 1, 12)), 1);
+    MatchupList reversed = LongFormatMatchups.read(
+        write(row(C, A, "1", "Masters", 1, 12), row(A, C, "1", "Masters", 6, 10)), 1);
+
+    assertThat(expected.getMatchupsList())
+        .containsExactly(matchup(A, C, 6, 10), matchup(C, A, 4, 10));
+    assertThat(reversed).isEqualTo(expected);
+  }
+
+  @Test
+  public void read_selfMatchupOnce() throws IOException {
+    Path path = write(row(A, A, "1", "Masters", 5, 10));
+
+    assertThat(LongFormatMatchups.read(path, 1).getMatchupsList())
+        .containsExactly(matchup(A, A, 5, 10));
+  }
+
+  @Test
+  public void read_sanitizesAndWeightsByAppearances() throws IOException {
+    Path path = write(
+        row("B/A (YY/XX)", C, "1", "Masters", 6, 10),
+        row(C, C, "1", "Masters", 5, 10));
+    MatchupList list = LongFormatMatchups.read(path, 1);
+
+    assertThat(list.getPlayersList()).containsExactly(A, C).inOrder();
+    assertThat(list.getOpponentMap()).containsExactly(A, 0.25, C, 0.75);
+  }
+
+  @Test
+  public void read_independentOfParallelism() throws IOException {
+    MatchupList expected = LongFormatMatchups.read(LONG_FORMAT_CSV, 1);
+
+    for (int parallelism : new int[]{2, 3, 7, 64}) {
+      assertThat(LongFormatMatchups.read(LONG_FORMAT_CSV, parallelism)).isEqualTo(expected);
+    }
+  }
+
+  @Test
+  public void read_buildsMatrix() throws IOException {
+    MatchupMatrix matrix = MatchupMatrix.fromProto(LongFormatMatchups.read(LONG_FORMAT_CSV));
+
+    assertThat(matrix.getNumDecks()).isGreaterThan(0);
+    for (int player = 0; player < matrix.getNumDecks(); player++) {
+      for (int opponent = 0; opponent < matrix.getNumDecks(); opponent++) {
+        assertThat(matrix.hasMatchup(player, opponent))
+            .isEqualTo(matrix.hasMatchup(opponent, player));
+      }
+    }
+  }
+
+  @Test
+  public void readSegments_partitionsByRank() throws IOException {
+    Path path = write(
+        row(A, C, "1", "Masters", 6, 10),
+        row(C, A, "1", "Masters", 4, 10),
+        row(C, A, "2", "Diamond", 15, 20));
+    ImmutableMap<String, MatchupList> segments = LongFormatMatchups.readSegments(path, 1);
+
+    assertThat(segments.keySet())
+        .containsExactly(LongFormatMatchups.ALL_SEGMENT, "Diamond", "Masters")
+        .inOrder();
+    assertThat(segments.get(LongFormatMatchups.ALL_SEGMENT))
+        .isEqualTo(LongFormatMatchups.read(path, 1));
+    assertThat(segments.get("Diamond").getMatchupsList())
+        .containsExactly(matchup(A, C, 5, 20), matchup(C, A, 15, 20));
+    assertThat(segments.get("Masters").getMatchupsList())
+        .containsExactly(matchup(A, C, 6, 10), matchup(C, A, 4, 10));
+  }
+
+  @Test
+  public void readSegments_allMatchesRead() throws IOException {
+    ImmutableMap<String, MatchupList> segments = LongFormatMatchups.readSegments(LONG_FORMAT_CSV, 3);
+
+    assertThat(segments.get(LongFormatMatchups.ALL_SEGMENT))
+        .isEqualTo(LongFormatMatchups.read(LONG_FORMAT_CSV, 1));
+    assertThat(segments.keySet())
+        .containsExactly(LongFormatMatchups.ALL_SEGMENT, "Diamond", "Masters")
+        .inOrder();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void readSegments_rankNamedAllThrows() throws IOException {
+    LongFormatMatchups.readSegments(write(row(A, C, "1", LongFormatMatchups.ALL_SEGMENT, 6, 10)),
+        1);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void read_wideFormatThrows() throws IOException {
+    LongFormatMatchups.read(WIDE_FORMAT_CSV);
+  }
+}
@@ -0,0 +1,134 @@
+package com.redpup.bracketbuster.model;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.redpup.bracketbuster.model.Matchups.readMatchupListFromCsv;
+
+import com.redpup.bracketbuster.model.proto.MatchupList;
+import com.redpup.bracketbuster.model.proto.MatchupMessage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class MatchupBinaryFormatTest {
+
+  private static final Path ALL_ODDS_CSV = Paths.get("src", "test", "resources", "stats_new.csv");
+
+  @Rule
+  public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void writeRead_roundTrips() throws IOException {
+    MatchupList list = MatchupList.newBuilder()
+        .addPlayers("A")
+        .addPlayers("B")
+        .putOpponent("A", 0.25)
+        .putOpponent("C", 0.75)
+        .addMatchups(MatchupMessage.newBuilder()
+            .setPlayer("A").setOpponent("B").setWins(3).setGames(4))
+        .addMatchups(MatchupMessage.newBuilder()
+            .setPlayer("B").setOpponent("C").setWins(0).setGames(7))
+        .build();
+    Path path = temporaryFolder.getRoot().toPath().resolve("matchups.bin");
+
+    MatchupBinaryFormat.write(list, path);
+    MatchupMatrix read = MatchupBinaryFormat.read(path);
+
+    assertThat(read.getHeaders()).containsExactly("A", "B", "C").inOrder();
+    assertThat(read.getPlayerHeaders()).containsExactly("A", "B").inOrder();
+    assertThat(read.getHeaderWeight("C")).isEqualTo(0.75);
+    assertThat(read.winRate(0, 1)).isEqualTo(0.75);
+    assertThat(read.hasMatchup("B", "A")).isFalse();
+    assertThat(read.toProto()).isEqualTo(MatchupMatrix.fromProto(list).toProto());
+  }
+
+  @Test
+  public void readMatchupList_matchesWrittenList() throws IOException {
+    Path path = temporaryFolder.getRoot().toPath().resolve("matchups.bin");
+    MatchupBinaryFormat.convertCsv(ALL_ODDS_CSV, path);
+
+    assertThat(Matchups.readMatchupList(path))
+        .isEqualTo(MatchupMatrix.fromProto(readMatchupListFromCsv(ALL_ODDS_CSV)).toProto());
+  }
+
+  @Test
+  public void convertCsv_matchesCsvMatrix() throws IOException {
+    Path path = temporaryFolder.getRoot().toPath().resolve("matchups.bin");
+
+    MatchupBinaryFormat.convertCsv(ALL_ODDS_CSV, path);
+    MatchupMatrix expected = MatchupMatrix.fromProto(readMatchupListFromCsv(ALL_ODDS_CSV));
+    MatchupMatrix actual = Matchups.readMatchupMatrix(path);
+
+    assertThat(actual.getHeaders()).isEqualTo(expected.getHeaders());
+    for (int player = 0; player < expected.getNumDecks(); player++) {
+      assertThat(actual.getHeaderWeight(expected.getHeaderName(player)))
+          .isEqualTo(expected.getHeaderWeight(expected.getHeaderName(player)));
+      for (int opponent = 0; opponent < expected.getNumDecks(); opponent++) {
+        assertThat(actual.getMatchup(player, opponent))
+            .isEqualTo(expected.getMatchup(player, opponent));
+      }
+    }
+    assertThat(actual.createAllValidPlayerLineups())
+        .isEqualTo(expected.createAllValidPlayerLineups());
+  }
+
+  @Test
+  public void convertCsv_matchesCsvHeaders_withDeckWithoutMatchups() throws IOException {
+    // Player E/F has no matchups, so is a header only through the players.
+    Path csv = temporaryFolder.getRoot().toPath().resolve("matchups.csv");
+    Files.writeString(csv, "Deck,A/B (X/Y),C/D (X/Y)\n"
+        + "Playrate,0.5,0.5\nA/B (X/Y),50,60\nC/D (X/Y),40,50\nE/F (X/Y)\n");
+    Path binary = temporaryFolder.getRoot().toPath().resolve("matchups.bin");
+
+    MatchupBinaryFormat.convertCsv(csv, binary);
+
+    assertThat(Matchups.readMatchupMatrix(binary).getHeaders())
+        .isEqualTo(Matchups.readMatchupMatrix(csv).getHeaders());
+    assertThat(Matchups.readMatchupMatrix(csv).getHeaders())
+        .containsExactly("A/B (X/Y)", "C/D (X/Y)", "E/F (X/Y)").inOrder();
+  }
+
+  @Test
+  public void isBinary() throws IOException {
+    Path binary = temporaryFolder.getRoot().toPath().resolve("matchups.bin");
+    Path empty = temporaryFolder.newFile().toPath();
+    MatchupBinaryFormat.convertCsv(ALL_ODDS_CSV, binary);
+
+    assertThat(MatchupBinaryFormat.isBinary(binary)).isTrue();
+    assertThat(MatchupBinaryFormat.isBinary(ALL_ODDS_CSV)).isFalse();
+    assertThat(MatchupBinaryFormat.isBinary(empty)).isFalse();
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void read_notBinaryThrows() throws IOException {
+    MatchupBinaryFormat.read(ALL_ODDS_CSV);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void write_winsAboveGamesThrows() throws IOException {
+    MatchupList list = MatchupList.newBuilder()
+        .addMatchups(MatchupMessage.newBuilder()
+            .setPlayer("A").setOpponent("B").setWins(5).setGames(4))
+        .build();
+
+    MatchupBinaryFormat.write(list, temporaryFolder.getRoot().toPath().resolve("matchups.bin"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void write_disagreeingDuplicateThrows() throws IOException {
+    MatchupList list = MatchupList.newBuilder()
+        .addMatchups(MatchupMessage.newBuilder()
+            .setPlayer("A").setOpponent("B").setWins(3).setGames(4))
+        .addMatchups(MatchupMessage.newBuilder()
+            .setPlayer("A").setOpponent("B").setWins(2).setGames(4))
+        .build();
+
+    MatchupBinaryFormat.write(list, temporaryFolder.getRoot().toPath().resolve("matchups.bin"));
+  }
+}
@@ -0,0 +1,137 @@
+package com.redpup.bracketbuster.model;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.redpup.bracketbuster.model.proto.MatchupCacheMessage;
+import com.redpup.bracketbuster.model.proto.MatchupList;
+import com.redpup.bracketbuster.model.proto.MatchupMessage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.stream.Stream;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class MatchupCacheTest {
+
+  private static final Path ALL_ODDS_CSV = Paths.get("src", "test", "resources", "stats_new.csv");
+
+  @Rule
+  public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private Path input;
+  private Path cacheDirectory;
+
+  @Before
+  public void setUp() throws IOException {
+    input = temporaryFolder.getRoot().toPath().resolve("stats.csv");
+    Files.copy(ALL_ODDS_CSV, input);
+    cacheDirectory = temporaryFolder.getRoot().toPath().resolve("cache");
+  }
+
+  private long entryCount() throws IOException {
+    try (Stream<Path> entries = Files.list(cacheDirectory)) {
+      return entries.count();
+    }
+  }
+
+  @Test
+  public void load_missWritesEntry() throws IOException {
+    LineupTables tables = MatchupCache.load(input, cacheDirectory, LineupWeightType.AVERAGE);
+
+    assertThat(entryCount()).isEqualTo(1);
+    assertThat(tables.playerLineups())
+        .isEqualTo(tables.matchups().createAllValidPlayerLineups());
+  }
+
+  @Test
+  public void load_hitMatchesMiss() throws IOException {
+    LineupTables miss = MatchupCache.load(input, cacheDirectory, LineupWeightType.AVERAGE);
+    LineupTables hit = MatchupCache.load(input, cacheDirectory, LineupWeightType.AVERAGE);
+
+    assertThat(entryCount()).isEqualTo(1);
+    assertThat(hit.toProto()).isEqualTo(miss.toProto());
+    assertThat(hit.matchups().getHeaders()).isEqualTo(miss.matchups().getHeaders());
+    assertThat(hit.weightedOpponentLineups()).isEqualTo(miss.weightedOpponentLineups());
+  }
+
+  @Test
+  public void load_hitMatchesMiss_binaryWithDecksWithoutMatchups() throws IOException {
+    // Player G/H and opponent I/J have no matchups, so only the binary header table holds them.
+    ImmutableList<String> decks =
+        ImmutableList.of("A/B (AA/BB)", "C/D (CC/DD)", "E/F (EE/FF)", "G/H (GG/HH)",
+            "I/J (II/JJ)");
+    MatchupList.Builder list = MatchupList.newBuilder()
+        .addAllPlayers(decks.subList(0, 4))
+        .putOpponent(decks.get(0), 0.25)
+        .putOpponent(decks.get(1), 0.25)
+        .putOpponent(decks.get(2), 0.25)
+        .putOpponent(decks.get(4), 0.25);
+    for (String player : decks.subList(0, 3)) {
+      for (String opponent : decks.subList(0, 3)) {
+        list.addMatchups(MatchupMessage.newBuilder()
+            .setPlayer(player).setOpponent(opponent).setWins(3).setGames(4));
+      }
+    }
+    Path binary = temporaryFolder.getRoot().toPath().resolve("matchups.bin");
+    MatchupBinaryFormat.write(list.build(), binary);
+
+    LineupTables miss = MatchupCache.load(binary, cacheDirectory, LineupWeightType.AVERAGE);
+    LineupTables hit = MatchupCache.load(binary, cacheDirectory, LineupWeightType.AVERAGE);
+
+    assertThat(miss.matchups().getHeaders()).isEqualTo(decks);
+    assertThat(hit.matchups().getHeaders()).isEqualTo(miss.matchups().getHeaders());
+    assertThat(hit.toProto()).isEqualTo(miss.toProto());
+    assertThat(hit.playerLineups()).isEqualTo(miss.playerLineups());
+    assertThat(hit.weightedOpponentLineups()).isEqualTo(miss.weightedOpponentLineups());
+  }
+
+  @Test
+  public void load_hitReadsEntry() throws IOException {
+    MatchupCache.load(input, cacheDirectory, LineupWeightType.AVERAGE);
+    Path entry = cacheDirectory.resolve(MatchupCache.key(input, LineupWeightType.AVERAGE) + ".pb");
+    MatchupCacheMessage message;
+    try (InputStream in = Files.newInputStream(entry)) {
+      message = MatchupCacheMessage.parseFrom(in);
+    }
+    try (OutputStream out = Files.newOutputStream(entry)) {
+      message.toBuilder()
+          .setLineupTables(message.getLineupTables().toBuilder().clearPlayerDecks())
+          .build()
+          .writeTo(out);
+    }
+
+    LineupTables hit = MatchupCache.load(input, cacheDirectory, LineupWeightType.AVERAGE);
+
+    assertThat(hit.playerLineups()).isEmpty();
+  }
+
+  @Test
+  public void key_dependsOnContentsAndConfiguration() throws IOException {
+    String key = MatchupCache.key(input, LineupWeightType.AVERAGE);
+
+    assertThat(MatchupCache.key(input, LineupWeightType.AVERAGE)).isEqualTo(key);
+    assertThat(MatchupCache.key(input, LineupWeightType.GEOMETRIC)).isNotEqualTo(key);
+
+    Files.writeString(input, Files.readString(input) + "\n");
+    assertThat(MatchupCache.key(input, LineupWeightType.AVERAGE)).isNotEqualTo(key);
+  }
+
+  @Test
+  public void load_changedInputMisses() throws IOException {
+    MatchupCache.load(input, cacheDirectory, LineupWeightType.AVERAGE);
+    Files.writeString(input, Files.readString(input) + "\n");
+    MatchupCache.load(input, cacheDirectory, LineupWeightType.AVERAGE);
+
+    assertThat(entryCount()).isEqualTo(2);
+  }
+}
@@ -0,0 +1,113 @@
+package com.redpup.bracketbuster.model;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.redpup.bracketbuster.model.Matchups.readMatchupListFromCsv;
+
+import com.google.common.collect.ImmutableList;
+import com.redpup.bracketbuster.model.proto.MatchupList;
+import com.redpup.bracketbuster.model.proto.MatchupMessage;
+import java.io.IOException;
+import java.nio.file.Paths;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class MatchupDiffTest {
+
+  private static MatchupList list() throws IOException {
+    return readMatchupListFromCsv(Paths.get("src", "test", "resources", "stats_new.csv"));
+  }
+
+  /**
+   * Returns {@code list} with {@code player} winning every game against {@code opponent}.
+   */
+  private static MatchupList withAllWins(MatchupList list, String player, String opponent) {
+    MatchupList.Builder builder = list.toBuilder();
+    for (MatchupMessage.Builder matchup : builder.getMatchupsBuilderList()) {
+      if (matchup.getPlayer().equals(player) && matchup.getOpponent().equals(opponent)) {
+        matchup.setWins(matchup.getGames());
+      }
+    }
+    return builder.build();
+  }
+
+  @Test
+  public void between_sameMatrices() throws IOException {
+    MatchupDiff diff =
+        MatchupDiff.between(MatchupMatrix.fromProto(list()), MatchupMatrix.fromProto(list()));
+
+    assertThat(diff.isIncremental()).isTrue();
+    assertThat(diff.playRatesChanged()).isFalse();
+    assertThat(diff.changedDecks()).isEmpty();
+    assertThat(diff.changedMatchups()).isEqualTo(0);
+  }
+
+  @Test
+  public void between_changedMatchup() throws IOException {
+    MatchupList list = list();
+    String player = list.getPlayers(0);
+    String opponent = list.getPlayers(1);
+    MatchupMatrix before = MatchupMatrix.fromProto(list);
+    MatchupMatrix after = MatchupMatrix.fromProto(withAllWins(list, player, opponent));
+    MatchupDiff diff = MatchupDiff.between(before, after);
+
+    assertThat(diff.isIncremental()).isTrue();
+    assertThat(diff.changedDecks()).containsExactly(player, opponent);
+    assertThat(diff.changedMatchups()).isEqualTo(1);
+    assertThat(diff.isChanged(after.getHeaderIndex(player), after.getHeaderIndex(opponent)))
+        .isTrue();
+    assertThat(diff.isChanged(after.getHeaderIndex(opponent), after.getHeaderIndex(player)))
+        .isFalse();
+    assertThat(diff.isUnchanged(Lineup.ofDeckNames(after, player, list.getPlayers(2),
+        list.getPlayers(3)))).isFalse();
+    assertThat(diff.isUnchanged(Lineup.ofDeckNames(after, list.getPlayers(2), list.getPlayers(3),
+        list.getPlayers(4)))).isTrue();
+  }
+
+  @Test
+  public void between_changedMatchupOnlyChangesPairsThroughIt() throws IOException {
+    MatchupList list = list();
+    String player = list.getPlayers(0);
+    String opponent = list.getPlayers(1);
+    MatchupMatrix after = MatchupMatrix.fromProto(withAllWins(list, player, opponent));
+    MatchupDiff diff = MatchupDiff.between(MatchupMatrix.fromProto(list), after);
+    Lineup withPlayer = Lineup.ofDeckNames(after, player, list.getPlayers(2), list.getPlayers(3));
+    Lineup withOpponent =
+        Lineup.ofDeckNames(after, opponent, list.getPlayers(4), list.getPlayers(5));
+    Lineup withNeither =
+        Lineup.ofDeckNames(after, list.getPlayers(2), list.getPlayers(3), list.getPlayers(4));
+
+    assertThat(diff.isUnchanged(withPlayer, withOpponent)).isFalse();
+    assertThat(diff.isUnchanged(withOpponent, withPlayer)).isTrue();
+    assertThat(diff.isUnchanged(withPlayer, withNeither)).isTrue();
+    assertThat(diff.isUnchanged(withNeither, withOpponent)).isTrue();
+  }
+
+  @Test
+  public void between_changedPlayRatesIncremental() throws IOException {
+    MatchupList list = list();
+    String deck = list.getOpponentMap().keySet().iterator().next();
+    MatchupDiff diff = MatchupDiff.between(MatchupMatrix.fromProto(list),
+        MatchupMatrix.fromProto(list.toBuilder()
+            .putOpponent(deck, list.getOpponentOrThrow(deck) / 2)
+            .build()));
+
+    assertThat(diff.isIncremental()).isTrue();
+    assertThat(diff.playRatesChanged()).isTrue();
+    assertThat(diff.changedDecks()).isEmpty();
+    assertThat(diff.changedMatchups()).isEqualTo(0);
+  }
+
+  @Test
+  public void between_differentDecksChangesEverything() throws IOException {
+    MatchupList list = list();
+    MatchupMatrix before = MatchupMatrix.fromProto(list);
+    MatchupMatrix after = MatchupMatrix.fromProto(list, ImmutableList.of("Z/Y (XX/YY)"));
+    MatchupDiff diff = MatchupDiff.between(before, after);
+
+    assertThat(diff.isIncremental()).isFalse();
+    assertThat(diff.playRatesChanged()).isTrue();
+    assertThat(diff.changedDecks()).containsExactlyElementsIn(after.getHeaders());
+  }
+}
@@ -1,12 +1,16 @@
 package com.redpup.bracketbuster.model;
 
+import static com.google.common.collect.ImmutableList.toImmutableList;
 import static com.google.common.truth.Truth.assertThat;
 import static com.redpup.bracketbuster.util.AssertExt.assertThrows;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.truth.Correspondence;
+import com.redpup.bracketbuster.model.proto.MatchupList;
 import com.redpup.bracketbuster.model.proto.MatchupMessage;
+import com.redpup.bracketbuster.util.QuantizedUnitTable;
+import java.nio.IntBuffer;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
@@ -179,6 +183,89 @@ public class MatchupMatrixTest {
         .isNull();
   }
 
+  @Test
+  public void fromCounts_matchesFromMessages() {
+    MatchupMatrix expected = MatchupMatrix
+        .from(ImmutableList.of(MATCHUP_MESSAGE_A_A, MATCHUP_MESSAGE_A_B, MATCHUP_MESSAGE_B_A),
+            ImmutableList.of("A", "B"), ImmutableMap.of("A", 0.5));
+    int[] games = new int[4];
+    int[] wins = new int[4];
+    for (MatchupMessage matchup : expected.toProto().getMatchupsList()) {
+      int index = expected.getHeaderIndex(matchup.getPlayer()) * 2
+          + expected.getHeaderIndex(matchup.getOpponent());
+      games[index] = matchup.getGames();
+      wins[index] = matchup.getWins();
+    }
+
+    MatchupMatrix matrix = MatchupMatrix.fromCounts(ImmutableList.of("A", "B"),
+        ImmutableList.of("A", "B"), ImmutableMap.of("A", 0.5), IntBuffer.wrap(games),
+        IntBuffer.wrap(wins));
+
+    assertThat(matrix.getHeaders()).isEqualTo(expected.getHeaders());
+    assertThat(matrix.getMatchup("A", "B")).isEqualTo(MATCHUP_MESSAGE_A_B_WITH_WIN_RATE);
+    assertThat(matrix.getMatchup("B", "B")).isNull();
+    assertThat(matrix.winRate(1, 0)).isEqualTo(expected.winRate(1, 0));
+    assertThat(matrix.toProto()).isEqualTo(expected.toProto());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void fromCounts_wrongSizeThrows() {
+    MatchupMatrix.fromCounts(ImmutableList.of("A", "B"), ImmutableList.of("A"),
+        ImmutableMap.of(), IntBuffer.wrap(new int[4]), IntBuffer.wrap(new int[3]));
+  }
+
+  @Test
+  public void toProto_roundTrips() {
+    MatchupMatrix matrix = MatchupMatrix
+        .from(ImmutableList.of(MATCHUP_MESSAGE_A_A, MATCHUP_MESSAGE_A_B, MATCHUP_MESSAGE_B_A),
+            ImmutableList.of("A", "B"), ImmutableMap.of("A", 0.5));
+    MatchupList list = matrix.toProto();
+
+    assertThat(list.getMatchupsList()).containsExactly(MATCHUP_MESSAGE_A_A_WITH_WIN_RATE,
+        MATCHUP_MESSAGE_A_B_WITH_WIN_RATE, MATCHUP_MESSAGE_B_A_WITH_WIN_RATE).inOrder();
+    assertThat(MatchupMatrix.fromProto(list).toProto()).isEqualTo(list);
+  }
+
+  @Test
+  public void winRate_matchesMatchupOrNaN() {
+    MatchupMatrix matrix = MatchupMatrix
+        .from(ImmutableList.of(MATCHUP_MESSAGE_A_A, MATCHUP_MESSAGE_A_B, MATCHUP_MESSAGE_B_A),
+            ImmutableList.of("A", "B"), ImmutableMap.of("A", 0.5));
+    int a = matrix.getHeaderIndex("A");
+    int b = matrix.getHeaderIndex("B");
+
+    assertThat(matrix.winRate(a, b))
+        .isEqualTo(MATCHUP_MESSAGE_A_B_WITH_WIN_RATE.getWinRate());
+    assertThat(matrix.winRate(b, a))
+        .isEqualTo(MATCHUP_MESSAGE_B_A_WITH_WIN_RATE.getWinRate());
+    assertThat(matrix.winRate(a, a))
+        .isEqualTo(MATCHUP_MESSAGE_A_A_WITH_WIN_RATE.getWinRate());
+    assertThat(matrix.winRate(b, b))
+        .isNaN();
+  }
+
+  @Test
+  public void quantizedWinRates_withinErrorOfWinRate() {
+    MatchupMatrix matrix = MatchupMatrix
+        .from(ImmutableList.of(MATCHUP_MESSAGE_A_A, MATCHUP_MESSAGE_A_B, MATCHUP_MESSAGE_B_A),
+            ImmutableList.of("A", "B"), ImmutableMap.of("A", 0.5));
+    QuantizedUnitTable table = matrix.quantizedWinRates();
+
+    assertThat(table.rows()).isEqualTo(2);
+    assertThat(table.cols()).isEqualTo(2);
+    for (int player = 0; player < 2; player++) {
+      for (int opponent = 0; opponent < 2; opponent++) {
+        if (matrix.hasMatchup(player, opponent)) {
+          assertThat(table.get(player, opponent))
+              .isWithin(QuantizedUnitTable.MAX_ERROR)
+              .of(matrix.winRate(player, opponent));
+        } else {
+          assertThat(table.get(player, opponent)).isNaN();
+        }
+      }
+    }
+  }
+
   @Test
   public void getMatchup_oobThrows() {
     MatchupMatrix matrix = MatchupMatrix
@@ -265,6 +352,16 @@ public class MatchupMatrixTest {
     assertThat(matrix.getHeaderWeight("B")).isEqualTo(0.0);
   }
 
+  @Test
+  public void getHeaderWeight_byIndex_matchesByName() {
+    MatchupMatrix matrix = MatchupMatrix
+        .from(ImmutableList.of(MATCHUP_MESSAGE_A_A, MATCHUP_MESSAGE_A_B, MATCHUP_MESSAGE_B_A,
+            MATCHUP_MESSAGE_B_B), ImmutableList.of("A", "B"), ImmutableMap.of("A", 0.5));
+
+    assertThat(matrix.getHeaderWeight(matrix.getHeaderIndex("A"))).isEqualTo(0.5);
+    assertThat(matrix.getHeaderWeight(matrix.getHeaderIndex("B"))).isEqualTo(0.0);
+  }
+
   @Test
   public void getHeaderWeight_unknownThrows() {
     MatchupMatrix matrix = MatchupMatrix
@@ -291,12 +388,25 @@ public class MatchupMatrixTest {
             MATCHUP_MESSAGE_EF56_GH78),
             ImmutableList.of(A_B_1_2, C_D_3_4, E_F_5_6, G_H_7_8), ImmutableMap.of("A", 0.5));
 
+    // Opponent "A" is also a header, sorted before every player deck.
     assertThat(matrix.createAllValidPlayerLineups())
         .containsExactly(
-            Lineup.ofDeckIndices(matrix, 0, 1, 2),
-            Lineup.ofDeckIndices(matrix, 0, 1, 3),
-            Lineup.ofDeckIndices(matrix, 0, 2, 3),
-            Lineup.ofDeckIndices(matrix, 1, 2, 3));
+            Lineup.ofDeckIndices(matrix, 1, 2, 3),
+            Lineup.ofDeckIndices(matrix, 1, 2, 4),
+            Lineup.ofDeckIndices(matrix, 1, 3, 4),
+            Lineup.ofDeckIndices(matrix, 2, 3, 4));
+  }
+
+  @Test
+  public void streamAllValidPlayerLineups_matchesCreate() {
+    MatchupMatrix matrix = MatchupMatrix
+        .from(ImmutableList.of(MATCHUP_MESSAGE_AB12_AB12, MATCHUP_MESSAGE_AB12_CD34,
+            MATCHUP_MESSAGE_EF56_GH78),
+            ImmutableList.of(A_B_1_2, C_D_3_4, E_F_5_6, G_H_7_8), ImmutableMap.of("A", 0.5));
+
+    assertThat(matrix.streamAllValidPlayerLineups().collect(toImmutableList()))
+        .containsExactlyElementsIn(matrix.createAllValidPlayerLineups())
+        .inOrder();
   }
 
   @Test
@@ -1,5 +1,6 @@
 package com.redpup.bracketbuster.model;
 
+import static com.google.common.collect.ImmutableSet.toImmutableSet;
 import static com.google.common.truth.Truth.assertThat;
 import static com.google.common.truth.Truth.assertWithMessage;
 import static com.redpup.bracketbuster.model.Matchups.readMatchupListFromCsv;
@@ -64,4 +65,11 @@ public final class MatchupsProdDataTest {
     assertThat(matrix.createAllValidPlayerLineups()).hasSize(1165);
     assertThat(matrix.createAllValidOpponentLineups()).hasSize(1346);
   }
+
+  @Test
+  public void streamsValidLineups() throws IOException {
+    MatchupMatrix matrix = MatchupMatrix.fromProto(read());
+    assertThat(matrix.streamAllValidPlayerLineups().collect(toImmutableSet()))
+        .containsExactlyElementsIn(matrix.createAllValidPlayerLineups());
+  }
 }
@@ -0,0 +1,126 @@
+package com.redpup.bracketbuster.model;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.redpup.bracketbuster.util.AssertExt.assertThrows;
+
+import com.google.common.math.IntMath;
+import com.redpup.bracketbuster.model.proto.MatchupList;
+import com.redpup.bracketbuster.model.proto.MatchupMessage;
+import com.redpup.bracketbuster.util.Strings;
+import java.util.Collections;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class SyntheticMatchupsTest {
+
+  @Test
+  public void generate_isDeterministic() {
+    SyntheticMatchups config = SyntheticMatchups.builder(20).setSparsity(0.1).build();
+
+    assertThat(config.generate()).isEqualTo(config.generate());
+    assertThat(config.toBuilder().setSeed(1).build().generate())
+        .isNotEqualTo(config.generate());
+  }
+
+  @Test
+  public void generate_hasDeckCountPlayersAndOpponents() {
+    MatchupList list = SyntheticMatchups.builder(30).build().generate();
+
+    assertThat(list.getPlayersList()).hasSize(30);
+    assertThat(list.getPlayersList()).containsNoDuplicates();
+    assertThat(list.getOpponentMap().keySet()).containsExactlyElementsIn(list.getPlayersList());
+    assertThat(MatchupMatrix.fromProto(list).getNumDecks()).isEqualTo(30);
+  }
+
+  @Test
+  public void generate_withoutSparsity_hasEveryMatchup() {
+    MatchupList list = SyntheticMatchups.builder(12).build().generate();
+
+    assertThat(list.getMatchupsCount()).isEqualTo(12 * 12);
+  }
+
+  @Test
+  public void generate_withSparsity_dropsMatchupsInBothDirections() {
+    MatchupMatrix matrix =
+        MatchupMatrix.fromProto(SyntheticMatchups.builder(40).setSparsity(0.5).build().generate());
+
+    int missing = 0;
+    for (int i = 0; i < matrix.getNumDecks(); i++) {
+      assertThat(matrix.hasMatchup(i, i)).isTrue();
+      for (int j = 0; j < matrix.getNumDecks(); j++) {
+        assertThat(matrix.hasMatchup(i, j)).isEqualTo(matrix.hasMatchup(j, i));
+        missing += matrix.hasMatchup(i, j) ? 0 : 1;
+      }
+    }
+    assertThat((double) missing / (40 * 39)).isWithin(0.1).of(0.5);
+  }
+
+  @Test
+  public void generate_winRatesAreComplementary() {
+    MatchupMatrix matrix =
+        MatchupMatrix.fromProto(SyntheticMatchups.builder(15).build().generate());
+
+    for (int i = 0; i < matrix.getNumDecks(); i++) {
+      assertThat(matrix.winRate(i, i)).isEqualTo(0.5);
+      for (int j = 0; j < matrix.getNumDecks(); j++) {
+        assertThat(matrix.winRate(i, j)).isAtLeast(0.0);
+        assertThat(matrix.winRate(i, j) + matrix.winRate(j, i)).isWithin(1e-8).of(1.0);
+      }
+    }
+  }
+
+  @Test
+  public void generate_playRatesSumToLineupSize() {
+    MatchupList list = SyntheticMatchups.builder(25).setPlayRateSkew(2).build().generate();
+
+    assertThat(list.getOpponentMap().values().stream().mapToDouble(Double::doubleValue).sum())
+        .isWithin(1e-9).of(3.0);
+    double max = Collections.max(list.getOpponentMap().values());
+    double min = Collections.min(list.getOpponentMap().values());
+    assertThat(max / min).isWithin(1e-6).of(25.0 * 25.0);
+  }
+
+  @Test
+  public void generate_withoutSkew_playsEveryDeckEqually() {
+    MatchupList list = SyntheticMatchups.builder(10).setPlayRateSkew(0).build().generate();
+
+    for (double playRate : list.getOpponentMap().values()) {
+      assertThat(playRate).isWithin(1e-9).of(0.3);
+    }
+  }
+
+  @Test
+  public void generate_smallerPoolsFilterMoreLineups() {
+    MatchupMatrix narrow = MatchupMatrix.fromProto(
+        SyntheticMatchups.builder(20).setChampionCount(8).setRegionCount(4).build().generate());
+    MatchupMatrix broad = MatchupMatrix.fromProto(
+        SyntheticMatchups.builder(20).setChampionCount(200).setRegionCount(100).build()
+            .generate());
+
+    assertThat(narrow.createAllValidPlayerLineups().size())
+        .isLessThan(broad.createAllValidPlayerLineups().size());
+    assertThat(broad.createAllValidPlayerLineups().size()).isAtMost(IntMath.binomial(20, 3));
+    assertThat(narrow.createAllValidPlayerLineups()).isNotEmpty();
+  }
+
+  @Test
+  public void generate_decksAreSanitized() {
+    for (MatchupMessage matchup : SyntheticMatchups.builder(10).build().generate()
+        .getMatchupsList()) {
+      assertThat(Strings.sanitize(matchup.getPlayer())).isEqualTo(matchup.getPlayer());
+    }
+  }
+
+  @Test
+  public void build_validatesConfiguration() {
+    assertThrows(IllegalArgumentException.class, () -> SyntheticMatchups.builder(2).build());
+    assertThrows(IllegalArgumentException.class,
+        () -> SyntheticMatchups.builder(10).setSparsity(1).build());
+    assertThrows(IllegalArgumentException.class,
+        () -> SyntheticMatchups.builder(10).setPlayRateSkew(-1).build());
+    assertThrows(IllegalArgumentException.class,
+        () -> SyntheticMatchups.builder(100).setChampionCount(3).setRegionCount(3).build());
+  }
+}
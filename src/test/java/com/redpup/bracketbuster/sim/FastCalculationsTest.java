@@ -0,0 +1,109 @@
+package com.redpup.bracketbuster.sim;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth.assertWithMessage;
+import static com.redpup.bracketbuster.model.Matchups.readMatchupListFromCsv;
+import static com.redpup.bracketbuster.sim.Calculations.winRateBestTwoOfThreeOneBanNash;
+import static com.redpup.bracketbuster.sim.Calculations.winRateBestTwoOfThreeOneBanNaive;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.redpup.bracketbuster.model.Lineup;
+import com.redpup.bracketbuster.model.MatchupMatrix;
+import com.redpup.bracketbuster.sim.Calculations.CalculationType;
+import com.redpup.bracketbuster.model.proto.MatchupMessage;
+import java.io.IOException;
+import java.nio.file.Paths;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class FastCalculationsTest {
+
+  private static MatchupMatrix matrix;
+  private static ImmutableList<Lineup> lineups;
+  private static FastCalculations calculations;
+
+  @BeforeClass
+  public static void setupClass() throws IOException {
+    matrix = MatchupMatrix.fromProto(
+        readMatchupListFromCsv(Paths.get("src", "test", "resources", "stats_new.csv")));
+    lineups = matrix.createAllValidPlayerLineups();
+    calculations = new FastCalculations(matrix);
+  }
+
+  @Test
+  public void canPlay_matchesMatrix() {
+    MatchupMatrix sparse = MatchupMatrix.from(ImmutableList.of(
+        MatchupMessage.newBuilder().setPlayer("A").setOpponent("B").setWins(1).setGames(2).build(),
+        MatchupMessage.newBuilder().setPlayer("B").setOpponent("A").setWins(1).setGames(2).build()),
+        ImmutableList.of(), ImmutableMap.of());
+    FastCalculations sparseCalculations = new FastCalculations(sparse);
+    Lineup aaa = Lineup.ofDeckNames(sparse, "A", "A", "A");
+    Lineup bbb = Lineup.ofDeckNames(sparse, "B", "B", "B");
+    Lineup aab = Lineup.ofDeckNames(sparse, "A", "A", "B");
+
+    assertThat(sparseCalculations.canPlay(aaa, bbb)).isTrue();
+    assertThat(sparseCalculations.canPlay(aaa, aab)).isEqualTo(sparse.canPlay(aaa, aab));
+    assertThat(sparseCalculations.canPlay(aaa, aab)).isFalse();
+  }
+
+  @Test
+  public void winRateNaive_matchesReference() {
+    FastCalculations.Scratch scratch = new FastCalculations.Scratch();
+    for (int p = 0; p < lineups.size(); p += 97) {
+      for (int o = 0; o < lineups.size(); o += 13) {
+        Lineup player = lineups.get(p);
+        Lineup opponent = lineups.get(o);
+        Lineup expected = player.copy().resetMetadata();
+        Lineup actual = player.copy().resetMetadata();
+
+        assertWithMessage("%s vs %s", player, opponent)
+            .that(calculations.winRateBestTwoOfThreeOneBanNaive(actual, opponent, scratch))
+            .isEqualTo(winRateBestTwoOfThreeOneBanNaive(expected, opponent, matrix));
+        assertThat(actual.metadata()).isEqualTo(expected.metadata());
+      }
+    }
+  }
+
+  @Test
+  public void winRateNash_matchesReference() {
+    FastCalculations.Scratch scratch = new FastCalculations.Scratch();
+    for (int p = 0; p < lineups.size(); p += 97) {
+      for (int o = 0; o < lineups.size(); o += 53) {
+        Lineup player = lineups.get(p);
+        Lineup opponent = lineups.get(o);
+        Lineup expected = player.copy().resetMetadata();
+        Lineup actual = player.copy().resetMetadata();
+
+        assertWithMessage("%s vs %s", player, opponent)
+            .that(calculations.winRateBestTwoOfThreeOneBanNash(actual, opponent, scratch))
+            .isEqualTo(winRateBestTwoOfThreeOneBanNash(expected, opponent, matrix));
+        assertThat(actual.metadata()).isEqualTo(expected.metadata());
+      }
+    }
+  }
+
+  @Test
+  public void payoffs_matchesPayoff() {
+    FastCalculations.Scratch scratch = new FastCalculations.Scratch();
+    FastCalculations.Scratch expected = new FastCalculations.Scratch();
+    for (int p = 0; p < lineups.size(); p += 97) {
+      for (int o = 0; o < lineups.size(); o += 53) {
+        Lineup player = lineups.get(p);
+        Lineup opponent = lineups.get(o);
+
+        calculations.payoffs(player, opponent, true, true, scratch);
+
+        assertWithMessage("%s vs %s", player, opponent).that(scratch.naivePayoff).isEqualTo(
+            calculations.payoff(CalculationType.NAIVE, player, opponent, expected));
+        assertThat(scratch.bannedOpponentDeck).isEqualTo(expected.bannedOpponentDeck);
+        assertWithMessage("%s vs %s", player, opponent).that(scratch.nashPayoff).isEqualTo(
+            calculations.payoff(CalculationType.NASH, player, opponent, expected));
+        assertThat(scratch.banProbabilities).isEqualTo(expected.banProbabilities);
+      }
+    }
+  }
+}
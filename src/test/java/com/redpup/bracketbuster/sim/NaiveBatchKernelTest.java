@@ -0,0 +1,89 @@
+package com.redpup.bracketbuster.sim;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth.assertWithMessage;
+import static com.redpup.bracketbuster.model.Matchups.readMatchupListFromCsv;
+import static com.redpup.bracketbuster.sim.Calculations.winRateBestTwoOfThreeOneBanNaive;
+import static com.redpup.bracketbuster.util.AssertExt.assertThrows;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.redpup.bracketbuster.model.Lineup;
+import com.redpup.bracketbuster.model.LineupWeightType;
+import com.redpup.bracketbuster.model.MatchupMatrix;
+import com.redpup.bracketbuster.model.proto.MatchupMessage;
+import java.io.IOException;
+import java.nio.file.Paths;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class NaiveBatchKernelTest {
+
+  private static MatchupMessage matchup(String player, String opponent, int wins) {
+    return MatchupMessage.newBuilder()
+        .setPlayer(player)
+        .setOpponent(opponent)
+        .setWins(wins)
+        .setGames(10)
+        .build();
+  }
+
+  @Test
+  public void score_matchesReferenceOnTestData() throws IOException {
+    MatchupMatrix matrix = MatchupMatrix.fromProto(
+        readMatchupListFromCsv(Paths.get("src", "test", "resources", "stats_new.csv")));
+    ImmutableList<Lineup> players = matrix.createAllValidPlayerLineups();
+    OpponentField field = OpponentField
+        .of(matrix, matrix.createWeightedValidOpponentLineups(LineupWeightType.AVERAGE));
+
+    double[] scores = new double[field.size()];
+    int[] bannedDecks = new int[field.size()];
+    for (int p = 0; p < players.size(); p += 37) {
+      Lineup player = players.get(p);
+      NaiveBatchKernel.score(player.getDeck(0), player.getDeck(1), player.getDeck(2), field,
+          scores, bannedDecks);
+
+      for (int i = 0; i < field.size(); i++) {
+        Lineup opponent = field.lineups[i];
+        player.resetMetadata();
+        double expected = winRateBestTwoOfThreeOneBanNaive(player, opponent, matrix);
+        assertWithMessage("%s vs %s", player, opponent).that(scores[i]).isEqualTo(expected);
+        assertWithMessage("%s vs %s", player, opponent)
+            .that(player.metadata().getBanned()[bannedDecks[i]]).isEqualTo(1.0);
+      }
+    }
+  }
+
+  @Test
+  public void score_missingMatchupIsNaN() {
+    MatchupMatrix matrix = MatchupMatrix.from(ImmutableList.of(
+        matchup("A", "1", 5), matchup("A", "2", 5), matchup("A", "3", 5),
+        matchup("B", "1", 5), matchup("B", "2", 5), matchup("B", "3", 5),
+        matchup("C", "1", 5), matchup("C", "2", 5), matchup("C", "4", 5)),
+        ImmutableList.of(), ImmutableMap.of());
+    OpponentField field = OpponentField.of(matrix, ImmutableMap.of(
+        Lineup.ofDeckNames(matrix, "1", "2", "3"), 0.5,
+        Lineup.ofDeckNames(matrix, "1", "2", "4"), 0.5));
+
+    double[] scores = new double[2];
+    int[] bannedDecks = new int[2];
+    NaiveBatchKernel.score(matrix.getHeaderIndex("A"), matrix.getHeaderIndex("B"),
+        matrix.getHeaderIndex("C"), field, scores, bannedDecks);
+
+    assertThat(scores[0]).isNaN();
+    assertThat(scores[1]).isNaN();
+  }
+
+  @Test
+  public void score_shortOutputThrows() {
+    MatchupMatrix matrix = MatchupMatrix.from(ImmutableList.of(matchup("A", "B", 5)),
+        ImmutableList.of(), ImmutableMap.of());
+    OpponentField field = OpponentField
+        .of(matrix, ImmutableMap.of(Lineup.ofDeckIndices(matrix, 0, 1, 1), 1.0));
+
+    assertThrows(IllegalArgumentException.class,
+        () -> NaiveBatchKernel.score(0, 0, 0, field, new double[0], new int[1]));
+  }
+}
@@ -0,0 +1,80 @@
+package com.redpup.bracketbuster.sim;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.redpup.bracketbuster.util.AssertExt.assertThrows;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.redpup.bracketbuster.model.Lineup;
+import com.redpup.bracketbuster.model.LineupWeightType;
+import com.redpup.bracketbuster.model.MatchupMatrix;
+import com.redpup.bracketbuster.model.SyntheticMatchups;
+import com.redpup.bracketbuster.model.proto.MatchupList;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class OpponentWeightsTest {
+
+  private static final MatchupList LIST = SyntheticMatchups.builder(10).build().generate();
+  private static final MatchupMatrix MATRIX = MatchupMatrix.fromProto(LIST);
+
+  @Test
+  public void of_matchesWeightedOpponentLineups() {
+    for (LineupWeightType type : LineupWeightType.values()) {
+      ImmutableMap<Lineup, Double> expected = MATRIX.createWeightedValidOpponentLineups(type);
+      OpponentWeights weights =
+          OpponentWeights.of(MATRIX, expected.keySet().asList(), type);
+
+      assertThat(weights.size()).isEqualTo(expected.size());
+      assertThat(weights.toArray())
+          .isEqualTo(expected.values().stream().mapToDouble(w -> w).toArray());
+    }
+  }
+
+  @Test
+  public void withPlayRates_matchesMatrixOfNewPlayRates() {
+    Map<String, Double> playRates = new HashMap<>(LIST.getOpponentMap());
+    playRates.replaceAll((deck, playRate) -> playRate * playRate);
+    MatchupMatrix reweighted = MatchupMatrix.fromProto(
+        LIST.toBuilder().clearOpponent().putAllOpponent(playRates).build());
+
+    for (LineupWeightType type : LineupWeightType.values()) {
+      ImmutableList<Lineup> opponents =
+          MATRIX.createWeightedValidOpponentLineups(type).keySet().asList();
+      OpponentWeights weights = OpponentWeights.of(MATRIX, opponents, type)
+          .withPlayRates(playRates);
+
+      assertThat(weights.lineupWeightType()).isEqualTo(type);
+      for (int i = 0; i < opponents.size(); i++) {
+        assertThat(weights.get(i)).isEqualTo(reweighted.getLineupWeight(opponents.get(i), type));
+      }
+    }
+  }
+
+  @Test
+  public void withPlayRates_missingDecksWeighNothing() {
+    ImmutableList<Lineup> opponents = MATRIX
+        .createWeightedValidOpponentLineups(LineupWeightType.AVERAGE).keySet().asList();
+    String deck = opponents.get(0).getDeckName(0);
+
+    OpponentWeights weights = OpponentWeights.of(MATRIX, opponents, LineupWeightType.GEOMETRIC)
+        .withPlayRates(ImmutableMap.of(deck, 1.0));
+
+    assertThat(weights.get(0)).isEqualTo(0.0);
+  }
+
+  @Test
+  public void withPlayRates_validatesPlayRates() {
+    OpponentWeights weights = OpponentWeights.of(MATRIX, ImmutableList.of(),
+        LineupWeightType.AVERAGE);
+
+    assertThrows(IllegalArgumentException.class,
+        () -> weights.withPlayRates(ImmutableMap.of("Unknown", 1.0)));
+    assertThrows(IllegalArgumentException.class,
+        () -> weights.withPlayRates(ImmutableMap.of(LIST.getPlayers(0), -1.0)));
+  }
+}
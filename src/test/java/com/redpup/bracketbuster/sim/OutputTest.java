@@ -179,4 +179,53 @@ public class OutputTest {
                     "D", 0.4,
                     "E", 0.4)));
   }
-}
\ No newline at end of file
+
+  @Test
+  public void accumulator_matchesBuildOutput() {
+    ImmutableMap<Lineup, WeightedDoubleMetric> lineups = ImmutableMap.of(
+        LINEUP_1, WeightedDoubleMetric.builder().add(0.1).build(),
+        LINEUP_2, WeightedDoubleMetric.builder().add(0.2).build(),
+        LINEUP_3, WeightedDoubleMetric.builder().add(0.3).build(),
+        LINEUP_4, WeightedDoubleMetric.builder().add(0.4).build(),
+        LINEUP_5, WeightedDoubleMetric.builder().add(0.5).build());
+
+    Output.Accumulator accumulator =
+        Output.accumulator(MATCHUP_MATRIX, SortType.UNWEIGHTED_MEAN_WIN_RATE, 3);
+    lineups.forEach(accumulator::add);
+
+    assertThat(accumulator.size()).isEqualTo(5);
+    Output output = accumulator.build();
+    assertThat(output)
+        .isEqualTo(Output.buildOutput(lineups, MATCHUP_MATRIX,
+            SortType.UNWEIGHTED_MEAN_WIN_RATE, 3));
+    assertThat(output.topLineups.keySet())
+        .containsExactly(LINEUP_5, LINEUP_4, LINEUP_3)
+        .inOrder();
+  }
+
+  @Test
+  public void accumulator_breaksTiesByDeckIndices() {
+    ImmutableMap<Lineup, WeightedDoubleMetric> lineups = ImmutableMap.of(
+        LINEUP_3, WeightedDoubleMetric.builder().add(0.5).build(),
+        LINEUP_1, WeightedDoubleMetric.builder().add(0.5).build(),
+        LINEUP_4, WeightedDoubleMetric.builder().add(0.5).build(),
+        LINEUP_2, WeightedDoubleMetric.builder().add(0.5).build());
+
+    Output.Accumulator accumulator =
+        Output.accumulator(MATCHUP_MATRIX, SortType.UNWEIGHTED_MEAN_WIN_RATE, 2);
+    lineups.forEach(accumulator::add);
+
+    Output output = accumulator.build();
+    assertThat(output.topLineups.keySet()).containsExactly(LINEUP_1, LINEUP_2).inOrder();
+    assertThat(output).isEqualTo(
+        Output.buildOutput(lineups, MATCHUP_MATRIX, SortType.UNWEIGHTED_MEAN_WIN_RATE, 2));
+  }
+
+  @Test
+  public void accumulator_empty() {
+    Output.Accumulator accumulator =
+        Output.accumulator(MATCHUP_MATRIX, SortType.UNWEIGHTED_MEAN_WIN_RATE, 3);
+
+    assertThat(accumulator.build().topLineups).isEmpty();
+  }
+}
@@ -0,0 +1,207 @@
+package com.redpup.bracketbuster.sim;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.redpup.bracketbuster.util.AssertExt.assertThrows;
+import static com.redpup.bracketbuster.util.Constants.PLAYER_DECK_COUNT;
+
+import com.google.common.collect.ImmutableList;
+import com.redpup.bracketbuster.model.Lineup;
+import com.redpup.bracketbuster.model.LineupTables;
+import com.redpup.bracketbuster.model.LineupWeightType;
+import com.redpup.bracketbuster.model.MatchupMatrix;
+import com.redpup.bracketbuster.model.SyntheticMatchups;
+import com.redpup.bracketbuster.sim.Calculations.CalculationType;
+import com.redpup.bracketbuster.util.QuantizedUnitTable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class PayoffMatrixTest {
+
+  @Rule
+  public final TemporaryFolder folder = new TemporaryFolder();
+
+  private MatchupMatrix matrix;
+  private LineupTables tables;
+  private Path cacheDirectory;
+  private final RunMetrics metrics = new RunMetrics();
+
+  @Before
+  public void setup() throws IOException {
+    // Sparse, so some lineups cannot play each other.
+    matrix = MatchupMatrix.fromProto(
+        SyntheticMatchups.builder(9).setSparsity(0.1).setSeed(3).build().generate());
+    tables = LineupTables.compute(matrix, LineupWeightType.AVERAGE);
+    cacheDirectory = folder.newFolder("payoffs").toPath();
+  }
+
+  private PayoffMatrix load(CalculationType calculationType) throws IOException {
+    return PayoffMatrix.load(tables, calculationType, true, cacheDirectory, 2, metrics);
+  }
+
+  @Test
+  public void load_matchesFastCalculations() throws IOException {
+    for (CalculationType calculationType : CalculationType.values()) {
+      PayoffMatrix payoffs = load(calculationType);
+      ImmutableList<Lineup> players = tables.playerLineups();
+      ImmutableList<Lineup> opponents = tables.weightedOpponentLineups().keySet().asList();
+      assertThat(payoffs.rows()).isEqualTo(players.size());
+      assertThat(payoffs.columns()).isEqualTo(opponents.size());
+
+      FastCalculations calculations = new FastCalculations(matrix);
+      FastCalculations.Scratch scratch = new FastCalculations.Scratch();
+      int unplayable = 0;
+      for (int row = 0; row < payoffs.rows(); row++) {
+        for (int column = 0; column < payoffs.columns(); column++) {
+          Lineup player = players.get(row);
+          Lineup opponent = opponents.get(column);
+          if (!calculations.canPlay(player, opponent)) {
+            unplayable++;
+            assertThat(payoffs.payoff(row, column)).isNaN();
+            assertThat(payoffs.banProbability(row, column, 0)).isNaN();
+            continue;
+          }
+          double expected = calculations.payoff(calculationType, player, opponent, scratch);
+          assertThat(payoffs.payoff(row, column))
+              .isWithin(QuantizedUnitTable.MAX_ERROR).of(expected);
+          for (int i = 0; i < PLAYER_DECK_COUNT; i++) {
+            assertThat(payoffs.banProbability(row, column, i))
+                .isWithin(QuantizedUnitTable.MAX_ERROR).of(scratch.banProbabilities[i]);
+          }
+        }
+      }
+      assertThat(unplayable).isGreaterThan(0);
+    }
+  }
+
+  @Test
+  public void load_naiveBansAreOneHot() throws IOException {
+    PayoffMatrix payoffs = load(CalculationType.NAIVE);
+
+    for (int column = 0; column < payoffs.columns(); column++) {
+      if (Double.isNaN(payoffs.payoff(0, column))) {
+        continue;
+      }
+      int banned = 0;
+      for (int i = 0; i < PLAYER_DECK_COUNT; i++) {
+        double banProbability = payoffs.banProbability(0, column, i);
+        assertThat(banProbability == 0 || banProbability == 1).isTrue();
+        banned += (int) banProbability;
+      }
+      assertThat(banned).isEqualTo(1);
+    }
+  }
+
+  @Test
+  public void load_nashBansSumToOne() throws IOException {
+    PayoffMatrix payoffs = load(CalculationType.NASH);
+
+    for (int column = 0; column < payoffs.columns(); column++) {
+      if (Double.isNaN(payoffs.payoff(0, column))) {
+        continue;
+      }
+      double total = 0;
+      for (int i = 0; i < PLAYER_DECK_COUNT; i++) {
+        total += payoffs.banProbability(0, column, i);
+      }
+      assertThat(total).isWithin(PLAYER_DECK_COUNT * QuantizedUnitTable.MAX_ERROR).of(1.0);
+    }
+  }
+
+  @Test
+  public void load_secondLoadHitsCache() throws IOException {
+    PayoffMatrix first = load(CalculationType.NASH);
+    PayoffMatrix second = load(CalculationType.NASH);
+
+    assertThat(metrics.getPayoffCacheMisses()).isEqualTo(1);
+    assertThat(metrics.getPayoffCacheHits()).isEqualTo(1);
+    for (int column = 0; column < first.columns(); column++) {
+      assertThat(Double.doubleToLongBits(second.payoff(1, column)))
+          .isEqualTo(Double.doubleToLongBits(first.payoff(1, column)));
+    }
+  }
+
+  @Test
+  public void load_keysOnCalculationTypeAndBans() throws IOException {
+    load(CalculationType.NAIVE);
+    load(CalculationType.NASH);
+    PayoffMatrix withoutBans =
+        PayoffMatrix.load(tables, CalculationType.NASH, false, cacheDirectory, 1, metrics);
+
+    assertThat(withoutBans.hasBans()).isFalse();
+    assertThrows(IllegalStateException.class, () -> withoutBans.banProbability(0, 0, 0));
+    try (Stream<Path> entries = Files.list(cacheDirectory)) {
+      assertThat(entries.filter(p -> p.toString().endsWith(".payoff")).count()).isEqualTo(3);
+    }
+  }
+
+  @Test
+  public void load_ignoresCorruptEntry() throws IOException {
+    load(CalculationType.NAIVE);
+    try (Stream<Path> entries = Files.list(cacheDirectory)) {
+      for (Path entry : (Iterable<Path>) entries::iterator) {
+        Files.write(entry, new byte[]{1, 2, 3});
+      }
+    }
+    PayoffMatrix payoffs = load(CalculationType.NAIVE);
+
+    assertThat(metrics.getPayoffCacheMisses()).isEqualTo(2);
+    assertThat(metrics.getPayoffCacheHits()).isEqualTo(0);
+    assertThat(payoffs.rows()).isEqualTo(tables.playerLineupCount());
+  }
+
+  @Test
+  public void computeTopLineupsFromPayoffs_matchesRun() throws IOException {
+    for (CalculationType calculationType : CalculationType.values()) {
+      CollectingLogger expectedLogger = new CollectingLogger();
+      Runner runner = Runner.builder()
+          .setMatchupMatrix(matrix)
+          .setCalculationType(calculationType)
+          .setTopKToPrintLimit(1000)
+          .setLogger(expectedLogger)
+          .build();
+      runner.run();
+      CollectingLogger actualLogger = new CollectingLogger();
+      runner.toBuilder().setLogger(actualLogger).build()
+          .computeTopLineupsFromPayoffs(load(calculationType));
+
+      Output expected = expectedLogger.outputs().get(0);
+      Output actual = actualLogger.outputs().get(0);
+      assertThat(actual.topLineups.keySet())
+          .containsExactlyElementsIn(expected.topLineups.keySet());
+      assertThat(actual.metaCompPercent).isEqualTo(expected.metaCompPercent);
+      for (Lineup lineup : expected.topLineups.keySet()) {
+        assertThat(actual.topLineups.get(lineup).getWeightedMean())
+            .isWithin(QuantizedUnitTable.MAX_ERROR)
+            .of(expected.topLineups.get(lineup).getWeightedMean());
+        Lineup actualLineup = actual.topLineups.keySet().asList()
+            .get(actual.topLineups.keySet().asList().indexOf(lineup));
+        Lineup expectedLineup = expected.topLineups.keySet().asList()
+            .get(expected.topLineups.keySet().asList().indexOf(lineup));
+        assertThat(actualLineup.metadata().getPlayedAgainst())
+            .isEqualTo(expectedLineup.metadata().getPlayedAgainst());
+      }
+    }
+  }
+
+  @Test
+  public void computeTopLineupsFromPayoffs_requiresMatchingCalculationType() throws IOException {
+    PayoffMatrix payoffs = load(CalculationType.NAIVE);
+    Runner runner = Runner.builder()
+        .setMatchupMatrix(matrix)
+        .setCalculationType(CalculationType.NASH)
+        .setLogger(new CollectingLogger())
+        .build();
+
+    assertThrows(IllegalArgumentException.class,
+        () -> runner.computeTopLineupsFromPayoffs(payoffs));
+  }
+}
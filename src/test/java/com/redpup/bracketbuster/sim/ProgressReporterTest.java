@@ -0,0 +1,119 @@
+package com.redpup.bracketbuster.sim;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.redpup.bracketbuster.util.AssertExt.assertThrows;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+
+@RunWith(JUnit4.class)
+public final class ProgressReporterTest {
+
+  @Rule
+  public final MockitoRule mockito = MockitoJUnit.rule();
+
+  @Mock
+  private Logger logger;
+
+  private final RunMetrics metrics = new RunMetrics();
+
+  @Test
+  public void handleMatchups_countsConcurrently() throws InterruptedException {
+    ProgressReporter progress = ProgressReporter.start(logger, 0, Duration.ZERO, metrics);
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    for (int i = 0; i < 1000; i++) {
+      executor.execute(() -> progress.handleMatchups(3));
+    }
+    executor.shutdown();
+    assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+    assertThat(progress.lineups()).isEqualTo(1000);
+    assertThat(progress.matchups()).isEqualTo(3000);
+    verify(logger, atLeastOnce()).handleMatchups(3);
+  }
+
+  @Test
+  public void handleMoreMatchups_countsMatchupsOnly() {
+    ProgressReporter progress = ProgressReporter.start(logger, 0, Duration.ZERO, metrics);
+    progress.handleMatchups(3);
+    progress.handleMoreMatchups(4);
+    progress.close();
+
+    assertThat(progress.lineups()).isEqualTo(1);
+    assertThat(metrics.getMatchups()).isEqualTo(7);
+    verify(logger).handleMatchups(4);
+  }
+
+  @Test
+  public void report_withTotalLogsPercent() {
+    ProgressReporter progress = ProgressReporter.start(logger, 4, Duration.ZERO, metrics);
+    progress.handleMatchups(5);
+    progress.report();
+
+    verify(logger).log(startsWith("\tScored 1/4 lineups (25.0%), 5 matchups"));
+  }
+
+  @Test
+  public void report_withoutTotalLogsThroughput() {
+    ProgressReporter progress = ProgressReporter.start(logger, 0, Duration.ZERO, metrics);
+    progress.handleMatchups(5);
+    progress.report();
+
+    verify(logger).log(startsWith("\tScored 1 lineups, 5 matchups"));
+  }
+
+  @Test
+  public void start_reportsInBackground() {
+    try (ProgressReporter progress =
+        ProgressReporter.start(logger, 10, Duration.ofMillis(5), metrics)) {
+      progress.handleMatchups(2);
+      verify(logger, timeout(10_000).atLeastOnce()).log(contains("ETA"));
+    }
+  }
+
+  @Test
+  public void close_logsSummary() {
+    ProgressReporter progress = ProgressReporter.start(logger, 0, Duration.ZERO, metrics);
+    progress.handleMatchups(2);
+    verify(logger, never()).log(startsWith("\tScored 1 lineups and 2 matchups"));
+    progress.close();
+
+    verify(logger).log(startsWith("\tScored 1 lineups and 2 matchups"));
+    assertThat(metrics.getLineups()).isEqualTo(1);
+    assertThat(metrics.getMatchups()).isEqualTo(2);
+  }
+
+  @Test
+  public void handleReusedLineups_countsSeparately() {
+    ProgressReporter progress = ProgressReporter.start(logger, 1, Duration.ZERO, metrics);
+    progress.handleReusedLineups(3);
+    progress.handleMatchups(2);
+    progress.report();
+    progress.close();
+
+    verify(logger).log(startsWith("\tScored 1/1 lineups (100.0%)"));
+    verify(logger).log(contains("reusing 3 lineups"));
+    assertThat(metrics.getLineups()).isEqualTo(1);
+  }
+
+  @Test
+  public void start_negativeIntervalThrows() {
+    assertThrows(IllegalArgumentException.class,
+        () -> ProgressReporter.start(logger, 0, Duration.ofSeconds(-1), metrics));
+  }
+}
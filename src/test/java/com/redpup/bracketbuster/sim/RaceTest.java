@@ -0,0 +1,34 @@
+package com.redpup.bracketbuster.sim;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class RaceTest {
+
+  @Test
+  public void maxRounds_countsDoublingsToEveryOpponent() {
+    assertThat(Race.maxRounds(1, 1)).isEqualTo(1);
+    assertThat(Race.maxRounds(1, 8)).isEqualTo(4);
+    assertThat(Race.maxRounds(3, 13)).isEqualTo(4);
+    assertThat(Race.maxRounds(16, 8)).isEqualTo(1);
+  }
+
+  @Test
+  public void correctedZScore_isConservative() {
+    assertThat(Race.correctedZScore(1)).isGreaterThan(SampledResult.Z_SCORE);
+    assertThat(Race.correctedZScore(0)).isEqualTo(Race.correctedZScore(1));
+  }
+
+  @Test
+  public void correctedZScore_growsWithComparisons() {
+    double z = Race.correctedZScore(1000);
+
+    assertThat(z).isGreaterThan(Race.correctedZScore(10));
+    // Each of the 1000 intervals misses with probability at most 0.05 / 1000.
+    assertThat(2 * Math.exp(-z * z / 2)).isWithin(1.0e-12).of(0.05 / 1000);
+  }
+}
@@ -0,0 +1,137 @@
+package com.redpup.bracketbuster.sim;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.redpup.bracketbuster.model.Matchups.readMatchupListFromCsv;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Maps;
+import com.google.protobuf.util.JsonFormat;
+import com.redpup.bracketbuster.model.Lineup;
+import com.redpup.bracketbuster.model.MatchupMatrix;
+import com.redpup.bracketbuster.model.proto.MatchupList;
+import com.redpup.bracketbuster.sim.proto.LineupResultMessage;
+import com.redpup.bracketbuster.util.WeightedDoubleMetric;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class ResultSinkTest {
+
+  @Rule
+  public final TemporaryFolder folder = new TemporaryFolder();
+
+  private static Runner.Builder runnerBuilder() throws IOException {
+    MatchupList list =
+        readMatchupListFromCsv(Paths.get("src", "test", "resources", "stats_new.csv"));
+    return Runner.builder()
+        .setMatchupMatrix(MatchupMatrix.fromProto(list.toBuilder()
+            .clearPlayers()
+            .addAllPlayers(list.getPlayersList().subList(0, 8))
+            .clearOpponent()
+            .putAllOpponent(list.getOpponentMap().entrySet().stream().limit(8)
+                .collect(ImmutableMap.toImmutableMap(Map.Entry::getKey, Map.Entry::getValue)))
+            .build()))
+        .setTopKToPrintLimit(3);
+  }
+
+  /**
+   * Runs {@code runner} into a new sink at {@code path}, and returns the single output handled.
+   */
+  private static Output run(Runner.Builder runner, Path path) throws IOException {
+    CollectingLogger logger = new CollectingLogger();
+    try (ResultSink sink = ResultSink.open(path)) {
+      runner.setLogger(logger).setResultSink(sink).build().run();
+      assertThat(sink.written()).isEqualTo(runner.build().allPlayerLineups().size());
+    }
+    return Iterables.getOnlyElement(logger.outputs());
+  }
+
+  /**
+   * Returns the output of every lineup of {@code runner}, without a sink.
+   */
+  private static Output runAll(Runner.Builder runner) {
+    CollectingLogger logger = new CollectingLogger();
+    runner.setLogger(logger).setResultSink(null).setTopKToPrintLimit(Integer.MAX_VALUE).build()
+        .run();
+    return Iterables.getOnlyElement(logger.outputs());
+  }
+
+  /**
+   * Asserts that {@code results} holds exactly one result per lineup in {@code expected}.
+   */
+  private static void assertResultsMatch(ImmutableList<LineupResultMessage> results,
+      Output expected, MatchupMatrix matchups) {
+    ImmutableMap<List<String>, LineupResultMessage> byDecks =
+        Maps.uniqueIndex(results, LineupResultMessage::getDecksList);
+    assertThat(byDecks).hasSize(expected.topLineups.size());
+    for (Map.Entry<Lineup, WeightedDoubleMetric> lineup : expected.topLineups.entrySet()) {
+      LineupResultMessage result = byDecks.get(lineup.getKey().getDeckNames());
+      assertThat(result.getIteration()).isEqualTo(0);
+      assertThat(result.getWeightedMean()).isEqualTo(lineup.getValue().getWeightedMean());
+      assertThat(result.getMedian()).isEqualTo(lineup.getValue().getMedian());
+      assertThat(result.getBestMatchupsCount())
+          .isEqualTo(lineup.getKey().metadata().getBestMatchups().size());
+      assertThat(result.getBanPercentsMap())
+          .isEqualTo(lineup.getKey().metadata().getBanPercents(matchups));
+    }
+  }
+
+  @Test
+  public void protoDelimited_writesEveryLineup() throws IOException {
+    Runner.Builder runner = runnerBuilder();
+    Path path = folder.getRoot().toPath().resolve("results.pb");
+    Output printed = run(runner, path);
+
+    assertThat(printed.topLineups).hasSize(3);
+    assertResultsMatch(ResultSink.readDelimited(path), runAll(runner),
+        runner.build().matchupMatrix());
+  }
+
+  @Test
+  public void pipelined_writesEveryLineup() throws IOException {
+    Runner.Builder runner = runnerBuilder().setPipelineParallelism(2);
+    Path path = folder.getRoot().toPath().resolve("results.pb");
+    Output printed = run(runner, path);
+
+    assertThat(printed.topLineups).hasSize(3);
+    assertResultsMatch(ResultSink.readDelimited(path), runAll(runner),
+        runner.build().matchupMatrix());
+  }
+
+  @Test
+  public void json_matchesProtoDelimited() throws IOException {
+    Path protoPath = folder.getRoot().toPath().resolve("results.pb");
+    Path jsonPath = folder.getRoot().toPath().resolve("results.json");
+    run(runnerBuilder(), protoPath);
+    run(runnerBuilder(), jsonPath);
+
+    ImmutableList.Builder<LineupResultMessage> fromJson = ImmutableList.builder();
+    for (JsonNode node : new ObjectMapper().readTree(jsonPath.toFile())) {
+      LineupResultMessage.Builder result = LineupResultMessage.newBuilder();
+      JsonFormat.parser().merge(node.toString(), result);
+      fromJson.add(result.build());
+    }
+
+    assertThat(fromJson.build()).isEqualTo(ResultSink.readDelimited(protoPath));
+  }
+
+  @Test
+  public void formatForPath() {
+    assertThat(ResultSink.Format.forPath(Paths.get("out", "results.json")))
+        .isEqualTo(ResultSink.Format.JSON);
+    assertThat(ResultSink.Format.forPath(Paths.get("out", "results.pb")))
+        .isEqualTo(ResultSink.Format.PROTO_DELIMITED);
+  }
+}
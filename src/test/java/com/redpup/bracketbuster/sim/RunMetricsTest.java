@@ -0,0 +1,164 @@
+package com.redpup.bracketbuster.sim;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.redpup.bracketbuster.model.Matchups.readMatchupListFromCsv;
+
+import com.google.common.collect.ImmutableMap;
+import com.redpup.bracketbuster.model.MatchupMatrix;
+import com.redpup.bracketbuster.model.proto.MatchupList;
+import com.redpup.bracketbuster.sim.Calculations.CalculationType;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class RunMetricsTest {
+
+  @Rule
+  public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private static Runner.Builder runnerBuilder() throws IOException {
+    MatchupList list =
+        readMatchupListFromCsv(Paths.get("src", "test", "resources", "stats_new.csv"));
+    return Runner.builder()
+        .setMatchupMatrix(MatchupMatrix.fromProto(list.toBuilder()
+            .clearPlayers()
+            .addAllPlayers(list.getPlayersList().subList(0, 6))
+            .clearOpponent()
+            .putAllOpponent(list.getOpponentMap().entrySet().stream().limit(6)
+                .collect(ImmutableMap.toImmutableMap(Map.Entry::getKey, Map.Entry::getValue)))
+            .build()))
+        .setLogger(new CollectingLogger());
+  }
+
+  @Test
+  public void run_recordsPhasesAndCounts() throws IOException {
+    Runner runner = runnerBuilder().build();
+    runner.run();
+    RunMetrics metrics = runner.metrics();
+
+    assertThat(metrics.getPhaseNanos().keySet())
+        .containsExactly("Lineup Generation", RunMetrics.SCORING, "Output");
+    assertThat(metrics.getLineups()).isEqualTo(runner.allPlayerLineups().size());
+    assertThat(metrics.getMatchups()).isGreaterThan(0L);
+    assertThat(metrics.getMatchupsPerSecond()).isGreaterThan(0.0);
+    assertThat(metrics.getPeakPlayerLineups()).isEqualTo(runner.allPlayerLineups().size());
+    assertThat(metrics.getPeakOpponentLineups())
+        .isEqualTo(runner.allWeightedOpponentLineups().size());
+    assertThat(metrics.getNashSolves()).isEqualTo(0);
+  }
+
+  @Test
+  public void runNash_recordsSolvesAndPivots() throws IOException {
+    Runner runner = runnerBuilder().setCalculationType(CalculationType.NASH).build();
+    runner.run();
+
+    assertThat(runner.metrics().getNashSolves()).isEqualTo(runner.metrics().getMatchups());
+    assertThat(runner.metrics().getNashPivots())
+        .isAtLeast(runner.metrics().getNashSolves());
+  }
+
+  @Test
+  public void runPipelined_recordsScoringAllocations() throws IOException {
+    Runner runner = runnerBuilder().setPipelineParallelism(2).build();
+    runner.run();
+
+    assertThat(runner.metrics().getLineups()).isEqualTo(runner.allPlayerLineups().size());
+    if (RunMetrics.currentThreadAllocatedBytes() >= 0) {
+      assertThat(runner.metrics().getPhaseAllocatedBytes()).containsKey(RunMetrics.SCORING);
+    }
+  }
+
+  @Test
+  public void metrics_sharedWithCopies() throws IOException {
+    Runner runner = runnerBuilder().build();
+
+    assertThat(runner.toBuilder().setTopKToPrintLimit(1).build().metrics())
+        .isSameInstanceAs(runner.metrics());
+  }
+
+  @Test
+  public void add_sumsCountsAndKeepsPeaks() throws IOException {
+    Runner first = runnerBuilder().build();
+    Runner second = runnerBuilder().setCalculationType(CalculationType.NASH).build();
+    first.run();
+    second.run();
+    RunMetrics metrics = new RunMetrics();
+    metrics.add(first.metrics());
+    metrics.add(second.metrics());
+
+    assertThat(metrics.getLineups())
+        .isEqualTo(first.metrics().getLineups() + second.metrics().getLineups());
+    assertThat(metrics.getNashSolves()).isEqualTo(second.metrics().getNashSolves());
+    assertThat(metrics.getPhaseNanos().get(RunMetrics.SCORING))
+        .isEqualTo(first.metrics().getPhaseNanos().get(RunMetrics.SCORING)
+            + second.metrics().getPhaseNanos().get(RunMetrics.SCORING));
+    assertThat(metrics.getPeakPlayerLineups()).isEqualTo(first.metrics().getPeakPlayerLineups());
+  }
+
+  @Test
+  public void reset_clearsMetrics() throws IOException {
+    Runner runner = runnerBuilder().build();
+    runner.run();
+    runner.metrics().reset();
+
+    assertThat(runner.metrics().getPhaseNanos()).isEmpty();
+    assertThat(runner.metrics().getLineups()).isEqualTo(0);
+    assertThat(runner.metrics().getPeakPlayerLineups()).isEqualTo(0);
+  }
+
+  @Test
+  public void setMatchupMatrixFromFile_recordsCacheLoadsPerMetrics() throws IOException {
+    Path input = Paths.get("src", "test", "resources", "stats_new.csv");
+    Path cacheDirectory = temporaryFolder.getRoot().toPath();
+    RunMetrics first = new RunMetrics();
+    RunMetrics second = new RunMetrics();
+    Runner.builder().setMetrics(first).setMatchupMatrixFromFile(input, cacheDirectory);
+    Runner.builder().setMetrics(second).setMatchupMatrixFromFile(input, cacheDirectory);
+    Runner.builder().setMetrics(second).setMatchupMatrixFromFile(input, cacheDirectory);
+
+    assertThat(first.getCacheMisses()).isEqualTo(1);
+    assertThat(first.getCacheHits()).isEqualTo(0);
+    assertThat(second.getCacheMisses()).isEqualTo(0);
+    assertThat(second.getCacheHits()).isEqualTo(2);
+
+    second.reset();
+    assertThat(second.getCacheHits()).isEqualTo(0);
+    assertThat(second.getCacheHitRate()).isNaN();
+  }
+
+  @Test
+  public void register_exposesOverJmx() throws IOException, JMException {
+    Runner runner = runnerBuilder().build();
+    runner.metrics().register();
+    runner.run();
+    // Registering again replaces the existing metrics.
+    runner.metrics().register();
+
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    ObjectName name = new ObjectName(RunMetrics.OBJECT_NAME);
+    assertThat(server.getAttribute(name, "Lineups"))
+        .isEqualTo((long) runner.allPlayerLineups().size());
+    server.unregisterMBean(name);
+  }
+
+  @Test
+  public void summary_includesEveryPhase() throws IOException {
+    Runner runner = runnerBuilder().build();
+    runner.run();
+
+    assertThat(runner.metrics().summary()).contains("Lineup Generation: ");
+    assertThat(runner.metrics().summary()).contains("Scoring: ");
+    assertThat(runner.metrics().summary()).contains("matchups/s");
+  }
+}
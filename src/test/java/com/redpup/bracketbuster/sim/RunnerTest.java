@@ -2,21 +2,39 @@ package com.redpup.bracketbuster.sim;
 
 import static com.google.common.truth.Truth.assertThat;
 import static com.redpup.bracketbuster.sim.Calculations.winRateBestTwoOfThreeOneBanNaive;
+import static com.redpup.bracketbuster.sim.Calculations.winRateBestTwoOfThreeOneBanNash;
+import static com.redpup.bracketbuster.model.Matchups.readMatchupListFromCsv;
+import static com.redpup.bracketbuster.util.AssertExt.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
 import com.redpup.bracketbuster.model.Lineup;
+import com.redpup.bracketbuster.model.LineupMetadata;
+import com.redpup.bracketbuster.model.LineupTables;
+import com.redpup.bracketbuster.model.LineupWeightType;
 import com.redpup.bracketbuster.model.MatchupMatrix;
 import com.redpup.bracketbuster.model.Matchups;
+import com.redpup.bracketbuster.model.proto.MatchupList;
 import com.redpup.bracketbuster.model.proto.MatchupMessage;
+import com.redpup.bracketbuster.sim.Calculations.CalculationType;
 import com.redpup.bracketbuster.util.WeightedDoubleMetric;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Map;
+import java.util.stream.Stream;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnit;
 import org.mockito.junit.MockitoRule;
@@ -183,6 +201,9 @@ public final class RunnerTest {
   @Rule
   public final MockitoRule mockitoRule = MockitoJUnit.rule();
 
+  @Rule
+  public final TemporaryFolder folder = new TemporaryFolder();
+
   @Mock
   private Logger logger;
 
@@ -202,31 +223,24 @@ public final class RunnerTest {
     opponent3.resetMetadata();
   }
 
-  @Test
-  public void computeMatchupWinRate() {
-    assertThat(runner.computeMatchupWinRate(player, opponent1))
-        .isEqualTo(winRateBestTwoOfThreeOneBanNaive(player, opponent1, MATRIX));
-    verify(logger).handleMatchup();
-  }
-
   @Test
   public void computeWeightedWinRate() {
     WeightedDoubleMetric weightedDoubleMetric
         = runner.computeTotalWinRate(player, ImmutableMap.of(opponent1,
         0.1, opponent2, 0.2, opponent3, 0.3, missingMatchupPlayer, 0.4));
 
-    verify(logger, times(3)).handleMatchup();
+    verify(logger).handleMatchups(3);
 
-    double winRate1 = runner.computeMatchupWinRate(player, opponent1);
-    double winRate2 = runner.computeMatchupWinRate(player, opponent2);
-    double winRate3 = runner.computeMatchupWinRate(player, opponent3);
+    double winRate1 = winRateBestTwoOfThreeOneBanNaive(player, opponent1, MATRIX);
+    double winRate2 = winRateBestTwoOfThreeOneBanNaive(player, opponent2, MATRIX);
+    double winRate3 = winRateBestTwoOfThreeOneBanNaive(player, opponent3, MATRIX);
 
     assertThat(weightedDoubleMetric.getWeightedMean())
         .isWithin(ERROR).of((winRate1 * 0.1 + winRate2 * 0.2 + winRate3 * 0.3) / 0.6);
     assertThat(weightedDoubleMetric.getUnweightedMean())
         .isWithin(ERROR).of((winRate1 + winRate2 + winRate3) / 3.0);
     assertThat(weightedDoubleMetric.getMedian())
-        .isEqualTo(runner.computeMatchupWinRate(player, opponent1));
+        .isEqualTo(winRateBestTwoOfThreeOneBanNaive(player, opponent1, MATRIX));
 
     assertThat(player.metadata().getBestMatchups())
         .containsExactly(
@@ -242,4 +256,532 @@ public final class RunnerTest {
         .inOrder();
 
   }
-}
\ No newline at end of file
+
+  @Test
+  public void computeWeightedWinRate_nash() {
+    Runner nashRunner = runner.toBuilder().setCalculationType(CalculationType.NASH).build();
+    WeightedDoubleMetric weightedDoubleMetric
+        = nashRunner.computeTotalWinRate(player, ImmutableMap.of(opponent1,
+        0.1, opponent2, 0.2, opponent3, 0.3, missingMatchupPlayer, 0.4));
+
+    verify(logger).handleMatchups(3);
+
+    double winRate1 = winRateBestTwoOfThreeOneBanNash(player.copy(), opponent1, MATRIX);
+    double winRate2 = winRateBestTwoOfThreeOneBanNash(player.copy(), opponent2, MATRIX);
+    double winRate3 = winRateBestTwoOfThreeOneBanNash(player.copy(), opponent3, MATRIX);
+
+    assertThat(weightedDoubleMetric.getWeightedMean())
+        .isWithin(ERROR).of((winRate1 * 0.1 + winRate2 * 0.2 + winRate3 * 0.3) / 0.6);
+    assertThat(weightedDoubleMetric.getUnweightedMean())
+        .isWithin(ERROR).of((winRate1 + winRate2 + winRate3) / 3.0);
+  }
+
+  /**
+   * Returns a runner over a subset of the test data, small enough to run end to end.
+   */
+  private static MatchupList smallList(int players) throws Exception {
+    MatchupList list =
+        readMatchupListFromCsv(Paths.get("src", "test", "resources", "stats_new.csv"));
+    return list.toBuilder()
+        .clearPlayers()
+        .addAllPlayers(list.getPlayersList().subList(0, players))
+        .clearOpponent()
+        .putAllOpponent(list.getOpponentMap().entrySet().stream().limit(8)
+            .collect(ImmutableMap.toImmutableMap(Map.Entry::getKey, Map.Entry::getValue)))
+        .build();
+  }
+
+  private Runner smallRunner() throws Exception {
+    MatchupMatrix matrix = MatchupMatrix.fromProto(smallList(8));
+    return Runner.builder()
+        .setMatchupMatrix(matrix)
+        .setTopKToPrintLimit(1000)
+        .setLogger(logger)
+        .build();
+  }
+
+  /**
+   * Asserts that {@code actual} has the same lineups and metrics as {@code expected}, up to
+   * floating point summation order.
+   */
+  private static void assertOutputsEquivalent(Output actual, Output expected) {
+    assertThat(actual.topLineups).isNotEmpty();
+    assertThat(actual.topLineups.keySet()).containsExactlyElementsIn(expected.topLineups.keySet());
+    assertThat(actual.metaCompPercent).isEqualTo(expected.metaCompPercent);
+    for (Lineup lineup : expected.topLineups.keySet()) {
+      assertThat(actual.topLineups.get(lineup).getWeightedMean())
+          .isWithin(ERROR).of(expected.topLineups.get(lineup).getWeightedMean());
+      assertThat(actual.topLineups.get(lineup).getMedian())
+          .isEqualTo(expected.topLineups.get(lineup).getMedian());
+    }
+  }
+
+  @Test
+  public void runShardsAndMerge_matchesSingleRun() throws Exception {
+    Runner runner = smallRunner();
+
+    Path shard0 = folder.getRoot().toPath().resolve("shard0");
+    Path shard1 = folder.getRoot().toPath().resolve("shard1");
+    runner.runShard(Shard.of(0, 2), shard0);
+    runner.runShard(Shard.of(1, 2), shard1);
+    runner.mergeShards(ImmutableList.of(shard1, shard0));
+    runner.run();
+
+    ArgumentCaptor<Output> outputs = ArgumentCaptor.forClass(Output.class);
+    verify(logger, times(2)).handleOutput(outputs.capture(), any());
+    assertOutputsEquivalent(outputs.getAllValues().get(0), outputs.getAllValues().get(1));
+  }
+
+  @Test
+  public void runPipelined_matchesSingleRun() throws Exception {
+    Runner runner = smallRunner();
+    runner.toBuilder().setPipelineParallelism(3).build().run();
+    runner.run();
+
+    ArgumentCaptor<Output> outputs = ArgumentCaptor.forClass(Output.class);
+    verify(logger, times(2)).handleOutput(outputs.capture(), any());
+    assertOutputsEquivalent(outputs.getAllValues().get(0), outputs.getAllValues().get(1));
+  }
+
+  @Test
+  public void runWithLineupTables_matchesSingleRun() throws Exception {
+    Runner runner = smallRunner();
+    runner.toBuilder()
+        .setLineupTables(LineupTables.compute(runner.matchupMatrix(), runner.lineupWeightType()))
+        .build()
+        .run();
+    runner.run();
+
+    ArgumentCaptor<Output> outputs = ArgumentCaptor.forClass(Output.class);
+    verify(logger, times(2)).handleOutput(outputs.capture(), any());
+    assertOutputsEquivalent(outputs.getAllValues().get(0), outputs.getAllValues().get(1));
+  }
+
+  @Test
+  public void lineupTables_ignoredForOtherConfiguration() throws Exception {
+    Runner runner = smallRunner();
+    Runner withTables = runner.toBuilder()
+        .setLineupTables(LineupTables.compute(runner.matchupMatrix(), LineupWeightType.GEOMETRIC))
+        .setLineupWeightType(LineupWeightType.AVERAGE)
+        .build();
+
+    assertThat(withTables.allWeightedOpponentLineups())
+        .containsExactlyEntriesIn(runner.allWeightedOpponentLineups());
+  }
+
+  @Test
+  public void runSegments_matchesIndividualRuns() throws Exception {
+    Runner runner = smallRunner();
+    MatchupMatrix matrix = runner.matchupMatrix();
+    MatchupMatrix segmentMatrix =
+        MatchupMatrix.fromProto(smallList(6), matrix.getHeaders());
+    LineupTables all = LineupTables.compute(matrix, runner.lineupWeightType());
+    LineupTables segment = all.restrictTo(segmentMatrix);
+    ImmutableMap<String, Output> outputs =
+        runner.runSegments(ImmutableMap.of("all", all, "segment", segment), 2);
+    verify(logger, times(2)).handleOutput(any(), any());
+    assertThat(runner.metrics().getLineups())
+        .isEqualTo(all.playerLineupCount() + segment.playerLineupCount());
+
+    assertThat(outputs.keySet()).containsExactly("all", "segment").inOrder();
+    runner.toBuilder().setMatchupMatrix(matrix).build().run();
+    runner.toBuilder().setMatchupMatrix(segmentMatrix).build().run();
+    ArgumentCaptor<Output> individual = ArgumentCaptor.forClass(Output.class);
+    verify(logger, times(4)).handleOutput(individual.capture(), any());
+    assertOutputsEquivalent(outputs.get("all"), individual.getAllValues().get(2));
+    assertOutputsEquivalent(outputs.get("segment"), individual.getAllValues().get(3));
+  }
+
+  @Test
+  public void runSnapshots_reusesUnchangedLineups() throws Exception {
+    Runner runner = smallRunner();
+    MatchupList list = smallList(8);
+    MatchupList.Builder patched = list.toBuilder();
+    for (MatchupMessage.Builder matchup : patched.getMatchupsBuilderList()) {
+      if (matchup.getPlayer().equals(list.getPlayers(0))
+          && matchup.getOpponent().equals(list.getPlayers(1))) {
+        matchup.setWins(matchup.getGames());
+      } else if (matchup.getPlayer().equals(list.getPlayers(1))
+          && matchup.getOpponent().equals(list.getPlayers(0))) {
+        matchup.setWins(0);
+      }
+    }
+    MatchupMatrix patch = MatchupMatrix.fromProto(patched.build());
+    ImmutableList<SnapshotResult> results = runner.runSnapshots(ImmutableMap.of(
+        "before", runner.matchupMatrix(),
+        "patch", patch,
+        "after", MatchupMatrix.fromProto(patched.build())));
+    int lineups = runner.allPlayerLineups().size();
+
+    assertThat(results).hasSize(3);
+    assertThat(results.get(0).diff()).isNull();
+    assertThat(results.get(0).recomputedLineups()).isEqualTo(lineups);
+    assertThat(results.get(0).rankDeltas()).isEmpty();
+    assertThat(results.get(1).diff().changedDecks())
+        .containsExactly(list.getPlayers(0), list.getPlayers(1));
+    assertThat(results.get(1).recomputedLineups()).isGreaterThan(0);
+    assertThat(results.get(1).reusedLineups()).isGreaterThan(0);
+    assertThat(results.get(1).recomputedLineups() + results.get(1).reusedLineups())
+        .isEqualTo(lineups);
+    assertThat(results.get(1).recomputedMatchups()).isGreaterThan(0L);
+    assertThat(results.get(1).recomputedMatchups())
+        .isLessThan(results.get(0).recomputedMatchups());
+    assertThat(results.get(2).recomputedLineups()).isEqualTo(0);
+    assertThat(results.get(2).recomputedMatchups()).isEqualTo(0L);
+    assertThat(ImmutableSet.copyOf(results.get(2).rankDeltas().values())).containsExactly(0);
+    assertThat(results.get(2).rankDeltas()).hasSize(results.get(2).output().topLineups.size());
+
+    runner.toBuilder().setMatchupMatrix(patch).build().run();
+    ArgumentCaptor<Output> outputs = ArgumentCaptor.forClass(Output.class);
+    verify(logger, times(4)).handleOutput(outputs.capture(), any());
+    assertOutputsEquivalent(results.get(1).output(), outputs.getAllValues().get(3));
+    assertOutputsEquivalent(results.get(2).output(), outputs.getAllValues().get(3));
+  }
+
+  @Test
+  public void runSnapshots_reweightsChangedPlayRates() throws Exception {
+    Runner runner = smallRunner();
+    MatchupList list = smallList(8);
+    String deck = list.getOpponentMap().keySet().iterator().next();
+    MatchupMatrix reweighted = MatchupMatrix.fromProto(list.toBuilder()
+        .putOpponent(deck, list.getOpponentOrThrow(deck) * 4)
+        .build());
+    ImmutableList<SnapshotResult> results = runner.runSnapshots(ImmutableMap.of(
+        "before", runner.matchupMatrix(),
+        "reweighted", reweighted));
+
+    assertThat(results.get(1).diff().isIncremental()).isTrue();
+    assertThat(results.get(1).diff().playRatesChanged()).isTrue();
+    assertThat(results.get(1).recomputedLineups()).isEqualTo(0);
+    assertThat(results.get(1).recomputedMatchups()).isEqualTo(0L);
+    assertThat(results.get(1).reusedLineups()).isEqualTo(runner.allPlayerLineups().size());
+
+    runner.toBuilder().setMatchupMatrix(reweighted).build().run();
+    ArgumentCaptor<Output> outputs = ArgumentCaptor.forClass(Output.class);
+    verify(logger, times(3)).handleOutput(outputs.capture(), any());
+    assertOutputsEquivalent(results.get(1).output(), outputs.getAllValues().get(2));
+  }
+
+  @Test
+  public void runSnapshots_nashMetadataMatchesSingleRun() throws Exception {
+    Runner runner = smallRunner().toBuilder().setCalculationType(CalculationType.NASH).build();
+    MatchupList list = smallList(8);
+    MatchupList.Builder patched = list.toBuilder();
+    for (MatchupMessage.Builder matchup : patched.getMatchupsBuilderList()) {
+      if (matchup.getPlayer().equals(list.getPlayers(2))
+          && matchup.getOpponent().equals(list.getPlayers(3))) {
+        matchup.setWins(matchup.getGames() / 4);
+      }
+    }
+    String deck = list.getOpponentMap().keySet().iterator().next();
+    MatchupMatrix patch = MatchupMatrix.fromProto(
+        patched.putOpponent(deck, list.getOpponentOrThrow(deck) * 2).build());
+    ImmutableList<SnapshotResult> results = runner.runSnapshots(ImmutableMap.of(
+        "before", runner.matchupMatrix(),
+        "patch", patch));
+    assertThat(results.get(1).recomputedLineups()).isGreaterThan(0);
+    assertThat(results.get(1).reusedLineups()).isGreaterThan(0);
+
+    runner.toBuilder().setMatchupMatrix(patch).build().run();
+    ArgumentCaptor<Output> outputs = ArgumentCaptor.forClass(Output.class);
+    verify(logger, times(3)).handleOutput(outputs.capture(), any());
+    Output expected = outputs.getAllValues().get(2);
+    Output actual = results.get(1).output();
+    assertOutputsEquivalent(actual, expected);
+    Map<Lineup, Lineup> actualLineups =
+        Maps.uniqueIndex(actual.topLineups.keySet(), lineup -> lineup);
+    for (Lineup lineup : expected.topLineups.keySet()) {
+      LineupMetadata expectedMetadata = lineup.metadata();
+      LineupMetadata actualMetadata = actualLineups.get(lineup).metadata();
+      assertThat(actualMetadata.getPlayedAgainst()).isEqualTo(expectedMetadata.getPlayedAgainst());
+      assertThat(actualMetadata.getBanned()).usingTolerance(ERROR)
+          .containsExactly(expectedMetadata.getBanned()).inOrder();
+      assertThat(actualMetadata.getBestMatchups().values())
+          .containsExactlyElementsIn(expectedMetadata.getBestMatchups().values()).inOrder();
+      assertThat(actualMetadata.getWorstMatchups().values())
+          .containsExactlyElementsIn(expectedMetadata.getWorstMatchups().values()).inOrder();
+    }
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void runSnapshots_withPruningThrows() {
+    runner.runSnapshots(ImmutableMap.of("before", runner.matchupMatrix()));
+  }
+
+  @Test
+  public void runPipelined_limitsOutput() throws Exception {
+    Runner runner = smallRunner().toBuilder().setPipelineParallelism(2).setTopKToPrintLimit(3)
+        .build();
+    runner.run();
+
+    ArgumentCaptor<Output> outputs = ArgumentCaptor.forClass(Output.class);
+    verify(logger).handleOutput(outputs.capture(), any());
+    assertThat(outputs.getValue().topLineups).hasSize(3);
+  }
+
+  @Test
+  public void runPipelined_errorFailsRun() throws Exception {
+    Runner runner = smallRunner();
+    Stream<Lineup> failing = Stream.generate(() -> {
+      throw new AssertionError("Failed to generate.");
+    });
+
+    IllegalStateException e = assertThrows(IllegalStateException.class,
+        () -> new LineupPipeline(runner, 2).run(failing, runner.allOpponentLineups()));
+    assertThat(e).hasCauseThat().isInstanceOf(AssertionError.class);
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void runPipelined_withPruningThrows() {
+    runner.toBuilder().setPipelineParallelism(2).build().computeTopLineupsPipelined();
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void runShard_withPruningThrows() throws Exception {
+    runner.runShard(Shard.of(0, 1), folder.getRoot().toPath().resolve("shard"));
+  }
+
+  @Test
+  public void runConfigurations_matchesIndividualRuns() throws Exception {
+    Runner runner = smallRunner();
+    ImmutableList<RunConfiguration> configurations = RunConfiguration.all();
+    ImmutableMap<RunConfiguration, Output> outputs = runner.runConfigurations(configurations);
+    verify(logger, times(configurations.size())).handleOutput(any(), any());
+    assertThat(outputs.keySet()).containsExactlyElementsIn(configurations).inOrder();
+
+    for (RunConfiguration configuration : configurations) {
+      configuration.configure(runner).run();
+    }
+    ArgumentCaptor<Output> individual = ArgumentCaptor.forClass(Output.class);
+    verify(logger, times(2 * configurations.size()))
+        .handleOutput(individual.capture(), any());
+    for (int i = 0; i < configurations.size(); i++) {
+      assertOutputsEquivalent(outputs.get(configurations.get(i)),
+          individual.getAllValues().get(configurations.size() + i));
+    }
+  }
+
+  @Test
+  public void runConfigurations_pipelinedMatchesSingleScorer() throws Exception {
+    Runner runner = smallRunner();
+    ImmutableList<RunConfiguration> configurations = RunConfiguration.all();
+    ImmutableMap<RunConfiguration, Output> pipelined =
+        runner.toBuilder().setPipelineParallelism(3).build().runConfigurations(configurations);
+    ImmutableMap<RunConfiguration, Output> single = runner.runConfigurations(configurations);
+
+    for (RunConfiguration configuration : configurations) {
+      assertOutputsEquivalent(pipelined.get(configuration), single.get(configuration));
+    }
+  }
+
+  @Test
+  public void runConfigurations_sharesMetadataAcrossSortTypes() throws Exception {
+    ImmutableMap<RunConfiguration, Output> outputs = smallRunner().runConfigurations(
+        ImmutableList.of(
+            RunConfiguration.create(CalculationType.NASH, LineupWeightType.GEOMETRIC,
+                SortType.WEIGHTED_MEAN_WIN_RATE),
+            RunConfiguration.create(CalculationType.NASH, LineupWeightType.GEOMETRIC,
+                SortType.UNWEIGHTED_MEDIAN_WIN_RATE)));
+
+    ImmutableList<Output> values = outputs.values().asList();
+    assertThat(values.get(0).topLineups.keySet())
+        .containsExactlyElementsIn(values.get(1).topLineups.keySet());
+    assertThat(values.get(0).topLineups.keySet().asList())
+        .isNotEqualTo(values.get(1).topLineups.keySet().asList());
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void runConfigurations_withPruningThrows() {
+    runner.runConfigurations(RunConfiguration.all());
+  }
+
+  @Test
+  public void runApproximate_withoutDroppingMatchesRun() throws Exception {
+    Runner runner = smallRunner().toBuilder().setSortType(SortType.WEIGHTED_MEAN_WIN_RATE).build();
+    ApproximateResult result = runner.runApproximate(0);
+    runner.run();
+
+    ArgumentCaptor<Output> outputs = ArgumentCaptor.forClass(Output.class);
+    verify(logger, times(2)).handleOutput(outputs.capture(), any());
+    assertOutputsEquivalent(result.output(), outputs.getAllValues().get(1));
+    assertThat(result.droppedOpponents()).isEqualTo(0);
+    assertThat(result.maxErrorBound()).isEqualTo(0.0);
+    assertThat(ImmutableSet.copyOf(result.errorBounds().values())).containsExactly(0.0);
+  }
+
+  @Test
+  public void runApproximate_boundsWeightedMeanError() throws Exception {
+    Runner runner = smallRunner().toBuilder().setSortType(SortType.WEIGHTED_MEAN_WIN_RATE).build();
+    ApproximateResult result = runner.runApproximate(0.05);
+    runner.run();
+
+    ArgumentCaptor<Output> outputs = ArgumentCaptor.forClass(Output.class);
+    verify(logger, times(2)).handleOutput(outputs.capture(), any());
+    Output exact = outputs.getAllValues().get(1);
+    assertThat(result.droppedOpponents()).isGreaterThan(0);
+    assertThat(result.droppedWeight()).isAtMost(0.05);
+    assertThat(result.errorBounds().keySet().asList())
+        .isEqualTo(result.output().topLineups.keySet().asList());
+    for (Map.Entry<Lineup, Double> bound : result.errorBounds().entrySet()) {
+      assertThat(bound.getValue()).isAtMost(result.maxErrorBound());
+      assertThat(result.output().topLineups.get(bound.getKey()).getWeightedMean())
+          .isWithin(bound.getValue())
+          .of(exact.topLineups.get(bound.getKey()).getWeightedMean());
+    }
+    if (result.membershipStable()) {
+      assertThat(result.output().topLineups.keySet())
+          .containsExactlyElementsIn(exact.topLineups.keySet());
+    }
+    if (result.orderStable() && result.membershipStable()) {
+      assertThat(result.output().topLineups.keySet().asList())
+          .isEqualTo(exact.topLineups.keySet().asList());
+    }
+  }
+
+  @Test
+  public void runApproximate_certifiesSeparatedTopLineups() throws Exception {
+    Runner runner = smallRunner().toBuilder()
+        .setSortType(SortType.WEIGHTED_MEAN_WIN_RATE)
+        .setTopKToPrintLimit(1)
+        .build();
+
+    ApproximateResult result = runner.runApproximate(0.001);
+
+    assertThat(result.maxErrorBound()).isLessThan(0.01);
+    assertThat(result.membershipStable()).isTrue();
+    assertThat(result.orderStable()).isTrue();
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void runApproximate_requiresWeightedMeanSort() throws Exception {
+    smallRunner().runApproximate(0.01);
+  }
+
+  @Test
+  public void runSampled_estimatesWeightedMeans() throws Exception {
+    Runner runner = smallRunner().toBuilder()
+        .setSortType(SortType.WEIGHTED_MEAN_WIN_RATE)
+        .setTopKToPrintLimit(1)
+        .build();
+    SampledResult result = runner.runSampled(50, 5000, 7);
+    runner.run();
+
+    ArgumentCaptor<Output> outputs = ArgumentCaptor.forClass(Output.class);
+    verify(logger, times(2)).handleOutput(outputs.capture(), any());
+    Output exact = outputs.getAllValues().get(1);
+    assertThat(result.output().topLineups.keySet())
+        .containsExactlyElementsIn(exact.topLineups.keySet());
+    assertThat(result.confidenceIntervals().keySet().asList())
+        .isEqualTo(result.output().topLineups.keySet().asList());
+    for (Map.Entry<Lineup, Double> interval : result.confidenceIntervals().entrySet()) {
+      assertThat(result.output().topLineups.get(interval.getKey()).getWeightedMean())
+          .isWithin(2 * interval.getValue())
+          .of(exact.topLineups.get(interval.getKey()).getWeightedMean());
+    }
+    assertThat(result.rounds()).isGreaterThan(1);
+  }
+
+  @Test
+  public void runSampled_samplesFewerMatchupsThanExhaustive() throws Exception {
+    Runner runner = smallRunner().toBuilder().setSortType(SortType.WEIGHTED_MEAN_WIN_RATE).build();
+    SampledResult result = runner.runSampled(10, 40, 7);
+
+    assertThat(result.sampledMatchups()).isGreaterThan(0L);
+    assertThat(result.sampledMatchups()).isLessThan(result.exhaustiveMatchups());
+  }
+
+  @Test
+  public void runSampled_isDeterministicGivenSeed() throws Exception {
+    Runner runner = smallRunner().toBuilder().setSortType(SortType.WEIGHTED_MEAN_WIN_RATE).build();
+    SampledResult first = runner.runSampled(10, 80, 11);
+    SampledResult second = runner.runSampled(10, 80, 11);
+
+    assertOutputsEquivalent(first.output(), second.output());
+    assertThat(first.confidenceIntervals()).isEqualTo(second.confidenceIntervals());
+    assertThat(first.sampledMatchups()).isEqualTo(second.sampledMatchups());
+  }
+
+  @Test
+  public void runSampled_withoutRefinementTakesOneRound() throws Exception {
+    Runner runner = smallRunner().toBuilder().setSortType(SortType.WEIGHTED_MEAN_WIN_RATE).build();
+    SampledResult result = runner.runSampled(20, 20, 3);
+
+    assertThat(result.rounds()).isEqualTo(1);
+    assertThat(result.sampledMatchups())
+        .isEqualTo(20L * result.exhaustiveMatchups() / runner.allWeightedOpponentLineups().size());
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void runSampled_requiresWeightedMeanSort() throws Exception {
+    smallRunner().runSampled(10, 20, 0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void runSampled_requiresInitialSamplesAtMostMax() throws Exception {
+    smallRunner().toBuilder()
+        .setSortType(SortType.WEIGHTED_MEAN_WIN_RATE)
+        .build()
+        .runSampled(20, 10, 0);
+  }
+
+  @Test
+  public void startRace_certifiesExactTopLineups() throws Exception {
+    Runner runner = smallRunner().toBuilder()
+        .setSortType(SortType.WEIGHTED_MEAN_WIN_RATE)
+        .setTopKToPrintLimit(5)
+        .build();
+    Race race = runner.startRace(4, 5);
+    Output output = race.run(Duration.ofMinutes(1));
+    runner.run();
+
+    ArgumentCaptor<Output> outputs = ArgumentCaptor.forClass(Output.class);
+    verify(logger, times(2)).handleOutput(outputs.capture(), any());
+    assertThat(outputs.getAllValues().get(0)).isSameInstanceAs(output);
+    assertThat(race.bestSoFar()).isSameInstanceAs(output);
+    assertThat(race.finished()).isTrue();
+    assertThat(race.certified()).isTrue();
+    assertThat(race.racing()).isEqualTo(5);
+    assertThat(output.topLineups.keySet())
+        .containsExactlyElementsIn(outputs.getAllValues().get(1).topLineups.keySet());
+  }
+
+  @Test
+  public void startRace_dropsDominatedLineups() throws Exception {
+    Runner runner = smallRunner().toBuilder()
+        .setSortType(SortType.WEIGHTED_MEAN_WIN_RATE)
+        .setTopKToPrintLimit(1)
+        .build();
+    Race race = runner.startRace(1, 5);
+    race.run(Duration.ofMinutes(1));
+
+    assertThat(race.certified()).isTrue();
+    assertThat(race.racing()).isEqualTo(1);
+    assertThat(race.rounds()).isGreaterThan(1);
+    assertThat(race.matchups()).isLessThan((long) runner.allPlayerLineups().size()
+        * runner.allWeightedOpponentLineups().size());
+  }
+
+  @Test
+  public void startRace_withoutBudgetCompletesFirstRound() throws Exception {
+    Runner runner = smallRunner().toBuilder()
+        .setSortType(SortType.WEIGHTED_MEAN_WIN_RATE)
+        .setTopKToPrintLimit(1)
+        .build();
+    Race race = runner.startRace(1, 5);
+    assertThat(race.bestSoFar()).isNull();
+
+    Output output = race.run(Duration.ZERO);
+    assertThat(race.rounds()).isEqualTo(1);
+    assertThat(race.finished()).isFalse();
+    assertThat(output.topLineups).hasSize(1);
+
+    race.run(Duration.ofMinutes(1));
+    assertThat(race.rounds()).isGreaterThan(1);
+    assertThat(race.finished()).isTrue();
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void startRace_requiresWeightedMeanSort() throws Exception {
+    smallRunner().startRace(1, 0);
+  }
+}
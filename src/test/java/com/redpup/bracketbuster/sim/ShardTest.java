@@ -0,0 +1,49 @@
+package com.redpup.bracketbuster.sim;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.redpup.bracketbuster.util.AssertExt.assertThrows;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class ShardTest {
+
+  private static final ImmutableList<Integer> VALUES = ImmutableList.of(0, 1, 2, 3, 4, 5, 6);
+
+  @Test
+  public void parse_readsIndexAndCount() {
+    Shard shard = Shard.parse("1/4");
+    assertThat(shard.index()).isEqualTo(1);
+    assertThat(shard.count()).isEqualTo(4);
+    assertThat(shard.toString()).isEqualTo("1/4");
+  }
+
+  @Test
+  public void parse_malformedThrows() {
+    assertThrows(IllegalArgumentException.class, () -> Shard.parse("1"));
+    assertThrows(IllegalArgumentException.class, () -> Shard.parse("1/2/3"));
+    assertThrows(NumberFormatException.class, () -> Shard.parse("a/b"));
+  }
+
+  @Test
+  public void of_outOfRangeThrows() {
+    assertThrows(IllegalArgumentException.class, () -> Shard.of(0, 0));
+    assertThrows(IllegalArgumentException.class, () -> Shard.of(-1, 2));
+    assertThrows(IllegalArgumentException.class, () -> Shard.of(2, 2));
+  }
+
+  @Test
+  public void slice_dealsRoundRobin() {
+    assertThat(Shard.of(0, 3).slice(VALUES)).containsExactly(0, 3, 6).inOrder();
+    assertThat(Shard.of(1, 3).slice(VALUES)).containsExactly(1, 4).inOrder();
+    assertThat(Shard.of(2, 3).slice(VALUES)).containsExactly(2, 5).inOrder();
+  }
+
+  @Test
+  public void slice_singleShardIsEverything() {
+    assertThat(Shard.of(0, 1).slice(VALUES)).isEqualTo(VALUES);
+  }
+}
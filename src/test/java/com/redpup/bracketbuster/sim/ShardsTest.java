@@ -0,0 +1,100 @@
+package com.redpup.bracketbuster.sim;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.redpup.bracketbuster.util.AssertExt.assertThrows;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.redpup.bracketbuster.model.Lineup;
+import com.redpup.bracketbuster.model.MatchupMatrix;
+import com.redpup.bracketbuster.model.proto.MatchupMessage;
+import com.redpup.bracketbuster.sim.proto.ShardMessage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class ShardsTest {
+
+  private static final double ERROR = 1.0e-8;
+
+  private static final MatchupMatrix MATRIX = MatchupMatrix.from(ImmutableList.of(
+      MatchupMessage.newBuilder().setPlayer("A (IO)").setOpponent("B (NX)").setWins(1)
+          .setGames(2).build(),
+      MatchupMessage.newBuilder().setPlayer("C (DE)").setOpponent("D (SH)").setWins(1)
+          .setGames(2).build()),
+      ImmutableList.of(), ImmutableMap.of());
+
+  private static final Lineup LINEUP_1 = Lineup.ofDeckIndices(MATRIX, 0, 1, 2);
+  private static final Lineup LINEUP_2 = Lineup.ofDeckIndices(MATRIX, 1, 2, 3);
+
+  @Rule
+  public final TemporaryFolder folder = new TemporaryFolder();
+
+  private static ShardMessage shard(int index, int count, Lineup... lineups) {
+    ShardMessage.Builder builder = ShardMessage.newBuilder().setIndex(index).setCount(count);
+    for (Lineup lineup : lineups) {
+      builder.addLineups(lineup.toProto());
+    }
+    return builder.build();
+  }
+
+  @Test
+  public void writeAndRead_roundTrips() throws IOException {
+    Path path = folder.getRoot().toPath().resolve("shard");
+    ShardMessage message = shard(0, 1, LINEUP_1.copy());
+
+    Shards.write(message, path);
+
+    assertThat(Shards.read(path)).isEqualTo(message);
+    assertThat(Files.exists(path.resolveSibling("shard.tmp"))).isFalse();
+  }
+
+  @Test
+  public void merge_unionsDisjointShards() {
+    ImmutableList<Lineup> lineups = Shards.merge(
+        ImmutableList.of(shard(1, 2, LINEUP_2.copy()), shard(0, 2, LINEUP_1.copy())), MATRIX);
+
+    assertThat(lineups).containsExactly(LINEUP_1, LINEUP_2);
+  }
+
+  @Test
+  public void merge_combinesSameLineup() {
+    Lineup left = LINEUP_1.copy();
+    left.metadata().incrementPlayedAgainst(0).applyMatchup(LINEUP_2, 0.25, 1);
+    Lineup right = LINEUP_1.copy();
+    right.metadata().incrementPlayedAgainst(0).applyMatchup(LINEUP_1, 0.75, 1);
+
+    ImmutableList<Lineup> lineups =
+        Shards.merge(ImmutableList.of(shard(0, 2, left), shard(1, 2, right)), MATRIX);
+
+    assertThat(lineups).containsExactly(LINEUP_1);
+    assertThat(lineups.get(0).metadata().getPlayedAgainst()).asList()
+        .containsExactly(2, 0, 0, 0).inOrder();
+    assertThat(lineups.get(0).metadata().getWinRateMetric().getUnweightedMean())
+        .isWithin(ERROR).of(0.5);
+  }
+
+  @Test
+  public void merge_missingShardThrows() {
+    assertThrows(IllegalArgumentException.class,
+        () -> Shards.merge(ImmutableList.of(shard(0, 2)), MATRIX));
+  }
+
+  @Test
+  public void merge_duplicateShardThrows() {
+    assertThrows(IllegalArgumentException.class,
+        () -> Shards.merge(ImmutableList.of(shard(0, 2), shard(0, 2)), MATRIX));
+  }
+
+  @Test
+  public void merge_mismatchedCountThrows() {
+    assertThrows(IllegalArgumentException.class,
+        () -> Shards.merge(ImmutableList.of(shard(0, 2), shard(1, 3)), MATRIX));
+  }
+}
@@ -0,0 +1,131 @@
+package com.redpup.bracketbuster.sim;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.truth.Truth.assertThat;
+import static com.redpup.bracketbuster.model.Matchups.readMatchupListFromCsv;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.redpup.bracketbuster.model.MatchupMatrix;
+import com.redpup.bracketbuster.model.proto.MatchupList;
+import com.redpup.bracketbuster.sim.Calculations.CalculationType;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class SimEventsTest {
+
+  private static final ImmutableList<String> ALL_EVENTS = ImmutableList.of(
+      SimEvents.Iteration.NAME,
+      SimEvents.Step.NAME,
+      SimEvents.Prune.NAME,
+      SimEvents.OutputBuild.NAME,
+      SimEvents.ZeroSumSolve.NAME);
+
+  @Rule
+  public final TemporaryFolder folder = new TemporaryFolder();
+
+  private static Runner runner() throws IOException {
+    MatchupList list =
+        readMatchupListFromCsv(Paths.get("src", "test", "resources", "stats_new.csv"));
+    return Runner.builder()
+        .setMatchupMatrix(MatchupMatrix.fromProto(list.toBuilder()
+            .clearPlayers()
+            .addAllPlayers(list.getPlayersList().subList(0, 6))
+            .clearOpponent()
+            .putAllOpponent(list.getOpponentMap().entrySet().stream().limit(6)
+                .collect(ImmutableMap.toImmutableMap(Map.Entry::getKey, Map.Entry::getValue)))
+            .build()))
+        .setCalculationType(CalculationType.NASH)
+        .setPruneRatios(ImmutableList.of(0.5, 0.0))
+        .setLogger(new CollectingLogger())
+        .build();
+  }
+
+  /**
+   * Runs {@link #runner()} while recording, enabling {@code enabled}, and returns every event of
+   * this package that was recorded.
+   */
+  private List<RecordedEvent> record(List<String> enabled) throws IOException {
+    Path file = folder.newFile("run.jfr").toPath();
+    try (Recording recording = new Recording()) {
+      enabled.forEach(name -> recording.enable(name).withThreshold(Duration.ZERO));
+      recording.start();
+      runner().run();
+      recording.stop();
+      recording.dump(file);
+    }
+    return RecordingFile.readAllEvents(file).stream()
+        .filter(event -> ALL_EVENTS.contains(event.getEventType().getName()))
+        .collect(toImmutableList());
+  }
+
+  private static ImmutableList<RecordedEvent> ofType(List<RecordedEvent> events, String name) {
+    return events.stream()
+        .filter(event -> event.getEventType().getName().equals(name))
+        .collect(toImmutableList());
+  }
+
+  @Test
+  public void disabledByDefault() throws IOException {
+    assertThat(record(ImmutableList.of())).isEmpty();
+  }
+
+  @Test
+  public void enabled_recordsIterationsAndSteps() throws IOException {
+    List<RecordedEvent> events = record(ALL_EVENTS);
+
+    ImmutableList<RecordedEvent> iterations = ofType(events, SimEvents.Iteration.NAME);
+    assertThat(iterations.stream().map(e -> e.getInt("iteration")).collect(toImmutableList()))
+        .containsExactly(0, 1);
+    assertThat(iterations.get(1).getLong("playerLineups"))
+        .isLessThan(iterations.get(0).getLong("playerLineups"));
+
+    assertThat(ofType(events, SimEvents.Step.NAME).stream()
+        .map(e -> e.getString("step"))
+        .collect(toImmutableList()))
+        .containsExactly("Lineup Generation", RunMetrics.SCORING, "Output",
+            RunMetrics.SCORING, "Output");
+
+    ImmutableList<RecordedEvent> prunes = ofType(events, SimEvents.Prune.NAME);
+    assertThat(prunes).hasSize(1);
+    assertThat(prunes.get(0).getDouble("ratio")).isEqualTo(0.5);
+    assertThat(prunes.get(0).getLong("after"))
+        .isEqualTo(iterations.get(1).getLong("playerLineups"));
+
+    assertThat(ofType(events, SimEvents.OutputBuild.NAME)).hasSize(2);
+  }
+
+  @Test
+  public void enabled_samplesZeroSumSolves() throws IOException {
+    ImmutableList<RecordedEvent> solves =
+        ofType(record(ImmutableList.of(SimEvents.ZeroSumSolve.NAME)), SimEvents.ZeroSumSolve.NAME);
+
+    assertThat(solves).isNotEmpty();
+    for (RecordedEvent solve : solves) {
+      assertThat(solve.getInt("rows")).isEqualTo(3);
+      assertThat(solve.getInt("columns")).isEqualTo(3);
+      assertThat(solve.getInt("pivots")).isAtLeast(0);
+    }
+  }
+
+  @Test
+  public void zeroSumSolve_samplesOneInInterval() {
+    assertThat(SimEvents.ZeroSumSolve.sample(0)).isNotNull();
+    assertThat(SimEvents.ZeroSumSolve.sample(1)).isNull();
+    assertThat(SimEvents.ZeroSumSolve.sample(SimEvents.ZeroSumSolve.SAMPLE_INTERVAL - 1)).isNull();
+    assertThat(SimEvents.ZeroSumSolve.sample(SimEvents.ZeroSumSolve.SAMPLE_INTERVAL)).isNotNull();
+  }
+}
@@ -0,0 +1,146 @@
+package com.redpup.bracketbuster.sim;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.redpup.bracketbuster.util.AssertExt.assertThrows;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.redpup.bracketbuster.model.Lineup;
+import com.redpup.bracketbuster.model.LineupTables;
+import com.redpup.bracketbuster.model.LineupWeightType;
+import com.redpup.bracketbuster.model.MatchupMatrix;
+import com.redpup.bracketbuster.model.SyntheticMatchups;
+import com.redpup.bracketbuster.model.proto.MatchupList;
+import com.redpup.bracketbuster.sim.Calculations.CalculationType;
+import com.redpup.bracketbuster.util.QuantizedUnitTable;
+import com.redpup.bracketbuster.util.WeightedDoubleMetric;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class UnweightedResultsTest {
+
+  private static final double ERROR = 1.0e-12;
+
+  @Rule
+  public final TemporaryFolder folder = new TemporaryFolder();
+
+  private MatchupList list;
+  private PayoffMatrix payoffs;
+  private UnweightedResults results;
+
+  @Before
+  public void setup() throws IOException {
+    list = SyntheticMatchups.builder(9).setSparsity(0.1).setSeed(5).build().generate();
+    MatchupMatrix matrix = MatchupMatrix.fromProto(list);
+    payoffs = PayoffMatrix.load(LineupTables.compute(matrix, LineupWeightType.AVERAGE),
+        CalculationType.NASH, true, folder.newFolder().toPath(), 1, new RunMetrics());
+    results = UnweightedResults.of(payoffs, new CollectingLogger());
+  }
+
+  @Test
+  public void weightedMean_ofOriginalWeights_matchesMetric() {
+    for (int row = 0; row < results.playerLineups().size(); row++) {
+      WeightedDoubleMetric metric = results.metric(row, results.weights());
+
+      assertThat(results.weightedMean(row, results.weights()))
+          .isWithin(ERROR).of(metric.getWeightedMean());
+      assertThat(metric).isEqualTo(results.playerLineups().get(row).metadata().getWinRateMetric());
+    }
+  }
+
+  @Test
+  public void metric_ofNewWeights_onlyChangesWeightedMean() {
+    OpponentWeights weights = results.weights().withPlayRates(squaredPlayRates());
+
+    for (int row = 0; row < results.playerLineups().size(); row++) {
+      WeightedDoubleMetric original = results.metric(row, results.weights());
+      WeightedDoubleMetric reweighted = results.metric(row, weights);
+
+      assertThat(reweighted.getWeightedMean()).isEqualTo(results.weightedMean(row, weights));
+      assertThat(reweighted.getUnweightedMean()).isEqualTo(original.getUnweightedMean());
+      assertThat(reweighted.getMedian()).isEqualTo(original.getMedian());
+    }
+  }
+
+  @Test
+  public void computeTopLineupsReweighted_matchesRunWithNewPlayRates() {
+    Map<String, Double> playRates = squaredPlayRates();
+    CollectingLogger expectedLogger = new CollectingLogger();
+    Runner.builder()
+        .setMatchupMatrix(MatchupMatrix.fromProto(
+            list.toBuilder().clearOpponent().putAllOpponent(playRates).build()))
+        .setCalculationType(CalculationType.NASH)
+        .setSortType(SortType.WEIGHTED_MEAN_WIN_RATE)
+        .setTopKToPrintLimit(10)
+        .setLogger(expectedLogger)
+        .build()
+        .run();
+    CollectingLogger actualLogger = new CollectingLogger();
+    Runner.builder()
+        .setMatchupMatrix(MatchupMatrix.fromProto(list))
+        .setCalculationType(CalculationType.NASH)
+        .setSortType(SortType.WEIGHTED_MEAN_WIN_RATE)
+        .setTopKToPrintLimit(10)
+        .setLogger(actualLogger)
+        .build()
+        .computeTopLineupsReweighted(results, results.weights().withPlayRates(playRates));
+
+    ImmutableMap<Lineup, WeightedDoubleMetric> expected =
+        expectedLogger.outputs().get(0).topLineups;
+    ImmutableMap<Lineup, WeightedDoubleMetric> actual = actualLogger.outputs().get(0).topLineups;
+    assertThat(actual.keySet().asList().get(0)).isEqualTo(expected.keySet().asList().get(0));
+    for (Lineup lineup : expected.keySet()) {
+      if (actual.containsKey(lineup)) {
+        assertThat(actual.get(lineup).getWeightedMean())
+            .isWithin(QuantizedUnitTable.MAX_ERROR).of(expected.get(lineup).getWeightedMean());
+      }
+    }
+  }
+
+  @Test
+  public void computeTopLineupsFromPayoffs_recordsMatchupsPerRow() {
+    Runner runner = Runner.builder()
+        .setMatchupMatrix(MatchupMatrix.fromProto(list))
+        .setCalculationType(CalculationType.NASH)
+        .setLogger(new CollectingLogger())
+        .build();
+    runner.computeTopLineupsFromPayoffs(payoffs);
+
+    assertThat(runner.metrics().getLineups()).isEqualTo(payoffs.rows());
+    assertThat(runner.metrics().getMatchups()).isEqualTo(results.matchups());
+  }
+
+  @Test
+  public void computeTopLineupsReweighted_requiresMatchingCalculationType() {
+    Runner runner = Runner.builder()
+        .setMatchupMatrix(MatchupMatrix.fromProto(list))
+        .setCalculationType(CalculationType.NAIVE)
+        .setLogger(new CollectingLogger())
+        .build();
+
+    assertThrows(IllegalArgumentException.class,
+        () -> runner.computeTopLineupsReweighted(results, results.weights()));
+  }
+
+  @Test
+  public void weightedMean_ofOtherOpponentsThrows() {
+    OpponentWeights other = OpponentWeights.of(MatchupMatrix.fromProto(list), ImmutableList.of(),
+        LineupWeightType.AVERAGE);
+
+    assertThrows(IllegalArgumentException.class, () -> results.weightedMean(0, other));
+  }
+
+  private Map<String, Double> squaredPlayRates() {
+    Map<String, Double> playRates = new HashMap<>(list.getOpponentMap());
+    playRates.replaceAll((deck, playRate) -> playRate * playRate);
+    return playRates;
+  }
+}
@@ -0,0 +1,72 @@
+package com.redpup.bracketbuster.util;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.redpup.bracketbuster.util.AssertExt.assertThrows;
+
+import java.util.SplittableRandom;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class AliasTableTest {
+
+  private static final int SAMPLES = 200000;
+
+  private static double[] frequencies(AliasTable table) {
+    SplittableRandom random = new SplittableRandom(0);
+    double[] frequencies = new double[table.size()];
+    for (int i = 0; i < SAMPLES; i++) {
+      frequencies[table.sample(random)] += 1.0 / SAMPLES;
+    }
+    return frequencies;
+  }
+
+  @Test
+  public void sample_proportionalToWeights() {
+    double[] weights = {1, 2, 3, 4, 0.5, 9.5};
+    double[] frequencies = frequencies(new AliasTable(weights));
+
+    for (int i = 0; i < weights.length; i++) {
+      assertThat(frequencies[i]).isWithin(0.005).of(weights[i] / 20);
+    }
+  }
+
+  @Test
+  public void sample_neverReturnsZeroWeight() {
+    double[] frequencies = frequencies(new AliasTable(new double[]{0, 1, 0, 3, 0}));
+
+    assertThat(frequencies[0]).isEqualTo(0.0);
+    assertThat(frequencies[2]).isEqualTo(0.0);
+    assertThat(frequencies[4]).isEqualTo(0.0);
+    assertThat(frequencies[3]).isWithin(0.005).of(0.75);
+  }
+
+  @Test
+  public void sample_heavyTail() {
+    double[] weights = new double[1000];
+    weights[0] = 1000;
+    for (int i = 1; i < weights.length; i++) {
+      weights[i] = 0.001;
+    }
+    double[] frequencies = frequencies(new AliasTable(weights));
+
+    assertThat(frequencies[0]).isWithin(0.005).of(1000 / (1000 + 0.999));
+  }
+
+  @Test
+  public void sample_singleWeight() {
+    AliasTable table = new AliasTable(new double[]{5});
+
+    assertThat(table.sample(new SplittableRandom(0))).isEqualTo(0);
+  }
+
+  @Test
+  public void create_validatesWeights() {
+    assertThrows(IllegalArgumentException.class, () -> new AliasTable(new double[0]));
+    assertThrows(IllegalArgumentException.class, () -> new AliasTable(new double[]{0, 0}));
+    assertThrows(IllegalArgumentException.class, () -> new AliasTable(new double[]{1, -1}));
+    assertThrows(IllegalArgumentException.class,
+        () -> new AliasTable(new double[]{1, Double.NaN}));
+  }
+}
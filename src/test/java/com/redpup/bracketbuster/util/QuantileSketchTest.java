@@ -0,0 +1,117 @@
+package com.redpup.bracketbuster.util;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.redpup.bracketbuster.util.AssertExt.assertThrows;
+
+import com.redpup.bracketbuster.util.proto.QuantileSketchState;
+import java.util.Arrays;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class QuantileSketchTest {
+
+  private static final double RANK_ERROR = 2.0 / (QuantileSketch.CAPACITY - 1);
+
+  private static QuantileSketch sketchOf(double... values) {
+    QuantileSketch sketch = new QuantileSketch();
+    for (double value : values) {
+      sketch.add(value);
+    }
+    return sketch;
+  }
+
+  /**
+   * Returns {@code n} distinct values in {@code [0, 1)}, in no particular order.
+   */
+  private static double[] spread(int n) {
+    double[] values = new double[n];
+    for (int i = 0; i < n; i++) {
+      values[i] = (i * 7919L % n) / (double) n;
+    }
+    return values;
+  }
+
+  private static double exactMedian(double[] values) {
+    double[] sorted = values.clone();
+    Arrays.sort(sorted);
+    return (sorted[(sorted.length - 1) / 2] + sorted[sorted.length / 2]) / 2;
+  }
+
+  @Test
+  public void median_exactForFewValues() {
+    assertThat(sketchOf(2.5).median()).isEqualTo(2.5);
+    assertThat(sketchOf(3.5, 2.5).median()).isEqualTo(3.0);
+    assertThat(sketchOf(3.5, 0.0, 2.5).median()).isEqualTo(2.5);
+  }
+
+  @Test
+  public void median_emptyThrows() {
+    assertThrows(IllegalStateException.class, () -> new QuantileSketch().median());
+  }
+
+  @Test
+  public void equalValues_shareCentroid() {
+    QuantileSketch sketch = new QuantileSketch();
+    for (int i = 0; i < 10000; i++) {
+      sketch.add(i % 3 / 2.0);
+    }
+
+    assertThat(sketch.count()).isEqualTo(10000);
+    assertThat(sketch.size()).isEqualTo(3);
+    assertThat(sketch.median()).isEqualTo(0.5);
+  }
+
+  @Test
+  public void manyValues_boundedAndWithinError() {
+    double[] values = spread(10007);
+    QuantileSketch sketch = sketchOf(values);
+
+    assertThat(sketch.size()).isAtMost(QuantileSketch.CAPACITY);
+    assertThat(sketch.median()).isWithin(RANK_ERROR).of(exactMedian(values));
+  }
+
+  @Test
+  public void merge_boundedAndWithinError() {
+    double[] values = spread(10007);
+    QuantileSketch left = sketchOf(Arrays.copyOfRange(values, 0, 1000));
+    QuantileSketch right = sketchOf(Arrays.copyOfRange(values, 1000, values.length));
+    left.merge(right);
+
+    assertThat(left.count()).isEqualTo(values.length);
+    assertThat(left.size()).isAtMost(QuantileSketch.CAPACITY);
+    assertThat(left.median()).isWithin(RANK_ERROR).of(exactMedian(values));
+    assertThat(right.count()).isEqualTo(values.length - 1000);
+  }
+
+  @Test
+  public void merge_selfThrows() {
+    QuantileSketch sketch = sketchOf(1.0);
+    assertThrows(IllegalArgumentException.class, () -> sketch.merge(sketch));
+  }
+
+  @Test
+  public void proto_roundTrips() {
+    QuantileSketch sketch = sketchOf(spread(10007));
+    QuantileSketchState state = sketch.toProto();
+    QuantileSketch read = QuantileSketch.fromProto(state);
+
+    assertThat(state.getMeansCount()).isAtMost(QuantileSketch.CAPACITY);
+    assertThat(read.count()).isEqualTo(sketch.count());
+    assertThat(read.median()).isEqualTo(sketch.median());
+    assertThat(read.toProto()).isEqualTo(state);
+  }
+
+  @Test
+  public void proto_mismatchedCountsThrows() {
+    QuantileSketchState state = sketchOf(1.0, 2.0).toProto().toBuilder().addCounts(1).build();
+    assertThrows(IllegalArgumentException.class, () -> QuantileSketch.fromProto(state));
+  }
+
+  @Test
+  public void proto_nonPositiveCountThrows() {
+    QuantileSketchState state = sketchOf(1.0).toProto().toBuilder().setCounts(0, 0).build();
+    assertThrows(IllegalArgumentException.class, () -> QuantileSketch.fromProto(state));
+  }
+}
@@ -0,0 +1,75 @@
+package com.redpup.bracketbuster.util;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.redpup.bracketbuster.util.AssertExt.assertThrows;
+
+import java.util.Random;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class QuantizedUnitTableTest {
+
+  @Test
+  public void encodeDecode_endpointsExact() {
+    assertThat(QuantizedUnitTable.decode(QuantizedUnitTable.encode(0))).isEqualTo(0.0);
+    assertThat(QuantizedUnitTable.decode(QuantizedUnitTable.encode(1))).isEqualTo(1.0);
+  }
+
+  @Test
+  public void encodeDecode_nan() {
+    assertThat(QuantizedUnitTable.decode(QuantizedUnitTable.encode(Double.NaN))).isNaN();
+  }
+
+  @Test
+  public void encodeDecode_withinMaxError() {
+    Random random = new Random(0);
+    for (int i = 0; i < 10000; i++) {
+      double value = random.nextDouble();
+      assertThat(QuantizedUnitTable.decode(QuantizedUnitTable.encode(value)))
+          .isWithin(QuantizedUnitTable.MAX_ERROR)
+          .of(value);
+    }
+  }
+
+  @Test
+  public void encode_outOfRangeThrows() {
+    assertThrows(IllegalArgumentException.class, () -> QuantizedUnitTable.encode(-0.1));
+    assertThrows(IllegalArgumentException.class, () -> QuantizedUnitTable.encode(1.1));
+  }
+
+  @Test
+  public void init_allNaN() {
+    QuantizedUnitTable table = new QuantizedUnitTable(2, 3);
+
+    assertThat(table.rows()).isEqualTo(2);
+    assertThat(table.cols()).isEqualTo(3);
+    assertThat(table.sizeInBytes()).isEqualTo(12);
+    for (int row = 0; row < 2; row++) {
+      for (int col = 0; col < 3; col++) {
+        assertThat(table.get(row, col)).isNaN();
+      }
+    }
+  }
+
+  @Test
+  public void setGet() {
+    QuantizedUnitTable table = new QuantizedUnitTable(2, 3);
+    table.set(1, 2, 0.75);
+    table.set(0, 1, 0.123456789);
+
+    assertThat(table.get(1, 2)).isWithin(QuantizedUnitTable.MAX_ERROR).of(0.75);
+    assertThat(table.get(0, 1)).isWithin(QuantizedUnitTable.MAX_ERROR).of(0.123456789);
+    assertThat(table.get(0, 0)).isNaN();
+  }
+
+  @Test
+  public void set_oobThrows() {
+    QuantizedUnitTable table = new QuantizedUnitTable(2, 3);
+
+    assertThrows(IllegalArgumentException.class, () -> table.set(2, 0, 0.5));
+    assertThrows(IllegalArgumentException.class, () -> table.set(0, 3, 0.5));
+    assertThrows(IllegalArgumentException.class, () -> table.set(-1, 0, 0.5));
+  }
+}
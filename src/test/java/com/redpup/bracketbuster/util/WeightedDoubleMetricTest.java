@@ -1,8 +1,10 @@
 package com.redpup.bracketbuster.util;
 
 import static com.google.common.truth.Truth.assertThat;
+import static com.redpup.bracketbuster.util.AssertExt.assertThrows;
 
 import com.google.common.testing.EqualsTester;
+import com.redpup.bracketbuster.util.proto.WeightedDoubleMetricState;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
@@ -129,6 +131,131 @@ public final class WeightedDoubleMetricTest {
     assertThat(metric.getMedian()).isEqualTo(2.5);
   }
 
+  @Test
+  public void fromTotals_matchesBuilder() {
+    WeightedDoubleMetric metric = WeightedDoubleMetric.fromTotals(6.0, 18.5, 3.625, 1.5, 3, 2.5);
+    assertThat(metric).isEqualTo(WeightedDoubleMetric.builder().add(2.5, 0.75).add(3.5, 0.5)
+        .add(0.0, 0.25)
+        .build());
+  }
+
+  @Test
+  public void fromTotals_empty() {
+    assertThat(WeightedDoubleMetric.fromTotals(0, 0, 0, 0, 0, 0))
+        .isEqualTo(WeightedDoubleMetric.builder().build());
+  }
+
+  @Test
+  public void combine_empty() {
+    WeightedDoubleMetric metric = WeightedDoubleMetric.builder()
+        .combine(WeightedDoubleMetric.builder())
+        .build();
+    assertThat(metric).isEqualTo(WeightedDoubleMetric.builder().build());
+  }
+
+  @Test
+  public void combine_intoEmpty() {
+    WeightedDoubleMetric metric = WeightedDoubleMetric.builder()
+        .combine(WeightedDoubleMetric.builder().add(2.5, 0.75).add(3.5, 0.5).add(0.0, 0.15))
+        .build();
+    assertThat(metric.getUnweightedMean()).isEqualTo(2.0);
+    assertThat(metric.getWeightedMean()).isWithin(ERROR).of(2.5892857142);
+    assertThat(metric.getStdDev()).isWithin(ERROR).of(1.4719601443);
+    assertThat(metric.getMedian()).isEqualTo(2.5);
+  }
+
+  @Test
+  public void combine_matchesSingleBuilder() {
+    WeightedDoubleMetric.Builder single = WeightedDoubleMetric.builder();
+    WeightedDoubleMetric.Builder left = WeightedDoubleMetric.builder();
+    WeightedDoubleMetric.Builder right = WeightedDoubleMetric.builder();
+    for (int i = 0; i < 101; i++) {
+      double value = (i * 37 % 101) / 101.0;
+      double weight = 0.1 + (i % 7) / 7.0;
+      single.add(value, weight);
+      (i % 3 == 0 ? left : right).add(value, weight);
+    }
+
+    WeightedDoubleMetric expected = single.build();
+    WeightedDoubleMetric combined = left.combine(right).build();
+    assertThat(combined.getUnweightedMean()).isWithin(ERROR).of(expected.getUnweightedMean());
+    assertThat(combined.getWeightedMean()).isWithin(ERROR).of(expected.getWeightedMean());
+    assertThat(combined.getStdDev()).isWithin(ERROR).of(expected.getStdDev());
+    assertThat(combined.getMedian()).isEqualTo(expected.getMedian());
+  }
+
+  @Test
+  public void combine_selfThrows() {
+    WeightedDoubleMetric.Builder builder = WeightedDoubleMetric.builder().add(1.0);
+    assertThrows(IllegalArgumentException.class, () -> builder.combine(builder));
+  }
+
+  @Test
+  public void proto_roundTrips() {
+    WeightedDoubleMetric.Builder builder = WeightedDoubleMetric.builder().add(2.5, 0.75)
+        .add(3.5, 0.5).add(0.0, 0.15);
+    WeightedDoubleMetricState state = builder.toProto();
+
+    assertThat(state.getCount()).isEqualTo(3);
+    assertThat(state.getMedianSketch().getMeansList()).containsExactly(0.0, 2.5, 3.5).inOrder();
+    assertThat(WeightedDoubleMetric.Builder.fromProto(state).build()).isEqualTo(builder.build());
+  }
+
+  @Test
+  public void proto_boundedByManyValues() {
+    WeightedDoubleMetric.Builder builder = WeightedDoubleMetric.builder();
+    for (int i = 0; i < 10007; i++) {
+      builder.add((i * 7919 % 10007) / 10007.0, 0.5 + (i % 3));
+    }
+    WeightedDoubleMetricState state = builder.toProto();
+    WeightedDoubleMetric expected = builder.build();
+    WeightedDoubleMetric read = WeightedDoubleMetric.Builder.fromProto(state).build();
+
+    assertThat(state.getMedianSketch().getMeansCount()).isAtMost(QuantileSketch.CAPACITY);
+    assertThat(read.getUnweightedMean()).isEqualTo(expected.getUnweightedMean());
+    assertThat(read.getWeightedMean()).isEqualTo(expected.getWeightedMean());
+    assertThat(read.getStdDev()).isEqualTo(expected.getStdDev());
+    assertThat(read.getMedian()).isWithin(2.0 / (QuantileSketch.CAPACITY - 1))
+        .of(expected.getMedian());
+  }
+
+  @Test
+  public void proto_combinesAndAddsAfterRead() {
+    WeightedDoubleMetric.Builder single = WeightedDoubleMetric.builder();
+    WeightedDoubleMetric.Builder left = WeightedDoubleMetric.builder();
+    WeightedDoubleMetric.Builder right = WeightedDoubleMetric.builder();
+    for (int i = 0; i < 101; i++) {
+      double value = (i * 37 % 101) / 101.0;
+      single.add(value);
+      (i % 3 == 0 ? left : right).add(value);
+    }
+
+    WeightedDoubleMetric.Builder read = WeightedDoubleMetric.Builder.fromProto(left.toProto());
+    read.combine(right).add(2.0);
+    single.add(2.0);
+    assertThat(read.build().getMedian()).isEqualTo(single.build().getMedian());
+    assertThat(read.build().getUnweightedMean())
+        .isWithin(ERROR).of(single.build().getUnweightedMean());
+  }
+
+  @Test
+  public void proto_combinesWithBuilder() {
+    WeightedDoubleMetricState state = WeightedDoubleMetric.builder().add(2.5, 0.75).toProto();
+    WeightedDoubleMetric metric = WeightedDoubleMetric.builder().add(3.5, 0.5).add(0.0, 0.15)
+        .combine(WeightedDoubleMetric.Builder.fromProto(state))
+        .build();
+    assertThat(metric.getWeightedMean()).isWithin(ERROR).of(2.5892857142);
+    assertThat(metric.getMedian()).isEqualTo(2.5);
+  }
+
+  @Test
+  public void proto_mismatchedCountThrows() {
+    WeightedDoubleMetricState state = WeightedDoubleMetric.builder().add(1.0).toProto()
+        .toBuilder().setCount(2).build();
+    assertThrows(IllegalArgumentException.class,
+        () -> WeightedDoubleMetric.Builder.fromProto(state));
+  }
+
   @Test
   public void obeysHashAndEquals() {
     new EqualsTester()
@@ -145,4 +272,18 @@ public final class WeightedDoubleMetricTest {
         .testEquals();
   }
 
-}
\ No newline at end of file
+  @Test
+  public void withWeightedMean_replacesOnlyWeightedMean() {
+    WeightedDoubleMetric metric = WeightedDoubleMetric.builder()
+        .add(0.2, 1)
+        .add(0.6, 3)
+        .build();
+
+    WeightedDoubleMetric reweighted = metric.withWeightedMean(0.4);
+
+    assertThat(reweighted.getWeightedMean()).isEqualTo(0.4);
+    assertThat(reweighted.getUnweightedMean()).isEqualTo(metric.getUnweightedMean());
+    assertThat(reweighted.getStdDev()).isEqualTo(metric.getStdDev());
+    assertThat(reweighted.getMedian()).isEqualTo(metric.getMedian());
+  }
+}
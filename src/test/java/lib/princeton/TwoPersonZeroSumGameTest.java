@@ -39,6 +39,12 @@ public final class TwoPersonZeroSumGameTest {
         .containsExactly(1.0).inOrder();
   }
 
+  @Test
+  public void pivots_countsSimplexPivots() {
+    assertThat(new TwoPersonZeroSumGame(new double[][]{{5}}).pivots()).isEqualTo(1);
+    assertThat(new TwoPersonZeroSumGame(new double[][]{{1, 0}, {0, 1}}).pivots()).isAtLeast(2);
+  }
+
   @Test
   public void oneChoice_alwaysLose() {
     double[][] payoff = {